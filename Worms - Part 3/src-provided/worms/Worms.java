@@ -1,13 +1,30 @@
 package worms;
 
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+
 import worms.gui.GUIOptions;
 import worms.gui.WormsGUI;
 import worms.model.Facade;
+import worms.model.ReplayRecorder;
 
 public class Worms {
 
-	public static void main(String[] args) {
-		new WormsGUI(new Facade(), parseOptions(args)).start();
+	public static void main(String[] args) throws FileNotFoundException {
+		GUIOptions options = parseOptions(args);
+		Facade facade = new Facade();
+		if (options.recordFile != null) {
+			final ReplayRecorder recorder = new ReplayRecorder(
+					new FileOutputStream(options.recordFile));
+			facade.setRecorder(recorder);
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					recorder.close();
+				}
+			});
+		}
+		new WormsGUI(facade, options).start();
 	}
 
 	private static GUIOptions parseOptions(String[] args) {
@@ -25,6 +42,13 @@ public class Worms {
 			} else if ("-program".equals(arg)) {
 				String program = args[++i];
 				options.programFile = program;
+			} else if ("-botdelay".equals(arg)) {
+				long delay = Long.parseLong(args[++i]);
+				options.programActionDelay = delay;
+			} else if ("-record".equals(arg)) {
+				options.recordFile = args[++i];
+			} else if ("-profile".equals(arg)) {
+				options.profileFile = args[++i];
 			}
 		}
 
@@ -13,10 +13,21 @@ public final class GUIConstants {
 	public static final int DEFAULT_WINDOW_HEIGHT = 768;
 
 	/**
-	 * Framerate at which to re-draw the screen, in frames per (real) second
+	 * Rate at which the simulation advances, in ticks per (real) second
 	 */
 	public static final int FRAMERATE = 15; // fps
 
+	/**
+	 * Framerate at which to re-draw the screen, in frames per (real) second.
+	 * Sprites are interpolated between the ticks of the simulation.
+	 */
+	public static final int RENDER_FRAMERATE = 60; // fps
+
+	/**
+	 * Factor the camera zooms in by for a single step of the mouse wheel
+	 */
+	public static final double ZOOM_STEP = 1.25;
+
 	/**
 	 * Time (in worm-seconds) that elapses in 1 real second
 	 */
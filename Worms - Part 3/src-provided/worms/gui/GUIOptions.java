@@ -33,4 +33,35 @@ public class GUIOptions {
 	 * Can also be set from the command line with the -program argument
 	 */
 	public String programFile = "programs/program.txt";
+
+	/**
+	 * Minimal time (in real milliseconds) between two actions of a
+	 * computer-controlled worm. The time spent animating an action counts
+	 * towards this delay. Use 0 to let computer-controlled worms act as fast
+	 * as the world can apply their actions.
+	 * Default: 500
+	 * 
+	 * Can also be set from the command line with the -botdelay argument
+	 */
+	public long programActionDelay = 500;
+
+	/**
+	 * File to record the match to, so it can be played again with
+	 * worms.model.ReplayPlayer.
+	 * Default: null (no recording)
+	 * 
+	 * Can also be set from the command line with the -record argument
+	 */
+	public String recordFile = null;
+
+	/**
+	 * File to write the profiles of the programs of computer-controlled worms
+	 * to when the game is over, as collapsed stacks for flame graph tools. A
+	 * report of the slowest statements of every worm is written next to it,
+	 * to the same file name followed by ".txt".
+	 * Default: null (no profiling)
+	 * 
+	 * Can also be set from the command line with the -profile argument
+	 */
+	public String profileFile = null;
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
 
 import worms.gui.game.commands.Command;
 import worms.model.IFacade;
@@ -21,6 +24,11 @@ public class GameState {
 
 	private World world;
 
+	/**
+	 * The amount of commands that are being executed
+	 */
+	private final AtomicInteger executing = new AtomicInteger();
+
 	private final Level level;
 
 	public GameState(IFacade facade, long randomSeed, Level level) {
@@ -50,22 +58,40 @@ public class GameState {
 	}
 
 	public boolean executeImmediately(Command cmd) {
-		cmd.startExecution();
-		while (!cmd.isTerminated()) {
-			try {
-				Double dt = timeDelta.poll(1000 / GUIConstants.FRAMERATE,
-						TimeUnit.MILLISECONDS); // blocks, but allows repainting
-												// if necessary
-				if (dt != null) {
-					cmd.update(dt);
+		executing.incrementAndGet();
+		try {
+			cmd.startExecution();
+			while (!cmd.isTerminated()) {
+				try {
+					Double dt = timeDelta.poll(1000 / GUIConstants.FRAMERATE,
+							TimeUnit.MILLISECONDS); // blocks, but allows
+													// repainting if necessary
+					if (dt != null) {
+						cmd.update(dt);
+						// the tick is only complete once the command took it
+						cmd.getScreen().publishFrame();
+					}
+					if (SwingUtilities.isEventDispatchThread()) {
+						// the render loop can not paint while the command
+						// blocks the GUI thread
+						cmd.getScreen().repaintChanged();
+					}
+				} catch (InterruptedException e) {
+					e.printStackTrace();
 				}
-				cmd.getScreen().repaint(); // repaint while executing command
-											// (which might block GUI thread)
-			} catch (InterruptedException e) {
-				e.printStackTrace();
 			}
+			return cmd.isExecutionCompleted();
+		} finally {
+			executing.decrementAndGet();
 		}
-		return cmd.isExecutionCompleted();
+	}
+
+	/**
+	 * Returns whether a command is being executed, which then completes the
+	 * ticks of the simulation
+	 */
+	public boolean isExecutingCommand() {
+		return executing.get() > 0;
 	}
 
 	public Level getLevel() {
@@ -33,6 +33,14 @@ public class InputMode<ScreenType extends Screen> implements KeyListener, MouseL
 	public void paintOverlay(Graphics2D g) {
 	}
 
+	/**
+	 * Whether the overlay of this mode changes without the screen being
+	 * repainted, so the whole screen must be painted every frame
+	 */
+	public boolean hasChangingOverlay() {
+		return false;
+	}
+
 	@Override
 	public void keyPressed(KeyEvent e) {
 	}
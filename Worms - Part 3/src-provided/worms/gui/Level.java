@@ -108,6 +108,7 @@ public class Level {
 	}
 
 	private final LevelFile file;
+	private String mapName;
 	private BufferedImage mapImage;
 
 	private double scale;
@@ -133,8 +134,9 @@ public class Level {
 	}
 
 	protected void readFile(BufferedReader reader) throws IOException {
+		this.mapName = readAsKeyVal(reader, "map");
 		this.mapImage = ImageIO.read(GUIUtils.openResource(LEVELS_DIRECTORY
-				+ "/" + readAsKeyVal(reader, "map")));
+				+ "/" + mapName));
 		try {
 			double height = Double.parseDouble(readAsKeyVal(reader, "height"));
 			this.scale = height / mapImage.getHeight();
@@ -163,6 +165,20 @@ public class Level {
 		return value;
 	}
 
+	/**
+	 * The location of the level file
+	 */
+	public URL getURL() {
+		return file.getURL();
+	}
+
+	/**
+	 * The location of the map image of the loaded level
+	 */
+	public URL getMapURL() throws IOException {
+		return GUIUtils.toURL(LEVELS_DIRECTORY + "/" + mapName);
+	}
+
 	public BufferedImage getMapImage() {
 		return mapImage;
 	}
@@ -3,6 +3,7 @@ package worms.gui;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 
 import javax.swing.JComponent;
@@ -101,6 +102,10 @@ public abstract class Screen {
 		}
 	}
 
+	protected boolean isShowingMessage() {
+		return messageDisplay.getMessage() != null;
+	}
+
 	public void addMessage(String message, MessageType type) {
 		messageDisplay.addMessage(message, type);
 		repaint();
@@ -126,6 +131,17 @@ public abstract class Screen {
 
 	}
 
+	/**
+	 * Repaint only the given region of the screen (in pixels)
+	 */
+	public void repaint(Rectangle region) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			getContents().paintImmediately(region);
+		} else {
+			getContents().repaint(region);
+		}
+	}
+
 	public void screenStopped() {
 		switchInputMode(null);
 	}
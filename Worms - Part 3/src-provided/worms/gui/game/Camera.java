@@ -0,0 +1,183 @@
+package worms.gui.game;
+
+/**
+ * The part of the world that is shown on a screen of a given size: the
+ * world point in the center of the screen and the zoom factor. At zoom 1,
+ * the whole world fits the screen and is centered on it.
+ *
+ * A camera is never changed; zooming or panning gives a new camera. The
+ * camera is kept inside the world, unless the world is smaller than the
+ * screen in that direction.
+ */
+public final class Camera {
+
+	/**
+	 * The largest zoom factor
+	 */
+	public static final double MAX_ZOOM = 16;
+
+	private final int screenWidth;
+	private final int screenHeight;
+	private final double worldWidth;
+	private final double worldHeight;
+	private final double zoom;
+	private final double centerX;
+	private final double centerY;
+
+	/**
+	 * Scale (in worm-meter per pixel)
+	 */
+	private final double scale;
+
+	private Camera(int screenWidth, int screenHeight, double worldWidth,
+			double worldHeight, double zoom, double centerX, double centerY) {
+		this.screenWidth = Math.max(1, screenWidth);
+		this.screenHeight = Math.max(1, screenHeight);
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+		this.zoom = Math.max(1, Math.min(MAX_ZOOM, zoom));
+		this.scale = Math.max(worldWidth / this.screenWidth, worldHeight
+				/ this.screenHeight)
+				/ this.zoom;
+		this.centerX = restrict(centerX, worldWidth, this.screenWidth * scale);
+		this.centerY = restrict(centerY, worldHeight, this.screenHeight
+				* scale);
+	}
+
+	/**
+	 * A camera showing the whole world on a screen of the given size
+	 */
+	static Camera fit(double worldWidth, double worldHeight, int screenWidth,
+			int screenHeight) {
+		return new Camera(screenWidth, screenHeight, worldWidth, worldHeight,
+				1, worldWidth / 2, worldHeight / 2);
+	}
+
+	/**
+	 * Center (in worm-meter) that keeps a view of the given size inside the
+	 * world
+	 */
+	private static double restrict(double center, double worldSize,
+			double viewSize) {
+		if (viewSize >= worldSize) {
+			return worldSize / 2;
+		}
+		return Math.max(viewSize / 2, Math.min(worldSize - viewSize / 2,
+				center));
+	}
+
+	/**
+	 * This camera on a screen of the given size
+	 */
+	Camera resize(int screenWidth, int screenHeight) {
+		return new Camera(screenWidth, screenHeight, worldWidth, worldHeight,
+				zoom, centerX, centerY);
+	}
+
+	/**
+	 * This camera zoomed by the given factor, keeping the world point at the
+	 * given screen location in place
+	 */
+	Camera zoom(double factor, double screenX, double screenY) {
+		double x = getLogicalX(screenX);
+		double y = getLogicalY(screenY);
+		double newZoom = Math.max(1, Math.min(MAX_ZOOM, zoom * factor));
+		double newScale = scale * zoom / newZoom;
+		return new Camera(screenWidth, screenHeight, worldWidth, worldHeight,
+				newZoom, x - (screenX - screenWidth / 2.0) * newScale, y
+						+ (screenY - screenHeight / 2.0) * newScale);
+	}
+
+	/**
+	 * This camera moved so the world moves by the given distance (in pixels)
+	 * on the screen
+	 */
+	Camera pan(double dx, double dy) {
+		return new Camera(screenWidth, screenHeight, worldWidth, worldHeight,
+				zoom, centerX - dx * scale, centerY + dy * scale);
+	}
+
+	public int getScreenWidth() {
+		return screenWidth;
+	}
+
+	public int getScreenHeight() {
+		return screenHeight;
+	}
+
+	public double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * Scale of the displayed world (in worm-meter per pixel)
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Distance in the world (worm-meter) to distance on the screen (pixels)
+	 */
+	public double worldToScreenDistance(double ds) {
+		return ds / scale;
+	}
+
+	/**
+	 * Distance on the screen (pixels) to distance in the world (worm-meter)
+	 */
+	public double screenToWorldDistance(double ds) {
+		return ds * scale;
+	}
+
+	/**
+	 * World x coordinate to screen x coordinate
+	 */
+	public double getScreenX(double x) {
+		return screenWidth / 2.0 + (x - centerX) / scale;
+	}
+
+	/**
+	 * Screen x coordinate to world x coordinate
+	 */
+	public double getLogicalX(double screenX) {
+		return centerX + (screenX - screenWidth / 2.0) * scale;
+	}
+
+	/**
+	 * World y coordinate to screen y coordinate
+	 */
+	public double getScreenY(double y) {
+		return screenHeight / 2.0 - (y - centerY) / scale;
+	}
+
+	/**
+	 * Screen y coordinate to world y coordinate
+	 */
+	public double getLogicalY(double screenY) {
+		return centerY - (screenY - screenHeight / 2.0) * scale;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Camera)) {
+			return false;
+		}
+		Camera other = (Camera) obj;
+		return screenWidth == other.screenWidth
+				&& screenHeight == other.screenHeight
+				&& worldWidth == other.worldWidth
+				&& worldHeight == other.worldHeight && zoom == other.zoom
+				&& centerX == other.centerX && centerY == other.centerY;
+	}
+
+	@Override
+	public int hashCode() {
+		long bits = Double.doubleToLongBits(zoom);
+		bits = 31 * bits + Double.doubleToLongBits(centerX);
+		bits = 31 * bits + Double.doubleToLongBits(centerY);
+		bits = 31 * bits + screenWidth;
+		bits = 31 * bits + screenHeight;
+		return (int) (bits ^ (bits >>> 32));
+	}
+}
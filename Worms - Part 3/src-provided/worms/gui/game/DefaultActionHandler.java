@@ -2,6 +2,7 @@ package worms.gui.game;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import worms.gui.GameState;
 import worms.gui.game.commands.AddNewFood;
@@ -28,6 +29,12 @@ class DefaultActionHandler implements IActionHandler {
 	private final ExecutorService executor = Executors
 			.newSingleThreadExecutor();
 
+	/**
+	 * The time (System.nanoTime) at which the previous program action was
+	 * applied to the world.
+	 */
+	private long lastProgramAction = System.nanoTime();
+
 	public DefaultActionHandler(PlayGameScreen screen, boolean userInitiated) {
 		this.screen = screen;
 		this.userInitiated = userInitiated;
@@ -78,12 +85,28 @@ class DefaultActionHandler implements IActionHandler {
 			return true;
 		} else {
 			boolean result = getGameState().executeImmediately(cmd);
+			awaitNextProgramAction();
+			return result;
+		}
+	}
+
+	/**
+	 * Blocks the program until the configured delay since its previous action
+	 * has passed. Time spent animating the action counts towards the delay, so
+	 * long animations do not slow down computer-controlled worms any further.
+	 */
+	private void awaitNextProgramAction() {
+		long delay = getScreen().getGUI().getOptions().programActionDelay;
+		long now = System.nanoTime();
+		long remaining = delay
+				- TimeUnit.NANOSECONDS.toMillis(now - lastProgramAction);
+		if (remaining > 0) {
 			try {
-				Thread.sleep(500);
+				Thread.sleep(remaining);
 			} catch (InterruptedException e) {
 			}
-			return result;
 		}
+		lastProgramAction = System.nanoTime();
 	}
 
 	@Override
@@ -0,0 +1,25 @@
+package worms.gui.game;
+
+import worms.gui.game.sprites.FoodSprite;
+
+/**
+ * The state of a food sprite at one tick of the simulation
+ */
+final class FoodRecord extends SpriteRecord {
+
+	/**
+	 * Radius (in worm-meter)
+	 */
+	final double radius;
+
+	private FoodRecord(FoodSprite sprite) {
+		super(sprite);
+		this.radius = sprite.getRadius();
+	}
+
+	static FoodRecord of(FoodSprite sprite) {
+		synchronized (sprite) {
+			return new FoodRecord(sprite);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package worms.gui.game;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import worms.gui.GUIOptions;
+import worms.gui.GameState;
+import worms.gui.Level;
+import worms.gui.WormsGUI;
+import worms.gui.game.sprites.ProjectileSprite;
+import worms.gui.game.sprites.WormSprite;
+import worms.model.Facade;
+import worms.model.IFacade;
+import worms.model.ModelException;
+import worms.model.Projectile;
+import worms.model.ReplayListener;
+import worms.model.ReplayPlayer;
+import worms.model.World;
+import worms.model.Worm;
+
+/**
+ * Renders a match without a display, as a sequence of PNG files.
+ *
+ * The frames are painted by the painter of a play screen that is never shown,
+ * on images instead of the screen. The renderer is driven by a replay player:
+ * after every action of the log, the sprites are brought up to date and a few
+ * frames are painted, with the sprites moving from where they were before the
+ * action to where they are after it, as the screen does between two ticks.
+ * The tiles of the level and the jump markers of the worms are computed
+ * before they are painted, so every frame is complete. A projectile that was
+ * just fired is painted along its flight, through the steps the facade gives
+ * for it as the fire command does, before the action that lands it. Frames
+ * are encoded while the next ones are painted.
+ */
+public class FrameRenderer implements ReplayListener {
+
+	/**
+	 * The amount of frames painted per second of the flight of a projectile
+	 */
+	private static final int FLIGHT_FRAMES_PER_SECOND = 25;
+
+	/**
+	 * The most frames painted for the flight of one projectile
+	 */
+	private static final int MAX_FLIGHT_FRAMES = 250;
+
+	private final Level level;
+	private final PlayGameScreen screen;
+	private final PngSequenceWriter writer;
+	private final int framesPerAction;
+
+	/**
+	 * The world that is rendered, or null
+	 */
+	private volatile World world;
+
+	/**
+	 * The projectile whose flight was painted last, or null
+	 */
+	private Projectile flown;
+
+	/**
+	 * @param directory
+	 *            the directory the frames are written to; it is created if it
+	 *            does not exist
+	 * @param framesPerAction
+	 *            the amount of frames painted after every action of a replay
+	 * @param threads
+	 *            the amount of threads encoding frames
+	 * @param queued
+	 *            the amount of frames that may wait to be encoded before
+	 *            painting waits for the encoders
+	 */
+	public FrameRenderer(IFacade facade, Level level, File directory,
+			int width, int height, int framesPerAction, int threads, int queued)
+			throws IOException {
+		if (width < 1 || height < 1 || framesPerAction < 1) {
+			throw new IllegalArgumentException("Invalid frame size or rate");
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create " + directory);
+		}
+		level.load();
+		this.level = level;
+		this.framesPerAction = framesPerAction;
+		GameState state = new GameState(facade, 0, level) {
+			@Override
+			public World getWorld() {
+				return world;
+			}
+		};
+		this.screen = new PlayGameScreen(new WormsGUI(facade, new GUIOptions()),
+				state) {
+			@Override
+			protected PlayGameScreenPainter createPainter() {
+				return new PlayGameScreenPainter(this) {
+					@Override
+					BufferedImage getTile(LevelTiles tiles, int zoomLevel,
+							int column, int row) {
+						return tiles.loadTile(zoomLevel, column, row);
+					}
+				};
+			}
+
+			@Override
+			protected WormSprite createWormSprite(Worm worm) {
+				return new WormSprite(this, worm) {
+					@Override
+					protected void computeJumpSteps(Runnable computation) {
+						// every frame shows the markers of the worm as it is
+						computation.run();
+					}
+				};
+			}
+
+			@Override
+			protected Worm findCurrentWorm() {
+				// asking the facade may select the next worm, which the
+				// replay does itself where it was recorded
+				World world = getWorld();
+				List<Worm> worms = world.getWorms();
+				int index = world.getIndex();
+				return index >= 0 && index < worms.size() ? worms.get(index)
+						: null;
+			}
+		};
+		screen.getContents().setSize(width, height);
+		this.writer = new PngSequenceWriter(directory, "frame", width, height,
+				threads, queued);
+	}
+
+	/**
+	 * Paints the frames of an action of a replay
+	 */
+	@Override
+	public void actionPerformed(World world) {
+		try {
+			render(world, framesPerAction);
+			Projectile projectile = screen.getFacade().getActiveProjectile(
+					world);
+			if (projectile != null && projectile != flown) {
+				flown = projectile;
+				renderFlight(world, projectile);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not write a frame", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rendering", e);
+		}
+	}
+
+	/**
+	 * Paints the given amount of frames of the given world, moving its
+	 * entities from where they were in the previous frame to where they are
+	 * now
+	 */
+	public void render(World world, int frames) throws IOException,
+			InterruptedException {
+		if (world != this.world) {
+			if (world.getWorldWidth() != level.getWorldWidth()
+					|| world.getWorldHeight() != level.getWorldHeight()) {
+				throw new IllegalArgumentException("The world is not one of "
+						+ level.getName());
+			}
+			this.world = world;
+		}
+		screen.update();
+		screen.publishFrame();
+		RenderFrame frame = screen.getFrame();
+		long interval = frame.getTime() - frame.getPreviousTime();
+		for (int i = 1; i <= frames; i++) {
+			BufferedImage image = writer.takeImage();
+			Graphics2D g = image.createGraphics();
+			g.setBackground(Color.BLACK);
+			g.clearRect(0, 0, image.getWidth(), image.getHeight());
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			screen.painter.paint(g, frame.getTime() + interval * i / frames);
+			g.dispose();
+			writer.write(image);
+		}
+	}
+
+	/**
+	 * Paints the flight of the given projectile of the given world, from where
+	 * it is now to where it will land, without moving it
+	 */
+	private void renderFlight(World world, Projectile projectile)
+			throws IOException, InterruptedException {
+		ProjectileSprite sprite = screen.getSpriteOfTypeFor(
+				ProjectileSprite.class, projectile);
+		if (sprite == null) {
+			return;
+		}
+		IFacade facade = screen.getFacade();
+		try {
+			double duration = facade.getJumpTime(projectile,
+					ReplayPlayer.JUMP_TIME_STEP);
+			int frames = Math.min(MAX_FLIGHT_FRAMES, Math.max(framesPerAction,
+					(int) Math.ceil(duration * FLIGHT_FRAMES_PER_SECOND)));
+			for (int i = 1; i <= frames; i++) {
+				double[] xy = facade.getJumpStep(projectile, duration * i
+						/ frames);
+				sprite.setCenterLocation(screen.getScreenX(xy[0]),
+						screen.getScreenY(xy[1]));
+				render(world, 1);
+			}
+		} catch (ModelException e) {
+			// the projectile is shown where it is
+		}
+	}
+
+	/**
+	 * The amount of frames that were painted
+	 */
+	public int getFrameCount() {
+		return writer.getFrameCount();
+	}
+
+	/**
+	 * Waits until every frame is written
+	 */
+	public void close() throws IOException, InterruptedException {
+		writer.close();
+	}
+
+	/**
+	 * Renders a replay of a match on the given level
+	 */
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		if (args.length < 3) {
+			System.err
+					.println("Usage: FrameRenderer <level> <replay file> <output directory> [width height [frames per action]]");
+			return;
+		}
+		Level level = null;
+		for (Level available : Level.getAvailableLevels()) {
+			if (available.getName().equals(args[0])) {
+				level = available;
+			}
+		}
+		if (level == null) {
+			System.err.println("No level named " + args[0]);
+			return;
+		}
+		int width = args.length > 4 ? Integer.parseInt(args[3]) : 1920;
+		int height = args.length > 4 ? Integer.parseInt(args[4]) : 1080;
+		int framesPerAction = args.length > 5 ? Integer.parseInt(args[5]) : 4;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		Facade facade = new Facade();
+		FrameRenderer renderer = new FrameRenderer(facade, level, new File(
+				args[2]), width, height, framesPerAction, threads, 2 * threads);
+		ReplayPlayer player = new ReplayPlayer(facade);
+		player.setListener(renderer);
+		long start = System.nanoTime();
+		InputStream in = new FileInputStream(args[1]);
+		try {
+			player.play(in);
+		} finally {
+			in.close();
+			renderer.close();
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d frames in %.3f s (%.1f frames per second)%n",
+				renderer.getFrameCount(), elapsed, renderer.getFrameCount()
+						/ elapsed);
+	}
+}
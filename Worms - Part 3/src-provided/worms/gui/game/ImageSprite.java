@@ -3,22 +3,17 @@ package worms.gui.game;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
-
-import javax.imageio.ImageIO;
-
-import worms.gui.GUIUtils;
 
 public abstract class ImageSprite<T> extends Sprite<T> {
 
-	// original image, at original scale
+	// original image, at original scale, shared by all sprites of the file
 	private final BufferedImage originalImage;
 
-	// only created when scale != 1.0
-	private BufferedImage scaledImage;
-	// only create when necessary
-	private BufferedImage scaledImageHflipped;
+	// the image that was drawn last, and the size and orientation it has
+	private BufferedImage imageToDraw;
+	private int drawnWidth;
+	private int drawnHeight;
+	private boolean drawnHflipped;
 
 	private boolean hflipped = false;
 
@@ -28,7 +23,9 @@ public abstract class ImageSprite<T> extends Sprite<T> {
 		super(screen);
 		this.scale = 1.0;
 		this.originalImage = loadImage(filename);
-		this.scaledImage = originalImage;
+		this.imageToDraw = originalImage;
+		this.drawnWidth = originalImage.getWidth();
+		this.drawnHeight = originalImage.getHeight();
 	}
 
 	@Override
@@ -49,25 +46,10 @@ public abstract class ImageSprite<T> extends Sprite<T> {
 		return originalImage.getHeight();
 	}
 
-	public void setScale(double newScale) {
-		if (newScale == this.scale) {
-			return;
-		}
-
-		this.scale = newScale;
-		if (newScale != 1.0) {
-			this.scaledImage = toBufferedImage(originalImage.getScaledInstance(
-					(int) (newScale * originalImage.getWidth()),
-					(int) (newScale * originalImage.getHeight()),
-					Image.SCALE_SMOOTH));
-		} else {
-			this.scaledImage = originalImage;
-		}
-
-		if (isHflipped()) {
-			this.scaledImageHflipped = hflip(this.scaledImage);
-		} else {
-			this.scaledImageHflipped = null;
+	public synchronized void setScale(double newScale) {
+		if (newScale != scale) {
+			this.scale = newScale;
+			invalidate();
 		}
 	}
 
@@ -75,31 +57,34 @@ public abstract class ImageSprite<T> extends Sprite<T> {
 		return scale;
 	}
 
-	protected Image getImageToDraw() {
-		Image imageToDraw = scaledImage;
-		if (isHflipped()) {
-			if (scaledImageHflipped == null) {
-				scaledImageHflipped = hflip(scaledImage);
-			}
-			imageToDraw = scaledImageHflipped;
+	/**
+	 * The original image at the current scale and orientation. Transformed
+	 * images come from a cache shared by all sprites, so an image is only
+	 * scaled or flipped once for every size it is drawn at.
+	 */
+	protected synchronized Image getImageToDraw() {
+		int width = (int) (scale * originalImage.getWidth());
+		int height = (int) (scale * originalImage.getHeight());
+		if (width != drawnWidth || height != drawnHeight
+				|| hflipped != drawnHflipped) {
+			imageToDraw = SpriteImageCache.get(originalImage, width, height,
+					hflipped);
+			drawnWidth = width;
+			drawnHeight = height;
+			drawnHflipped = hflipped;
 		}
 		return imageToDraw;
 	}
 
 	protected BufferedImage loadImage(String filename) {
-		try {
-			InputStream inputStream = GUIUtils.openResource(filename);
-			BufferedImage result = ImageIO.read(inputStream);
-			inputStream.close();
-			return result;
-		} catch (IOException e) {
-			throw new RuntimeException(
-					"Could not read file '" + filename + "'", e);
-		}
+		return SpriteImageCache.load(filename);
 	}
 
-	public void setHflipped(boolean value) {
-		hflipped = value;
+	public synchronized void setHflipped(boolean value) {
+		if (value != hflipped) {
+			hflipped = value;
+			invalidate();
+		}
 	}
 
 	public boolean isHflipped() {
@@ -0,0 +1,486 @@
+package worms.gui.game;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import worms.gui.Level;
+import worms.util.DaemonThreadFactory;
+
+/**
+ * The map image of a level as a pyramid of tiles, so only the visible part
+ * of the map is drawn, at about the resolution of the screen.
+ *
+ * Tiles of zoom level 0 are TILE_SIZE pixels of the map image; every next
+ * zoom level is made of the tiles below it at half the size, up to a level
+ * with a single tile. Tiles are made the first time they are asked for, on
+ * a pool with a thread per processor, and kept in a least-recently-used
+ * map of at most MAX_PIXELS pixels. When the level file is a file on disk,
+ * they are also written as PNG files in a directory next to it
+ * (Name.lvl gives Name.tiles), so the next game on the same map reads them
+ * back. The directory is emptied when the map image changed.
+ */
+final class LevelTiles {
+
+	/**
+	 * Width and height (in pixels) of a tile
+	 */
+	static final int TILE_SIZE = 256;
+
+	/**
+	 * The maximum amount of pixels of the tiles that are kept in memory (4
+	 * bytes each)
+	 */
+	static final long MAX_PIXELS = 16L * 1024 * 1024;
+
+	private static final String STAMP_FILE = "stamp.txt";
+
+	private static final ExecutorService pool = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(),
+			new DaemonThreadFactory("Level tiles"));
+
+	/**
+	 * The tiles of the level that was shown last
+	 */
+	private static LevelTiles current;
+
+	private final BufferedImage source;
+	private final int zoomLevels;
+	private final File directory;
+
+	private final LinkedHashMap<Key, SoftReference<BufferedImage>> loaded = new LinkedHashMap<Key, SoftReference<BufferedImage>>(
+			64, 0.75f, true);
+	private long pixels = 0;
+
+	private final ConcurrentMap<Key, FutureTask<BufferedImage>> loading = new ConcurrentHashMap<Key, FutureTask<BufferedImage>>();
+	private final AtomicInteger version = new AtomicInteger();
+
+	private LevelTiles(Level level) {
+		this.source = level.getMapImage();
+		int levels = 1;
+		while ((long) TILE_SIZE << (levels - 1) < Math.max(source.getWidth(),
+				source.getHeight())) {
+			levels++;
+		}
+		this.zoomLevels = levels;
+		this.directory = openDirectory(level);
+	}
+
+	/**
+	 * The tiles of the given level, or null if it is not loaded
+	 */
+	static synchronized LevelTiles of(Level level) {
+		if (level.getMapImage() == null) {
+			return null;
+		}
+		if (current == null || current.source != level.getMapImage()) {
+			current = new LevelTiles(level);
+		}
+		return current;
+	}
+
+	/**
+	 * The amount of zoom levels; the last one has a single tile
+	 */
+	int getZoomLevels() {
+		return zoomLevels;
+	}
+
+	/**
+	 * Width (in pixels of the map) of the map image
+	 */
+	int getMapWidth() {
+		return source.getWidth();
+	}
+
+	/**
+	 * Height (in pixels of the map) of the map image
+	 */
+	int getMapHeight() {
+		return source.getHeight();
+	}
+
+	/**
+	 * The amount of columns of tiles at the given zoom level
+	 */
+	int getColumns(int zoomLevel) {
+		return divideRoundingUp(source.getWidth(), TILE_SIZE << zoomLevel);
+	}
+
+	/**
+	 * The amount of rows of tiles at the given zoom level
+	 */
+	int getRows(int zoomLevel) {
+		return divideRoundingUp(source.getHeight(), TILE_SIZE << zoomLevel);
+	}
+
+	private static int divideRoundingUp(int dividend, int divisor) {
+		return (dividend + divisor - 1) / divisor;
+	}
+
+	/**
+	 * The zoom level whose tiles are drawn at the given amount of screen
+	 * pixels per map pixel: the coarsest level that still has a pixel for
+	 * every pixel of the screen
+	 */
+	int getZoomLevel(double screenPixelsPerMapPixel) {
+		int zoomLevel = 0;
+		while (zoomLevel < zoomLevels - 1
+				&& screenPixelsPerMapPixel * (2 << zoomLevel) <= 1) {
+			zoomLevel++;
+		}
+		return zoomLevel;
+	}
+
+	/**
+	 * Changes every time a tile was loaded
+	 */
+	int getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * The given tile if it is loaded; otherwise it is loaded in the
+	 * background and null is returned
+	 */
+	BufferedImage getTile(int zoomLevel, int column, int row) {
+		Key key = new Key(zoomLevel, column, row);
+		BufferedImage tile = getLoaded(key);
+		if (tile == null && !loading.containsKey(key)) {
+			FutureTask<BufferedImage> task = createTask(key);
+			if (loading.putIfAbsent(key, task) == null) {
+				pool.execute(task);
+			}
+		}
+		return tile;
+	}
+
+	/**
+	 * The given tile, loaded on this thread if it is not loaded yet
+	 */
+	BufferedImage loadTile(int zoomLevel, int column, int row) {
+		return load(new Key(zoomLevel, column, row));
+	}
+
+	/**
+	 * The given tile if it is loaded, or null
+	 */
+	BufferedImage getLoadedTile(int zoomLevel, int column, int row) {
+		return getLoaded(new Key(zoomLevel, column, row));
+	}
+
+	/**
+	 * The given tile, loaded on this thread if nobody else is loading it
+	 */
+	private BufferedImage load(Key key) {
+		BufferedImage tile = getLoaded(key);
+		if (tile != null) {
+			return tile;
+		}
+		FutureTask<BufferedImage> task = createTask(key);
+		FutureTask<BufferedImage> existing = loading.putIfAbsent(key, task);
+		if (existing != null) {
+			task = existing;
+		}
+		// does nothing if another thread already runs it; a task that is
+		// still queued is run here, so the pool never waits for itself
+		task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Could not make tile " + key,
+					e.getCause());
+		}
+	}
+
+	private FutureTask<BufferedImage> createTask(final Key key) {
+		return new FutureTask<BufferedImage>(new Callable<BufferedImage>() {
+			@Override
+			public BufferedImage call() {
+				BufferedImage tile;
+				boolean made = false;
+				try {
+					tile = getLoaded(key);
+					if (tile != null) {
+						return tile;
+					}
+					tile = read(key);
+					if (tile == null) {
+						tile = make(key);
+						made = true;
+					}
+					addLoaded(key, tile);
+					version.incrementAndGet();
+				} finally {
+					// a tile that failed is tried again when it is asked for
+					loading.remove(key);
+				}
+				if (made) {
+					write(key, tile);
+				}
+				return tile;
+			}
+		});
+	}
+
+	/**
+	 * Make a tile from the map image, or from the four tiles of the zoom
+	 * level below it
+	 */
+	private BufferedImage make(Key key) {
+		int size = TILE_SIZE << key.zoomLevel;
+		int width = divideRoundingUp(
+				Math.min(size, source.getWidth() - key.column * size),
+				1 << key.zoomLevel);
+		int height = divideRoundingUp(
+				Math.min(size, source.getHeight() - key.row * size),
+				1 << key.zoomLevel);
+		BufferedImage tile = SpriteImageCache.createCompatibleImage(width,
+				height);
+		Graphics2D g = tile.createGraphics();
+		if (key.zoomLevel == 0) {
+			int x = key.column * TILE_SIZE;
+			int y = key.row * TILE_SIZE;
+			g.drawImage(source, 0, 0, width, height, x, y, x + width, y
+					+ height, null);
+		} else {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING,
+					RenderingHints.VALUE_RENDER_QUALITY);
+			g.scale(0.5, 0.5);
+			int below = key.zoomLevel - 1;
+			for (int dx = 0; dx < 2; dx++) {
+				for (int dy = 0; dy < 2; dy++) {
+					int column = 2 * key.column + dx;
+					int row = 2 * key.row + dy;
+					if (column < getColumns(below) && row < getRows(below)) {
+						g.drawImage(load(new Key(below, column, row)), dx
+								* TILE_SIZE, dy * TILE_SIZE, null);
+					}
+				}
+			}
+		}
+		g.dispose();
+		return tile;
+	}
+
+	private synchronized BufferedImage getLoaded(Key key) {
+		SoftReference<BufferedImage> reference = loaded.get(key);
+		BufferedImage tile = reference == null ? null : reference.get();
+		if (tile == null && reference != null) {
+			// taken back by the garbage collector
+			loaded.remove(key);
+			pixels -= TILE_SIZE * TILE_SIZE;
+		}
+		return tile;
+	}
+
+	private synchronized void addLoaded(Key key, BufferedImage tile) {
+		if (loaded.put(key, new SoftReference<BufferedImage>(tile)) == null) {
+			pixels += TILE_SIZE * TILE_SIZE;
+		}
+		Iterator<Key> keys = loaded.keySet().iterator();
+		while (pixels > MAX_PIXELS && loaded.size() > 1) {
+			keys.next();
+			keys.remove();
+			pixels -= TILE_SIZE * TILE_SIZE;
+		}
+	}
+
+	/**
+	 * The directory next to the level file the tiles are written to, or null
+	 * if the level file is not a file on disk or the directory can not be
+	 * written
+	 */
+	private File openDirectory(Level level) {
+		try {
+			URL url = level.getURL();
+			if (!"file".equals(url.getProtocol())) {
+				return null;
+			}
+			File levelFile = new File(url.toURI());
+			String name = levelFile.getName();
+			if (name.lastIndexOf('.') > 0) {
+				name = name.substring(0, name.lastIndexOf('.'));
+			}
+			File result = new File(levelFile.getParentFile(), name + ".tiles");
+			String stamp = getStamp(level);
+			File stampFile = new File(result, STAMP_FILE);
+			if (!stamp.equals(readStamp(stampFile))) {
+				// tiles of another map image, or of an older version of it
+				delete(result);
+				if (!result.mkdirs()) {
+					return null;
+				}
+				Writer writer = new FileWriter(stampFile);
+				try {
+					writer.write(stamp);
+				} finally {
+					writer.close();
+				}
+			}
+			return result;
+		} catch (IOException e) {
+			return null;
+		} catch (URISyntaxException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The map image the tiles are made of: its size and the length and
+	 * modification time of its file
+	 */
+	private String getStamp(Level level) throws IOException {
+		URLConnection connection = level.getMapURL().openConnection();
+		String result = TILE_SIZE + " " + source.getWidth() + "x"
+				+ source.getHeight() + " " + connection.getContentLength()
+				+ " " + connection.getLastModified();
+		connection.getInputStream().close();
+		return result;
+	}
+
+	private static String readStamp(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			try {
+				return reader.readLine();
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private File getFile(Key key) {
+		return new File(new File(directory, Integer.toString(key.zoomLevel)),
+				key.column + "_" + key.row + ".png");
+	}
+
+	/**
+	 * The tile written by an earlier game, or null
+	 */
+	private BufferedImage read(Key key) {
+		if (directory == null) {
+			return null;
+		}
+		File file = getFile(key);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			BufferedImage image = ImageIO.read(file);
+			if (image == null) {
+				return null;
+			}
+			BufferedImage tile = SpriteImageCache.createCompatibleImage(
+					image.getWidth(), image.getHeight());
+			Graphics2D g = tile.createGraphics();
+			g.drawImage(image, 0, 0, null);
+			g.dispose();
+			return tile;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Write a tile for later games; a tile that can not be written is made
+	 * again next time
+	 */
+	private void write(Key key, BufferedImage tile) {
+		if (directory == null) {
+			return;
+		}
+		File file = getFile(key);
+		File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			return;
+		}
+		// written under another name first, so no half tile is ever read
+		File temporary = new File(parent, file.getName() + ".tmp"
+				+ Thread.currentThread().getId());
+		try {
+			if (ImageIO.write(tile, "png", temporary)
+					&& !temporary.renameTo(file)) {
+				temporary.delete();
+			}
+		} catch (IOException e) {
+			temporary.delete();
+		}
+	}
+
+	private static final class Key {
+		private final int zoomLevel;
+		private final int column;
+		private final int row;
+
+		Key(int zoomLevel, int column, int row) {
+			this.zoomLevel = zoomLevel;
+			this.column = column;
+			this.row = row;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return zoomLevel == other.zoomLevel && column == other.column
+					&& row == other.row;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * zoomLevel + column) * 31 + row;
+		}
+
+		@Override
+		public String toString() {
+			return zoomLevel + "/" + column + "_" + row;
+		}
+	}
+}
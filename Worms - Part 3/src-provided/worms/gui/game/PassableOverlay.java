@@ -0,0 +1,353 @@
+package worms.gui.game;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import worms.gui.GUIUtils;
+import worms.gui.GameState;
+import worms.gui.Level;
+import worms.model.IFacade;
+import worms.model.World;
+import worms.util.DaemonThreadFactory;
+
+/**
+ * The passability of the world as painted by the debug painter: circles of
+ * the test radius around sample points, red where the facade says a circle
+ * is impassable, green where it is adjacent and blue elsewhere.
+ *
+ * The samples are split in tiles of the world that are computed on a pool
+ * with a thread per processor, each drawn on images of its own at the scale
+ * of the camera. Only the camera's position is applied when a tile is drawn,
+ * so panning reuses every tile that was computed before, and the overlay
+ * fills in while the screen is painted. Only the tiles on the screen are
+ * computed. Tiles are cached per level and scale, which sets the step size
+ * between samples, and computed again for a new world.
+ */
+final class PassableOverlay {
+
+	/**
+	 * The amount of samples along each side of a tile
+	 */
+	private static final int TILE_SAMPLES = 32;
+
+	/**
+	 * The amount of overlays that are kept, e.g. for a few zoom levels
+	 */
+	private static final int MAX_CACHED = 2;
+
+	/**
+	 * The amount of tiles an overlay keeps, a few screens full
+	 */
+	private static final int MAX_TILES = 512;
+
+	private static final Color IMPASSABLE_COLOR = new Color(255, 0, 0, 4);
+	private static final Color ADJACENT_COLOR = new Color(0, 255, 0, 64);
+	private static final Color PASSABLE_COLOR = new Color(0, 0, 255, 4);
+
+	private static final ExecutorService pool = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(),
+			new DaemonThreadFactory("Passable overlay", Thread.MIN_PRIORITY));
+
+	private static final LinkedHashMap<Key, PassableOverlay> cache = new LinkedHashMap<Key, PassableOverlay>(
+			MAX_CACHED, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Key, PassableOverlay> eldest) {
+			if (size() > MAX_CACHED) {
+				eldest.getValue().cancel();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private final IFacade facade;
+	private final World world;
+
+	/**
+	 * Scale the tiles are drawn at (in worm-meter per pixel)
+	 */
+	private final double scale;
+	private final double testRadius;
+	private final double stepSize;
+
+	/**
+	 * The amount of columns and rows of samples in the world
+	 */
+	private final int columns;
+	private final int rows;
+
+	/**
+	 * The tiles by their column and row of tiles, least recently drawn first
+	 */
+	private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(
+			MAX_TILES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+			if (size() > MAX_TILES) {
+				eldest.getValue().future.cancel(false);
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private PassableOverlay(IFacade facade, World world, Level level,
+			double scale) {
+		this.facade = facade;
+		this.world = world;
+		this.scale = scale;
+		this.testRadius = 10 * scale; // 10 screen pixels
+		this.stepSize = 3 * scale; // 3 screen pixels
+		this.columns = countSamples(level.getWorldWidth(), testRadius,
+				stepSize);
+		this.rows = countSamples(level.getWorldHeight(), testRadius, stepSize);
+	}
+
+	/**
+	 * The overlay of the world of the given screen, at the scale of the given
+	 * camera
+	 */
+	static PassableOverlay get(PlayGameScreen screen, Camera camera) {
+		GameState state = screen.getGameState();
+		World world = state.getWorld();
+		Key key = new Key(state.getLevel(), camera.getScale());
+		synchronized (cache) {
+			PassableOverlay overlay = cache.get(key);
+			if (overlay != null && overlay.world != world) {
+				overlay.cancel();
+				overlay = null;
+			}
+			if (overlay == null) {
+				overlay = new PassableOverlay(state.getFacade(), world,
+						state.getLevel(), camera.getScale());
+				cache.put(key, overlay);
+			}
+			return overlay;
+		}
+	}
+
+	/**
+	 * Draw the tiles on the screen of the given camera, which has the scale
+	 * of this overlay, that are finished so far. The tiles that are not
+	 * computed yet are computed in the background.
+	 */
+	synchronized void paint(Graphics2D g, Camera camera) {
+		// samples whose circles can not reach the screen are skipped
+		double reach = testRadius + 2 * stepSize;
+		int firstColumn = getFirstSample(camera.getLogicalX(0) - reach,
+				testRadius, stepSize);
+		int endColumn = Math.min(columns, getFirstSample(
+				camera.getLogicalX(camera.getScreenWidth()) + reach,
+				testRadius, stepSize));
+		int firstRow = getFirstSample(
+				camera.getLogicalY(camera.getScreenHeight()) - reach,
+				testRadius, stepSize);
+		int endRow = Math.min(rows, getFirstSample(camera.getLogicalY(0)
+				+ reach, testRadius, stepSize));
+
+		List<Tile> finished = new ArrayList<Tile>();
+		for (int column = firstColumn / TILE_SAMPLES; column * TILE_SAMPLES < endColumn; column++) {
+			for (int row = firstRow / TILE_SAMPLES; row * TILE_SAMPLES < endRow; row++) {
+				Long index = ((long) column << 32) | row;
+				Tile tile = tiles.get(index);
+				if (tile == null) {
+					tile = new Tile(column * TILE_SAMPLES, Math.min(columns,
+							(column + 1) * TILE_SAMPLES), row * TILE_SAMPLES,
+							Math.min(rows, (row + 1) * TILE_SAMPLES));
+					tile.future = pool.submit(tile);
+					tiles.put(index, tile);
+				} else if (tile.image != null) {
+					finished.add(tile);
+				}
+			}
+		}
+
+		// tiles are placed in pixels from the origin of the world
+		int originX = (int) Math.round(camera.getScreenX(0));
+		int originY = (int) Math.round(camera.getScreenY(0));
+		for (Tile tile : finished) {
+			g.drawImage(tile.image, originX + tile.left, originY + tile.top,
+					null);
+		}
+		for (Tile tile : finished) {
+			g.drawImage(tile.adjacencyImage, originX + tile.left, originY
+					+ tile.top, null);
+		}
+	}
+
+	/**
+	 * The amount of samples from the test radius up to the given length minus
+	 * the test radius
+	 */
+	private static int countSamples(double length, double testRadius,
+			double stepSize) {
+		if (length < 2 * testRadius || stepSize <= 0) {
+			return 0;
+		}
+		return (int) Math.floor((length - 2 * testRadius) / stepSize) + 1;
+	}
+
+	/**
+	 * The index of the first sample at or after the given coordinate
+	 */
+	private static int getFirstSample(double coordinate, double testRadius,
+			double stepSize) {
+		return Math.max(0,
+				(int) Math.ceil((coordinate - testRadius) / stepSize));
+	}
+
+	/**
+	 * Stop computing the tiles that are not finished yet
+	 */
+	private synchronized void cancel() {
+		for (Tile tile : tiles.values()) {
+			tile.future.cancel(false);
+		}
+	}
+
+	/**
+	 * The samples of a block of columns and rows, drawn on images of their
+	 * own. The images are placed in pixels at the scale of the overlay, from
+	 * the origin of the world with y pointing down.
+	 */
+	private final class Tile implements Runnable {
+		private final int firstColumn;
+		private final int endColumn;
+		private final int firstRow;
+		private final int endRow;
+
+		/**
+		 * The distance (in pixels) that circles may reach past the samples of
+		 * this tile, by the test radius and the randomization of their
+		 * centers
+		 */
+		private final int margin;
+		private final int left;
+		private final int top;
+
+		Future<?> future;
+
+		/**
+		 * The images of the tile, or null while it is not finished
+		 */
+		volatile BufferedImage image;
+		volatile BufferedImage adjacencyImage;
+
+		Tile(int firstColumn, int endColumn, int firstRow, int endRow) {
+			this.firstColumn = firstColumn;
+			this.endColumn = endColumn;
+			this.firstRow = firstRow;
+			this.endRow = endRow;
+			this.margin = (int) Math.ceil((testRadius + stepSize) / scale) + 1;
+			this.left = (int) Math.floor(getX(testRadius + firstColumn
+					* stepSize))
+					- margin;
+			this.top = (int) Math.floor(getY(testRadius + (endRow - 1)
+					* stepSize))
+					- margin;
+		}
+
+		private double getX(double x) {
+			return x / scale;
+		}
+
+		private double getY(double y) {
+			return -y / scale;
+		}
+
+		@Override
+		public void run() {
+			int right = (int) Math.ceil(getX(testRadius + (endColumn - 1)
+					* stepSize))
+					+ margin;
+			int bottom = (int) Math.ceil(getY(testRadius + firstRow
+					* stepSize))
+					+ margin;
+
+			BufferedImage tile = new BufferedImage(right - left, bottom - top,
+					BufferedImage.TYPE_INT_ARGB);
+			BufferedImage adjacencyTile = new BufferedImage(right - left,
+					bottom - top, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D tileGfx = tile.createGraphics();
+			tileGfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			tileGfx.translate(-left, -top);
+			Graphics2D adjacencyGfx = adjacencyTile.createGraphics();
+			adjacencyGfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			adjacencyGfx.translate(-left, -top);
+
+			// the same tile is randomized in the same way every time
+			Random random = new Random(31L * firstColumn + firstRow);
+			double screenRadius = testRadius / scale;
+			for (int column = firstColumn; column < endColumn; column++) {
+				double x = testRadius + column * stepSize;
+				for (int row = firstRow; row < endRow; row++) {
+					double y = testRadius + row * stepSize;
+					double randomizedX = x + (-0.5 + random.nextDouble())
+							* stepSize * 2;
+					double randomizedY = y + (-0.5 + random.nextDouble())
+							* stepSize * 2;
+					Graphics2D targetGraphics = tileGfx;
+					if (facade.isImpassable(world, randomizedX, randomizedY,
+							testRadius)) {
+						targetGraphics.setColor(IMPASSABLE_COLOR);
+					} else if (facade.isAdjacent(world, randomizedX,
+							randomizedY, testRadius)) {
+						targetGraphics = adjacencyGfx;
+						targetGraphics.setColor(ADJACENT_COLOR);
+					} else {
+						targetGraphics.setColor(PASSABLE_COLOR);
+					}
+					targetGraphics.fill(GUIUtils.circleAt(getX(randomizedX),
+							getY(randomizedY), screenRadius));
+				}
+			}
+			tileGfx.dispose();
+			adjacencyGfx.dispose();
+			this.adjacencyImage = adjacencyTile;
+			this.image = tile;
+		}
+	}
+
+	private static final class Key {
+		private final Level level;
+		private final double scale;
+
+		Key(Level level, double scale) {
+			this.level = level;
+			this.scale = scale;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return level == other.level && scale == other.scale;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(scale);
+			return 31 * System.identityHashCode(level)
+					+ (int) (bits ^ (bits >>> 32));
+		}
+	}
+}
@@ -1,14 +1,26 @@
 package worms.gui.game;
 
+import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
 
+import javax.swing.SwingUtilities;
+
 import worms.gui.GUIConstants;
 import worms.gui.GUIUtils;
 import worms.gui.GameState;
@@ -21,28 +33,91 @@ import worms.gui.game.modes.EnteringNameMode;
 import worms.gui.game.modes.GameOverMode;
 import worms.gui.game.modes.SetupInputMode;
 import worms.gui.game.sprites.FoodSprite;
+import worms.gui.game.sprites.ProjectileSprite;
 import worms.gui.game.sprites.WormSprite;
 import worms.gui.messages.MessageType;
 import worms.model.Food;
 import worms.model.IFacade;
+import worms.model.Projectile;
+import worms.model.ReplayPlayer;
 import worms.model.World;
 import worms.model.Worm;
+import worms.model.programs.execution.PrintSink;
 
 public class PlayGameScreen extends Screen {
 
 	final PlayGameScreenPainter painter;
 	private final GameState gameState;
 
-	private final Set<Sprite<?>> sprites = new HashSet<Sprite<?>>();
+	private final SpriteRegistry sprites = new SpriteRegistry();
+	private final WorldChanges changes = new WorldChanges();
+	private World listenedWorld;
 	private final DefaultActionHandler userActionHandler;
 	private final IActionHandler programActionHandler;
 
+	/**
+	 * The computer-controlled worms whose programs are profiled, including
+	 * the ones that died
+	 */
+	private final List<Worm> profiledWorms = new ArrayList<Worm>();
+
+	/**
+	 * The sink the programs of the worms print to while the game runs, or
+	 * null before the game started
+	 */
+	private PrintSink printSink;
+
 	public PlayGameScreen(WormsGUI gui, GameState state) {
 		super(gui);
 		this.gameState = state;
 		this.painter = createPainter();
+		this.nameMetrics = getContents().getFontMetrics(
+				getContents().getFont());
 		this.userActionHandler = createUserActionHandler();
 		this.programActionHandler = createProgramActionHandler();
+		addCameraControls();
+	}
+
+	/**
+	 * The mouse wheel zooms in and out at the mouse pointer; dragging with
+	 * any button but the left one pans. They work in every input mode.
+	 */
+	private void addCameraControls() {
+		MouseAdapter controls = new MouseAdapter() {
+			private int lastX;
+			private int lastY;
+			private boolean panning;
+
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				zoom(Math.pow(GUIConstants.ZOOM_STEP, -e.getWheelRotation()),
+						e.getX(), e.getY());
+			}
+
+			@Override
+			public void mousePressed(MouseEvent e) {
+				panning = !SwingUtilities.isLeftMouseButton(e);
+				lastX = e.getX();
+				lastY = e.getY();
+			}
+
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				if (panning) {
+					pan(e.getX() - lastX, e.getY() - lastY);
+					lastX = e.getX();
+					lastY = e.getY();
+				}
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				panning = false;
+			}
+		};
+		getContents().addMouseWheelListener(controls);
+		getContents().addMouseListener(controls);
+		getContents().addMouseMotionListener(controls);
 	}
 
 	protected DefaultActionHandler createUserActionHandler() {
@@ -73,17 +148,131 @@ public class PlayGameScreen extends Screen {
 			long delta = now - lastUpdateTimestamp.getAndSet(now);
 			double dt = delta / 1000.0 * GUIConstants.TIME_SCALE;
 			gameState.evolve(dt);
-			repaint();
+			if (!gameState.isExecutingCommand()) {
+				publishFrame();
+			}
 		}
 	};
+
+	/**
+	 * Whether the game loop still runs; afterwards frames are published by
+	 * the render loop, so the camera can still be moved
+	 */
+	private volatile boolean simulating = true;
+
+	final TimerTask renderLoop = new TimerTask() {
+
+		@Override
+		public void run() {
+			if (!simulating) {
+				publishFrame();
+			}
+			repaintChanged();
+		}
+	};
+
 	private Worm currentWorm;
 
+	/**
+	 * The records of the sprites after the latest tick of the simulation
+	 */
+	private volatile RenderFrame frame;
+
+	/**
+	 * The latest time (System.nanoTime) the frame was published or found to
+	 * be up to date
+	 */
+	private long checkedTime;
+
+	/**
+	 * The metrics of the font the names of worms are drawn in, measured once
+	 * so publishing a frame does not ask the contents for them
+	 */
+	private final FontMetrics nameMetrics;
+
+	/**
+	 * The camera the screen is shown with, or null if it was not used yet
+	 */
+	private Camera camera;
+	private final Object cameraLock = new Object();
+
+	/**
+	 * The camera the sprites were placed with
+	 */
+	private Camera spritesCamera;
+
+	/**
+	 * Publish the current state of the sprites to the painter, at the end of
+	 * a tick of the simulation; the frame is kept if no sprite changed
+	 */
+	public void publishFrame() {
+		synchronized (renderLoop) {
+			Camera current = getCamera();
+			if (!current.equals(spritesCamera)) {
+				// sprites are placed in pixels, so they all moved
+				spritesCamera = current;
+				for (Sprite<?> sprite : sprites.all()) {
+					sprite.update();
+				}
+			}
+			frame = RenderFrame.capture(sprites.all(), getSelectedWorm(), frame,
+					checkedTime, current, nameMetrics);
+			checkedTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The latest published frame, or null
+	 */
+	RenderFrame getFrame() {
+		return frame;
+	}
+
+	private InputMode<?> paintedInputMode;
+	private boolean paintedMessage;
+	private int paintedWidth;
+	private int paintedHeight;
+
+	/**
+	 * Repaints the parts of the screen that changed: the old and new bounds of
+	 * the sprites that changed, or the whole screen when the size, the input
+	 * mode or a message changed. Nothing is painted when nothing changed.
+	 */
+	public synchronized void repaintChanged() {
+		InputMode<?> inputMode = getCurrentInputMode();
+		boolean message = isShowingMessage();
+		boolean full = !painter.isTrackingDirtyRegions()
+				|| inputMode != paintedInputMode
+				|| (inputMode != null && inputMode.hasChangingOverlay())
+				|| message || paintedMessage || painter.isLevelChanged()
+				|| getScreenWidth() != paintedWidth
+				|| getScreenHeight() != paintedHeight;
+		paintedInputMode = inputMode;
+		paintedMessage = message;
+		paintedWidth = getScreenWidth();
+		paintedHeight = getScreenHeight();
+
+		// also validates the sprites when everything is repainted
+		Rectangle region = painter.getDirtyRegion();
+		if (full) {
+			repaint();
+		} else if (region != null) {
+			repaint(region);
+		}
+	}
+
+	/**
+	 * Runs the simulation and the rendering on their own threads, each at its
+	 * own rate
+	 */
 	private void runGameLoop() {
 		Timer timer = new Timer();
+		Timer renderTimer = new Timer();
 		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
 			@Override
 			public void uncaughtException(Thread t, Throwable e) {
 				gameLoop.cancel();
+				renderLoop.cancel();
 				e.printStackTrace();
 				getGUI().showError(
 						e.getClass().getName() + ": " + e.getMessage());
@@ -91,6 +280,8 @@ public class PlayGameScreen extends Screen {
 		});
 		lastUpdateTimestamp.set(System.currentTimeMillis());
 		timer.scheduleAtFixedRate(gameLoop, 0, 1000 / GUIConstants.FRAMERATE);
+		renderTimer.scheduleAtFixedRate(renderLoop, 0,
+				1000 / GUIConstants.RENDER_FRAMERATE);
 	}
 
 	public void gameFinished() {
@@ -100,20 +291,186 @@ public class PlayGameScreen extends Screen {
 						+ "\n\nPress 'R' to start another game, or 'ESC' to quit.",
 				MessageType.NORMAL);
 		gameLoop.cancel();
+		simulating = false;
 		switchInputMode(new GameOverMode(this, getCurrentInputMode()));
+		writeProfiles();
+		closePrintSink();
+	}
+
+	/**
+	 * Lets the programs print through a sink, so that a program that prints
+	 * in a loop drops messages instead of flooding the message display and
+	 * waiting for it
+	 */
+	private void installPrintSink() {
+		closePrintSink();
+		printSink = new PrintSink(new MessageWriter(), 4096,
+				ReplayPlayer.PRINT_RATE, 4 * (int) ReplayPlayer.PRINT_RATE);
+		getWorld().setPrintSink(printSink);
+	}
+
+	private void closePrintSink() {
+		if (printSink == null) {
+			return;
+		}
+		printSink.close();
+		if (printSink.getDropped() > 0) {
+			addMessage(printSink.getDropped()
+					+ " messages printed by programs were dropped",
+					MessageType.INFO);
+		}
+		printSink = null;
+	}
+
+	/**
+	 * Shows every line written to it as a message
+	 */
+	private class MessageWriter extends Writer {
+		private final StringBuilder line = new StringBuilder();
+
+		@Override
+		public void write(char[] buffer, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				if (buffer[i] == '\n') {
+					addMessage(line.toString(), MessageType.INFO);
+					line.setLength(0);
+				} else {
+					line.append(buffer[i]);
+				}
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
 	}
 
+	private void startProfiling() {
+		if (getGUI().getOptions().profileFile == null) {
+			return;
+		}
+		for (Worm worm : getFacade().getWorms(getWorld())) {
+			if (getFacade().hasProgram(worm)) {
+				worm.setProfiling(true);
+				profiledWorms.add(worm);
+			}
+		}
+	}
+
+	/**
+	 * Writes the profiles of the programs to the file of the options, and a
+	 * report of them next to it
+	 */
+	private void writeProfiles() {
+		if (profiledWorms.isEmpty()) {
+			return;
+		}
+		String file = getGUI().getOptions().profileFile;
+		try {
+			Writer stacks = new OutputStreamWriter(new FileOutputStream(file),
+					"UTF-8");
+			try {
+				for (Worm worm : profiledWorms) {
+					worm.getProfile().writeCollapsedStacks(
+							getFacade().getName(worm), stacks);
+				}
+			} finally {
+				stacks.close();
+			}
+			Writer report = new OutputStreamWriter(new FileOutputStream(file
+					+ ".txt"), "UTF-8");
+			try {
+				for (Worm worm : profiledWorms) {
+					worm.getProfile().writeReport(getFacade().getName(worm),
+							report);
+					report.write("\n");
+				}
+			} finally {
+				report.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			addMessage("Could not write the profiles: " + e.getMessage(),
+					MessageType.ERROR);
+		}
+		profiledWorms.clear();
+	}
+
+	/**
+	 * Brings the sprites up to date with the world. Only the entities the
+	 * world reported as changed are looked at, unless the world itself was
+	 * replaced.
+	 */
 	public synchronized void update() {
-		removeInactiveSprites();
-		addNewSprites();
-		for (Sprite<?> sprite : sprites) {
-			sprite.update();
+		World world = getWorld();
+		if (world != listenedWorld) {
+			if (listenedWorld != null) {
+				listenedWorld.removeListener(changes);
+			}
+			listenedWorld = world;
+			if (world != null) {
+				world.addListener(changes);
+			}
+			changes.drain();
+			removeInactiveSprites();
+			addNewSprites();
+			for (Sprite<?> sprite : sprites.all()) {
+				sprite.update();
+			}
+		} else {
+			applyChanges();
+		}
+		currentWorm = findCurrentWorm();
+	}
+
+	/**
+	 * The worm whose turn it is; asking the facade selects the next worm
+	 * when the current one has no action points left
+	 */
+	protected Worm findCurrentWorm() {
+		return getFacade().getCurrentWorm(getWorld());
+	}
+
+	private void applyChanges() {
+		for (Map.Entry<Object, Integer> entry : changes.drain().entrySet()) {
+			Object entity = entry.getKey();
+			int kinds = entry.getValue();
+			Sprite<?> sprite = sprites.ofObject(entity);
+			if ((kinds & WorldChanges.REMOVED) != 0) {
+				removeSprite(sprite);
+			} else if ((kinds & WorldChanges.SPAWNED) != 0) {
+				if (sprite != null) {
+					sprite.update();
+				} else if (entity instanceof Worm) {
+					addWormSprite((Worm) entity);
+				} else if (entity instanceof Food) {
+					addFoodSprite((Food) entity);
+				} else if (entity instanceof Projectile) {
+					// in a game, the command that fires a projectile makes its
+					// sprite at once; this is for projectiles fired otherwise
+					addProjectileSprite((Projectile) entity);
+				}
+			} else if (sprite != null) {
+				if (!sprite.isObjectAlive()) {
+					// e.g. a projectile that hit something, or a worm that
+					// left the world without being removed from it
+					removeSprite(sprite);
+				} else if (kinds == WorldChanges.DAMAGED
+						&& sprite instanceof WormSprite) {
+					((WormSprite) sprite).updateHitPoints();
+				} else {
+					sprite.update();
+				}
+			}
 		}
-		currentWorm = getFacade().getCurrentWorm(getWorld());
 	}
 
 	protected void removeInactiveSprites() {
-		for (Sprite<?> sprite : new ArrayList<Sprite<?>>(sprites)) {
+		for (Sprite<?> sprite : sprites.all()) {
 			if (!sprite.isObjectAlive()) {
 				removeSprite(sprite);
 			}
@@ -131,7 +488,7 @@ public class PlayGameScreen extends Screen {
 			for (Worm worm : worms) {
 				WormSprite sprite = getWormSprite(worm);
 				if (sprite == null) {
-					createWormSprite(worm);
+					addWormSprite(worm);
 				}
 			}
 		}
@@ -143,19 +500,34 @@ public class PlayGameScreen extends Screen {
 			for (Food food : foods) {
 				FoodSprite sprite = getSpriteOfTypeFor(FoodSprite.class, food);
 				if (sprite == null) {
-					createFoodSprite(food);
+					addFoodSprite(food);
 				}
 			}
 		}
 	}
 
-	private void createFoodSprite(Food food) {
+	private void addFoodSprite(Food food) {
 		FoodSprite sprite = new FoodSprite(this, food);
 		addSprite(sprite);
 	}
 
-	private void createWormSprite(Worm worm) {
-		WormSprite sprite = new WormSprite(this, worm);
+	private void addWormSprite(Worm worm) {
+		WormSprite sprite = createWormSprite(worm);
+		addSprite(sprite);
+	}
+
+	protected WormSprite createWormSprite(Worm worm) {
+		return new WormSprite(this, worm);
+	}
+
+	/**
+	 * Shows a projectile where it was fired from
+	 */
+	private void addProjectileSprite(Projectile projectile) {
+		ProjectileSprite sprite = new ProjectileSprite(this, projectile);
+		sprite.setCenterLocation(getScreenX(getFacade().getX(projectile)),
+				getScreenY(getFacade().getY(projectile)));
+		sprite.setSize(worldToScreenDistance(getFacade().getRadius(projectile)));
 		addSprite(sprite);
 	}
 
@@ -171,27 +543,17 @@ public class PlayGameScreen extends Screen {
 		return new PlayGameScreenPainter(this);
 	}
 
+	/**
+	 * A live, unmodifiable view of the sprites of the given type; it can be
+	 * iterated while sprites are added or removed
+	 */
 	public <T extends Sprite<?>> Set<T> getSpritesOfType(Class<T> type) {
-		Set<T> result = new HashSet<T>();
-		for (Sprite<?> sprite : sprites) {
-			if (type.isInstance(sprite)) {
-				result.add(type.cast(sprite));
-			}
-		}
-		return result;
+		return sprites.ofType(type);
 	}
 
 	public <ObjectType, SpriteType extends Sprite<ObjectType>> SpriteType getSpriteOfTypeFor(
 			Class<SpriteType> type, ObjectType object) {
-		if (object == null) {
-			return null;
-		}
-		for (SpriteType sprite : getSpritesOfType(type)) {
-			if (object.equals(sprite.getObject())) {
-				return sprite;
-			}
-		}
-		return null;
+		return sprites.get(type, object);
 	}
 
 	public WormSprite getWormSprite(Worm worm) {
@@ -287,86 +649,83 @@ public class PlayGameScreen extends Screen {
 	}
 
 	/**
-	 * Aspect ratio of the screen
+	 * The camera the screen is shown with now, at the current size of the
+	 * screen
 	 */
-	private double getScreenAspectRatio() {
-		return (double) getScreenWidth() / getScreenHeight();
-	}
-
-	/**
-	 * Width of the world when displayed (in pixels)
-	 */
-	private double getWorldDisplayWidth() {
-		if (getLevel().getMapAspectRatio() >= getScreenAspectRatio()) {
-			return getScreenWidth();
-		} else {
-			return getScreenHeight() * getLevel().getMapAspectRatio();
+	public Camera getCamera() {
+		int width = Math.max(1, getScreenWidth());
+		int height = Math.max(1, getScreenHeight());
+		synchronized (cameraLock) {
+			if (camera == null) {
+				camera = Camera.fit(getLevel().getWorldWidth(), getLevel()
+						.getWorldHeight(), width, height);
+			} else if (camera.getScreenWidth() != width
+					|| camera.getScreenHeight() != height) {
+				camera = camera.resize(width, height);
+			}
+			return camera;
 		}
 	}
 
 	/**
-	 * Height of the world when displayed (in pixels)
+	 * Zoom in by the given factor (out if it is less than 1), keeping the
+	 * world point at the given screen location in place
 	 */
-	private double getWorldDisplayHeight() {
-		if (getLevel().getMapAspectRatio() <= getScreenAspectRatio()) {
-			return getScreenHeight();
-		} else {
-			return getScreenWidth() / getLevel().getMapAspectRatio();
+	public void zoom(double factor, double screenX, double screenY) {
+		synchronized (cameraLock) {
+			camera = getCamera().zoom(factor, screenX, screenY);
 		}
 	}
 
 	/**
-	 * Scale of the displayed world (in worm-meter per pixel)
+	 * Move the view so the world moves by the given distance (in pixels)
 	 */
-	private double getDisplayScale() {
-		return getLevel().getWorldWidth() / getWorldDisplayWidth();
+	public void pan(double dx, double dy) {
+		synchronized (cameraLock) {
+			camera = getCamera().pan(dx, dy);
+		}
 	}
 
 	/**
 	 * Distance in the world (worm-meter) to distance on the screen (pixels)
 	 */
 	public double worldToScreenDistance(double ds) {
-		return ds / getDisplayScale();
+		return getCamera().worldToScreenDistance(ds);
 	}
 
 	/**
 	 * Distance on the screen (pixels) to distance in the world (worm-meter)
 	 */
 	public double screenToWorldDistance(double ds) {
-		return ds * getDisplayScale();
+		return getCamera().screenToWorldDistance(ds);
 	}
 
 	/**
 	 * World x coordinate to screen x coordinate
 	 */
 	public double getScreenX(double x) {
-		double offset = (getScreenWidth() - getWorldDisplayWidth()) / 2.0;
-		return offset + worldToScreenDistance(x);
+		return getCamera().getScreenX(x);
 	}
 
 	/**
 	 * Screen x coordinate to world x coordinate
 	 */
 	public double getLogicalX(double screenX) {
-		double offset = (getScreenWidth() - getWorldDisplayWidth()) / 2.0;
-		return screenToWorldDistance(screenX - offset);
+		return getCamera().getLogicalX(screenX);
 	}
 
 	/**
 	 * World y coordinate to screen y coordinate
 	 */
 	public double getScreenY(double y) {
-		double offset = (getScreenHeight() - getWorldDisplayHeight()) / 2.0;
-		return offset + getWorldDisplayHeight() - worldToScreenDistance(y);
+		return getCamera().getScreenY(y);
 	}
 
 	/**
 	 * Screen y coordinate to world y coordinate
 	 */
 	public double getLogicalY(double screenY) {
-		double offset = (getScreenHeight() - getWorldDisplayHeight()) / 2.0;
-		return screenToWorldDistance(-screenY + offset
-				+ getWorldDisplayHeight());
+		return getCamera().getLogicalY(screenY);
 	}
 
 	public void paintTextEntry(Graphics2D g, String message, String enteredName) {
@@ -375,7 +734,18 @@ public class PlayGameScreen extends Screen {
 
 	public void drawTurnAngleIndicator(Graphics2D g, WormSprite wormSprite,
 			double currentAngle) {
-		painter.drawTurnAngleIndicator(g, wormSprite, currentAngle);
+		painter.drawTurnAngleIndicator(g, getRecord(wormSprite), currentAngle);
+	}
+
+	/**
+	 * The record of the given worm sprite in the latest frame, or null
+	 */
+	private WormRecord getRecord(WormSprite sprite) {
+		RenderFrame current = frame;
+		if (current == null || sprite == null) {
+			return null;
+		}
+		return (WormRecord) current.getRecord(sprite);
 	}
 
 	public <T, S extends Sprite<T>> void removeSpriteFor(Class<S> type, T object) {
@@ -418,6 +788,8 @@ public class PlayGameScreen extends Screen {
 
 	public void gameStarted() {
 		switchInputMode(new DefaultInputMode(this, getCurrentInputMode()));
+		startProfiling();
+		installPrintSink();
 	}
 
 	public void renameWorm() {
@@ -440,9 +812,9 @@ public class PlayGameScreen extends Screen {
 
 	public void paintShootingInfoForSelectedWorm(Graphics2D g,
 			double propulsionFraction) {
-		WormSprite sprite = getSelectedWormSprite();
-		if (sprite != null) {
-			painter.drawShootingInfo(g, sprite, propulsionFraction);
+		WormRecord record = getRecord(getSelectedWormSprite());
+		if (record != null) {
+			painter.drawShootingInfo(g, record, propulsionFraction);
 		}
 	}
 
@@ -2,17 +2,9 @@ package worms.gui.game;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.RenderingHints;
 import java.awt.Shape;
-import java.awt.geom.Ellipse2D.Double;
-import java.awt.image.BufferedImage;
 
 import worms.gui.GUIUtils;
-import worms.gui.Level;
-import worms.gui.game.sprites.FoodSprite;
-import worms.gui.game.sprites.WormSprite;
-import worms.model.World;
 
 public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 
@@ -20,10 +12,6 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 
 	private static final double MAX_DIVERSION = 0.7875;
 
-	private static final boolean PAINT_PASSABLE = true;
-
-	private Image passableImage;
-
 	public PlayGameScreenDebugPainter(PlayGameScreen screen) {
 		super(screen);
 	}
@@ -33,16 +21,23 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 		super.paint(g);
 	}
 
+	/**
+	 * Jump markers and location markers of all worms are painted, so the
+	 * whole screen is repainted every frame
+	 */
+	@Override
+	public boolean isTrackingDirtyRegions() {
+		return false;
+	}
+
 	@Override
 	protected void paintLevel() {
 		super.paintLevel();
 
-		if (passableImage == null) {
-			BufferedImage image = createPassableImage();
-			this.passableImage = image;
-		}
-
-		currentGraphics.drawImage(passableImage, 0, 0, null);
+		// filled in by the overlay's own threads, the whole screen is
+		// repainted every frame anyway
+		PassableOverlay.get(getScreen(), getCamera()).paint(currentGraphics,
+				getCamera());
 
 		drawCrossMarker(getScreenX(0), getScreenY(0), 10, Color.BLUE);
 		drawCrossMarker(getScreenX(0), getScreenY(getLevel().getWorldHeight()),
@@ -53,80 +48,27 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 				getScreenY(getLevel().getWorldHeight()), 10, Color.BLUE);
 	}
 
-	protected BufferedImage createPassableImage() {
-		Level level = getState().getLevel();
-		World world = getState().getWorld();
-
-		BufferedImage image = new BufferedImage(getScreen().getScreenWidth(),
-				getScreen().getScreenHeight(), BufferedImage.TYPE_4BYTE_ABGR);
-		BufferedImage adjacencyImage = new BufferedImage(getScreen()
-				.getScreenWidth(), getScreen().getScreenHeight(),
-				BufferedImage.TYPE_4BYTE_ABGR);
-		Graphics2D imGfx = image.createGraphics();
-		imGfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-				RenderingHints.VALUE_ANTIALIAS_ON);
-		Graphics2D imAdjacencyGfx = adjacencyImage.createGraphics();
-		imAdjacencyGfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-				RenderingHints.VALUE_ANTIALIAS_ON);
-
-		double testRadius = getScreen().screenToWorldDistance(10); // 10
-																	// screen
-																	// pixels
-		double stepSize = getScreen().screenToWorldDistance(3); // 3 screen
-																// pixels
-		for (double x = testRadius; x <= level.getWorldWidth() - testRadius; x += stepSize) {
-			for (double y = testRadius; y <= level.getWorldHeight()
-					- testRadius; y += stepSize) {
-				double randomizedX = x + (-0.5 + Math.random()) * stepSize * 2;
-				double randomizedY = y + (-0.5 + Math.random()) * stepSize * 2;
-				Graphics2D targetGraphics = imGfx;
-				boolean isPassable = false;
-				if (getState().getFacade().isImpassable(world, randomizedX,
-						randomizedY, testRadius)) {
-					targetGraphics.setColor(new Color(255, 0, 0, 4));
-				} else if (getState().getFacade().isAdjacent(world,
-						randomizedX, randomizedY, testRadius)) {
-					targetGraphics = imAdjacencyGfx;
-					targetGraphics.setColor(new Color(0, 255, 0, 64));
-				} else {
-					isPassable = true;
-					targetGraphics.setColor(new Color(0, 0, 255, 4));
-				}
-				if (!isPassable || PAINT_PASSABLE) {
-					Double circle = GUIUtils.circleAt(getScreenX(randomizedX),
-							getScreenY(randomizedY), getScreen()
-									.worldToScreenDistance(testRadius));
-					targetGraphics.fill(circle);
-				}
-			}
-		}
-		imGfx.drawImage(adjacencyImage, 0, 0, null);
-		imAdjacencyGfx.dispose();
-		imGfx.dispose();
-		return image;
-	}
-
 	@Override
-	protected void paintWorm(WormSprite sprite) {
+	protected void paintWorm(WormRecord record) {
 
-		drawName(sprite);
+		drawName(record);
 
-		drawActionBar(sprite);
-		drawHitpointsBar(sprite);
+		drawActionBar(record);
+		drawHitpointsBar(record);
 
-		drawOutline(sprite);
-		drawJumpMarkers(sprite); // also draw for other worms
+		drawOutline(record);
+		drawJumpMarkers(record); // also draw for other worms
 
-		drawDirectionLine(sprite);
+		drawDirectionLine(record);
 
-		drawLocationMarker(sprite);
+		drawLocationMarker(record);
 
 	}
 
 	@Override
-	protected void drawJumpMarkers(WormSprite sprite) {
+	protected void drawJumpMarkers(WormRecord record) {
 
-		double[][] xys = sprite.getJumpSteps();
+		double[][] xys = record.jumpSteps;
 		if (xys != null) {
 			double[] prevXY = xys[0];
 			for (int i = 1; i < xys.length; i++) {
@@ -150,46 +92,44 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	 * Draw a marker at the current location of the worm (which is not
 	 * necessarily equal to the sprite's location)
 	 */
-	protected void drawLocationMarker(WormSprite worm) {
-		double x = worm.getActualX();
-		double y = worm.getActualY();
+	protected void drawLocationMarker(WormRecord record) {
+		double x = record.actualX;
+		double y = record.actualY;
 
 		drawCrossMarker(getScreenX(x), getScreenY(y), LOCATION_MARKER_SIZE,
 				Color.YELLOW);
 	}
 
 	@Override
-	protected void paintFood(FoodSprite sprite) {
-		super.paintFood(sprite);
-		double r = sprite.getRadius();
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
+	protected void paintFood(FoodRecord record) {
+		super.paintFood(record);
+		double r = record.radius;
+		double x = record.x;
+		double y = record.y;
 
 		currentGraphics.setColor(Color.CYAN);
-		Shape circle = GUIUtils.circleAt(x, y, getScreen()
-				.worldToScreenDistance(r));
+		Shape circle = GUIUtils.circleAt(x, y, worldToScreenDistance(r));
 		currentGraphics.fill(circle);
 		currentGraphics.setColor(Color.DARK_GRAY);
 		currentGraphics.draw(circle);
 	}
 
-	protected void drawOutline(WormSprite sprite) {
-		double r = sprite.getRadius();
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
+	protected void drawOutline(WormRecord record) {
+		double r = record.radius;
+		double x = record.x;
+		double y = record.y;
 
 		currentGraphics.setColor(Color.YELLOW);
-		Shape circle = GUIUtils.circleAt(x, y, getScreen()
-				.worldToScreenDistance(r));
+		Shape circle = GUIUtils.circleAt(x, y, worldToScreenDistance(r));
 		currentGraphics.draw(circle);
 
 	}
 
-	protected void drawDirectionLine(WormSprite sprite) {
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double dist = sprite.getHeight(currentGraphics) / 2.0;
-		double direction = sprite.getOrientation();
+	protected void drawDirectionLine(WormRecord record) {
+		double x = record.x;
+		double y = record.y;
+		double dist = record.height / 2.0;
+		double direction = record.orientation;
 
 		currentGraphics.setColor(Color.YELLOW);
 		currentGraphics.drawLine((int) x, (int) y,
@@ -3,23 +3,25 @@ package worms.gui.game;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import worms.gui.AbstractPainter;
 import worms.gui.GUIUtils;
 import worms.gui.GameState;
 import worms.gui.Level;
-import worms.gui.game.sprites.FoodSprite;
 import worms.gui.game.sprites.ProjectileSprite;
-import worms.gui.game.sprites.WormSprite;
-import worms.model.ModelException;
 import worms.model.World;
 
 public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
@@ -62,19 +64,49 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 	protected static final int JUMP_MARKER_SIZE = 1;
 	protected static final double DIRECTION_INDICATOR_SIZE = 10;
 
+	/**
+	 * Pixels around the shapes of a sprite that may be touched by
+	 * anti-aliasing and outlines
+	 */
+	protected static final int PAINT_MARGIN = 2;
+
 	protected Graphics2D currentGraphics;
-	private Image scaledImage;
 
-	public PlayGameScreenPainter(PlayGameScreen screen) {
-		super(screen);
+	/**
+	 * The part of the screen that is being painted, or null for all of it
+	 */
+	private Rectangle currentClip;
+
+	/**
+	 * The frame that is being painted, and the time it is painted for
+	 */
+	private RenderFrame currentFrame;
+	private long currentTime;
+
+	/**
+	 * The record and bounds (in pixels) every sprite on the screen was
+	 * painted with
+	 */
+	private final Map<Sprite<?>, PaintedSprite> painted = new ConcurrentHashMap<Sprite<?>, PaintedSprite>();
+
+	/**
+	 * The latest frame that was found to be painted completely, with its
+	 * sprites at rest; nothing changes until another frame is published
+	 */
+	private volatile RenderFrame settledFrame;
+
+	private static final class PaintedSprite {
+		final SpriteRecord record;
+		final Rectangle bounds;
+
+		PaintedSprite(SpriteRecord record, Rectangle bounds) {
+			this.record = record;
+			this.bounds = bounds;
+		}
 	}
 
-	private void createBackgroundImage() {
-		if (scaledImage == null) {
-			scaledImage = GUIUtils.scaleTo(getState().getLevel().getMapImage(),
-					getScreen().getScreenWidth(),
-					getScreen().getScreenHeight(), Image.SCALE_SMOOTH);
-		}
+	public PlayGameScreenPainter(PlayGameScreen screen) {
+		super(screen);
 	}
 
 	protected GameState getState() {
@@ -89,100 +121,441 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		return getState().getLevel();
 	}
 
+	/**
+	 * Paints the latest frame published by the simulation. Only the records
+	 * of the frame are read, so painting takes no locks.
+	 */
 	public void paint(Graphics2D g) {
+		paint(g, System.nanoTime());
+	}
+
+	/**
+	 * Paints the latest frame with its sprites where they are at the given
+	 * time (System.nanoTime)
+	 */
+	void paint(Graphics2D g, long time) {
 		this.currentGraphics = g;
+		this.currentClip = g.getClipBounds();
+		this.currentFrame = getScreen().getFrame();
+		this.currentTime = time;
 
 		paintLevel();
 
-		for (FoodSprite sprite : getScreen().getSpritesOfType(FoodSprite.class)) {
-			paintFood(sprite);
+		if (currentFrame != null) {
+			for (FoodRecord record : currentFrame.getFood()) {
+				if (beginSprite(record)) {
+					paintFood(record);
+					endSprite();
+				}
+			}
+
+			for (WormRecord record : currentFrame.getWorms()) {
+				if (beginSprite(record)) {
+					if (record.selected) {
+						drawSelection(record);
+					}
+					paintWorm(record);
+					endSprite();
+				}
+			}
+
+			for (ProjectileRecord record : currentFrame.getProjectiles()) {
+				if (beginSprite(record)) {
+					paintProjectile(record);
+					endSprite();
+				}
+			}
+		}
+
+		this.currentGraphics = null;
+		this.currentClip = null;
+		this.currentFrame = null;
+	}
+
+	private double[] currentOffset;
+
+	/**
+	 * Prepares to paint the given record at the location it is displayed at,
+	 * if it is in the clip
+	 * 
+	 * @return whether the record must be painted; if so, endSprite() must be
+	 *         called after painting it
+	 */
+	private boolean beginSprite(SpriteRecord record) {
+		double[] offset = getDisplayOffset(currentFrame, record, currentTime);
+		if (!isInClip(record, offset)) {
+			return false;
+		}
+		currentOffset = offset;
+		currentGraphics.translate(offset[0], offset[1]);
+		return true;
+	}
+
+	private void endSprite() {
+		currentGraphics.translate(-currentOffset[0], -currentOffset[1]);
+		currentOffset = null;
+	}
+
+	/**
+	 * Distance (in pixels) from the location in the given record to the
+	 * location it is displayed at, at the given time
+	 */
+	private static double[] getDisplayOffset(RenderFrame frame,
+			SpriteRecord record, long time) {
+		double[] display = frame.getLocation(record, time);
+		return new double[] { display[0] - record.x, display[1] - record.y };
+	}
+
+	/**
+	 * Whether the given record must be painted, because it overlaps the part
+	 * of the screen that is being painted. The bounds it is painted with are
+	 * remembered, so it can be erased when it changes.
+	 */
+	private boolean isInClip(SpriteRecord record, double[] offset) {
+		Rectangle bounds = getPaintBounds(record, offset);
+		if (currentClip != null && !currentClip.intersects(bounds)) {
+			return false;
 		}
+		PaintedSprite previous = painted.get(record.sprite);
+		if (currentClip != null && previous != null
+				&& !currentClip.contains(bounds)) {
+			// outside the clip, the sprite is still shown as it was before
+			bounds = bounds.union(previous.bounds);
+		}
+		painted.put(record.sprite, new PaintedSprite(record, bounds));
+		return true;
+	}
+
+	/**
+	 * Whether the painter knows the bounds of everything it paints for a
+	 * sprite, so only the region of changed sprites needs to be repainted
+	 */
+	public boolean isTrackingDirtyRegions() {
+		return true;
+	}
 
-		for (WormSprite sprite : getScreen().getSpritesOfType(WormSprite.class)) {
-			if (sprite.getWorm() == getScreen().getSelectedWorm()) {
-				drawSelection(sprite);
+	/**
+	 * The region of the screen (in pixels) that shows sprites that changed,
+	 * moved or were removed since they were painted. It covers the old and
+	 * the new bounds of those sprites.
+	 * 
+	 * @return the union of the bounds of the changed sprites, or null if
+	 *         nothing changed
+	 */
+	public Rectangle getDirtyRegion() {
+		RenderFrame frame = getScreen().getFrame();
+		if (frame == null || frame == settledFrame) {
+			return null;
+		}
+		long time = System.nanoTime();
+		Rectangle region = null;
+		region = addDirtyRegion(region, frame, frame.getFood(), time);
+		region = addDirtyRegion(region, frame, frame.getWorms(), time);
+		region = addDirtyRegion(region, frame, frame.getProjectiles(), time);
+		Iterator<Map.Entry<Sprite<?>, PaintedSprite>> entries = painted
+				.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Sprite<?>, PaintedSprite> entry = entries.next();
+			if (!frame.contains(entry.getKey())) {
+				region = union(region, entry.getValue().bounds);
+				entries.remove();
 			}
-			paintWorm(sprite);
 		}
+		if (region == null && frame.isSettled(time)) {
+			settledFrame = frame;
+		}
+		return region;
+	}
 
-		for (ProjectileSprite sprite : getScreen().getSpritesOfType(
-				ProjectileSprite.class)) {
-			paintProjectile(sprite);
+	private Rectangle addDirtyRegion(Rectangle region, RenderFrame frame,
+			SpriteRecord[] records, long time) {
+		for (SpriteRecord record : records) {
+			Rectangle bounds = getPaintBounds(record,
+					getDisplayOffset(frame, record, time));
+			PaintedSprite previous = painted.get(record.sprite);
+			if (previous == null) {
+				region = union(region, bounds);
+			} else if (previous.record != record
+					|| !bounds.equals(previous.bounds)) {
+				region = union(union(region, bounds), previous.bounds);
+			}
 		}
+		return region;
+	}
 
-		this.currentGraphics = null;
+	private static Rectangle union(Rectangle region, Rectangle bounds) {
+		if (bounds == null) {
+			return region;
+		} else if (region == null) {
+			return new Rectangle(bounds);
+		} else {
+			return region.union(bounds);
+		}
+	}
+
+	/**
+	 * The bounds (in pixels) of everything that is painted for the given
+	 * record, when it is painted at the given offset from its location
+	 */
+	protected Rectangle getPaintBounds(SpriteRecord record, double[] offset) {
+		Rectangle2D bounds = record.getBounds();
+		if (record instanceof ProjectileRecord) {
+			addTrail((ProjectileRecord) record, bounds);
+		} else if (record instanceof WormRecord) {
+			addWormDecorations((WormRecord) record, bounds);
+		}
+		bounds.setRect(bounds.getX() + offset[0], bounds.getY() + offset[1],
+				bounds.getWidth(), bounds.getHeight());
+		Rectangle result = bounds.getBounds();
+		result.grow(PAINT_MARGIN, PAINT_MARGIN);
+		return result;
+	}
+
+	private void addTrail(ProjectileRecord record, Rectangle2D bounds) {
+		double size = record.width;
+		for (double[] location : record.trail) {
+			bounds.add(new Rectangle2D.Double(location[0] - size, location[1]
+					- size, 2 * size, 2 * size));
+		}
+	}
+
+	private void addWormDecorations(WormRecord record, Rectangle2D bounds) {
+		double x = record.x;
+		double y = record.y;
+
+		bounds.add(getNameBar(record, record.nameBounds).getBounds2D());
+		bounds.add(new Rectangle2D.Double(x - ACTION_BAR_WIDTH / 2, y
+				+ record.height / 2, ACTION_BAR_WIDTH, 2 * ACTION_BAR_HEIGHT));
+
+		if (record.selected) {
+			double radius = Math.max(record.width, record.height) / 2
+					+ DIRECTION_INDICATOR_SIZE;
+			bounds.add(new Rectangle2D.Double(x - radius, y - radius,
+					2 * radius, 2 * radius));
+			if (record.jumpSteps != null) {
+				for (double[] xy : record.jumpSteps) {
+					if (xy != null) {
+						bounds.add(getScreenX(xy[0]), getScreenY(xy[1]));
+					}
+				}
+			}
+		}
 	}
 
-	protected void paintProjectile(ProjectileSprite sprite) {
-		sprite.draw(currentGraphics);
+	protected void paintProjectile(ProjectileRecord record) {
+		ProjectileSprite.drawTrail(currentGraphics, record.trail, record.width);
 	}
 
-	protected void paintFood(FoodSprite sprite) {
-		sprite.draw(currentGraphics);
+	protected void paintFood(FoodRecord record) {
+		drawImage(record);
 	}
 
+	/**
+	 * Draw the image of the given record, centered on its location
+	 */
+	protected void drawImage(SpriteRecord record) {
+		int x = (int) (record.x - record.width / 2);
+		int y = (int) (record.y - record.height / 2);
+		currentGraphics.drawImage(record.image, x, y, null);
+	}
+
+	/**
+	 * The camera and the version of the level tiles the whole level was last
+	 * painted with
+	 */
+	private volatile Camera paintedCamera;
+	private volatile int paintedTilesVersion;
+
+	/**
+	 * Whether the level must be painted again: the camera moved, or tiles
+	 * were loaded since the whole screen was painted
+	 */
+	public boolean isLevelChanged() {
+		LevelTiles tiles = LevelTiles.of(getLevel());
+		return !getCamera().equals(paintedCamera)
+				|| (tiles != null && tiles.getVersion() != paintedTilesVersion);
+	}
+
+	/**
+	 * Paints the tiles of the level that are visible in the clip, at the
+	 * zoom level that fits the camera. A tile that is not loaded yet is
+	 * replaced by the part of a coarser tile that is.
+	 */
 	protected void paintLevel() {
-		createBackgroundImage();
+		LevelTiles tiles = LevelTiles.of(getLevel());
+		if (tiles == null) {
+			return;
+		}
+		Camera camera = getCamera();
+		Rectangle area = new Rectangle(0, 0, camera.getScreenWidth(),
+				camera.getScreenHeight());
+		if (currentClip == null || currentClip.contains(area)) {
+			paintedCamera = camera;
+			paintedTilesVersion = tiles.getVersion();
+		}
+		if (currentClip != null) {
+			area = area.intersection(currentClip);
+		}
+		if (area.isEmpty()) {
+			return;
+		}
+
+		double mapScale = getLevel().getScale();
+		int zoomLevel = tiles.getZoomLevel(mapScale / camera.getScale());
+		int size = LevelTiles.TILE_SIZE << zoomLevel;
+		double left = camera.getLogicalX(area.x) / mapScale;
+		double right = camera.getLogicalX(area.x + area.width) / mapScale;
+		double top = getMapY(camera.getLogicalY(area.y), mapScale);
+		double bottom = getMapY(camera.getLogicalY(area.y + area.height),
+				mapScale);
+		int firstColumn = Math.max(0, (int) Math.floor(left / size));
+		int lastColumn = Math.min(tiles.getColumns(zoomLevel) - 1,
+				(int) Math.floor(right / size));
+		int firstRow = Math.max(0, (int) Math.floor(top / size));
+		int lastRow = Math.min(tiles.getRows(zoomLevel) - 1,
+				(int) Math.floor(bottom / size));
+
+		Object interpolation = currentGraphics
+				.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		currentGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		for (int column = firstColumn; column <= lastColumn; column++) {
+			for (int row = firstRow; row <= lastRow; row++) {
+				paintTile(tiles, camera, mapScale, zoomLevel, column, row);
+			}
+		}
+		if (interpolation != null) {
+			currentGraphics.setRenderingHint(
+					RenderingHints.KEY_INTERPOLATION, interpolation);
+		}
+	}
+
+	/**
+	 * Row (in pixels of the map, from the top) of the given world y
+	 * coordinate
+	 */
+	private double getMapY(double y, double mapScale) {
+		return (getLevel().getWorldHeight() - y) / mapScale;
+	}
 
-		int x = (int) getScreenX(0);
-		int y = (int) getScreenY(getLevel().getWorldHeight());
-		currentGraphics.drawImage(scaledImage, x, y, null);
+	private void paintTile(LevelTiles tiles, Camera camera, double mapScale,
+			int zoomLevel, int column, int row) {
+		int size = LevelTiles.TILE_SIZE << zoomLevel;
+		int mapX = column * size;
+		int mapY = row * size;
+		int mapWidth = Math.min(size, tiles.getMapWidth() - mapX);
+		int mapHeight = Math.min(size, tiles.getMapHeight() - mapY);
+
+		BufferedImage tile = getTile(tiles, zoomLevel, column, row);
+		int tileLevel = zoomLevel;
+		int tileColumn = column;
+		int tileRow = row;
+		while (tile == null && tileLevel < tiles.getZoomLevels() - 1) {
+			tileLevel++;
+			tileColumn /= 2;
+			tileRow /= 2;
+			tile = tiles.getLoadedTile(tileLevel, tileColumn, tileRow);
+		}
+		if (tile == null) {
+			return;
+		}
+
+		// the part of the tile that shows the map pixels of this tile
+		int tileSize = LevelTiles.TILE_SIZE << tileLevel;
+		double pixel = 1 << tileLevel;
+		double sourceX = (mapX - tileColumn * tileSize) / pixel;
+		double sourceY = (mapY - tileRow * tileSize) / pixel;
+		// shared edges are rounded in the same way for neighbouring tiles
+		int x1 = (int) Math.round(camera.getScreenX(mapX * mapScale));
+		int x2 = (int) Math.round(camera.getScreenX((mapX + mapWidth)
+				* mapScale));
+		int y1 = (int) Math.round(camera.getScreenY(getLevel()
+				.getWorldHeight() - mapY * mapScale));
+		int y2 = (int) Math.round(camera.getScreenY(getLevel()
+				.getWorldHeight() - (mapY + mapHeight) * mapScale));
+		currentGraphics.drawImage(tile, x1, y1, x2, y2, (int) sourceX,
+				(int) sourceY,
+				(int) Math.ceil(sourceX + mapWidth / pixel),
+				(int) Math.ceil(sourceY + mapHeight / pixel), null);
+	}
+
+	/**
+	 * The given tile if it is loaded; otherwise it is loaded in the
+	 * background and null is returned
+	 */
+	BufferedImage getTile(LevelTiles tiles, int zoomLevel, int column, int row) {
+		return tiles.getTile(zoomLevel, column, row);
+	}
+
+	/**
+	 * The camera of the frame that is being painted, or of the latest frame
+	 */
+	protected Camera getCamera() {
+		RenderFrame frame = currentFrame != null ? currentFrame : getScreen()
+				.getFrame();
+		return frame != null ? frame.getCamera() : getScreen().getCamera();
 	}
 
 	protected double getScreenX(double x) {
-		return getScreen().getScreenX(x);
+		return getCamera().getScreenX(x);
 	}
 
 	protected double getScreenY(double y) {
-		return getScreen().getScreenY(y);
+		return getCamera().getScreenY(y);
+	}
+
+	/**
+	 * Distance in the world (worm-meter) to distance on the screen (pixels)
+	 */
+	protected double worldToScreenDistance(double ds) {
+		return getCamera().worldToScreenDistance(ds);
 	}
 
-	protected void paintWorm(WormSprite sprite) {
+	protected void paintWorm(WormRecord record) {
 
-		sprite.draw(currentGraphics);
+		drawImage(record);
 
-		drawName(sprite);
+		drawName(record);
 
-		drawActionBar(sprite);
-		drawHitpointsBar(sprite);
+		drawActionBar(record);
+		drawHitpointsBar(record);
 
-		if (getScreen().getSelectedWorm() == sprite.getWorm()) {
-			drawDirectionIndicator(sprite);
-			drawJumpMarkers(sprite);
+		if (record.selected) {
+			drawDirectionIndicator(record);
+			drawJumpMarkers(record);
 		}
 	}
 
-	protected void drawName(WormSprite sprite) {
-		final double voffset = sprite.getHeight(currentGraphics) / 2;
-		String name = sprite.getName();
+	protected String getDisplayName(WormRecord record) {
+		return record.displayName;
+	}
 
-		if (name == null) {
-			name = "(null)";
-		}
+	private RoundRectangle2D getNameBar(WormRecord record,
+			Rectangle2D nameBounds) {
+		final double stringWidth = nameBounds.getWidth();
+		final double stringHeight = nameBounds.getHeight();
 
-		String teamName = null;
-		try {
-			teamName = sprite.getTeamName();
-		} catch (ModelException e) {
-			// no team
-		}
+		final double x = record.x - stringWidth / 2;
+		final double y = getNameBaseline(record);
 
-		if (teamName != null) {
-			name += " (" + teamName + ")";
-		}
+		return new RoundRectangle2D.Double(x - TEXT_BAR_H_MARGIN, y
+				- stringHeight - TEXT_BAR_V_MARGIN, stringWidth + 2
+				* TEXT_BAR_H_MARGIN, stringHeight + 2 * TEXT_BAR_V_MARGIN, 5, 5);
+	}
+
+	private double getNameBaseline(WormRecord record) {
+		return record.getBounds().getMinY() - TEXT_BAR_V_OFFSET;
+	}
+
+	protected void drawName(WormRecord record) {
+		String name = getDisplayName(record);
 
 		Rectangle2D bounds = currentGraphics.getFontMetrics().getStringBounds(
 				name, currentGraphics);
-		final double stringWidth = bounds.getWidth();
-		final double stringHeight = bounds.getHeight();
+		final double x = record.x - bounds.getWidth() / 2;
+		final double y = getNameBaseline(record);
 
-		final double x = sprite.getCenterX() - stringWidth / 2;
-		final double y = sprite.getCenterY() - voffset - TEXT_BAR_V_OFFSET;
-
-		RoundRectangle2D nameBarFill = new RoundRectangle2D.Double(x
-				- TEXT_BAR_H_MARGIN, y - stringHeight - TEXT_BAR_V_MARGIN,
-				stringWidth + 2 * TEXT_BAR_H_MARGIN, stringHeight + 2
-						* TEXT_BAR_V_MARGIN, 5, 5);
+		RoundRectangle2D nameBarFill = getNameBar(record, bounds);
 		currentGraphics.setColor(NAME_BAR_BACKGROUND);
 		currentGraphics.fill(nameBarFill);
 
@@ -191,13 +564,13 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.drawString(name, (float) x, (float) (y));
 	}
 
-	protected void drawActionBar(WormSprite sprite) {
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double spriteHeight = sprite.getHeight(currentGraphics);
+	protected void drawActionBar(WormRecord record) {
+		double x = record.x;
+		double y = record.y;
+		double spriteHeight = record.height;
 
-		double actionPoints = sprite.getActionPoints();
-		double maxActionPoints = sprite.getMaxActionPoints();
+		double actionPoints = record.actionPoints;
+		double maxActionPoints = record.maxActionPoints;
 
 		RoundRectangle2D actionBarFill = new RoundRectangle2D.Double(x
 				- ACTION_BAR_WIDTH / 2, y + spriteHeight / 2, actionPoints
@@ -212,13 +585,13 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.draw(actionBar);
 	}
 
-	protected void drawHitpointsBar(WormSprite sprite) {
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double spriteHeight = sprite.getHeight(currentGraphics);
+	protected void drawHitpointsBar(WormRecord record) {
+		double x = record.x;
+		double y = record.y;
+		double spriteHeight = record.height;
 
-		double hitPoints = sprite.getHitPoints();
-		double maxHitPoints = sprite.getMaxHitPoints();
+		double hitPoints = record.hitPoints;
+		double maxHitPoints = record.maxHitPoints;
 
 		RoundRectangle2D hitpointsBarFill = new RoundRectangle2D.Double(x
 				- ACTION_BAR_WIDTH / 2, y + spriteHeight / 2
@@ -234,13 +607,13 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.draw(hitpointsBar);
 	}
 
-	protected void drawSelection(WormSprite sprite) {
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double spriteHeight = Math.max(sprite.getWidth(currentGraphics),
-				sprite.getHeight(currentGraphics));
+	protected void drawSelection(WormRecord record) {
+		double x = record.x;
+		double y = record.y;
+		double spriteHeight = Math.max(record.width,
+				record.height);
 
-		if (sprite.isAtImpassableTerrain()) {
+		if (record.atImpassableTerrain) {
 			currentGraphics.setColor(SELECTION_IMPASSABLE_FILL_COLOR);
 		} else {
 			currentGraphics.setColor(SELECTION_FILL_COLOR);
@@ -250,13 +623,13 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.fill(circle);
 	}
 
-	protected void drawDirectionIndicator(WormSprite sprite) {
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double distance = Math.max(sprite.getWidth(currentGraphics),
-				sprite.getHeight(currentGraphics)) / 2;
+	protected void drawDirectionIndicator(WormRecord record) {
+		double x = record.x;
+		double y = record.y;
+		double distance = Math.max(record.width,
+				record.height) / 2;
 		distance += DIRECTION_INDICATOR_SIZE / 2;
-		double direction = GUIUtils.restrictDirection(sprite.getOrientation());
+		double direction = GUIUtils.restrictDirection(record.orientation);
 
 		currentGraphics.setColor(DIRECTION_MARKER_COLOR);
 
@@ -267,17 +640,17 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.fill(directionIndicator);
 	}
 
-	void drawTurnAngleIndicator(Graphics2D graphics, WormSprite sprite,
+	void drawTurnAngleIndicator(Graphics2D graphics, WormRecord record,
 			double angle) {
-		if (sprite == null) {
+		if (record == null) {
 			return;
 		}
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double distance = Math.max(sprite.getWidth(graphics),
-				sprite.getHeight(graphics)) / 2;
+		double x = record.x;
+		double y = record.y;
+		double distance = Math.max(record.width,
+				record.height) / 2;
 		distance += DIRECTION_INDICATOR_SIZE / 2;
-		double direction = GUIUtils.restrictDirection(sprite.getOrientation()
+		double direction = GUIUtils.restrictDirection(record.orientation
 				+ angle);
 
 		/*
@@ -297,8 +670,8 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		graphics.fill(directionIndicator);
 	}
 
-	protected void drawJumpMarkers(WormSprite sprite) {
-		double[][] xys = sprite.getJumpSteps();
+	protected void drawJumpMarkers(WormRecord record) {
+		double[][] xys = record.jumpSteps;
 		if (xys != null) {
 			for (double[] xy : xys) {
 				if (xy != null) {
@@ -328,19 +701,19 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 				getScreen().getScreenWidth(), 100);
 	}
 
-	public void drawShootingInfo(Graphics2D currentGraphics, WormSprite sprite,
+	public void drawShootingInfo(Graphics2D currentGraphics, WormRecord record,
 			double propulsionFraction) {
-		String weaponName = sprite.getSelectedWeapon();
+		String weaponName = record.selectedWeapon;
 
 		if (weaponName == null) {
 			// no weapon selected, so nothing to draw
 			return;
 		}
 
-		double x = sprite.getCenterX();
-		double y = sprite.getCenterY();
-		double hoffset = sprite.getWidth(currentGraphics);
-		double voffset = sprite.getHeight(currentGraphics);
+		double x = record.x;
+		double y = record.y;
+		double hoffset = record.width;
+		double voffset = record.height;
 
 		double PROPULSION_BAR_HEIGHT = ACTION_BAR_WIDTH;
 		double PROPULSION_BAR_WIDTH = ACTION_BAR_HEIGHT;
@@ -365,8 +738,8 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		final double stringWidth = bounds.getWidth();
 		final double stringHeight = bounds.getHeight();
 
-		x = sprite.getCenterX() - stringWidth / 2;
-		y = sprite.getCenterY() + voffset + TEXT_BAR_V_OFFSET;
+		x = record.x - stringWidth / 2;
+		y = record.y + voffset + TEXT_BAR_V_OFFSET;
 
 		RoundRectangle2D nameBarFill = new RoundRectangle2D.Double(x
 				- TEXT_BAR_H_MARGIN, y + TEXT_BAR_V_MARGIN, stringWidth + 2
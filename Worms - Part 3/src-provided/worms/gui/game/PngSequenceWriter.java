@@ -0,0 +1,219 @@
+package worms.gui.game;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import worms.util.DaemonThreadFactory;
+
+/**
+ * Writes frames as a numbered sequence of PNG files, encoding them on a pool
+ * of worker threads.
+ *
+ * Frames are painted on images of this writer. There is a fixed amount of
+ * them: one for every worker and one for every frame that may wait in the
+ * queue of the workers. When all of them are being encoded or waiting,
+ * taking an image blocks until a worker is done with one, so a renderer
+ * that is faster than the encoders is slowed down to their pace.
+ *
+ * The frames are encoded here instead of by ImageIO, which is a few times
+ * slower: without filtering and with the fastest compression, which gives
+ * files of about the same size for the flat colours of the game.
+ */
+final class PngSequenceWriter {
+
+	private static final byte[] SIGNATURE = { (byte) 137, 'P', 'N', 'G', '\r',
+			'\n', 26, '\n' };
+
+	private final File directory;
+	private final String prefix;
+	private final int width;
+	private final int height;
+
+	private final BlockingQueue<BufferedImage> free;
+	private final int maxImages;
+	private int images = 0;
+
+	private final ThreadPoolExecutor workers;
+
+	private int frames = 0;
+
+	/**
+	 * The first exception of a worker, or null
+	 */
+	private volatile IOException error;
+
+	/**
+	 * @param threads
+	 *            the amount of workers
+	 * @param queued
+	 *            the amount of frames that may wait for a worker
+	 */
+	PngSequenceWriter(File directory, String prefix, int width, int height,
+			int threads, int queued) {
+		if (threads < 1 || queued < 0) {
+			throw new IllegalArgumentException("Invalid amount of workers: "
+					+ threads + ", " + queued);
+		}
+		this.directory = directory;
+		this.prefix = prefix;
+		this.width = width;
+		this.height = height;
+		this.maxImages = threads + queued;
+		this.free = new ArrayBlockingQueue<BufferedImage>(maxImages);
+		// never full: there is no more work than there are images
+		this.workers = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+						maxImages), new DaemonThreadFactory("PNG encoder"));
+	}
+
+	/**
+	 * An image to paint the next frame on, waiting for a worker to finish
+	 * one if all of them are in use
+	 */
+	BufferedImage takeImage() throws InterruptedException {
+		BufferedImage image = free.poll();
+		if (image == null) {
+			if (images < maxImages) {
+				images++;
+				return new BufferedImage(width, height,
+						BufferedImage.TYPE_INT_RGB);
+			}
+			image = free.take();
+		}
+		return image;
+	}
+
+	/**
+	 * Queue an image taken from this writer as the next frame; the image must
+	 * not be used after this
+	 *
+	 * @throws IOException
+	 *             if a frame that was queued before could not be written
+	 */
+	void write(final BufferedImage image) throws IOException {
+		checkError();
+		final File file = new File(directory, String.format("%s%06d.png",
+				prefix, frames++));
+		workers.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (error == null) {
+						encode(image, file);
+					}
+				} catch (IOException e) {
+					if (error == null) {
+						error = e;
+					}
+				} finally {
+					free.offer(image);
+				}
+			}
+		});
+	}
+
+	/**
+	 * The amount of frames that were queued
+	 */
+	int getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Wait until every queued frame is written, and stop the workers
+	 *
+	 * @throws IOException
+	 *             if a frame could not be written
+	 */
+	void close() throws IOException, InterruptedException {
+		workers.shutdown();
+		while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+			// keep waiting for the last frames
+		}
+		checkError();
+	}
+
+	/**
+	 * Write an image of the type of the images of this writer as a PNG file
+	 */
+	private static void encode(BufferedImage image, File file)
+			throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+				.getData();
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+		DataOutputStream headerData = new DataOutputStream(header);
+		headerData.writeInt(width);
+		headerData.writeInt(height);
+		// 8 bits per sample, RGB, deflate, no filtering, not interlaced
+		headerData.write(new byte[] { 8, 2, 0, 0, 0 });
+
+		ByteArrayOutputStream data = new ByteArrayOutputStream(width * height);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			DeflaterOutputStream compressed = new DeflaterOutputStream(data,
+					deflater, 1 << 16);
+			// every row starts with its filter type, 0 for none
+			byte[] row = new byte[1 + 3 * width];
+			for (int y = 0; y < height; y++) {
+				int offset = y * width;
+				for (int x = 0; x < width; x++) {
+					int pixel = pixels[offset + x];
+					row[1 + 3 * x] = (byte) (pixel >> 16);
+					row[2 + 3 * x] = (byte) (pixel >> 8);
+					row[3 + 3 * x] = (byte) pixel;
+				}
+				compressed.write(row);
+			}
+			compressed.finish();
+		} finally {
+			deflater.end();
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try {
+			out.write(SIGNATURE);
+			writeChunk(out, "IHDR", header);
+			writeChunk(out, "IDAT", data);
+			writeChunk(out, "IEND", new ByteArrayOutputStream(0));
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeChunk(DataOutputStream out, String type,
+			ByteArrayOutputStream data) throws IOException {
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		byte[] dataBytes = data.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(dataBytes);
+		out.writeInt(dataBytes.length);
+		out.write(typeBytes);
+		out.write(dataBytes);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private void checkError() throws IOException {
+		IOException e = error;
+		if (e != null) {
+			throw e;
+		}
+	}
+}
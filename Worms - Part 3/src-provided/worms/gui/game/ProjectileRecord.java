@@ -0,0 +1,25 @@
+package worms.gui.game;
+
+import worms.gui.game.sprites.ProjectileSprite;
+
+/**
+ * The state of a projectile sprite at one tick of the simulation
+ */
+final class ProjectileRecord extends SpriteRecord {
+
+	/**
+	 * The locations (in pixels) of the trail of the projectile, oldest first
+	 */
+	final double[][] trail;
+
+	private ProjectileRecord(ProjectileSprite sprite) {
+		super(sprite);
+		this.trail = sprite.getTrail();
+	}
+
+	static ProjectileRecord of(ProjectileSprite sprite) {
+		synchronized (sprite) {
+			return new ProjectileRecord(sprite);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package worms.gui.game;
+
+import java.awt.FontMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import worms.gui.game.sprites.FoodSprite;
+import worms.gui.game.sprites.ProjectileSprite;
+import worms.gui.game.sprites.WormSprite;
+
+/**
+ * The records of the sprites of a screen after one tick of the simulation,
+ * together with their records after the tick before.
+ *
+ * A frame is never changed after it is published, so the render thread can
+ * paint it without locks. The records of sprites that did not change since
+ * the previous frame are reused. Between two ticks, sprites are drawn at a
+ * location interpolated between the two ticks of the latest frame; they are
+ * shown one tick late, but move smoothly however fast the screen is painted.
+ * A frame also holds the camera its sprites were placed with, so the level
+ * is drawn with the same camera as the sprites. When nothing changed since
+ * the previous frame, that frame is kept, so the painter can tell that there
+ * is nothing new to paint.
+ */
+final class RenderFrame {
+
+	private final long previousTime;
+	private final Map<Sprite<?>, SpriteRecord> previousRecords;
+	private final Camera previousCamera;
+
+	private final long time;
+	private final Map<Sprite<?>, SpriteRecord> records;
+	private final Camera camera;
+
+	private final FoodRecord[] food;
+	private final WormRecord[] worms;
+	private final ProjectileRecord[] projectiles;
+
+	private RenderFrame(long previousTime,
+			Map<Sprite<?>, SpriteRecord> previousRecords,
+			Camera previousCamera, long time,
+			Map<Sprite<?>, SpriteRecord> records, Camera camera,
+			FoodRecord[] food, WormRecord[] worms,
+			ProjectileRecord[] projectiles) {
+		this.previousTime = previousTime;
+		this.previousRecords = previousRecords;
+		this.previousCamera = previousCamera;
+		this.time = time;
+		this.records = records;
+		this.camera = camera;
+		this.food = food;
+		this.worms = worms;
+		this.projectiles = projectiles;
+	}
+
+	/**
+	 * A frame with the current state of the given sprites, following the
+	 * given frame (which may be null); the given frame itself if none of the
+	 * sprites changed
+	 *
+	 * @param selectedWorm
+	 *            the worm that is painted as selected
+	 * @param checkedTime
+	 *            the latest time (System.nanoTime) the given frame was
+	 *            captured or found unchanged; sprites move from their records
+	 *            in that frame from then on
+	 * @param camera
+	 *            the camera the sprites are placed with
+	 * @param nameMetrics
+	 *            the metrics of the font the names of worms are drawn in
+	 */
+	static RenderFrame capture(Collection<Sprite<?>> sprites,
+			Object selectedWorm, RenderFrame previous, long checkedTime,
+			Camera camera, FontMetrics nameMetrics) {
+		Map<Sprite<?>, SpriteRecord> records = new IdentityHashMap<Sprite<?>, SpriteRecord>(
+				sprites.size());
+		List<FoodRecord> food = new ArrayList<FoodRecord>();
+		List<WormRecord> worms = new ArrayList<WormRecord>();
+		List<ProjectileRecord> projectiles = new ArrayList<ProjectileRecord>();
+		boolean changed = previous == null || !camera.equals(previous.camera);
+		for (Sprite<?> sprite : sprites) {
+			SpriteRecord record = previous == null ? null : previous.records
+					.get(sprite);
+			if (record != null && record.version != sprite.getVersion()) {
+				record = null;
+			}
+			if (sprite instanceof WormSprite) {
+				boolean selected = sprite.getObject() == selectedWorm;
+				if (record == null || ((WormRecord) record).selected != selected) {
+					record = WormRecord.of((WormSprite) sprite, selected,
+							nameMetrics);
+				}
+				worms.add((WormRecord) record);
+			} else if (sprite instanceof FoodSprite) {
+				if (record == null) {
+					record = FoodRecord.of((FoodSprite) sprite);
+				}
+				food.add((FoodRecord) record);
+			} else if (sprite instanceof ProjectileSprite) {
+				if (record == null) {
+					record = ProjectileRecord.of((ProjectileSprite) sprite);
+				}
+				projectiles.add((ProjectileRecord) record);
+			} else {
+				continue;
+			}
+			changed = changed || record != previous.records.get(sprite);
+			records.put(sprite, record);
+		}
+		if (!changed && records.size() == previous.records.size()) {
+			return previous;
+		}
+		long now = System.nanoTime();
+		records = Collections.unmodifiableMap(records);
+		FoodRecord[] foodArray = food.toArray(new FoodRecord[food.size()]);
+		WormRecord[] wormArray = worms.toArray(new WormRecord[worms.size()]);
+		ProjectileRecord[] projectileArray = projectiles
+				.toArray(new ProjectileRecord[projectiles.size()]);
+		if (previous == null) {
+			return new RenderFrame(now, records, camera, now, records, camera,
+					foodArray, wormArray, projectileArray);
+		}
+		return new RenderFrame(checkedTime, previous.records, previous.camera,
+				now, records, camera, foodArray, wormArray, projectileArray);
+	}
+
+	/**
+	 * Time (System.nanoTime) at which this frame was captured
+	 */
+	long getTime() {
+		return time;
+	}
+
+	/**
+	 * Time (System.nanoTime) at which the frame before this one was captured;
+	 * the same as the time of this frame if there was none
+	 */
+	long getPreviousTime() {
+		return previousTime;
+	}
+
+	/**
+	 * Whether the sprites are at the locations in their records at the given
+	 * time (System.nanoTime), so painting this frame later shows nothing new
+	 */
+	boolean isSettled(long now) {
+		return time == previousTime || now - time >= time - previousTime;
+	}
+
+	/**
+	 * The camera the sprites of this frame are placed with
+	 */
+	Camera getCamera() {
+		return camera;
+	}
+
+	/**
+	 * The records of all food, in the order they are painted; the array must
+	 * not be changed
+	 */
+	FoodRecord[] getFood() {
+		return food;
+	}
+
+	/**
+	 * The records of all worms, in the order they are painted; the array must
+	 * not be changed
+	 */
+	WormRecord[] getWorms() {
+		return worms;
+	}
+
+	/**
+	 * The records of all projectiles, in the order they are painted; the
+	 * array must not be changed
+	 */
+	ProjectileRecord[] getProjectiles() {
+		return projectiles;
+	}
+
+	/**
+	 * The record of the given sprite in this frame, or null
+	 */
+	SpriteRecord getRecord(Sprite<?> sprite) {
+		return records.get(sprite);
+	}
+
+	/**
+	 * Whether the given sprite has a record in this frame
+	 */
+	boolean contains(Sprite<?> sprite) {
+		return records.containsKey(sprite);
+	}
+
+	/**
+	 * The location (in pixels) to draw the sprite of the given record at, at
+	 * the given time (System.nanoTime)
+	 */
+	double[] getLocation(SpriteRecord record, long now) {
+		SpriteRecord from = previousRecords.get(record.sprite);
+		if (from == null || from == record || time == previousTime
+				|| !camera.equals(previousCamera)) {
+			// nothing to interpolate, or the view jumped
+			return new double[] { record.x, record.y };
+		}
+		double t = (double) (now - time) / (time - previousTime);
+		t = Math.max(0, Math.min(1, t));
+		return new double[] { from.x + t * (record.x - from.x),
+				from.y + t * (record.y - from.y) };
+	}
+}
@@ -9,6 +9,7 @@ public abstract class Sprite<T> {
 	private double x;
 	private double y;
 	private final PlayGameScreen screen;
+	private int version;
 
 	protected Sprite(PlayGameScreen screen) {
 		this.screen = screen;
@@ -45,8 +46,11 @@ public abstract class Sprite<T> {
 	}
 
 	public synchronized void setCenterLocation(double x, double y) {
-		this.x = x;
-		this.y = y;
+		if (x != this.x || y != this.y) {
+			this.x = x;
+			this.y = y;
+			invalidate();
+		}
 	}
 
 	public synchronized double getCenterX() {
@@ -63,4 +67,19 @@ public abstract class Sprite<T> {
 	public synchronized void update() {		
 	}
 
+	/**
+	 * Mark this sprite as looking different from before
+	 */
+	public synchronized void invalidate() {
+		version++;
+	}
+
+	/**
+	 * The version of this sprite, it changes every time the sprite is
+	 * invalidated
+	 */
+	public synchronized int getVersion() {
+		return version;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package worms.gui.game;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import worms.gui.GUIUtils;
+
+/**
+ * The images of all sprites, loaded once per file and transformed once per
+ * size and orientation.
+ *
+ * A transformed image is identified by its source image, its size in pixels
+ * (the scale of a sprite is rounded to whole pixels, as it is when drawn)
+ * and whether it is flipped horizontally. Transformed images are kept in a
+ * least-recently-used map that holds at most MAX_PIXELS pixels; the images
+ * are only softly referenced, so the garbage collector can take them back
+ * when memory runs low. Images are made compatible with the screen, so they
+ * can be drawn without conversion.
+ */
+final class SpriteImageCache {
+
+	/**
+	 * The maximum amount of pixels of all transformed images together (4
+	 * bytes each)
+	 */
+	static final long MAX_PIXELS = 8L * 1024 * 1024;
+
+	private static final Map<String, BufferedImage> sources = new HashMap<String, BufferedImage>();
+
+	private static final LinkedHashMap<Key, SoftReference<BufferedImage>> transformed = new LinkedHashMap<Key, SoftReference<BufferedImage>>(
+			64, 0.75f, true);
+
+	private static long pixels = 0;
+
+	private SpriteImageCache() {
+	}
+
+	/**
+	 * The image in the given resource file, it is only read the first time
+	 */
+	static synchronized BufferedImage load(String filename) {
+		BufferedImage image = sources.get(filename);
+		if (image == null) {
+			try {
+				InputStream inputStream = GUIUtils.openResource(filename);
+				try {
+					image = toCompatibleImage(ImageIO.read(inputStream));
+				} finally {
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read file '" + filename
+						+ "'", e);
+			}
+			sources.put(filename, image);
+		}
+		return image;
+	}
+
+	/**
+	 * The given image scaled to the given size, and flipped horizontally if
+	 * asked for
+	 */
+	static synchronized BufferedImage get(BufferedImage source, int width,
+			int height, boolean hflipped) {
+		width = Math.max(1, width);
+		height = Math.max(1, height);
+		if (!hflipped && width == source.getWidth()
+				&& height == source.getHeight()) {
+			return source;
+		}
+		Key key = new Key(source, width, height, hflipped);
+		SoftReference<BufferedImage> reference = transformed.get(key);
+		BufferedImage image = reference == null ? null : reference.get();
+		if (image == null) {
+			if (reference != null) {
+				// taken back by the garbage collector
+				transformed.remove(key);
+				pixels -= key.pixels();
+			}
+			if (hflipped) {
+				image = hflip(get(source, width, height, false));
+			} else {
+				image = toCompatibleImage(source.getScaledInstance(width,
+						height, Image.SCALE_SMOOTH));
+			}
+			transformed.put(key, new SoftReference<BufferedImage>(image));
+			pixels += key.pixels();
+			evict();
+		}
+		return image;
+	}
+
+	/**
+	 * Forget the least recently used images until at most MAX_PIXELS pixels
+	 * are kept, or only one image is left
+	 */
+	private static void evict() {
+		Iterator<Key> keys = transformed.keySet().iterator();
+		while (pixels > MAX_PIXELS && transformed.size() > 1) {
+			Key key = keys.next();
+			keys.remove();
+			pixels -= key.pixels();
+		}
+	}
+
+	private static BufferedImage toCompatibleImage(Image image) {
+		BufferedImage result = createCompatibleImage(image.getWidth(null),
+				image.getHeight(null));
+		Graphics2D graphics = result.createGraphics();
+		graphics.drawImage(image, 0, 0, null);
+		graphics.dispose();
+		return result;
+	}
+
+	private static BufferedImage hflip(BufferedImage image) {
+		BufferedImage result = createCompatibleImage(image.getWidth(),
+				image.getHeight());
+		Graphics2D graphics = result.createGraphics();
+		graphics.scale(-1, 1);
+		graphics.drawImage(image, -image.getWidth(), 0, null);
+		graphics.dispose();
+		return result;
+	}
+
+	/**
+	 * A translucent image of the given size in the format of the screen
+	 */
+	static BufferedImage createCompatibleImage(int width, int height) {
+		BufferedImage result = null;
+		if (!GraphicsEnvironment.isHeadless()) {
+			try {
+				GraphicsConfiguration configuration = GraphicsEnvironment
+						.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+						.getDefaultConfiguration();
+				result = configuration.createCompatibleImage(width, height,
+						Transparency.TRANSLUCENT);
+			} catch (HeadlessException e) {
+				result = null;
+			}
+		}
+		if (result == null) {
+			result = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+		}
+		return result;
+	}
+
+	private static final class Key {
+		private final BufferedImage source;
+		private final int width;
+		private final int height;
+		private final boolean hflipped;
+
+		Key(BufferedImage source, int width, int height, boolean hflipped) {
+			this.source = source;
+			this.width = width;
+			this.height = height;
+			this.hflipped = hflipped;
+		}
+
+		long pixels() {
+			return (long) width * height;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return source == other.source && width == other.width
+					&& height == other.height && hflipped == other.hflipped;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(source);
+			result = 31 * result + width;
+			result = 31 * result + height;
+			return 2 * result + (hflipped ? 1 : 0);
+		}
+	}
+}
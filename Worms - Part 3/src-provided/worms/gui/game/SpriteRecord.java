@@ -0,0 +1,69 @@
+package worms.gui.game;
+
+import java.awt.Image;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * The state of a sprite at one tick of the simulation, as it is painted.
+ *
+ * Records are made on the simulation thread, while holding the lock of the
+ * sprite, and are never changed afterwards; the painter only reads records,
+ * so painting takes no locks and every frame is consistent. A record is
+ * reused by the next frame for as long as its sprite does not change.
+ */
+class SpriteRecord {
+
+	/**
+	 * The sprite this is a record of, only used to recognise it in later
+	 * frames
+	 */
+	final Sprite<?> sprite;
+
+	/**
+	 * The version of the sprite when this record was made
+	 */
+	final int version;
+
+	/**
+	 * The center (in pixels)
+	 */
+	final double x;
+	final double y;
+
+	/**
+	 * The size (in pixels)
+	 */
+	final double width;
+	final double height;
+
+	/**
+	 * The image to draw, scaled and flipped, or null if the sprite is not an
+	 * image sprite
+	 */
+	final Image image;
+
+	/**
+	 * Must be called while holding the lock of the sprite
+	 */
+	SpriteRecord(Sprite<?> sprite) {
+		this.sprite = sprite;
+		this.version = sprite.getVersion();
+		this.x = sprite.getCenterX();
+		this.y = sprite.getCenterY();
+		this.width = sprite.getWidth(null);
+		this.height = sprite.getHeight(null);
+		if (sprite instanceof ImageSprite) {
+			this.image = ((ImageSprite<?>) sprite).getImageToDraw();
+		} else {
+			this.image = null;
+		}
+	}
+
+	/**
+	 * Bounds (in pixels) of the image of the sprite
+	 */
+	Rectangle2D getBounds() {
+		return new Rectangle2D.Double(x - width / 2, y - height / 2, width,
+				height);
+	}
+}
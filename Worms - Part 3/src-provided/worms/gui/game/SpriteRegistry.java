@@ -0,0 +1,226 @@
+package worms.gui.game;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The sprites of a screen, indexed by their class and by the object they
+ * show.
+ *
+ * Looking up the sprite of an object takes constant time. The sets returned
+ * by {@link #ofType(Class)} are cached views that always reflect the current
+ * sprites; they can be iterated while sprites are added or removed by
+ * another thread, since adding or removing a sprite copies the list it is
+ * in instead of changing it.
+ */
+class SpriteRegistry {
+
+	private final List<Sprite<?>> all = new CopyOnWriteArrayList<Sprite<?>>();
+
+	/**
+	 * The sprites of every concrete sprite class
+	 */
+	private final Map<Class<?>, List<Sprite<?>>> byClass = new HashMap<Class<?>, List<Sprite<?>>>();
+
+	/**
+	 * For every concrete sprite class, the sprite of every object
+	 */
+	private final Map<Class<?>, Map<Object, Sprite<?>>> byObject = new HashMap<Class<?>, Map<Object, Sprite<?>>>();
+
+	/**
+	 * The view of every type that was asked for
+	 */
+	private final Map<Class<?>, TypeView<?>> views = new HashMap<Class<?>, TypeView<?>>();
+
+	public synchronized void add(Sprite<?> sprite) {
+		Class<?> type = sprite.getClass();
+		Map<Object, Sprite<?>> objects = byObject.get(type);
+		if (objects == null) {
+			objects = new IdentityHashMap<Object, Sprite<?>>();
+			byObject.put(type, objects);
+			byClass.put(type, new CopyOnWriteArrayList<Sprite<?>>());
+			for (TypeView<?> view : views.values()) {
+				view.classAdded(type);
+			}
+		}
+		Object object = sprite.getObject();
+		if (object != null) {
+			Sprite<?> previous = objects.put(object, sprite);
+			if (previous == sprite) {
+				return;
+			}
+			if (previous != null) {
+				all.remove(previous);
+				byClass.get(type).remove(previous);
+			}
+		} else if (all.contains(sprite)) {
+			return;
+		}
+		all.add(sprite);
+		byClass.get(type).add(sprite);
+	}
+
+	public synchronized void remove(Sprite<?> sprite) {
+		if (sprite == null) {
+			return;
+		}
+		Class<?> type = sprite.getClass();
+		List<Sprite<?>> sprites = byClass.get(type);
+		if (sprites == null || !sprites.remove(sprite)) {
+			return;
+		}
+		all.remove(sprite);
+		Map<Object, Sprite<?>> objects = byObject.get(type);
+		Object object = sprite.getObject();
+		if (object != null && objects.get(object) == sprite) {
+			objects.remove(object);
+		}
+	}
+
+	/**
+	 * All sprites, in the order they were added
+	 */
+	public List<Sprite<?>> all() {
+		return Collections.unmodifiableList(all);
+	}
+
+	/**
+	 * A live, unmodifiable view of the sprites of the given type
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Sprite<?>> Set<T> ofType(Class<T> type) {
+		TypeView<T> view = (TypeView<T>) views.get(type);
+		if (view == null) {
+			view = new TypeView<T>(type);
+			for (Class<?> spriteClass : byClass.keySet()) {
+				view.classAdded(spriteClass);
+			}
+			views.put(type, view);
+		}
+		return view;
+	}
+
+	/**
+	 * The sprite of the given type that shows the given object, or null
+	 */
+	public synchronized <T, S extends Sprite<T>> S get(Class<S> type, T object) {
+		if (object == null) {
+			return null;
+		}
+		Map<Object, Sprite<?>> objects = byObject.get(type);
+		if (objects != null) {
+			return type.cast(objects.get(object));
+		}
+		// a supertype of the concrete sprite classes
+		for (Map.Entry<Class<?>, Map<Object, Sprite<?>>> entry : byObject
+				.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey())) {
+				Sprite<?> sprite = entry.getValue().get(object);
+				if (sprite != null) {
+					return type.cast(sprite);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The sprite of any type that shows the given object, or null
+	 */
+	public synchronized Sprite<?> ofObject(Object object) {
+		if (object == null) {
+			return null;
+		}
+		for (Map<Object, Sprite<?>> objects : byObject.values()) {
+			Sprite<?> sprite = objects.get(object);
+			if (sprite != null) {
+				return sprite;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The sprites of the concrete classes that are a subtype of a given type
+	 */
+	private class TypeView<T extends Sprite<?>> extends AbstractSet<T> {
+
+		private final Class<T> type;
+
+		private volatile List<List<Sprite<?>>> parts = new ArrayList<List<Sprite<?>>>();
+
+		TypeView(Class<T> type) {
+			this.type = type;
+		}
+
+		void classAdded(Class<?> spriteClass) {
+			if (type.isAssignableFrom(spriteClass)) {
+				List<List<Sprite<?>>> newParts = new ArrayList<List<Sprite<?>>>(
+						parts);
+				newParts.add(byClass.get(spriteClass));
+				parts = newParts;
+			}
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			final Iterator<List<Sprite<?>>> partIterator = parts.iterator();
+			return new Iterator<T>() {
+				private Iterator<Sprite<?>> current = Collections
+						.<Sprite<?>> emptyList().iterator();
+
+				@Override
+				public boolean hasNext() {
+					while (!current.hasNext() && partIterator.hasNext()) {
+						current = partIterator.next().iterator();
+					}
+					return current.hasNext();
+				}
+
+				@Override
+				public T next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return type.cast(current.next());
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (List<Sprite<?>> part : parts) {
+				size += part.size();
+			}
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!type.isInstance(o)) {
+				return false;
+			}
+			List<Sprite<?>> part = byClassOf(o);
+			return part != null && part.contains(o);
+		}
+	}
+
+	private synchronized List<Sprite<?>> byClassOf(Object sprite) {
+		return byClass.get(sprite.getClass());
+	}
+}
@@ -0,0 +1,70 @@
+package worms.gui.game;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import worms.model.EntityChange;
+import worms.model.WorldListener;
+
+/**
+ * Collects the changes a world reports, until the screen applies them to its
+ * sprites.
+ *
+ * Every entity is remembered once, with the kinds of changes it went
+ * through as a bit mask. An entity that is spawned and removed before the
+ * changes are applied is forgotten.
+ */
+class WorldChanges implements WorldListener {
+
+	static final int SPAWNED = 1;
+	static final int MOVED = 2;
+	static final int DAMAGED = 4;
+	static final int ALTERED = 8;
+	static final int REMOVED = 16;
+
+	// entities do not override equals, so this map works by identity
+	private Map<Object, Integer> changes = new LinkedHashMap<Object, Integer>();
+
+	@Override
+	public synchronized void entitySpawned(Object entity) {
+		changes.put(entity, SPAWNED);
+	}
+
+	@Override
+	public synchronized void entityChanged(Object entity, EntityChange change) {
+		Integer kinds = changes.get(entity);
+		if (kinds == null) {
+			kinds = 0;
+		}
+		switch (change) {
+		case MOVED:
+			kinds |= MOVED;
+			break;
+		case DAMAGED:
+			kinds |= DAMAGED;
+			break;
+		default:
+			kinds |= ALTERED;
+		}
+		changes.put(entity, kinds);
+	}
+
+	@Override
+	public synchronized void entityRemoved(Object entity) {
+		Integer kinds = changes.get(entity);
+		if (kinds != null && (kinds & SPAWNED) != 0) {
+			changes.remove(entity);
+		} else {
+			changes.put(entity, REMOVED);
+		}
+	}
+
+	/**
+	 * Returns the changes since the previous call, and forgets them
+	 */
+	public synchronized Map<Object, Integer> drain() {
+		Map<Object, Integer> result = changes;
+		changes = new LinkedHashMap<Object, Integer>();
+		return result;
+	}
+}
@@ -0,0 +1,101 @@
+package worms.gui.game;
+
+import java.awt.FontMetrics;
+import java.awt.geom.Rectangle2D;
+
+import worms.gui.game.sprites.WormSprite;
+
+/**
+ * The state of a worm sprite at one tick of the simulation
+ */
+final class WormRecord extends SpriteRecord {
+
+	final String name;
+	final String teamName;
+	final String selectedWeapon;
+
+	/**
+	 * The name shown above the worm, with its team, and its bounds (in pixels)
+	 * relative to its baseline; measured when the record is made, so finding
+	 * the region to repaint never needs the font
+	 */
+	final String displayName;
+	final Rectangle2D nameBounds;
+
+	/**
+	 * Orientation (in radians)
+	 */
+	final double orientation;
+
+	/**
+	 * Radius (in worm-meter)
+	 */
+	final double radius;
+
+	/**
+	 * Location of the worm in the model (in worm-meter), which differs from
+	 * the location of the sprite while it is animated
+	 */
+	final double actualX;
+	final double actualY;
+
+	final boolean atImpassableTerrain;
+	final int actionPoints;
+	final int maxActionPoints;
+	final int hitPoints;
+	final int maxHitPoints;
+
+	/**
+	 * Locations (in worm-meter) of the jump of the worm, or null if it can not
+	 * jump
+	 */
+	final double[][] jumpSteps;
+
+	/**
+	 * Whether the worm is the selected worm
+	 */
+	final boolean selected;
+
+	private WormRecord(WormSprite sprite, boolean selected,
+			FontMetrics nameMetrics) {
+		super(sprite);
+		this.name = sprite.getName();
+		this.teamName = sprite.getTeamName();
+		this.selectedWeapon = sprite.getSelectedWeapon();
+		this.displayName = getDisplayName(name, teamName);
+		this.nameBounds = nameMetrics.getStringBounds(displayName, null);
+		this.orientation = sprite.getOrientation();
+		this.radius = sprite.getRadius();
+		this.actualX = sprite.getActualX();
+		this.actualY = sprite.getActualY();
+		this.atImpassableTerrain = sprite.isAtImpassableTerrain();
+		this.actionPoints = sprite.getActionPoints();
+		this.maxActionPoints = sprite.getMaxActionPoints();
+		this.hitPoints = sprite.getHitPoints();
+		this.maxHitPoints = sprite.getMaxHitPoints();
+		// never changed, the sprite replaces it when the worm changes
+		this.jumpSteps = sprite.getJumpSteps();
+		this.selected = selected;
+	}
+
+	private static String getDisplayName(String name, String teamName) {
+		if (name == null) {
+			name = "(null)";
+		}
+		if (teamName != null) {
+			name += " (" + teamName + ")";
+		}
+		return name;
+	}
+
+	/**
+	 * @param nameMetrics
+	 *            the metrics of the font the name is drawn in
+	 */
+	static WormRecord of(WormSprite sprite, boolean selected,
+			FontMetrics nameMetrics) {
+		synchronized (sprite) {
+			return new WormRecord(sprite, selected, nameMetrics);
+		}
+	}
+}
@@ -4,6 +4,8 @@ import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 
+import javax.swing.SwingUtilities;
+
 import worms.gui.InputMode;
 import worms.gui.game.PlayGameScreen;
 import worms.gui.game.sprites.WormSprite;
@@ -36,8 +38,11 @@ public class DefaultInputMode extends InputMode<PlayGameScreen> {
 
 	@Override
 	public void mouseDragged(MouseEvent e) {
-		getScreen().switchInputMode(new TurningMode(getScreen(), this));
-		getScreen().getCurrentInputMode().mouseDragged(e);
+		// dragging with the other buttons pans the camera
+		if (SwingUtilities.isLeftMouseButton(e)) {
+			getScreen().switchInputMode(new TurningMode(getScreen(), this));
+			getScreen().getCurrentInputMode().mouseDragged(e);
+		}
 	}
 
 	@Override
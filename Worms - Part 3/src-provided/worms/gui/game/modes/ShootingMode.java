@@ -3,9 +3,16 @@ package worms.gui.game.modes;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import worms.gui.InputMode;
 import worms.gui.game.PlayGameScreen;
+import worms.gui.messages.MessageType;
+import worms.model.AimingSolver;
+import worms.model.Worm;
 
 public class ShootingMode extends InputMode<PlayGameScreen> {
 
@@ -26,8 +33,64 @@ public class ShootingMode extends InputMode<PlayGameScreen> {
 
 	@Override
 	public void mouseDragged(MouseEvent e) {
-		getScreen().switchInputMode(new TurningMode(getScreen(), this));
-		getScreen().getCurrentInputMode().mouseDragged(e);
+		// dragging with the other buttons pans the camera
+		if (SwingUtilities.isLeftMouseButton(e)) {
+			getScreen().switchInputMode(new TurningMode(getScreen(), this));
+			getScreen().getCurrentInputMode().mouseDragged(e);
+		}
+	}
+
+	/**
+	 * Aims the selected worm at the clicked point: turns it to the angle and
+	 * sets the propulsion the aiming solver found for the selected weapon.
+	 * The solver copies the worms here and searches in the background, so the
+	 * GUI keeps responding; the aim is dropped if the player left this mode or
+	 * selected another worm in the meantime.
+	 */
+	@Override
+	public void mouseClicked(MouseEvent e) {
+		final Worm worm = getScreen().getSelectedWorm();
+		if (worm == null) {
+			return;
+		}
+		final double x = getScreen().getLogicalX(e.getX());
+		final double y = getScreen().getLogicalY(e.getY());
+		final String weapon = getScreen().getFacade().getSelectedWeapon(worm);
+		final AimingSolver solver = new AimingSolver(getScreen().getWorld());
+		new SwingWorker<AimingSolver.Aim, Void>() {
+			@Override
+			protected AimingSolver.Aim doInBackground() {
+				return solver.solve(worm, weapon, x, y);
+			}
+
+			@Override
+			protected void done() {
+				if (getScreen().getCurrentInputMode() != ShootingMode.this
+						|| getScreen().getSelectedWorm() != worm) {
+					return;
+				}
+				AimingSolver.Aim aim;
+				try {
+					aim = get();
+				} catch (InterruptedException exc) {
+					return;
+				} catch (ExecutionException exc) {
+					throw new RuntimeException(exc.getCause());
+				}
+				aim(worm, aim);
+			}
+		}.execute();
+	}
+
+	private void aim(Worm worm, AimingSolver.Aim aim) {
+		if (aim == null) {
+			getScreen().addMessage("Cannot reach that point",
+					MessageType.ERROR);
+			return;
+		}
+		propulsion = aim.getPropulsionYield();
+		getScreen().turn(
+				aim.getAngle() - getScreen().getFacade().getOrientation(worm));
 	}
 
 	@Override
@@ -70,9 +133,14 @@ public class ShootingMode extends InputMode<PlayGameScreen> {
 		}
 	}
 
+	@Override
+	public boolean hasChangingOverlay() {
+		return true;
+	}
+
 	@Override
 	public void paintOverlay(Graphics2D g) {
-		getScreen().showInstructions(g, "Shooting mode\nPress 'W' to toggle weapon\nPress 'S' to shoot\nPress 'ESC' to exit shooting mode");
+		getScreen().showInstructions(g, "Shooting mode\nPress 'W' to toggle weapon\nClick a point to aim at it\nPress 'S' to shoot\nPress 'ESC' to exit shooting mode");
 		getScreen().paintShootingInfoForSelectedWorm(
 				g,
 				(double) (propulsion - MIN_PROPULSION)
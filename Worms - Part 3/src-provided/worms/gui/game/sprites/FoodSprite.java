@@ -50,6 +50,7 @@ public class FoodSprite extends ImageSprite<Food> {
 	public synchronized void update() {
 		setRadius(getFacade().getRadius(getFood()));
 		setCenterLocation(getScreen().getScreenX(getFacade().getX(getFood())), getScreen().getScreenY(getFacade().getY(getFood())));
+		invalidate();
 	}
 
 	@Override
@@ -58,15 +58,33 @@ public class ProjectileSprite extends Sprite<Projectile> {
 
 	@Override
 	public synchronized void draw(Graphics2D g) {
-		for (int i = 0; i < lastLocations.size(); i++) {
-			double[] loc = lastLocations.get(i);
+		drawTrail(g, getTrail(), sizeInPixels);
+	}
+
+	/**
+	 * Draw the trail of a projectile of the given size, through the given
+	 * locations (oldest first)
+	 */
+	public static void drawTrail(Graphics2D g, double[][] trail,
+			double sizeInPixels) {
+		for (int i = 0; i < trail.length; i++) {
+			double[] loc = trail[i];
 			g.setColor(colors[i]);
-			double t = (double) (i + 1) / lastLocations.size();
+			double t = (double) (i + 1) / trail.length;
 			double size = sizeInPixels * t * t * t;
 			g.fill(GUIUtils.circleAt(loc[0], loc[1], size));
 		}
 	}
 
+	/**
+	 * The last locations of this projectile, oldest first
+	 */
+	public synchronized double[][] getTrail() {
+		synchronized (lastLocations) {
+			return lastLocations.toArray(new double[lastLocations.size()][]);
+		}
+	}
+
 	@Override
 	public Projectile getObject() {
 		return getProjectile();
@@ -77,6 +95,7 @@ public class ProjectileSprite extends Sprite<Projectile> {
 	}
 
 	public synchronized void setSize(double sizeInPixels) {
+		invalidate();
 		this.sizeInPixels = Math.min(MAX_DISPLAY_SIZE,
 				Math.max(MIN_DISPLAY_SIZE, DISPLAY_SCALE * sizeInPixels));
 	}
@@ -121,5 +140,6 @@ public class ProjectileSprite extends Sprite<Projectile> {
 			}
 		}
 		lastLocations.add(new double[] { x, y });
+		invalidate();
 	}
 }
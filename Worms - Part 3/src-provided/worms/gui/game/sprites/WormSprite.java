@@ -1,16 +1,30 @@
 package worms.gui.game.sprites;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import worms.gui.GUIConstants;
 import worms.gui.GUIUtils;
 import worms.gui.game.ImageSprite;
 import worms.gui.game.PlayGameScreen;
 import worms.model.ModelException;
+import worms.model.World;
 import worms.model.Worm;
+import worms.util.DaemonThreadFactory;
 
 public class WormSprite extends ImageSprite<Worm> {
 
 	private static final double MAX_SCALE = 100;
 	private static final double MIN_SCALE = 0.05;
+
+	/**
+	 * The thread that computes the jump markers of all worms, so the game
+	 * never waits for them
+	 */
+	private static final ExecutorService jumpMarkerExecutor = Executors
+			.newSingleThreadExecutor(new DaemonThreadFactory("Jump markers",
+					Thread.MIN_PRIORITY));
+
 	private final Worm worm;
 	
 	private String selectedWeapon;
@@ -29,6 +43,11 @@ public class WormSprite extends ImageSprite<Worm> {
 	private double actualY;
 	private double radius;
 
+	/**
+	 * The state of the worm the latest jump markers were asked for
+	 */
+	private JumpState requestedJump;
+
 	public WormSprite(PlayGameScreen screen, Worm worm) {
 		super(screen, "images/worm.png");
 		this.worm = worm;
@@ -124,6 +143,17 @@ public class WormSprite extends ImageSprite<Worm> {
 		this.maxActionPoints = getFacade().getMaxActionPoints(getWorm());
 		this.hitPoints = getFacade().getHitPoints(getWorm());
 		this.maxHitPoints = getFacade().getMaxHitPoints(getWorm());
+		invalidate();
+	}
+
+	/**
+	 * Update only the hit points of this sprite, after the worm was damaged
+	 * or healed
+	 */
+	public synchronized void updateHitPoints() {
+		this.hitPoints = getFacade().getHitPoints(getWorm());
+		this.maxHitPoints = getFacade().getMaxHitPoints(getWorm());
+		invalidate();
 	}
 
 	public void setIsJumping(boolean isJumping) {
@@ -144,20 +174,49 @@ public class WormSprite extends ImageSprite<Worm> {
 
 	protected static final double JUMP_MARKER_TIME_DISTANCE = 0.1; // worm-seconds
 
+	/**
+	 * Ask for the jump markers of the current state of the worm, if they
+	 * were not asked for yet. They are computed by computeJumpSteps and
+	 * replace the current markers when they are ready.
+	 */
 	private void updateJumpTime() {
-		try {
-			double time = getFacade().getJumpTime(getWorm(),
-					GUIConstants.JUMP_TIME_STEP);
-
-			int n = 1 + (int) (time / JUMP_MARKER_TIME_DISTANCE);
-			xys = new double[n][];
-			for (int i = 1; i <= n; i++) {
-				double dt = i * time / n;
-				double[] xy = getFacade().getJumpStep(getWorm(), dt);
-				xys[i - 1] = xy;
+		final JumpState state = new JumpState(getScreen().getWorld(),
+				getFacade().getX(getWorm()), getFacade().getY(getWorm()),
+				getFacade().getRadius(getWorm()), getFacade().getOrientation(
+						getWorm()), getFacade().getActionPoints(getWorm()));
+		if (state.equals(requestedJump)) {
+			return;
+		}
+		requestedJump = state;
+		computeJumpSteps(new Runnable() {
+			@Override
+			public void run() {
+				// skip states the worm already left
+				if (isRequested(state)) {
+					publishJumpSteps(state, state.getJumpSteps());
+				}
 			}
-		} catch (ModelException e) {
-			this.xys = null;
+		});
+	}
+
+	/**
+	 * Run the given computation of jump markers; in the background, so the
+	 * game never waits for them. It may be run at once, by a screen that
+	 * needs the markers of every state of the worm.
+	 */
+	protected void computeJumpSteps(Runnable computation) {
+		jumpMarkerExecutor.execute(computation);
+	}
+
+	private synchronized boolean isRequested(JumpState state) {
+		return requestedJump == state;
+	}
+
+	private synchronized void publishJumpSteps(JumpState state,
+			double[][] xys) {
+		if (requestedJump == state) {
+			this.xys = xys;
+			invalidate();
 		}
 	}
 
@@ -216,4 +275,64 @@ public class WormSprite extends ImageSprite<Worm> {
 	public synchronized double getRadius() {
 		return radius;
 	}
+
+	/**
+	 * The state of a worm that decides where it jumps to, copied so the jump
+	 * can be computed while the game goes on
+	 */
+	private static final class JumpState {
+		private final World world;
+		private final double x;
+		private final double y;
+		private final double radius;
+		private final double angle;
+		private final int actionPoints;
+
+		JumpState(World world, double x, double y, double radius,
+				double angle, int actionPoints) {
+			this.world = world;
+			this.x = x;
+			this.y = y;
+			this.radius = radius;
+			this.angle = angle;
+			this.actionPoints = actionPoints;
+		}
+
+		/**
+		 * Locations (in worm-meter) of the jump, JUMP_MARKER_TIME_DISTANCE
+		 * apart
+		 */
+		double[][] getJumpSteps() {
+			double time = Worm.getJumpTimeOf(world, x, y, radius, angle,
+					actionPoints, GUIConstants.JUMP_TIME_STEP);
+			int n = 1 + (int) (time / JUMP_MARKER_TIME_DISTANCE);
+			double[][] xys = new double[n][];
+			for (int i = 1; i <= n; i++) {
+				double dt = i * time / n;
+				xys[i - 1] = Worm.getJumpStepOf(x, y, radius, angle,
+						actionPoints, dt);
+			}
+			return xys;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof JumpState)) {
+				return false;
+			}
+			JumpState other = (JumpState) obj;
+			return world == other.world && x == other.x && y == other.y && radius == other.radius
+					&& angle == other.angle
+					&& actionPoints == other.actionPoints;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(x);
+			bits = 31 * bits + Double.doubleToLongBits(y);
+			bits = 31 * bits + Double.doubleToLongBits(angle);
+			bits = 31 * bits + actionPoints;
+			return (int) (bits ^ (bits >>> 32));
+		}
+	}
 }
@@ -11,7 +11,7 @@ public class MessageDisplay {
 	public MessageDisplay() {
 	}
 
-	public void addMessage(String message, MessageType type) {
+	public synchronized void addMessage(String message, MessageType type) {
 		Message newMessage = new Message(message, type);
 		if (messages.isEmpty() || !messages.getLast().equals(newMessage))
 			this.messages.add(newMessage);
@@ -37,7 +37,7 @@ public class MessageDisplay {
 		}
 	}
 
-	public Message getMessage() {
+	public synchronized Message getMessage() {
 		if (isDisplayingMessage()) {
 			if (currentDisplayTime() >= GUIConstants.MESSAGE_DISPLAY_TIME) {
 				messages.remove();
@@ -0,0 +1,45 @@
+package worms.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A factory of numbered daemon threads for the background work of the game,
+ * which must never keep the program running once the game is closed.
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+	private final String name;
+	private final int priority;
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * A factory of threads with the given name and normal priority
+	 */
+	public DaemonThreadFactory(String name) {
+		this(name, Thread.NORM_PRIORITY);
+	}
+
+	/**
+	 * A factory of threads with the given name and priority
+	 */
+	public DaemonThreadFactory(String name, int priority) {
+		if (name == null)
+			throw new IllegalArgumentException("A thread needs a name");
+		this.name = name;
+		this.priority = priority;
+	}
+
+	/**
+	 * A daemon thread running the given runnable, named after this factory
+	 * and the amount of threads it made
+	 */
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, name + " "
+				+ count.incrementAndGet());
+		thread.setDaemon(true);
+		thread.setPriority(priority);
+		return thread;
+	}
+}
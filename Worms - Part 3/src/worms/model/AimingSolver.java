@@ -0,0 +1,551 @@
+package worms.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of solvers that compute the angle and propulsion yield with which a worm hits a point
+ *
+ * A projectile flies along a parabola, so the speed a projectile launched at a given angle needs to pass through
+ * a point follows from a closed formula. Since a projectile is launched from a position that depends on the angle,
+ * the angle for a given speed has no closed formula: the needed speed is computed for evenly spread angles, and
+ * every interval in which it crosses the speed of the weapon is bisected. Only the paths that are found are walked
+ * to check that the terrain does not stop the projectile before it reaches the point.
+ *
+ * A solver copies the position and radius of every worm when it is made, like a shot simulator, so it can solve
+ * on another thread while the game goes on.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class AimingSolver
+{
+
+	/**
+	 * The amount of intervals the angles are split in to look for solutions
+	 */
+	private static final int ANGLES = 1440;
+
+
+	/**
+	 * The amount of times an interval with a solution is halved
+	 */
+	private static final int BISECTIONS = 60;
+
+
+	/**
+	 * The largest distance between the point and the path of a solution, relative to the distance from the origin
+	 */
+	private static final double PRECISION = 1e-9;
+
+
+	/**
+	 * The world the shots are fired in
+	 */
+	private final World world;
+
+
+	/**
+	 * The worms of the world or snapshot when this solver was made
+	 */
+	private final Worm[] worms;
+
+
+	/**
+	 * The posX of every worm when this solver was made
+	 */
+	private final double[] wormsX;
+
+
+	/**
+	 * The posY of every worm when this solver was made
+	 */
+	private final double[] wormsY;
+
+
+	/**
+	 * The radius of every worm when this solver was made
+	 */
+	private final double[] wormsRadius;
+
+
+	/**
+	 * Creates a solver for shots in the current state of a world
+	 *
+	 * @param world
+	 * 		The world the shots are fired in
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the world is null
+	 */
+	public AimingSolver(World world) throws IllegalArgumentException
+	{
+		if (world == null)
+			throw new IllegalArgumentException("An aiming solver needs a world");
+		this.world = world;
+		this.worms = world.getWorms().toArray(new Worm[world.getWorms().size()]);
+		this.wormsX = new double[worms.length];
+		this.wormsY = new double[worms.length];
+		this.wormsRadius = new double[worms.length];
+		for (int i = 0; i < worms.length; i++)
+		{
+			wormsX[i] = worms[i].getPosX();
+			wormsY[i] = worms[i].getPosY();
+			wormsRadius[i] = worms[i].getRadius();
+		}
+	}
+
+
+	/**
+	 * Creates a solver for shots by the worms in a snapshot
+	 *
+	 * @param snapshot
+	 * 		The snapshot whose worms shoot, in the terrain of its world
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the snapshot is null
+	 */
+	public AimingSolver(WorldSnapshot snapshot) throws IllegalArgumentException
+	{
+		if (snapshot == null)
+			throw new IllegalArgumentException("An aiming solver needs a snapshot");
+		this.world = snapshot.getWorld();
+		this.worms = new Worm[snapshot.getAmountOfWorms()];
+		this.wormsX = new double[worms.length];
+		this.wormsY = new double[worms.length];
+		this.wormsRadius = new double[worms.length];
+		for (int i = 0; i < worms.length; i++)
+		{
+			worms[i] = snapshot.getWorm(i);
+			wormsX[i] = snapshot.getX(i);
+			wormsY[i] = snapshot.getY(i);
+			wormsRadius[i] = snapshot.getRadius(i);
+		}
+	}
+
+
+	/**
+	 * This method computes how a worm can shoot a weapon at a point
+	 *
+	 * The weapon is given the lowest propulsion yield that reaches the point along a path the terrain does not block.
+	 * If every path at the lowest yield that reaches the point is blocked, for example by a wall in front of the
+	 * shooter, higher yields are tried, which lob the projectile over it. Of the angles that reach the point with
+	 * the chosen yield, the one with the shortest flight the terrain does not block is returned.
+	 *
+	 * @param shooter
+	 * 		The worm that shoots
+	 *
+	 * @param weapon
+	 * 		The name of the weapon it shoots with
+	 *
+	 * @param targetX
+	 * 		The posX of the point to hit
+	 *
+	 * @param targetY
+	 * 		The posY of the point to hit
+	 *
+	 * @return
+	 * 		The angle and propulsion yield that reach the point, or null if the weapon is too weak
+	 * 		or the terrain blocks every path
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the weapon is neither a bazooka nor a rifle, or the shooter was not in the world when this solver
+	 * 		was made
+	 */
+	public Aim solve(Worm shooter, String weapon, double targetX, double targetY) throws IllegalArgumentException
+	{
+		int index = indexOf(shooter);
+		double mass = Projectile.getMassOf(weapon);
+		List<Double> angles = new ArrayList<Double>(ANGLES + 1);
+		for (int i = 0; i <= ANGLES; i++)
+			angles.add(-Math.PI + 2 * Math.PI * i / ANGLES);
+
+		// The needed speed can dip steeply between two angles, so every dip is refined and added as an angle
+		double[] speeds = getSpeedsNeeded(index, angles, targetX, targetY);
+		for (int i = 1; i < ANGLES; i++)
+		{
+			if (!Double.isInfinite(speeds[i]) && speeds[i] <= speeds[i - 1] && speeds[i] <= speeds[i + 1])
+				angles.add(findSlowestAngle(index, targetX, targetY, angles.get(i - 1), angles.get(i + 1)));
+		}
+		Collections.sort(angles);
+		speeds = getSpeedsNeeded(index, angles, targetX, targetY);
+		double minimumSpeed = Double.POSITIVE_INFINITY;
+		for (double speed : speeds)
+			minimumSpeed = Math.min(minimumSpeed, speed);
+
+		// a rifle shoots at the same speed whatever the yield, so only one yield has to be tried
+		double forcePerYield = (Projectile.getForceOf(weapon, 100) - Projectile.getForceOf(weapon, 0)) / 100;
+		if (forcePerYield <= 0)
+			return solve(index, weapon, targetX, targetY, angles, speeds, 0);
+		int lowestYield = (int) Math.max(0, Math.ceil((2 * mass * minimumSpeed - Projectile.getForceOf(weapon, 0)) / forcePerYield));
+		for (int propulsionYield = lowestYield; propulsionYield <= 100; propulsionYield++)
+		{
+			Aim aim = solve(index, weapon, targetX, targetY, angles, speeds, propulsionYield);
+			if (aim != null)
+				return aim;
+		}
+		return null;
+	}
+
+
+	/**
+	 * This method returns the solution with the shortest flight for a given propulsion yield
+	 *
+	 * @param index
+	 * 		The index of the worm that shoots
+	 *
+	 * @param weapon
+	 * 		The name of the weapon it shoots with
+	 *
+	 * @param targetX
+	 * 		The posX of the point to hit
+	 *
+	 * @param targetY
+	 * 		The posY of the point to hit
+	 *
+	 * @param angles
+	 * 		The sorted angles the needed speed was computed for
+	 *
+	 * @param speeds
+	 * 		The speed needed at every angle
+	 *
+	 * @param propulsionYield
+	 * 		The propulsion yield to shoot with
+	 *
+	 * @return
+	 * 		The angle with the shortest flight that reaches the point along a path the terrain does not block,
+	 * 		or null if there is none
+	 */
+	private Aim solve(int index, String weapon, double targetX, double targetY, List<Double> angles, double[] speeds,
+			int propulsionYield)
+	{
+		double speed = Projectile.getForceOf(weapon, propulsionYield) * 0.5 / Projectile.getMassOf(weapon);
+		Aim best = null;
+		for (int i = 0; i + 1 < speeds.length; i++)
+		{
+			if (Double.isInfinite(speeds[i]) || Double.isInfinite(speeds[i + 1]) || (speeds[i] < speed) == (speeds[i + 1] < speed))
+				continue;
+			double angle = findAngle(index, targetX, targetY, speed, angles.get(i), angles.get(i + 1), speeds[i] < speed);
+			double[] launch = Projectile.getLaunchPosition(wormsX[index], wormsY[index], wormsRadius[index], angle);
+			Aim aim = new Aim(angle, propulsionYield, (targetX - launch[0]) / (speed * Math.cos(angle)));
+			if ((best == null || aim.getFlightTime() < best.getFlightTime()) && reaches(index, weapon, aim, targetX, targetY)
+					&& isClear(index, weapon, aim))
+				best = aim;
+		}
+		return best;
+	}
+
+
+	/**
+	 * This method returns the index of a worm in the copies of this solver
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the worm was not in the world when this solver was made
+	 */
+	private int indexOf(Worm worm) throws IllegalArgumentException
+	{
+		for (int i = 0; i < worms.length; i++)
+		{
+			if (worms[i] == worm)
+				return i;
+		}
+		throw new IllegalArgumentException("The worm was not in the world when the solver was made");
+	}
+
+
+	/**
+	 * This method returns the speed a projectile launched at an angle needs to pass through a point
+	 *
+	 * With the launch position fixed by the angle, the height of the parabola at the point only depends on the speed,
+	 * which gives speed = g*deltaX / (2*cos(angle)*(deltaX*sin(angle) - deltaY*cos(angle))).
+	 *
+	 * @param index
+	 * 		The index of the worm that shoots
+	 *
+	 * @param angle
+	 * 		The angle it shoots at
+	 *
+	 * @param targetX
+	 * 		The posX of the point to hit
+	 *
+	 * @param targetY
+	 * 		The posY of the point to hit
+	 *
+	 * @return
+	 * 		The speed that reaches the point, infinity if no speed does
+	 */
+	private double getSpeedNeeded(int index, double angle, double targetX, double targetY)
+	{
+		double[] launch = Projectile.getLaunchPosition(wormsX[index], wormsY[index], wormsRadius[index], angle);
+		double deltaX = targetX - launch[0];
+		double deltaY = targetY - launch[1];
+		double cos = Math.cos(angle);
+		double denominator = 2 * cos * (deltaX * Math.sin(angle) - deltaY * cos);
+		if (deltaX * cos <= 0 || denominator <= 0)
+			return Double.POSITIVE_INFINITY;
+		return Math.sqrt(Projectile.GRAVITY * deltaX * deltaX / denominator);
+	}
+
+
+	/**
+	 * This method returns the speed a projectile needs to pass through a point for every angle in a list
+	 */
+	private double[] getSpeedsNeeded(int index, List<Double> angles, double targetX, double targetY)
+	{
+		double[] speeds = new double[angles.size()];
+		for (int i = 0; i < speeds.length; i++)
+			speeds[i] = getSpeedNeeded(index, angles.get(i), targetX, targetY);
+		return speeds;
+	}
+
+
+	/**
+	 * This method searches an interval of angles for the angle that needs the lowest speed, with a golden section search
+	 *
+	 * @param index
+	 * 		The index of the worm that shoots
+	 *
+	 * @param targetX
+	 * 		The posX of the point to hit
+	 *
+	 * @param targetY
+	 * 		The posY of the point to hit
+	 *
+	 * @param low
+	 * 		The lowest angle of the interval
+	 *
+	 * @param high
+	 * 		The highest angle of the interval
+	 *
+	 * @return
+	 * 		An angle between low and high
+	 */
+	private double findSlowestAngle(int index, double targetX, double targetY, double low, double high)
+	{
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double first = high - ratio * (high - low);
+		double second = low + ratio * (high - low);
+		double firstSpeed = getSpeedNeeded(index, first, targetX, targetY);
+		double secondSpeed = getSpeedNeeded(index, second, targetX, targetY);
+		for (int i = 0; i < BISECTIONS; i++)
+		{
+			if (firstSpeed <= secondSpeed)
+			{
+				high = second;
+				second = first;
+				secondSpeed = firstSpeed;
+				first = high - ratio * (high - low);
+				firstSpeed = getSpeedNeeded(index, first, targetX, targetY);
+			}
+			else
+			{
+				low = first;
+				first = second;
+				firstSpeed = secondSpeed;
+				second = low + ratio * (high - low);
+				secondSpeed = getSpeedNeeded(index, second, targetX, targetY);
+			}
+		}
+		return 0.5 * (low + high);
+	}
+
+
+	/**
+	 * This method bisects an interval of angles for the angle that needs exactly the given speed
+	 *
+	 * @param index
+	 * 		The index of the worm that shoots
+	 *
+	 * @param targetX
+	 * 		The posX of the point to hit
+	 *
+	 * @param targetY
+	 * 		The posY of the point to hit
+	 *
+	 * @param speed
+	 * 		The speed of the projectile
+	 *
+	 * @param low
+	 * 		One end of the interval
+	 *
+	 * @param high
+	 * 		The other end of the interval
+	 *
+	 * @param slowerAtLow
+	 * 		Whether the angle at low needs less than the given speed
+	 *
+	 * @return
+	 * 		An angle between low and high
+	 */
+	private double findAngle(int index, double targetX, double targetY, double speed, double low, double high, boolean slowerAtLow)
+	{
+		for (int i = 0; i < BISECTIONS; i++)
+		{
+			double middle = 0.5 * (low + high);
+			double needed = getSpeedNeeded(index, middle, targetX, targetY);
+			if ((needed < speed) == slowerAtLow)
+				low = middle;
+			else
+				high = middle;
+		}
+		return 0.5 * (low + high);
+	}
+
+
+	/**
+	 * This method returns the position of a projectile at a moment of its flight
+	 *
+	 * @param index
+	 * 		The index of the worm that shoots
+	 *
+	 * @param weapon
+	 * 		The name of the weapon it shoots with
+	 *
+	 * @param aim
+	 * 		The angle and propulsion yield it shoots with
+	 *
+	 * @param time
+	 * 		The time since the launch
+	 *
+	 * @return
+	 * 		The same position as Projectile.JumpStep
+	 */
+	private double[] getPosition(int index, String weapon, Aim aim, double time)
+	{
+		double speed = Projectile.getForceOf(weapon, aim.getPropulsionYield()) * 0.5 / Projectile.getMassOf(weapon);
+		double[] launch = Projectile.getLaunchPosition(wormsX[index], wormsY[index], wormsRadius[index], aim.getAngle());
+		return new double[] {
+			launch[0] + speed * Math.cos(aim.getAngle()) * time,
+			launch[1] + speed * Math.sin(aim.getAngle()) * time - 0.5 * Projectile.GRAVITY * time * time
+		};
+	}
+
+
+	/**
+	 * This method checks whether a solution passes through the point
+	 */
+	private boolean reaches(int index, String weapon, Aim aim, double targetX, double targetY)
+	{
+		double[] position = getPosition(index, weapon, aim, aim.getFlightTime());
+		return Math.hypot(position[0] - targetX, position[1] - targetY) <= PRECISION * Math.max(1, Math.hypot(targetX, targetY));
+	}
+
+
+	/**
+	 * This method checks whether the terrain lets a projectile reach the end of its path
+	 *
+	 * The path is sampled with the time step of a real shot, and a real shot lands at the first sample where
+	 * the shooter does not fit.
+	 *
+	 * @param shooter
+	 * 		The worm that shoots
+	 *
+	 * @param weapon
+	 * 		The name of the weapon it shoots with
+	 *
+	 * @param aim
+	 * 		The angle and propulsion yield it shoots with
+	 *
+	 * @return
+	 * 		True if every sample before the end of the path is passable
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the shooter was not in the world when this solver was made
+	 */
+	public boolean isClear(Worm shooter, String weapon, Aim aim) throws IllegalArgumentException
+	{
+		return isClear(indexOf(shooter), weapon, aim);
+	}
+
+
+	/**
+	 * This method checks whether the terrain lets a projectile of the worm with the given index reach the end
+	 * of its path
+	 */
+	private boolean isClear(int index, String weapon, Aim aim)
+	{
+		for (double time = 0; time < aim.getFlightTime(); time += ShotSimulator.TIME_STEP)
+		{
+			double[] position = getPosition(index, weapon, aim, time);
+			if (!world.isPassable(position[0], position[1], wormsRadius[index]))
+				return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * A class of solutions, holding the angle and propulsion yield to shoot with
+	 */
+	public static class Aim
+	{
+
+		/**
+		 * The angle to shoot at
+		 */
+		private final double angle;
+
+
+		/**
+		 * The propulsion yield to shoot with
+		 */
+		private final int propulsionYield;
+
+
+		/**
+		 * The time the projectile needs to reach the point
+		 */
+		private final double flightTime;
+
+
+		/**
+		 * Creates a solution
+		 */
+		Aim(double angle, int propulsionYield, double flightTime)
+		{
+			this.angle = angle;
+			this.propulsionYield = propulsionYield;
+			this.flightTime = flightTime;
+		}
+
+
+		/**
+		 * This method returns the angle to shoot at
+		 *
+		 * @return angle
+		 */
+		@Basic
+		public double getAngle()
+		{
+			return angle;
+		}
+
+
+		/**
+		 * This method returns the propulsion yield to shoot with, 0 for a rifle
+		 *
+		 * @return propulsionYield
+		 */
+		@Basic
+		public int getPropulsionYield()
+		{
+			return propulsionYield;
+		}
+
+
+		/**
+		 * This method returns the time the projectile needs to reach the point
+		 *
+		 * @return flightTime
+		 */
+		@Basic
+		public double getFlightTime()
+		{
+			return flightTime;
+		}
+	}
+}
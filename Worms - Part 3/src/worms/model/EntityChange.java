@@ -0,0 +1,26 @@
+package worms.model;
+
+/**
+ * An enumeration of the ways a worm, food or projectile in a world can change
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public enum EntityChange
+{
+	/**
+	 * The position of the entity changed
+	 */
+	MOVED,
+
+	/**
+	 * The hit points of the worm changed, by damage or by healing
+	 */
+	DAMAGED,
+
+	/**
+	 * Another property changed, such as the angle, radius, action points, weapon, name or team of a worm
+	 */
+	ALTERED
+}
@@ -0,0 +1,364 @@
+package worms.model;
+
+import java.util.List;
+
+/**
+ * A class of immutable snapshots of the worms and food in a world, used to answer queries of programs
+ *
+ * The entities are kept in arrays in a fixed order, so loops can iterate over them without copying.
+ * Every entity is also registered in the cells of a uniform grid that its circle overlaps, so a ray
+ * only has to look at the entities in the cells it passes through, nearest cell first.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class EntityIndex
+{
+
+	/**
+	 * The maximum amount of cells along one side of the grid
+	 */
+	private static final int MAX_CELLS_PER_SIDE = 256;
+
+
+	/**
+	 * The worms of the world
+	 */
+	private final Worm[] worms;
+
+
+	/**
+	 * The food of the world
+	 */
+	private final Food[] fodder;
+
+
+	/**
+	 * The worms followed by the food of the world
+	 */
+	private final Object[] entities;
+
+
+	/**
+	 * The posX of the left side of the grid
+	 */
+	private final double originX;
+
+
+	/**
+	 * The posY of the bottom side of the grid
+	 */
+	private final double originY;
+
+
+	/**
+	 * The size of one cell of the grid in meters
+	 */
+	private final double cellSize;
+
+
+	/**
+	 * The amount of columns of the grid
+	 */
+	private final int columns;
+
+
+	/**
+	 * The amount of rows of the grid
+	 */
+	private final int rows;
+
+
+	/**
+	 * The index in cellEntities of the first entity of every cell, followed by the total amount
+	 */
+	private final int[] cellStart;
+
+
+	/**
+	 * The entities of every cell, one cell after the other
+	 */
+	private final Object[] cellEntities;
+
+
+	/**
+	 * Creates a snapshot of the given worms and food
+	 *
+	 * @param worms
+	 * 		The worms of the world
+	 *
+	 * @param fodder
+	 * 		The food of the world
+	 *
+	 * @param width
+	 * 		The width of the world
+	 *
+	 * @param height
+	 * 		The height of the world
+	 */
+	public EntityIndex(List<Worm> worms, List<Food> fodder, double width, double height)
+	{
+		this.worms = worms.toArray(new Worm[worms.size()]);
+		this.fodder = fodder.toArray(new Food[fodder.size()]);
+		this.entities = new Object[this.worms.length + this.fodder.length];
+		System.arraycopy(this.worms, 0, entities, 0, this.worms.length);
+		System.arraycopy(this.fodder, 0, entities, this.worms.length, this.fodder.length);
+
+		// The grid covers the world and every circle that sticks out of it, so a ray that leaves the grid
+		// cannot hit anything anymore.
+		double minX = 0;
+		double minY = 0;
+		double maxX = width;
+		double maxY = height;
+		for (Object entity : entities)
+		{
+			minX = Math.min(minX, getX(entity) - getRadius(entity));
+			minY = Math.min(minY, getY(entity) - getRadius(entity));
+			maxX = Math.max(maxX, getX(entity) + getRadius(entity));
+			maxY = Math.max(maxY, getY(entity) + getRadius(entity));
+		}
+		this.originX = minX;
+		this.originY = minY;
+		double size = Math.sqrt((maxX - minX) * (maxY - minY) / Math.max(1, entities.length));
+		size = Math.max(size, Math.max(maxX - minX, maxY - minY) / MAX_CELLS_PER_SIDE);
+		this.cellSize = (size > 0) ? size : 1;
+		this.columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+		this.rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+
+		int[] counts = new int[columns * rows + 1];
+		for (Object entity : entities)
+			forEachCell(entity, counts, null, null);
+		this.cellStart = new int[columns * rows + 1];
+		for (int cell = 0; cell < columns * rows; cell++)
+			cellStart[cell + 1] = cellStart[cell] + counts[cell];
+		this.cellEntities = new Object[cellStart[columns * rows]];
+		int[] next = new int[columns * rows];
+		System.arraycopy(cellStart, 0, next, 0, next.length);
+		for (Object entity : entities)
+			forEachCell(entity, null, next, cellEntities);
+	}
+
+
+	/**
+	 * This method either counts an entity in, or adds it to, every cell its circle overlaps
+	 *
+	 * @param entity
+	 * 		The worm or food to register
+	 *
+	 * @param counts
+	 * 		The amount of entities per cell to increase, or null
+	 *
+	 * @param next
+	 * 		The next free index in cellEntities per cell, or null
+	 *
+	 * @param cellEntities
+	 * 		The entities of every cell, or null
+	 */
+	private void forEachCell(Object entity, int[] counts, int[] next, Object[] cellEntities)
+	{
+		double x = getX(entity);
+		double y = getY(entity);
+		double radius = getRadius(entity);
+		int minColumn = getColumn(x - radius);
+		int maxColumn = getColumn(x + radius);
+		int minRow = getRow(y - radius);
+		int maxRow = getRow(y + radius);
+		for (int row = minRow; row <= maxRow; row++)
+		{
+			for (int column = minColumn; column <= maxColumn; column++)
+			{
+				int cell = row * columns + column;
+				if (counts != null)
+					counts[cell]++;
+				else
+					cellEntities[next[cell]++] = entity;
+			}
+		}
+	}
+
+
+	/**
+	 * This method returns the worms of this snapshot, this array must not be modified
+	 *
+	 * @return worms
+	 */
+	public Worm[] getWorms()
+	{
+		return worms;
+	}
+
+
+	/**
+	 * This method returns the food of this snapshot, this array must not be modified
+	 *
+	 * @return fodder
+	 */
+	public Food[] getFodder()
+	{
+		return fodder;
+	}
+
+
+	/**
+	 * This method returns the worms followed by the food of this snapshot, this array must not be modified
+	 *
+	 * @return entities
+	 */
+	public Object[] getEntities()
+	{
+		return entities;
+	}
+
+
+	/**
+	 * This method searches the closest entity hit by a ray from the center of a worm
+	 *
+	 * The cells are visited in the order the ray passes through them. The search stops as soon as the
+	 * next cell starts further along the ray than the closest entity found so far.
+	 *
+	 * @param self
+	 * 		The worm the ray starts from, it is never returned
+	 *
+	 * @param direction
+	 * 		The direction of the ray
+	 *
+	 * @return
+	 * 		The entity whose center lies closest along the ray, null if the ray hits nothing
+	 */
+	public Object searchAlongRay(Worm self, double direction)
+	{
+		double cos = Math.cos(direction);
+		double sin = Math.sin(direction);
+		double startX = self.getPosX();
+		double startY = self.getPosY();
+
+		int column = getColumn(startX);
+		int row = getRow(startY);
+		int stepColumn = (cos > 0) ? 1 : -1;
+		int stepRow = (sin > 0) ? 1 : -1;
+		double deltaColumn = (cos != 0) ? Math.abs(cellSize / cos) : Double.POSITIVE_INFINITY;
+		double deltaRow = (sin != 0) ? Math.abs(cellSize / sin) : Double.POSITIVE_INFINITY;
+		double nextColumn = (cos != 0) ? (originX + (column + (cos > 0 ? 1 : 0)) * cellSize - startX) / cos : Double.POSITIVE_INFINITY;
+		double nextRow = (sin != 0) ? (originY + (row + (sin > 0 ? 1 : 0)) * cellSize - startY) / sin : Double.POSITIVE_INFINITY;
+
+		Object closest = null;
+		double closestDistance = Double.POSITIVE_INFINITY;
+		while (true)
+		{
+			int cell = row * columns + column;
+			for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++)
+			{
+				Object entity = cellEntities[i];
+				if (entity != self)
+				{
+					double distance = distanceAlongRay(startX, startY, cos, sin, getX(entity), getY(entity), getRadius(entity));
+					if (distance < closestDistance)
+					{
+						closest = entity;
+						closestDistance = distance;
+					}
+				}
+			}
+
+			double entry = Math.min(nextColumn, nextRow);
+			if (entry >= closestDistance)
+				return closest;
+			if (nextColumn < nextRow)
+			{
+				column += stepColumn;
+				nextColumn += deltaColumn;
+			}
+			else
+			{
+				row += stepRow;
+				nextRow += deltaRow;
+			}
+			if (column < 0 || column >= columns || row < 0 || row >= rows)
+				return closest;
+		}
+	}
+
+
+	/**
+	 * This method returns how far along a ray a circle lies
+	 *
+	 * @param startX
+	 * 		The posX where the ray starts
+	 *
+	 * @param startY
+	 * 		The posY where the ray starts
+	 *
+	 * @param cos
+	 * 		The cosine of the direction of the ray
+	 *
+	 * @param sin
+	 * 		The sine of the direction of the ray
+	 *
+	 * @param x
+	 * 		The posX of the center of the circle
+	 *
+	 * @param y
+	 * 		The posY of the center of the circle
+	 *
+	 * @param radius
+	 * 		The radius of the circle
+	 *
+	 * @return
+	 * 		The distance along the ray to the projection of the center, or infinity if the ray misses the circle
+	 */
+	public static double distanceAlongRay(double startX, double startY, double cos, double sin, double x, double y, double radius)
+	{
+		double deltaX = x - startX;
+		double deltaY = y - startY;
+		double along = deltaX * cos + deltaY * sin;
+		if (along <= 0)
+			return Double.POSITIVE_INFINITY;
+		double across = Math.abs(deltaX * sin - deltaY * cos);
+		if (across > radius)
+			return Double.POSITIVE_INFINITY;
+		return along;
+	}
+
+
+	/**
+	 * This method returns the column of the grid that contains the given posX, clamped to the grid
+	 */
+	private int getColumn(double x)
+	{
+		return Math.min(columns - 1, Math.max(0, (int) Math.floor((x - originX) / cellSize)));
+	}
+
+
+	/**
+	 * This method returns the row of the grid that contains the given posY, clamped to the grid
+	 */
+	private int getRow(double y)
+	{
+		return Math.min(rows - 1, Math.max(0, (int) Math.floor((y - originY) / cellSize)));
+	}
+
+
+	private static double getX(Object entity)
+	{
+		if (entity instanceof Worm)
+			return ((Worm) entity).getPosX();
+		return ((Food) entity).getPosX();
+	}
+
+
+	private static double getY(Object entity)
+	{
+		if (entity instanceof Worm)
+			return ((Worm) entity).getPosY();
+		return ((Food) entity).getPosY();
+	}
+
+
+	private static double getRadius(Object entity)
+	{
+		if (entity instanceof Worm)
+			return ((Worm) entity).getRadius();
+		return ((Food) entity).getRadius();
+	}
+}
@@ -2,17 +2,41 @@ package worms.model;
 
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Random;
 
+import org.antlr.v4.runtime.RecognitionException;
+
 import worms.gui.game.IActionHandler;
 import worms.model.programs.ParseOutcome;
+import worms.model.programs.ProgramCache;
+import worms.model.programs.ProgramFactoryImpl;
+import worms.model.programs.ProgramParser;
+import worms.model.programs.Type;
+import worms.model.programs.expressions.Expression;
+import worms.model.programs.statements.Statement;
 
 
 public class Facade implements IFacade 
 {
 
 	private Random random = new Random();
+	private final ProgramCache programCache = new ProgramCache(64);
 	private Team team;
+	private ReplayRecorder recorder;
+
+
+
+	/**
+	 * This method lets the given recorder log the actions performed through this facade
+	 *
+	 * @param recorder
+	 * 		The recorder, or null to stop recording
+	 */
+	public void setRecorder(ReplayRecorder recorder)
+	{
+		this.recorder = recorder;
+	}
 
 
 
@@ -20,6 +44,8 @@ public class Facade implements IFacade
 	@Override
 	public void turn(Worm worm, double angle) throws ModelException
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.TURN, worm, angle);
 		try
 		{
 			worm.Turn(angle);
@@ -73,6 +99,8 @@ public class Facade implements IFacade
 		if (worm.getRadius() < this.getMinimalRadius(worm)) 
 			throw new ModelException("Your radius is too small");
 		worm.setRadius(newRadius);  
+		if (recorder != null)
+			recorder.record(ReplayRecorder.SET_RADIUS, worm, newRadius);
 	}
 
 
@@ -107,6 +135,8 @@ public class Facade implements IFacade
 	@Override
 	public void rename(Worm worm, String newName) 
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.RENAME, worm, newName);
 
 		try 
 		{
@@ -189,6 +219,8 @@ public class Facade implements IFacade
 	@Override
 	public Worm getCurrentWorm(World world) 
 	{
+		if (recorder != null)
+			recorder.currentWormRequested(world);
 		return world.currentWorm();
 	}
 
@@ -196,6 +228,8 @@ public class Facade implements IFacade
 	@Override
 	public void addEmptyTeam(World world, String newName) throws ModelException
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.ADD_EMPTY_TEAM, world, newName);
 		if (world.amountOfTeams() < 10)
 		{
 			Team team = new Team(newName, world);
@@ -212,6 +246,8 @@ public class Facade implements IFacade
 	@Override
 	public void addNewFood(World world) 
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.ADD_NEW_FOOD, world);
 		world.addFood();
 	}
 
@@ -220,7 +256,20 @@ public class Facade implements IFacade
 	@Override
 	public void startGame(World world) 
 	{
-		world = new World(world.getWorldHeight(), world.getWorldWidth(), world.getPassableMap(), random);
+		if (recorder == null)
+			world.startGame();
+		else
+		{
+			recorder.turnStarting(world, ReplayRecorder.START_GAME);
+			try
+			{
+				world.startGame();
+			}
+			finally
+			{
+				recorder.turnStarted(world);
+			}
+		}
 	}
 
 
@@ -229,9 +278,20 @@ public class Facade implements IFacade
 	@Override
 	public void startNextTurn(World world) 
 	{
-		world.nextWorm();
-		world.currentWorm().setCurrentAP(world.currentWorm().getMaxAP());
-		world.currentWorm().setHP(world.currentWorm().getHP() + 10);			
+		if (recorder == null)
+			world.startNextTurn();
+		else
+		{
+			recorder.turnStarting(world, ReplayRecorder.START_NEXT_TURN);
+			try
+			{
+				world.startNextTurn();
+			}
+			finally
+			{
+				recorder.turnStarted(world);
+			}
+		}
 	}
 
 
@@ -283,6 +343,8 @@ public class Facade implements IFacade
 	@Override
 	public void jump(Worm worm, double jumpTimeStep) 
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.JUMP, worm, jumpTimeStep);
 		worm.Jump(jumpTimeStep);
 	}
 
@@ -311,6 +373,8 @@ public class Facade implements IFacade
 	@Override
 	public void fall(Worm worm) 
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.FALL, worm);
 		worm.fall();
 	}
 
@@ -318,6 +382,8 @@ public class Facade implements IFacade
 	@Override
 	public void move(Worm worm) throws ModelException
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.MOVE, worm);
 		try
 		{
 			worm.move();
@@ -332,6 +398,8 @@ public class Facade implements IFacade
 	@Override
 	public void selectNextWeapon(Worm worm) 
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.SELECT_NEXT_WEAPON, worm);
 		worm.selectNextWeapon();
 		worm.setSelectedWeapon();
 	}
@@ -340,6 +408,8 @@ public class Facade implements IFacade
 	@Override
 	public void shoot(Worm worm, int propulsionYield) throws ModelException
 	{
+		if (recorder != null)
+			recorder.record(ReplayRecorder.SHOOT, worm, propulsionYield);
 		try{
 			worm.shoot(propulsionYield);
 		}
@@ -385,6 +455,8 @@ public class Facade implements IFacade
 	@Override
 	public void jump(Projectile projectile, double jumpTimeStep) 
 	{
+		if (recorder != null && projectile != null)
+			recorder.record(ReplayRecorder.JUMP_PROJECTILE, projectile.getWorld(), jumpTimeStep);
 		projectile.Jump(jumpTimeStep);
 	}
 
@@ -418,7 +490,12 @@ public class Facade implements IFacade
 	@Override
 	public World createWorld(double width, double height, boolean[][] passableMap, Random random) 
 	{
-		return new World(width, height, passableMap, random);
+		if (recorder == null)
+			return new World(width, height, passableMap, random);
+		long seed = random.nextLong();
+		World world = new World(width, height, passableMap, new Random(seed));
+		recorder.worldCreated(world, width, height, passableMap, seed);
+		return world;
 	}
 
 
@@ -426,7 +503,9 @@ public class Facade implements IFacade
 	@Override
 	public void addNewWorm(World world, Program program) 
 	{
-		world.addWorm();
+		if (recorder != null)
+			recorder.wormAdded(world, program);
+		world.addWorm(program);
 	}
 
 
@@ -458,10 +537,50 @@ public class Facade implements IFacade
 
 
 	@Override
-	public ParseOutcome<?> parseProgram(String programText, IActionHandler handler) 
+	public ParseOutcome<?> parseProgram(String programText, final IActionHandler handler) 
 	{
-		// TODO Auto-generated method stub
-		return null;
+		ParseOutcome<?> outcome = programCache.getOrParse(programText, new ProgramCache.Parser()
+		{
+			@Override
+			public ParseOutcome<?> parse(String text)
+			{
+				return Facade.this.parse(text, handler);
+			}
+		});
+		if (!outcome.isSuccess())
+			return outcome;
+		Program program = ((Program) outcome.getResult()).withHandler(handler);
+		if (recorder != null)
+			recorder.programParsed(program, programText);
+		return ParseOutcome.success(program);
+	}
+
+
+
+	/**
+	 * This method parses and compiles the given text, without looking in the cache
+	 */
+	private ParseOutcome<?> parse(String programText, IActionHandler handler) 
+	{
+		ProgramParser<Expression, Statement, Type> parser = new ProgramParser<Expression, Statement, Type>(new ProgramFactoryImpl());
+		try
+		{
+			parser.parse(programText);
+		}
+		catch (RecognitionException exc)
+		{
+			parser.getErrors().add(exc.getMessage());
+		}
+		if (!parser.getErrors().isEmpty())
+			return ParseOutcome.failure(Collections.unmodifiableList(parser.getErrors()));
+		try
+		{
+			return ParseOutcome.success(new Program(parser.getGlobals(), parser.getStatement(), handler));
+		}
+		catch (IllegalArgumentException exc)
+		{
+			return ParseOutcome.failure(Collections.singletonList(exc.getMessage()));
+		}
 	}
 
 
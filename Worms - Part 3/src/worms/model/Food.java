@@ -44,6 +44,23 @@ public class Food
 	 */
 	public boolean eaten = false;
 
+	/**
+	 * The key that sets this food apart from food with the same state in the state hash of its world
+	 */
+	private final long hashKey;
+
+
+	/**
+	 * The hash of the state of this food, kept up to date by every setter
+	 */
+	private long stateHash;
+
+
+	/**
+	 * Whether the hash of this food is part of the state hash of its world
+	 */
+	private boolean inStateHash = false;
+
 
 
 	/**
@@ -71,6 +88,7 @@ public class Food
 	 */
 	public Food(World world, double x, double y) 
 	{
+		this.hashKey = world == null ? 0 : world.nextEntityKey();
 		this.setPosX(x);
 		this.setPosY(y);
 		this.setWorld(world);
@@ -105,7 +123,12 @@ public class Food
 	public void setPosY(double y) 
 	{
 		if (isValidPosition(this.getPosX(), y))
+		{
 			this.y = y;
+			this.stateChanged(EntityChange.MOVED);
+			if (this.getWorld() != null)
+				this.getWorld().entitiesChanged();
+		}
 	}
 
 
@@ -121,7 +144,12 @@ public class Food
 	public void setPosX(double x)
 	{
 		if (isValidPosition(x,this.getPosY()))
+		{
 			this.x = x;
+			this.stateChanged(EntityChange.MOVED);
+			if (this.getWorld() != null)
+				this.getWorld().entitiesChanged();
+		}
 	}
 
 
@@ -232,4 +260,38 @@ public class Food
 		}
 	}
 
+
+	/**
+	 * This method adds the hash of this food to the state hash of its world, or removes it
+	 * 
+	 * @param inStateHash
+	 * 		True when this food is added to the fodder of its world, false when it is removed
+	 */
+	void setInStateHash(boolean inStateHash)
+	{
+		if (inStateHash != this.inStateHash && this.getWorld() != null)
+			this.getWorld().toggleEntityHash(stateHash);
+		this.inStateHash = inStateHash;
+	}
+
+
+	/**
+	 * This method computes the hash of the state of this food again, updates the state hash of its world and
+	 * tells the listeners of its world about the change
+	 *
+	 * @param change
+	 * 		The kind of change
+	 */
+	private void stateChanged(EntityChange change)
+	{
+		long hash = World.mix(World.mix(hashKey, x), y);
+		if (inStateHash && this.getWorld() != null)
+		{
+			this.getWorld().toggleEntityHash(stateHash ^ hash);
+			this.getWorld().fireEntityChanged(this, change);
+		}
+		stateHash = hash;
+	}
+
+
 }
\ No newline at end of file
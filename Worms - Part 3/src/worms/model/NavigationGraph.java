@@ -0,0 +1,800 @@
+package worms.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of graphs of the positions a worm of a given radius can stand on, and the moves and jumps between them
+ *
+ * The world is split in columns. In every column, every run of positions that is adjacent to impassable terrain
+ * gets a node at its top and then one every column width further down. A move edge follows the move of a worm
+ * standing on a node, found by the same search as Worm.getMoveDistance, and costs the AP of that move. A jump edge
+ * follows a jump with all AP and costs a single AP, the least a jump can cost. Both end at the node closest to where
+ * the worm comes to rest.
+ *
+ * The graph only guides the search for a path. A path is found with A* over the exact positions and AP a worm
+ * goes through: every move and jump is worked out the way the worm itself does it, a jump with the AP that are
+ * left at that point, and the cost of the graph from the closest node to the goal is the estimate of what is
+ * still to come. The steps of a path can therefore be played on a worm of the same radius and it ends exactly
+ * where each step says. Food eaten on the way and the damage of falling are not taken into account.
+ *
+ * World.getNavigationGraph keeps one graph per radius bucket for as long as the world exists.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class NavigationGraph
+{
+
+	/**
+	 * The time step jumps are followed with, the same as the action handler of programs and the GUI use
+	 */
+	public static final double JUMP_TIME_STEP = 1e-4;
+
+
+	/**
+	 * The amount of angles a worm faces to move from a position, the search of a move looks 45 degrees to each side
+	 */
+	private static final int MOVE_ANGLES = 8;
+
+
+	/**
+	 * The amount of angles between 0 and PI a jump is tried at from a position
+	 */
+	private static final int JUMP_ANGLES = 8;
+
+
+	/**
+	 * The longest jump that is followed in seconds while the graph is built
+	 */
+	private static final double MAX_JUMP_TIME = 10;
+
+
+	/**
+	 * The amount of positions a search expands before it gives up
+	 */
+	private static final int MAX_EXPANSIONS = 1024;
+
+
+	/**
+	 * The actions of a step
+	 */
+	public static enum Action
+	{
+		MOVE, JUMP
+	}
+
+
+	/**
+	 * The world the worms stand in
+	 */
+	private final World world;
+
+
+	/**
+	 * The radius of the worms
+	 */
+	private final double radius;
+
+
+	/**
+	 * The distance between two columns
+	 */
+	private final double spacing;
+
+
+	/**
+	 * The distance between two positions tested in a column
+	 */
+	private final double step;
+
+
+	/**
+	 * The speed of a jump with all AP
+	 */
+	private final double jumpSpeed;
+
+
+	/**
+	 * The AP a worm with this radius starts every turn with
+	 */
+	private final int maxActionPoints;
+
+
+	/**
+	 * The nodes of every column, from top to bottom
+	 */
+	private final List<List<Node>> columns;
+
+
+	/**
+	 * Creates the graph of a world for worms with a given radius
+	 *
+	 * @param world
+	 * 		The world the worms stand in
+	 *
+	 * @param radius
+	 * 		The radius of the worms
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the world is null or the radius is not positive
+	 */
+	public NavigationGraph(World world, double radius) throws IllegalArgumentException
+	{
+		if (world == null)
+			throw new IllegalArgumentException("A navigation graph needs a world");
+		if (!(radius > 0))
+			throw new IllegalArgumentException("Not a valid radius: " + radius);
+		this.world = world;
+		this.radius = radius;
+		this.step = Math.min(world.getResolutionX(), world.getResolutionY());
+		this.spacing = Math.max(radius / 2, world.getResolutionX());
+		double mass = Worm.getMassOf(radius);
+		this.maxActionPoints = (int) Math.ceil(mass);
+		this.jumpSpeed = (5 * maxActionPoints + mass * Projectile.GRAVITY) * 0.5 / mass;
+
+		int amountOfColumns = (int) Math.floor(world.getWorldWidth() / spacing) + 1;
+		this.columns = new ArrayList<List<Node>>(amountOfColumns);
+		for (int column = 0; column < amountOfColumns; column++)
+			columns.add(findNodes(column));
+		for (List<Node> nodes : columns)
+		{
+			for (Node node : nodes)
+				findEdges(node);
+		}
+	}
+
+
+	/**
+	 * This method returns the radius of the worms this graph is made for
+	 *
+	 * @return radius
+	 */
+	@Basic
+	public double getRadius()
+	{
+		return radius;
+	}
+
+
+	/**
+	 * This method returns the amount of positions in this graph
+	 *
+	 * @return
+	 * 		The amount of nodes in all columns
+	 */
+	public int getAmountOfNodes()
+	{
+		int amount = 0;
+		for (List<Node> nodes : columns)
+			amount += nodes.size();
+		return amount;
+	}
+
+
+	/**
+	 * This method finds a cheap way for a worm of this radius that starts its turn at one position to another
+	 *
+	 * @param fromX
+	 * 		The posX of the worm
+	 *
+	 * @param fromY
+	 * 		The posY of the worm
+	 *
+	 * @param toX
+	 * 		The posX to go to
+	 *
+	 * @param toY
+	 * 		The posY to go to
+	 *
+	 * @return
+	 * 		The path of a worm with all the AP of its radius
+	 * 			| result == findPath(fromX, fromY, Worm.getMassOf(getRadius()) rounded up, toX, toY)
+	 */
+	public List<Step> findPath(double fromX, double fromY, double toX, double toY)
+	{
+		return findPath(fromX, fromY, maxActionPoints, toX, toY);
+	}
+
+
+	/**
+	 * This method finds a cheap way for a worm of this radius from one position to another
+	 *
+	 * The AP a step costs are taken from the AP the worm has left at that point. When they do not suffice,
+	 * the step waits for the next turn of the worm, which starts with all AP again. The AP that were left
+	 * are counted as spent, so the path spends as few turns as the search can find.
+	 *
+	 * @param fromX
+	 * 		The posX of the worm
+	 *
+	 * @param fromY
+	 * 		The posY of the worm
+	 *
+	 * @param actionPoints
+	 * 		The AP the worm has left
+	 *
+	 * @param toX
+	 * 		The posX to go to
+	 *
+	 * @param toY
+	 * 		The posY to go to
+	 *
+	 * @return
+	 * 		The steps to take, ending within a radius of the position to go to. An empty list if the worm
+	 * 		already is that close, or null if one of the positions is further than a radius from every node
+	 * 		or no way between them is found
+	 */
+	public List<Step> findPath(double fromX, double fromY, int actionPoints, double toX, double toY)
+	{
+		Node goal = findClosestNode(toX, toY, radius);
+		if (goal == null)
+			return null;
+		Map<Node, Integer> remaining = findRemainingCosts(goal);
+
+		State start = createState(null, null, fromX, fromY, Math.max(0, actionPoints), 0, remaining);
+		if (start == null)
+			return null;
+		Map<Node, Integer> settled = new HashMap<Node, Integer>();
+		PriorityQueue<State> open = new PriorityQueue<State>();
+		open.add(start);
+		int expansions = 0;
+		while (!open.isEmpty() && expansions < MAX_EXPANSIONS)
+		{
+			State state = open.poll();
+			if (Math.hypot(state.x - toX, state.y - toY) <= radius)
+				return getSteps(state);
+			Integer settledActionPoints = settled.get(state.node);
+			if (settledActionPoints != null && settledActionPoints >= state.actionPoints)
+				continue;
+			settled.put(state.node, state.actionPoints);
+			expansions++;
+			for (State next : expand(state, remaining))
+			{
+				// a state that arrives is kept even if its node was reached with more AP
+				settledActionPoints = settled.get(next.node);
+				if (settledActionPoints == null || settledActionPoints < next.actionPoints
+						|| Math.hypot(next.x - toX, next.y - toY) <= radius)
+					open.add(next);
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * This method returns the steps that lead to a state, the first step first
+	 */
+	private static List<Step> getSteps(State state)
+	{
+		List<Step> steps = new ArrayList<Step>();
+		for (State current = state; current.step != null; current = current.previous)
+			steps.add(current.step);
+		Collections.reverse(steps);
+		return steps;
+	}
+
+
+	/**
+	 * This method works out every move and jump a worm can make from a state
+	 *
+	 * @param state
+	 * 		The state of the worm
+	 *
+	 * @param remaining
+	 * 		The cost of the graph from every node to the goal
+	 *
+	 * @return
+	 * 		The states the worm can reach with one step, and whose closest node can reach the goal
+	 */
+	private List<State> expand(State state, Map<Node, Integer> remaining)
+	{
+		List<State> next = new ArrayList<State>();
+		for (int i = 0; i < MOVE_ANGLES; i++)
+		{
+			double angle = -Math.PI + 2 * Math.PI * (i + 1) / MOVE_ANGLES;
+			double[] distance = Worm.getMoveDistanceOf(world, state.x, state.y, radius, angle);
+			if (distance[0] == 0 && distance[1] == 0)
+				continue;
+			int cost = Worm.calculateAPCostMove(distance);
+			double x = state.x + distance[0];
+			double y = Worm.getFallPosYOf(world, x, state.y + distance[1], radius);
+			if (state.actionPoints >= cost)
+				add(next, createState(state, new Step(Action.MOVE, angle, x, y, cost, false), x, y,
+						state.actionPoints - cost, state.cost + cost, remaining));
+			else if (maxActionPoints >= cost)
+				add(next, createState(state, new Step(Action.MOVE, angle, x, y, cost, true), x, y,
+						maxActionPoints - cost, state.cost + state.actionPoints + cost, remaining));
+		}
+
+		if (!world.isPassable(state.x, state.y, radius))
+			return next;
+		for (int i = 0; i < JUMP_ANGLES; i++)
+		{
+			double angle = Math.PI * (i + 0.5) / JUMP_ANGLES;
+			if (state.actionPoints > 0)
+			{
+				double[] landing = jump(state.x, state.y, angle, state.actionPoints);
+				add(next, createState(state, new Step(Action.JUMP, angle, landing[0], landing[1], state.actionPoints, false),
+						landing[0], landing[1], 0, state.cost + state.actionPoints, remaining));
+			}
+			if (state.actionPoints < maxActionPoints)
+			{
+				double[] landing = jump(state.x, state.y, angle, maxActionPoints);
+				add(next, createState(state, new Step(Action.JUMP, angle, landing[0], landing[1], maxActionPoints, true),
+						landing[0], landing[1], 0, state.cost + state.actionPoints + maxActionPoints, remaining));
+			}
+		}
+		return next;
+	}
+
+
+	/**
+	 * This method adds a state to a list if it is not null
+	 */
+	private static void add(List<State> states, State state)
+	{
+		if (state != null)
+			states.add(state);
+	}
+
+
+	/**
+	 * This method creates a state of a search
+	 *
+	 * @return
+	 * 		The state, or null if the position is outside the world, is further than a radius from every node
+	 * 		or its closest node can not reach the goal
+	 */
+	private State createState(State previous, Step step, double x, double y, int actionPoints, int cost, Map<Node, Integer> remaining)
+	{
+		if (!world.isWithinBoundaries(x, y))
+			return null;
+		Node node = findClosestNode(x, y, radius);
+		if (node == null || !remaining.containsKey(node))
+			return null;
+		return new State(previous, step, x, y, actionPoints, cost, cost + remaining.get(node), node);
+	}
+
+
+	/**
+	 * This method follows a jump the way Worm.Jump does, and the fall after it the way the action handler does
+	 *
+	 * @param x
+	 * 		The posX the worm jumps from
+	 *
+	 * @param y
+	 * 		The posY the worm jumps from
+	 *
+	 * @param angle
+	 * 		The angle it jumps at
+	 *
+	 * @param actionPoints
+	 * 		The AP it jumps with
+	 *
+	 * @return
+	 * 		The position the worm comes to rest at
+	 */
+	private double[] jump(double x, double y, double angle, int actionPoints)
+	{
+		double time = Worm.getJumpTimeOf(world, x, y, radius, angle, actionPoints, JUMP_TIME_STEP);
+		double[] landing = Worm.getJumpStepOf(x, y, radius, angle, actionPoints, time);
+		landing[1] = Worm.getFallPosYOf(world, landing[0], landing[1], radius);
+		return landing;
+	}
+
+
+	/**
+	 * This method computes the cost of the graph from every node that can reach the goal
+	 *
+	 * @param goal
+	 * 		The node to go to
+	 *
+	 * @return
+	 * 		The least AP of the edges from each node to the goal, nodes that can not reach it are left out
+	 */
+	private Map<Node, Integer> findRemainingCosts(Node goal)
+	{
+		Map<Node, Integer> costs = new HashMap<Node, Integer>();
+		PriorityQueue<Entry> open = new PriorityQueue<Entry>();
+		costs.put(goal, 0);
+		open.add(new Entry(goal, 0));
+		while (!open.isEmpty())
+		{
+			Entry entry = open.poll();
+			if (entry.cost > costs.get(entry.node))
+				continue;
+			for (Edge edge : entry.node.incoming)
+			{
+				int cost = entry.cost + edge.cost;
+				Integer known = costs.get(edge.source);
+				if (known == null || cost < known)
+				{
+					costs.put(edge.source, cost);
+					open.add(new Entry(edge.source, cost));
+				}
+			}
+		}
+		return costs;
+	}
+
+
+	/**
+	 * This method finds the nodes of a column
+	 *
+	 * @param column
+	 * 		The index of the column
+	 *
+	 * @return
+	 * 		A node at the top of every run of positions adjacent to terrain and one every column width below it,
+	 * 		from top to bottom
+	 */
+	private List<Node> findNodes(int column)
+	{
+		double x = column * spacing;
+		List<Node> nodes = new ArrayList<Node>();
+		boolean inRun = false;
+		double lastY = 0;
+		for (double y = world.getWorldHeight(); y >= 0; y -= step)
+		{
+			boolean adjacent = world.isAdjacent(x, y, radius);
+			if (adjacent && (!inRun || lastY - y >= spacing))
+			{
+				nodes.add(new Node(x, y));
+				lastY = y;
+			}
+			inRun = adjacent;
+		}
+		return nodes;
+	}
+
+
+	/**
+	 * This method finds the moves and jumps from a node, and adds them to the nodes they end at
+	 *
+	 * @param node
+	 * 		The node whose edges are found
+	 */
+	private void findEdges(Node node)
+	{
+		for (int i = 0; i < MOVE_ANGLES; i++)
+		{
+			double angle = -Math.PI + 2 * Math.PI * (i + 1) / MOVE_ANGLES;
+			double[] distance = Worm.getMoveDistanceOf(world, node.x, node.y, radius, angle);
+			double x = node.x + distance[0];
+			double y = Worm.getFallPosYOf(world, x, node.y + distance[1], radius);
+			Node target = findClosestNode(x, y, radius);
+			if (target != null && target != node)
+				target.incoming.add(new Edge(node, Worm.calculateAPCostMove(distance)));
+		}
+
+		for (int i = 0; i < JUMP_ANGLES; i++)
+		{
+			Node target = jump(node, Math.PI * (i + 0.5) / JUMP_ANGLES);
+			if (target != null && target != node)
+				target.incoming.add(new Edge(node, 1));
+		}
+	}
+
+
+	/**
+	 * This method follows a jump with all AP from a node, and the fall after it
+	 *
+	 * The jump is followed in steps of about one pixel until the worm no longer fits. The worm then falls from
+	 * the last position where it did fit until it is adjacent to terrain.
+	 *
+	 * @param node
+	 * 		The node the worm jumps from
+	 *
+	 * @param angle
+	 * 		The angle it jumps at
+	 *
+	 * @return
+	 * 		The closest node to where the worm comes to rest, or null if it leaves the world or rests far from every node
+	 */
+	private Node jump(Node node, double angle)
+	{
+		double timeStep = step / jumpSpeed;
+		double speedX = jumpSpeed * Math.cos(angle);
+		double speedY = jumpSpeed * Math.sin(angle);
+		double x = node.x;
+		double y = node.y;
+		for (double time = timeStep; time < MAX_JUMP_TIME; time += timeStep)
+		{
+			double nextX = node.x + speedX * time;
+			double nextY = node.y + speedY * time - 0.5 * Projectile.GRAVITY * time * time;
+			if (!world.isPassable(nextX, nextY, radius))
+				break;
+			x = nextX;
+			y = nextY;
+		}
+		while (world.isPassable(x, y, radius) && !world.isAdjacent(x, y, radius))
+		{
+			y -= step;
+		}
+		if (!world.isAdjacent(x, y, radius))
+			return null;
+		return findClosestNode(x, y, radius);
+	}
+
+
+	/**
+	 * This method returns the node closest to a position
+	 *
+	 * @param x
+	 * 		The posX of the position
+	 *
+	 * @param y
+	 * 		The posY of the position
+	 *
+	 * @param maximum
+	 * 		The largest distance to the node
+	 *
+	 * @return
+	 * 		The closest node, or null if no node is within the maximum distance
+	 */
+	private Node findClosestNode(double x, double y, double maximum)
+	{
+		Node closest = null;
+		double closestDistance = maximum;
+		int range = (int) Math.ceil(maximum / spacing);
+		int column = (int) Math.round(x / spacing);
+		for (int other = Math.max(0, column - range); other <= Math.min(columns.size() - 1, column + range); other++)
+		{
+			for (Node node : columns.get(other))
+			{
+				double distance = Math.hypot(node.x - x, node.y - y);
+				if (distance <= closestDistance)
+				{
+					closest = node;
+					closestDistance = distance;
+				}
+			}
+		}
+		return closest;
+	}
+
+
+	/**
+	 * A position a worm can stand on
+	 */
+	private static class Node
+	{
+		final double x;
+
+		final double y;
+
+		/**
+		 * The moves and jumps that end at this node
+		 */
+		final List<Edge> incoming = new ArrayList<Edge>();
+
+		Node(double x, double y)
+		{
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+
+	/**
+	 * A move or jump from a node, kept by the node it ends at
+	 */
+	private static class Edge
+	{
+		final Node source;
+
+		final int cost;
+
+		Edge(Node source, int cost)
+		{
+			this.source = source;
+			this.cost = cost;
+		}
+	}
+
+
+	/**
+	 * A node reached while the cost of the graph to the goal is computed
+	 */
+	private static class Entry implements Comparable<Entry>
+	{
+		final Node node;
+
+		final int cost;
+
+		Entry(Node node, int cost)
+		{
+			this.node = node;
+			this.cost = cost;
+		}
+
+		@Override
+		public int compareTo(Entry other)
+		{
+			return cost < other.cost ? -1 : (cost == other.cost ? 0 : 1);
+		}
+	}
+
+
+	/**
+	 * An exact position and AP of a worm reached by A*, with the AP it cost and the estimated AP of the whole path
+	 */
+	private static class State implements Comparable<State>
+	{
+		final State previous;
+
+		/**
+		 * The step from the previous state, null for the start
+		 */
+		final Step step;
+
+		final double x;
+
+		final double y;
+
+		final int actionPoints;
+
+		final int cost;
+
+		final int estimate;
+
+		/**
+		 * The node closest to the position
+		 */
+		final Node node;
+
+		State(State previous, Step step, double x, double y, int actionPoints, int cost, int estimate, Node node)
+		{
+			this.previous = previous;
+			this.step = step;
+			this.x = x;
+			this.y = y;
+			this.actionPoints = actionPoints;
+			this.cost = cost;
+			this.estimate = estimate;
+			this.node = node;
+		}
+
+		@Override
+		public int compareTo(State other)
+		{
+			return estimate < other.estimate ? -1 : (estimate == other.estimate ? 0 : 1);
+		}
+	}
+
+
+	/**
+	 * A class of steps of a path: the worm turns to the angle and then moves or jumps
+	 */
+	public static class Step
+	{
+
+		/**
+		 * Whether the worm moves or jumps
+		 */
+		private final Action action;
+
+
+		/**
+		 * The angle the worm has to face
+		 */
+		private final double angle;
+
+
+		/**
+		 * The posX the worm ends at
+		 */
+		private final double x;
+
+
+		/**
+		 * The posY the worm ends at
+		 */
+		private final double y;
+
+
+		/**
+		 * The AP the move or jump costs, without turning
+		 */
+		private final int cost;
+
+
+		/**
+		 * Whether the worm waits for its next turn before this step
+		 */
+		private final boolean nextTurn;
+
+
+		/**
+		 * Creates a step
+		 */
+		Step(Action action, double angle, double x, double y, int cost, boolean nextTurn)
+		{
+			this.action = action;
+			this.angle = angle;
+			this.x = x;
+			this.y = y;
+			this.cost = cost;
+			this.nextTurn = nextTurn;
+		}
+
+
+		/**
+		 * This method returns whether the worm moves or jumps
+		 *
+		 * @return action
+		 */
+		@Basic
+		public Action getAction()
+		{
+			return action;
+		}
+
+
+		/**
+		 * This method returns the angle the worm has to face
+		 *
+		 * @return angle
+		 */
+		@Basic
+		public double getAngle()
+		{
+			return angle;
+		}
+
+
+		/**
+		 * This method returns the posX the worm ends at
+		 *
+		 * @return x
+		 */
+		@Basic
+		public double getX()
+		{
+			return x;
+		}
+
+
+		/**
+		 * This method returns the posY the worm ends at
+		 *
+		 * @return y
+		 */
+		@Basic
+		public double getY()
+		{
+			return y;
+		}
+
+
+		/**
+		 * This method returns the AP the move or jump costs, without turning, a jump costs all AP that are left
+		 *
+		 * @return cost
+		 */
+		@Basic
+		public int getCost()
+		{
+			return cost;
+		}
+
+
+		/**
+		 * This method returns whether the worm waits for its next turn, and all its AP, before this step
+		 *
+		 * @return nextTurn
+		 */
+		@Basic
+		public boolean isNextTurn()
+		{
+			return nextTurn;
+		}
+	}
+}
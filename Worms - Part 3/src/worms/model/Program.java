@@ -1,22 +1,276 @@
 package worms.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Raw;
+import worms.gui.game.IActionHandler;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.ExecutionResult;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.execution.Instruction;
+import worms.model.programs.execution.ProgramProfile;
+import worms.model.programs.statements.Statement;
+
 /**
  * A class of programs where we make a computer-controlled worm perform actions
  *
- * @version 2.0
- * 
+ * The main statement is compiled once into a flat list of instructions. Every worm executing the program
+ * gets its own frame with a program counter and the values of the variables, so the program can be suspended
+ * after an action or after a maximum amount of statements and resumed in the next turn.
+ *
+ * @version 3.0
+ *
  * @Author Ruben Schroyen & Ralph Vancampenhoudt
- * 
+ *
  * A R production for the course: Object-oriented Programming at KuLeuven
- * 
+ *
  */
 
 public class Program {
 
-	public boolean isWellFormed() 
+	/**
+	 * The maximum amount of statements a program executes in one turn
+	 */
+	public static final int MAX_STATEMENTS_PER_TURN = 1000;
+
+
+	/**
+	 * The declared global variables and their types
+	 */
+	private final Map<String, Type> globals;
+
+
+	/**
+	 * The main statement of this program
+	 */
+	private final Statement statement;
+
+
+	/**
+	 * The handler through which the actions of this program are performed
+	 */
+	private final IActionHandler handler;
+
+
+	/**
+	 * The compiled instructions of the main statement
+	 */
+	private final Instruction[] code;
+
+
+	/**
+	 * The builder that knows the slots of the variables
+	 */
+	private final CodeBuilder builder;
+
+
+	/**
+	 * Creates a program and compiles its main statement
+	 *
+	 * @param globals
+	 * 		The declared global variables and their types
+	 *
+	 * @param statement
+	 * 		The main statement of the program
+	 *
+	 * @param handler
+	 * 		The handler through which the actions are performed
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the program uses a variable that was never declared
+	 */
+	public Program(Map<String, Type> globals, Statement statement, IActionHandler handler) throws IllegalArgumentException
+	{
+		this.globals = new HashMap<String, Type>(globals);
+		this.statement = statement;
+		this.handler = handler;
+		this.builder = new CodeBuilder(globals);
+		statement.compile(builder);
+		this.code = builder.getCode();
+	}
+
+
+	/**
+	 * Creates a program that shares the compiled instructions of another program
+	 *
+	 * @param other
+	 * 		The program whose instructions are shared
+	 *
+	 * @param handler
+	 * 		The handler through which the actions are performed
+	 */
+	private Program(Program other, IActionHandler handler)
+	{
+		this.globals = other.globals;
+		this.statement = other.statement;
+		this.handler = handler;
+		this.builder = other.builder;
+		this.code = other.code;
+	}
+
+
+	/**
+	 * This method returns the declared global variables of this program
+	 *
+	 * @return globals
+	 */
+	@Basic @Raw
+	public Map<String, Type> getGlobals()
+	{
+		return new HashMap<String, Type>(globals);
+	}
+
+
+	/**
+	 * This method returns the main statement of this program
+	 *
+	 * @return statement
+	 */
+	@Basic @Raw
+	public Statement getStatement()
+	{
+		return statement;
+	}
+
+
+	/**
+	 * This method returns the handler through which the actions of this program are performed
+	 *
+	 * @return handler
+	 */
+	@Basic @Raw
+	public IActionHandler getHandler()
 	{
-		// TODO Auto-generated method stub
-		return false;
+		return handler;
 	}
 
+
+	/**
+	 * This method returns this program with actions performed through the given handler
+	 *
+	 * The compiled instructions are shared, since every worm executes them with its own frame.
+	 *
+	 * @param handler
+	 * 		The handler through which the actions are performed
+	 *
+	 * @return
+	 * 		This program if it already uses the given handler, otherwise a program with the same instructions
+	 * 			| result.getHandler() == handler
+	 */
+	public Program withHandler(IActionHandler handler)
+	{
+		if (handler == this.handler)
+			return this;
+		return new Program(this, handler);
+	}
+
+
+	/**
+	 * This method creates an empty profile for the instructions of this program
+	 *
+	 * @return
+	 * 		A profile that knows the statement every instruction was compiled from
+	 */
+	public ProgramProfile createProfile()
+	{
+		return new ProgramProfile(builder.getPaths());
+	}
+
+
+	/**
+	 * This method checks whether the program is well-formed
+	 *
+	 * @return
+	 * 		True if no foreach statement contains an action
+	 * 			| getStatement().isWellFormed()
+	 */
+	public boolean isWellFormed()
+	{
+		return statement.isWellFormed();
+	}
+
+
+	/**
+	 * This method creates the frame a worm needs to execute this program from the start
+	 *
+	 * @param worm
+	 * 		The worm that will execute this program
+	 *
+	 * @return
+	 * 		A frame at the first instruction with every variable at its default value
+	 */
+	public Frame createFrame(Worm worm)
+	{
+		return new Frame(worm, handler, builder.getAmountOfSlots());
+	}
+
+
+	/**
+	 * This method executes the program for one turn, starting where the frame stopped last time
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @param budget
+	 * 		The maximum amount of statements to execute
+	 *
+	 * @return
+	 * 		ACTION_FAILED if an action could not be performed, the frame will retry it next turn
+	 * 			| frame.getProgramCounter() points at the failed action
+	 * 		BUDGET_EXHAUSTED if the budget ran out, the frame continues at the next statement next turn
+	 * 		TERMINATED if the program ended, the worm died or an expression had the wrong type
+	 * 			| frame.isTerminated()
+	 */
+	public ExecutionResult execute(Frame frame, int budget)
+	{
+		if (frame.isTerminated())
+			return ExecutionResult.TERMINATED;
+
+		int programCounter = frame.getProgramCounter();
+		int executed = 0;
+		ProgramProfile profile = frame.getProfile();
+		try
+		{
+			while (programCounter < code.length)
+			{
+				Instruction instruction = code[programCounter];
+				if (instruction.isStatement())
+				{
+					if (executed == budget)
+					{
+						frame.setProgramCounter(programCounter);
+						return ExecutionResult.BUDGET_EXHAUSTED;
+					}
+					executed++;
+				}
+				int next;
+				if (profile == null)
+					next = instruction.execute(frame, programCounter);
+				else
+				{
+					long start = System.nanoTime();
+					next = instruction.execute(frame, programCounter);
+					long waited = frame.takeActionWait();
+					profile.record(programCounter, instruction, System.nanoTime() - start - waited, waited);
+				}
+				if (frame.getWorld() == null)
+					break;
+				if (next == Instruction.SUSPEND)
+				{
+					frame.setProgramCounter(programCounter);
+					return ExecutionResult.ACTION_FAILED;
+				}
+				programCounter = next;
+			}
+		}
+		catch (IllegalArgumentException exc)
+		{
+			frame.print(exc.getMessage());
+		}
+		frame.terminate();
+		return ExecutionResult.TERMINATED;
+	}
 }
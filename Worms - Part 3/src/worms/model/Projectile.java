@@ -43,7 +43,14 @@ public class Projectile
 	/**
 	 * The density of the projectile.
 	 */
-	final double density = 7800;
+	final double density = DENSITY;
+
+
+
+	/**
+	 * The density of every projectile.
+	 */
+	public static final double DENSITY = 7800;
 
 
 
@@ -71,7 +78,14 @@ public class Projectile
 	/**
 	 * The earths gravitational pull (9.80665)
 	 */
-	private final double g = 9.80665;
+	private final double g = GRAVITY;
+
+
+
+	/**
+	 * The gravitational acceleration every projectile is subject to in m/s.
+	 */
+	public static final double GRAVITY = 9.80665;
 
 
 
@@ -94,6 +108,23 @@ public class Projectile
 	 */
 	private double velocity;
 
+	/**
+	 * The key that sets this projectile apart from projectiles with the same state in the state hash of its world
+	 */
+	private final long hashKey;
+
+
+	/**
+	 * The hash of the state of this projectile, kept up to date by every setter
+	 */
+	private long stateHash;
+
+
+	/**
+	 * Whether the hash of this projectile is part of the state hash of its world
+	 */
+	private boolean inStateHash = false;
+
 
 
 	/**
@@ -122,11 +153,13 @@ public class Projectile
 	 */
 	public Projectile(Worm worm) throws IllegalArgumentException
 	{
+		this.hashKey = worm.getWorld() == null ? 0 : worm.getWorld().nextEntityKey();
 		this.worm = worm;
-		if (worm.isValidPosition(worm.getPosX() + Math.cos(worm.getAngle() * worm.getRadius()), worm.getPosY() + Math.sin(worm.getAngle() * worm.getRadius())))
+		double[] launchPosition = getLaunchPosition(worm.getPosX(), worm.getPosY(), worm.getRadius(), worm.getAngle());
+		if (worm.isValidPosition(launchPosition[0], launchPosition[1]))
 		{	
-			this.setPosX(worm.getPosX() + Math.cos(worm.getAngle() * worm.getRadius()));
-			this.setPosY(worm.getPosY() + Math.sin(worm.getAngle() * worm.getRadius()));
+			this.setPosX(launchPosition[0]);
+			this.setPosY(launchPosition[1]);
 		}
 		else 
 			throw new IllegalArgumentException("Not a valid position for projectile");
@@ -175,7 +208,10 @@ public class Projectile
 	public void setPosY(double y) 
 	{
 		if (isValidPosition(this.getPosX(), y))
+		{
 			this.y = y;
+			this.stateChanged(EntityChange.MOVED);
+		}
 	}
 
 
@@ -192,7 +228,10 @@ public class Projectile
 	public void setPosX(double x) 
 	{
 		if (isValidPosition(x,this.getPosY()))
+		{
 			this.x = x;
+			this.stateChanged(EntityChange.MOVED);
+		}
 	}
 
 
@@ -227,11 +266,51 @@ public class Projectile
 	/**
 	 * This method returns the radius of the projectile in meters.
 	 * 
-	 * @return Math.pow(this.getMass()/(density*(4/3)*Math.PI), 1/3)
+	 * @return Math.pow(this.getMass()/(density*(4.0/3)*Math.PI), 1.0/3)
 	 */
 	public double getRadius() 
 	{
-		return Math.pow(this.getMass()/(density*(4/3)*Math.PI), 1/3);
+		return getRadiusOf(this.getMass());
+	}
+
+
+
+	/**
+	 * This method returns the radius of a projectile with a given mass in meters.
+	 * 
+	 * @param mass
+	 * 		The given mass.
+	 * 
+	 * @return Math.pow(mass/(DENSITY*(4.0/3)*Math.PI), 1.0/3)
+	 */
+	public static double getRadiusOf(double mass)
+	{
+		return Math.pow(mass/(DENSITY*(4.0/3)*Math.PI), 1.0/3);
+	}
+
+
+
+	/**
+	 * This method returns the position where a worm launches a projectile.
+	 * 
+	 * @param x
+	 * 		The X-coordinate of the worm.
+	 * 
+	 * @param y
+	 * 		The Y-coordinate of the worm.
+	 * 
+	 * @param radius
+	 * 		The radius of the worm.
+	 * 
+	 * @param angle
+	 * 		The angle the worm shoots at.
+	 * 
+	 * @return The X- and Y-coordinate of the projectile when it is launched.
+	 * 		| result == {x + radius * Math.cos(angle), y + radius * Math.sin(angle)}
+	 */
+	public static double[] getLaunchPosition(double x, double y, double radius, double angle)
+	{
+		return new double[] {x + radius * Math.cos(angle), y + radius * Math.sin(angle)};
 	}
 
 
@@ -294,22 +373,89 @@ public class Projectile
 	 * This method returns the damage the selected weapon deals.
 	 * 
 	 * @return 80 if the selectedWeapon == "Bazooka"
-	 * 		| this.getWorld().currentWorm().getSelectedWeapon() == "Bazooka"
+	 * 		| "Bazooka".equals(this.getWorld().currentWorm().getSelectedWeapon())
 	 * 
 	 * @return 20 if the selectedWeapon == "Rifle"
-	 * 		| this.getWorld().currentWorm().getSelectedWeapon() == "Rifle"
+	 * 		| "Rifle".equals(this.getWorld().currentWorm().getSelectedWeapon())
 	 */
 	public int damageWeapon()
 	{
-		if (this.getWorld().currentWorm().getSelectedWeapon() == "Bazooka")
+		return getDamageOf(this.getWorld().currentWorm().getSelectedWeapon());
+	}
+
+
+
+	/**
+	 * This method returns the damage a given weapon deals.
+	 * The name is compared with equals, as comparing with == made the damage depend on whether the name
+	 * was the same string object, which two runs of the same match need not agree on.
+	 * 
+	 * @param weapon
+	 * 		The name of the weapon.
+	 * 
+	 * @return 80 if the weapon is a bazooka, 20 if it is a rifle and 0 otherwise
+	 * 		| if (weapon.equals("Bazooka")) then result == 80
+	 * 		| else if (weapon.equals("Rifle")) then result == 20
+	 * 		| else result == 0
+	 */
+	public static int getDamageOf(String weapon)
+	{
+		if ("Bazooka".equals(weapon))
 			return 80;
-		if (this.getWorld().currentWorm().getSelectedWeapon() == "Rifle")
+		if ("Rifle".equals(weapon))
 			return 20;
 		return 0;
 	}
 
 
 
+	/**
+	 * This method returns the mass of a projectile fired with a given weapon.
+	 * 
+	 * @param weapon
+	 * 		The name of the weapon.
+	 * 
+	 * @return 300 for a bazooka, 10 for a rifle
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the weapon is neither a bazooka nor a rifle
+	 */
+	public static double getMassOf(String weapon) throws IllegalArgumentException
+	{
+		if ("Bazooka".equals(weapon))
+			return 300;
+		if ("Rifle".equals(weapon))
+			return 10;
+		throw new IllegalArgumentException("Not a weapon: " + weapon);
+	}
+
+
+
+	/**
+	 * This method returns the force a projectile is launched with by a given weapon.
+	 * 
+	 * @param weapon
+	 * 		The name of the weapon.
+	 * 
+	 * @param propulsionYield
+	 * 		The propulsionYield of the worm, a rifle ignores it.
+	 * 
+	 * @return 2.5 + 0.07*propulsionYield for a bazooka, 1.5 for a rifle
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the weapon is neither a bazooka nor a rifle
+	 */
+	public static double getForceOf(String weapon, double propulsionYield) throws IllegalArgumentException
+	{
+		if ("Bazooka".equals(weapon))
+			return 2.5 + 0.07*propulsionYield;
+		if ("Rifle".equals(weapon))
+			return 1.5;
+		throw new IllegalArgumentException("Not a weapon: " + weapon);
+	}
+
+
+
 	/**
 	 * This method applies a given damage points to a given worm.
 	 * 
@@ -350,6 +496,40 @@ public class Projectile
 
 
 
+	/**
+	 * This method adds the hash of this projectile to the state hash of its world, or removes it
+	 * 
+	 * @param inStateHash
+	 * 		True when this projectile is added to the projectiles of its world, false when it is removed
+	 */
+	void setInStateHash(boolean inStateHash)
+	{
+		if (inStateHash != this.inStateHash && this.getWorld() != null)
+			this.getWorld().toggleEntityHash(stateHash);
+		this.inStateHash = inStateHash;
+	}
+
+
+	/**
+	 * This method computes the hash of the state of this projectile again, updates the state hash of its world and
+	 * tells the listeners of its world about the change
+	 *
+	 * @param change
+	 * 		The kind of change
+	 */
+	private void stateChanged(EntityChange change)
+	{
+		long hash = World.mix(World.mix(World.mix(hashKey, x), y), mass);
+		if (inStateHash && this.getWorld() != null)
+		{
+			this.getWorld().toggleEntityHash(stateHash ^ hash);
+			this.getWorld().fireEntityChanged(this, change);
+		}
+		stateHash = hash;
+	}
+
+
+
 	/**
 	 * This method launches a given rifle projectile.
 	 * 
@@ -370,8 +550,8 @@ public class Projectile
 		if (getWorld().getActiveProjectile() == null)
 		{
 			this.getWorld().addProjectile(projectile);
-			projectile.setMass(10);
-			projectile.setForce(1.5);
+			projectile.setMass(getMassOf("Rifle"));
+			projectile.setForce(getForceOf("Rifle", 0));
 			Jump(0.001);
 		}
 		else
@@ -397,6 +577,7 @@ public class Projectile
 	private void setMass(double mass) 
 	{
 		this.mass = mass;
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
 
@@ -436,8 +617,8 @@ public class Projectile
 		if (getWorld().getActiveProjectile() == null)
 		{
 			this.getWorld().addProjectile(projectile);
-			projectile.setMass(300);
-			projectile.setForce(2.5 + 0.07*propulsionYield);
+			projectile.setMass(getMassOf("Bazooka"));
+			projectile.setForce(getForceOf("Bazooka", propulsionYield));
 			Jump(0.001);
 		}
 		else
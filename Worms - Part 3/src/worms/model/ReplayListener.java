@@ -0,0 +1,23 @@
+package worms.model;
+
+/**
+ * An interface for listeners that are told about every action a replay player performs
+ *
+ * The methods are called by the thread that plays the log, between two actions, so the world can be read while
+ * they run. They must not change the world, or the replay goes out of sync with the recorded match.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public interface ReplayListener
+{
+
+	/**
+	 * This method is called after an action of the log was performed
+	 *
+	 * @param world
+	 * 		The world the action was performed on
+	 */
+	void actionPerformed(World world);
+}
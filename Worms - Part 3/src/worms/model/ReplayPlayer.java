@@ -0,0 +1,530 @@
+package worms.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import worms.gui.game.IActionHandler;
+import worms.model.programs.ParseOutcome;
+import worms.model.programs.execution.PrintSink;
+
+/**
+ * A class of players that perform the actions of a log written by a replay recorder, without a screen
+ *
+ * Every action is performed on the facade at once, without the animations of the game, so a match is played
+ * as fast as the world can perform it. The programs of worms act through a handler that performs the same
+ * actions on the facade as the game does, so playing a log again gives the same world as the recorded match.
+ * Before every turn is started, the state hash of the world is compared to the one that was recorded.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ReplayPlayer
+{
+
+	/**
+	 * The time step of jumps performed by programs, the same as in the game
+	 */
+	public static final double JUMP_TIME_STEP = 1e-4;
+
+
+	/**
+	 * The amount of messages one worm may print per second when the prints are shown
+	 */
+	public static final double PRINT_RATE = 100;
+
+
+	/**
+	 * The facade the actions are performed on
+	 */
+	private final IFacade facade;
+
+
+	/**
+	 * The handler through which programs act
+	 */
+	private final IActionHandler handler;
+
+
+	/**
+	 * The world of the last created world in the log
+	 */
+	private World world;
+
+
+	/**
+	 * The programs of the log, by their number
+	 */
+	private final Map<Integer, Program> programs = new HashMap<Integer, Program>();
+
+
+	/**
+	 * The amount of actions that were performed
+	 */
+	private long actions = 0;
+
+
+	/**
+	 * The listener that is told about every performed action, or null
+	 */
+	private ReplayListener listener;
+
+
+	/**
+	 * The sink the print statements of programs are written to, or null to ignore them
+	 */
+	private PrintSink printSink;
+
+
+	/**
+	 * Creates a player performing the actions on the given facade
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the facade is null
+	 */
+	public ReplayPlayer(IFacade facade) throws IllegalArgumentException
+	{
+		if (facade == null)
+			throw new IllegalArgumentException("A player needs a facade");
+		this.facade = facade;
+		this.handler = new ReplayActionHandler(facade);
+	}
+
+
+	/**
+	 * This method returns the world of the last played log
+	 *
+	 * @return world
+	 */
+	public World getWorld()
+	{
+		return world;
+	}
+
+
+	/**
+	 * This method returns the amount of actions that were performed for the logs played so far
+	 *
+	 * @return actions
+	 */
+	public long getActions()
+	{
+		return actions;
+	}
+
+
+	/**
+	 * This method sets the listener that is told about every performed action
+	 *
+	 * @param listener
+	 * 		The listener, or null to stop telling about actions
+	 */
+	public void setListener(ReplayListener listener)
+	{
+		this.listener = listener;
+	}
+
+
+	/**
+	 * This method sets the sink the print statements of programs are written to, for the worlds created after this
+	 *
+	 * @param printSink
+	 * 		The sink, or null to ignore print statements
+	 */
+	public void setPrintSink(PrintSink printSink)
+	{
+		this.printSink = printSink;
+	}
+
+
+	/**
+	 * This method performs every action of a log
+	 *
+	 * @param in
+	 * 		The stream the log is read from, it is not closed
+	 *
+	 * @return
+	 * 		The world the actions were performed on, as it is after the last action
+	 *
+	 * @throws IOException
+	 * 		If the log can not be read, or is not a log of a replay recorder
+	 * 
+	 * @throws IllegalStateException
+	 * 		If the world went out of sync with the recorded match
+	 */
+	public World play(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != ReplayRecorder.MAGIC)
+			throw new IOException("Not a replay");
+		int version = data.readUnsignedByte();
+		if (version != ReplayRecorder.VERSION)
+			throw new IOException("Unsupported replay version: " + version);
+		world = null;
+		programs.clear();
+		while (true)
+		{
+			int action;
+			try
+			{
+				action = data.readByte();
+			}
+			catch (EOFException exc)
+			{
+				// a game that was killed never ended its log
+				return world;
+			}
+			if (action == ReplayRecorder.END)
+				return world;
+			perform(action, data);
+			actions++;
+			if (listener != null && world != null)
+				listener.actionPerformed(world);
+		}
+	}
+
+
+	/**
+	 * This method reads the arguments of an action and performs it
+	 */
+	private void perform(int action, DataInputStream data) throws IOException
+	{
+		if (action == ReplayRecorder.CREATE_WORLD)
+		{
+			createWorld(data);
+			return;
+		}
+		if (world == null)
+			throw new IOException("Action " + action + " before the world was created");
+		try
+		{
+			switch (action)
+			{
+				case ReplayRecorder.TURN:
+				{
+					Worm worm = readWorm(data);
+					facade.turn(worm, data.readDouble());
+					break;
+				}
+				case ReplayRecorder.MOVE:
+					facade.move(readWorm(data));
+					break;
+				case ReplayRecorder.FALL:
+					facade.fall(readWorm(data));
+					break;
+				case ReplayRecorder.JUMP:
+				{
+					Worm worm = readWorm(data);
+					facade.jump(worm, data.readDouble());
+					break;
+				}
+				case ReplayRecorder.JUMP_PROJECTILE:
+					facade.jump(facade.getActiveProjectile(world), data.readDouble());
+					break;
+				case ReplayRecorder.SHOOT:
+				{
+					Worm worm = readWorm(data);
+					facade.shoot(worm, (int) data.readDouble());
+					break;
+				}
+				case ReplayRecorder.SELECT_NEXT_WEAPON:
+					facade.selectNextWeapon(readWorm(data));
+					break;
+				case ReplayRecorder.RENAME:
+				{
+					Worm worm = readWorm(data);
+					facade.rename(worm, data.readUTF());
+					break;
+				}
+				case ReplayRecorder.SET_RADIUS:
+				{
+					Worm worm = readWorm(data);
+					facade.setRadius(worm, data.readDouble());
+					break;
+				}
+				case ReplayRecorder.ADD_EMPTY_TEAM:
+					facade.addEmptyTeam(world, data.readUTF());
+					break;
+				case ReplayRecorder.ADD_NEW_WORM:
+					facade.addNewWorm(world, readProgram(data));
+					break;
+				case ReplayRecorder.ADD_NEW_FOOD:
+					facade.addNewFood(world);
+					break;
+				case ReplayRecorder.START_GAME:
+					checkStateHash(data.readLong());
+					facade.startGame(world);
+					break;
+				case ReplayRecorder.START_NEXT_TURN:
+					checkStateHash(data.readLong());
+					facade.startNextTurn(world);
+					break;
+				case ReplayRecorder.SELECT_CURRENT_WORM:
+					facade.getCurrentWorm(world);
+					break;
+				default:
+					throw new IOException("Unknown action: " + action);
+			}
+		}
+		catch (ModelException exc)
+		{
+			// the recorded action failed in the same way
+		}
+		catch (IllegalArgumentException exc)
+		{
+			// the recorded action failed in the same way
+		}
+	}
+
+
+	/**
+	 * This method checks whether the world is in the recorded state
+	 *
+	 * @throws IllegalStateException
+	 * 		If the state hash of the world is not the recorded one
+	 */
+	private void checkStateHash(long recorded) throws IllegalStateException
+	{
+		long hash = world.getStateHash();
+		if (hash != recorded)
+			throw new IllegalStateException("Out of sync after " + actions + " actions: state hash "
+					+ Long.toHexString(hash) + " instead of " + Long.toHexString(recorded));
+	}
+
+
+	/**
+	 * This method reads a world and creates it with the recorded seed
+	 */
+	private void createWorld(DataInputStream data) throws IOException
+	{
+		double width = data.readDouble();
+		double height = data.readDouble();
+		int rows = data.readInt();
+		int columns = data.readInt();
+		boolean[][] passableMap = new boolean[rows][columns];
+		int bits = 0;
+		int amount = 0;
+		for (boolean[] row : passableMap)
+		{
+			for (int column = 0; column < columns; column++)
+			{
+				if (amount == 0)
+				{
+					bits = data.readUnsignedByte();
+					amount = 8;
+				}
+				amount--;
+				row[column] = ((bits >> amount) & 1) != 0;
+			}
+		}
+		long seed = data.readLong();
+		world = facade.createWorld(width, height, passableMap, new Random(seed));
+		world.setPrintSink(printSink);
+		programs.clear();
+	}
+
+
+	/**
+	 * This method reads the index of a worm
+	 *
+	 * @return
+	 * 		The worm, or null if it was not in the world when the action was recorded
+	 */
+	private Worm readWorm(DataInputStream data) throws IOException
+	{
+		int index = data.readInt();
+		if (index < 0)
+			return null;
+		if (index >= world.getWorms().size())
+			throw new IOException("No worm at index " + index);
+		return world.getWorms().get(index);
+	}
+
+
+	/**
+	 * This method reads the number of a program, and its text the first time it is used
+	 *
+	 * @return
+	 * 		The program, or null for a worm controlled by a player
+	 */
+	private Program readProgram(DataInputStream data) throws IOException
+	{
+		int number = data.readInt();
+		if (number < 0)
+			return null;
+		Program program = programs.get(number);
+		if (program == null)
+		{
+			byte[] bytes = new byte[data.readInt()];
+			data.readFully(bytes);
+			ParseOutcome<?> outcome = facade.parseProgram(new String(bytes, "UTF-8"), handler);
+			if (!outcome.isSuccess())
+				throw new IOException("The recorded program can not be parsed: " + outcome.getResult());
+			program = (Program) outcome.getResult();
+			programs.put(number, program);
+		}
+		return program;
+	}
+
+
+	/**
+	 * This method plays a log as fast as possible and prints the worms at the end
+	 *
+	 * With -print, the print statements of programs are written to the standard output through a print sink, at
+	 * most PRINT_RATE messages per second for every worm.
+	 *
+	 * @param args
+	 * 		The file of the log, optionally the amount of times to play it, and optionally -print
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+		boolean print = arguments.remove("-print");
+		if (arguments.isEmpty())
+		{
+			System.err.println("Usage: ReplayPlayer <replay file> [repetitions] [-print]");
+			return;
+		}
+		int repetitions = arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : 1;
+		ReplayPlayer player = new ReplayPlayer(new Facade());
+		PrintSink sink = null;
+		if (print)
+		{
+			sink = new PrintSink(new OutputStreamWriter(System.out), 4096, PRINT_RATE, 4 * (int) PRINT_RATE);
+			player.setPrintSink(sink);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < repetitions; i++)
+		{
+			InputStream in = new FileInputStream(arguments.get(0));
+			try
+			{
+				player.play(in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		if (sink != null)
+		{
+			sink.close();
+			if (sink.getDropped() > 0)
+				System.out.printf("%d printed messages dropped%n", sink.getDropped());
+		}
+		System.out.printf("%d actions in %.3f ms (%.1f us per action)%n", player.getActions(), elapsed / 1e6,
+				elapsed / 1e3 / Math.max(1, player.getActions()));
+		World world = player.getWorld();
+		if (world == null)
+			return;
+		for (Worm worm : world.getWorms())
+			System.out.printf("%s: (%.4f, %.4f) HP %d AP %d%n", worm.getName(), worm.getPosX(), worm.getPosY(),
+					worm.getHP(), worm.getCurrentAP());
+	}
+
+
+	/**
+	 * A handler performing the actions of programs at once, in the same way as the game does
+	 */
+	private static class ReplayActionHandler implements IActionHandler
+	{
+		private final IFacade facade;
+
+		ReplayActionHandler(IFacade facade)
+		{
+			this.facade = facade;
+		}
+
+		@Override
+		public boolean turn(Worm worm, double angle)
+		{
+			if (!facade.canTurn(worm, angle))
+				return false;
+			facade.turn(worm, angle);
+			return true;
+		}
+
+		@Override
+		public boolean move(Worm worm)
+		{
+			if (!facade.canMove(worm))
+				return false;
+			try
+			{
+				facade.move(worm);
+			}
+			catch (ModelException exc)
+			{
+				return false;
+			}
+			if (facade.canFall(worm))
+				facade.fall(worm);
+			return true;
+		}
+
+		@Override
+		public boolean jump(Worm worm)
+		{
+			try
+			{
+				facade.getJumpTime(worm, JUMP_TIME_STEP);
+			}
+			catch (ModelException exc)
+			{
+				return false;
+			}
+			facade.jump(worm, JUMP_TIME_STEP);
+			return true;
+		}
+
+		@Override
+		public boolean fire(Worm worm, int propulsion)
+		{
+			Projectile projectile;
+			try
+			{
+				facade.shoot(worm, propulsion);
+				projectile = facade.getActiveProjectile(worm.getWorld());
+				if (projectile == null)
+					return false;
+				facade.getJumpTime(projectile, JUMP_TIME_STEP);
+			}
+			catch (ModelException exc)
+			{
+				return false;
+			}
+			facade.jump(projectile, JUMP_TIME_STEP);
+			return true;
+		}
+
+		@Override
+		public boolean toggleWeapon(Worm worm)
+		{
+			try
+			{
+				facade.selectNextWeapon(worm);
+			}
+			catch (ModelException exc)
+			{
+			}
+			return true;
+		}
+
+		@Override
+		public void print(String message)
+		{
+		}
+	}
+}
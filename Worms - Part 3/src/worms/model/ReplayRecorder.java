@@ -0,0 +1,473 @@
+package worms.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class of recorders that log the actions a facade performs on a world, so the match can be played again
+ *
+ * The log is binary: the world is written with its terrain and the seed of its random generator, followed by
+ * every action as one byte and its arguments. Worms are written as their index in the worms of the world, and
+ * the text of a program is only written the first time it is used. Actions performed by the programs of worms
+ * are not written, since playing the log again runs the same programs in the same world. Asking a world for its
+ * current worm is written when it selects the next worm, since a worm without action points then ends its turn.
+ * Every start of a turn is written with the state hash of the world, so a player can tell where it went out of sync.
+ *
+ * A recorder that fails to write stops recording, the game goes on without it.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ReplayRecorder
+{
+
+	/**
+	 * The first four bytes of every log
+	 */
+	static final int MAGIC = 0x57524D52;
+
+
+	/**
+	 * The version of the format of the log
+	 */
+	static final int VERSION = 2;
+
+
+	static final byte CREATE_WORLD = 1;
+
+	static final byte TURN = 2;
+
+	static final byte MOVE = 3;
+
+	static final byte FALL = 4;
+
+	static final byte JUMP = 5;
+
+	static final byte JUMP_PROJECTILE = 6;
+
+	static final byte SHOOT = 7;
+
+	static final byte SELECT_NEXT_WEAPON = 8;
+
+	static final byte RENAME = 9;
+
+	static final byte SET_RADIUS = 10;
+
+	static final byte ADD_EMPTY_TEAM = 11;
+
+	static final byte ADD_NEW_WORM = 12;
+
+	static final byte ADD_NEW_FOOD = 13;
+
+	static final byte START_GAME = 14;
+
+	static final byte START_NEXT_TURN = 15;
+
+	static final byte SELECT_CURRENT_WORM = 16;
+
+	static final byte END = 0;
+
+
+	/**
+	 * The stream the log is written to
+	 */
+	private final DataOutputStream out;
+
+
+	/**
+	 * The world whose actions are recorded, the last one that was created
+	 */
+	private World world;
+
+
+	/**
+	 * The text of every program the facade parsed
+	 */
+	private final Map<Program, String> texts = new IdentityHashMap<Program, String>();
+
+
+	/**
+	 * The number under which the text of a program was written, for every text that was written
+	 */
+	private final Map<String, Integer> written = new HashMap<String, Integer>();
+
+
+	/**
+	 * The amount of turns that are being started, during which the programs of worms perform their actions
+	 */
+	private int startingTurns = 0;
+
+
+	/**
+	 * The exception that stopped this recorder, or null
+	 */
+	private IOException error;
+
+
+	/**
+	 * Creates a recorder writing its log to the given stream
+	 *
+	 * @param out
+	 * 		The stream to write to, it is closed when this recorder is closed
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the stream is null
+	 */
+	public ReplayRecorder(OutputStream out) throws IllegalArgumentException
+	{
+		if (out == null)
+			throw new IllegalArgumentException("A recorder needs a stream");
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		try
+		{
+			this.out.writeInt(MAGIC);
+			this.out.writeByte(VERSION);
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+		}
+	}
+
+
+	/**
+	 * This method returns the exception that stopped this recorder
+	 *
+	 * @return
+	 * 		The exception, or null if every action was written
+	 */
+	public synchronized IOException getError()
+	{
+		return error;
+	}
+
+
+	/**
+	 * This method ends the log and closes its stream
+	 */
+	public synchronized void close()
+	{
+		try
+		{
+			if (error == null)
+				out.writeByte(END);
+			out.close();
+		}
+		catch (IOException exc)
+		{
+			if (error == null)
+				error = exc;
+		}
+	}
+
+
+	/**
+	 * This method remembers the text a program was parsed from
+	 */
+	synchronized void programParsed(Program program, String text)
+	{
+		texts.put(program, text);
+	}
+
+
+	/**
+	 * This method records the creation of a world, the actions on other worlds are no longer recorded
+	 *
+	 * @param seed
+	 * 		The seed of the random generator of the world
+	 */
+	synchronized void worldCreated(World world, double width, double height, boolean[][] passableMap, long seed)
+	{
+		this.world = world;
+		this.startingTurns = 0;
+		if (error != null)
+			return;
+		try
+		{
+			out.writeByte(CREATE_WORLD);
+			out.writeDouble(width);
+			out.writeDouble(height);
+			out.writeInt(passableMap.length);
+			out.writeInt(passableMap.length == 0 ? 0 : passableMap[0].length);
+			int bits = 0;
+			int amount = 0;
+			for (boolean[] row : passableMap)
+			{
+				for (boolean passable : row)
+				{
+					bits = (bits << 1) | (passable ? 1 : 0);
+					if (++amount == 8)
+					{
+						out.writeByte(bits);
+						bits = 0;
+						amount = 0;
+					}
+				}
+			}
+			if (amount > 0)
+				out.writeByte(bits << (8 - amount));
+			out.writeLong(seed);
+			out.flush();
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+		}
+	}
+
+
+	/**
+	 * This method records an action on a worm, with a number as argument
+	 */
+	synchronized void record(byte action, Worm worm, double argument)
+	{
+		if (begin(action, worm))
+		{
+			try
+			{
+				out.writeDouble(argument);
+				out.flush();
+			}
+			catch (IOException exc)
+			{
+				error = exc;
+			}
+		}
+	}
+
+
+	/**
+	 * This method records an action on a worm, with a text as argument
+	 */
+	synchronized void record(byte action, Worm worm, String argument)
+	{
+		if (begin(action, worm))
+		{
+			try
+			{
+				out.writeUTF(argument);
+				out.flush();
+			}
+			catch (IOException exc)
+			{
+				error = exc;
+			}
+		}
+	}
+
+
+	/**
+	 * This method records an action on a worm without arguments
+	 */
+	synchronized void record(byte action, Worm worm)
+	{
+		if (begin(action, worm))
+			flush();
+	}
+
+
+	/**
+	 * This method records an action on a world, with a number as argument
+	 */
+	synchronized void record(byte action, World world, double argument)
+	{
+		if (begin(action, world))
+		{
+			try
+			{
+				out.writeDouble(argument);
+				out.flush();
+			}
+			catch (IOException exc)
+			{
+				error = exc;
+			}
+		}
+	}
+
+
+	/**
+	 * This method records an action on a world, with a text as argument
+	 */
+	synchronized void record(byte action, World world, String argument)
+	{
+		if (begin(action, world))
+		{
+			try
+			{
+				out.writeUTF(argument);
+				out.flush();
+			}
+			catch (IOException exc)
+			{
+				error = exc;
+			}
+		}
+	}
+
+
+	/**
+	 * This method records an action on a world without arguments
+	 */
+	synchronized void record(byte action, World world)
+	{
+		if (begin(action, world))
+			flush();
+	}
+
+
+	/**
+	 * This method records the addition of a worm with the given program
+	 */
+	synchronized void wormAdded(World world, Program program)
+	{
+		if (!begin(ADD_NEW_WORM, world))
+			return;
+		try
+		{
+			String text = program == null ? null : texts.get(program);
+			if (text == null)
+				out.writeInt(-1);
+			else if (written.containsKey(text))
+				out.writeInt(written.get(text));
+			else
+			{
+				written.put(text, written.size());
+				out.writeInt(written.size() - 1);
+				writeText(text);
+			}
+			out.flush();
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+		}
+	}
+
+
+	/**
+	 * This method records asking a world for its current worm, if that selects the next worm
+	 */
+	synchronized void currentWormRequested(World world)
+	{
+		if (world != this.world)
+			return;
+		List<Worm> worms = world.getWorms();
+		int index = world.getIndex();
+		if (worms.size() > 1 && index >= 0 && index < worms.size() && worms.get(index).getCurrentAP() == 0
+				&& begin(SELECT_CURRENT_WORM, world))
+			flush();
+	}
+
+
+	/**
+	 * This method marks the start of a turn, the actions of programs until it ends are not recorded
+	 */
+	synchronized void turnStarting(World world, byte action)
+	{
+		if (begin(action, world))
+		{
+			try
+			{
+				out.writeLong(world.getStateHash());
+				out.flush();
+			}
+			catch (IOException exc)
+			{
+				error = exc;
+			}
+		}
+		if (world == this.world)
+			startingTurns++;
+	}
+
+
+	/**
+	 * This method marks the end of a turn that was started
+	 */
+	synchronized void turnStarted(World world)
+	{
+		if (world == this.world && startingTurns > 0)
+			startingTurns--;
+	}
+
+
+	/**
+	 * This method writes the action and the index of the worm, if the action should be recorded
+	 *
+	 * @return
+	 * 		True if the arguments of the action must be written next
+	 */
+	private boolean begin(byte action, Worm worm)
+	{
+		if (worm == null || worm.getWorld() != world || !begin(action, world))
+			return false;
+		try
+		{
+			out.writeInt(world.getWorms().indexOf(worm));
+			return true;
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+			return false;
+		}
+	}
+
+
+	/**
+	 * This method writes the action, if it should be recorded
+	 *
+	 * @return
+	 * 		True if the arguments of the action must be written next
+	 */
+	private boolean begin(byte action, World world)
+	{
+		if (error != null || world == null || world != this.world || startingTurns > 0)
+			return false;
+		try
+		{
+			out.writeByte(action);
+			return true;
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+			return false;
+		}
+	}
+
+
+	/**
+	 * This method writes a text that may be longer than writeUTF allows
+	 */
+	private void writeText(String text) throws IOException
+	{
+		byte[] bytes = text.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+
+	/**
+	 * This method flushes the log, so it is complete if the game is killed
+	 */
+	private void flush()
+	{
+		try
+		{
+			out.flush();
+		}
+		catch (IOException exc)
+		{
+			error = exc;
+		}
+	}
+}
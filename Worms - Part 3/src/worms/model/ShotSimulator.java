@@ -0,0 +1,648 @@
+package worms.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import worms.util.DaemonThreadFactory;
+
+/**
+ * A class of simulators that predict where the shots of a worm land, without changing the world
+ *
+ * A simulator copies the position and radius of every worm when it is made, and only reads those copies, so it
+ * can be used by several threads while the game goes on. It can be made from a world or from a snapshot of one, so
+ * shots can be simulated in the branches of a lookahead and their damage applied to the snapshot. Only the terrain
+ * is not copied: the simulator asks the world whether a position is passable, which is safe because no game action
+ * digs into or adds to the terrain.
+ * A simulated projectile follows the same rules as a real one: it is launched from the same position with the same
+ * velocity, it flies in steps of TIME_STEP until the shooter would no longer fit at its position, and it hits every
+ * other worm it overlaps where it lands.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ShotSimulator
+{
+
+	/**
+	 * The time step of a simulated flight, the same as the one of a real shot
+	 */
+	public static final double TIME_STEP = 0.001;
+
+
+	/**
+	 * The longest flight that is simulated, a shot that is still flying then lands where it is
+	 */
+	private static final double MAX_FLIGHT_TIME = 60;
+
+
+	/**
+	 * The amount of threads that simulate shots
+	 */
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+
+	/**
+	 * The threads that simulate shots, shared by all simulators
+	 */
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, new DaemonThreadFactory("Shot simulator"));
+
+
+	/**
+	 * The world the shots are fired in
+	 */
+	private final World world;
+
+
+	/**
+	 * The living worms of the world or snapshot when this simulator was made
+	 */
+	private final Worm[] worms;
+
+
+	/**
+	 * The posX of every worm when this simulator was made
+	 */
+	private final double[] wormsX;
+
+
+	/**
+	 * The posY of every worm when this simulator was made
+	 */
+	private final double[] wormsY;
+
+
+	/**
+	 * The radius of every worm when this simulator was made
+	 */
+	private final double[] wormsRadius;
+
+
+	/**
+	 * Creates a simulator for the current state of a world
+	 *
+	 * @param world
+	 * 		The world the shots are fired in
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the world is null
+	 */
+	public ShotSimulator(World world) throws IllegalArgumentException
+	{
+		if (world == null)
+			throw new IllegalArgumentException("A shot simulator needs a world");
+		this.world = world;
+		this.worms = world.getWorms().toArray(new Worm[world.getWorms().size()]);
+		this.wormsX = new double[worms.length];
+		this.wormsY = new double[worms.length];
+		this.wormsRadius = new double[worms.length];
+		for (int i = 0; i < worms.length; i++)
+		{
+			wormsX[i] = worms[i].getPosX();
+			wormsY[i] = worms[i].getPosY();
+			wormsRadius[i] = worms[i].getRadius();
+		}
+	}
+
+
+	/**
+	 * Creates a simulator for the state of the worms in a snapshot, dead worms can not be hit
+	 *
+	 * @param snapshot
+	 * 		The snapshot whose worms the shots are fired at, in the terrain of its world
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the snapshot is null
+	 */
+	public ShotSimulator(WorldSnapshot snapshot) throws IllegalArgumentException
+	{
+		if (snapshot == null)
+			throw new IllegalArgumentException("A shot simulator needs a snapshot");
+		this.world = snapshot.getWorld();
+		List<Integer> living = new ArrayList<Integer>();
+		for (int index = 0; index < snapshot.getAmountOfWorms(); index++)
+		{
+			if (snapshot.isAlive(index))
+				living.add(index);
+		}
+		this.worms = new Worm[living.size()];
+		this.wormsX = new double[worms.length];
+		this.wormsY = new double[worms.length];
+		this.wormsRadius = new double[worms.length];
+		for (int i = 0; i < worms.length; i++)
+		{
+			int index = living.get(i);
+			worms[i] = snapshot.getWorm(index);
+			wormsX[i] = snapshot.getX(index);
+			wormsY[i] = snapshot.getY(index);
+			wormsRadius[i] = snapshot.getRadius(index);
+		}
+	}
+
+
+	/**
+	 * This method simulates one shot
+	 *
+	 * @param shooter
+	 * 		The worm that shoots
+	 *
+	 * @param weapon
+	 * 		The name of the weapon it shoots with
+	 *
+	 * @param angle
+	 * 		The angle it shoots at
+	 *
+	 * @param propulsionYield
+	 * 		The propulsion yield it shoots with, a rifle ignores it
+	 *
+	 * @return
+	 * 		Where the projectile lands and which worms it hits
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the weapon is neither a bazooka nor a rifle, or the shooter was not a living worm when this simulator
+	 * 		was made
+	 */
+	public Shot simulate(Worm shooter, String weapon, double angle, int propulsionYield) throws IllegalArgumentException
+	{
+		int index = indexOf(shooter);
+		double shooterRadius = wormsRadius[index];
+		double mass = Projectile.getMassOf(weapon);
+		double velocity = Projectile.getForceOf(weapon, propulsionYield) * 0.5 / mass;
+		double velocityX = velocity * Math.cos(angle);
+		double velocityY = velocity * Math.sin(angle);
+		double[] launch = Projectile.getLaunchPosition(wormsX[index], wormsY[index], shooterRadius, angle);
+
+		// The same loop as Projectile.JumpTime: the position is tested before the time is advanced,
+		// so the projectile lands one step after the first position where the shooter does not fit.
+		double x = wormsX[index];
+		double y = wormsY[index];
+		double time = 0;
+		while (time < MAX_FLIGHT_TIME && world.isPassable(x, y, shooterRadius))
+		{
+			x = launch[0] + velocityX * time;
+			y = launch[1] + velocityY * time - 0.5 * Projectile.GRAVITY * time * time;
+			time += TIME_STEP;
+		}
+		x = launch[0] + velocityX * time;
+		y = launch[1] + velocityY * time - 0.5 * Projectile.GRAVITY * time * time;
+
+		double radius = Projectile.getRadiusOf(mass);
+		List<Worm> hits = new ArrayList<Worm>();
+		for (int i = 0; i < worms.length; i++)
+		{
+			if (worms[i] != shooter && World.isOverlapping(x, y, radius, wormsX[i], wormsY[i], wormsRadius[i]))
+				hits.add(worms[i]);
+		}
+		return new Shot(weapon, angle, propulsionYield, x, y, time, hits, Projectile.getDamageOf(weapon));
+	}
+
+
+	/**
+	 * This method simulates shots at every combination of angle, propulsion yield and weapon in parallel,
+	 * and returns the best shots at a target
+	 *
+	 * A shot is better if it hits the target, then if it hits fewer worms of the team of the shooter,
+	 * then if it lands closer to the target.
+	 *
+	 * @param shooter
+	 * 		The worm that shoots
+	 *
+	 * @param target
+	 * 		The worm that should be hit
+	 *
+	 * @param angles
+	 * 		The amount of angles to try, spread evenly over the angles a worm can face, from -PI to PI
+	 *
+	 * @param yields
+	 * 		The amount of propulsion yields to try with a bazooka, spread evenly from 0 to 100
+	 *
+	 * @param amount
+	 * 		The maximum amount of shots to return
+	 *
+	 * @return
+	 * 		At most amount shots, the best shot first
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If angles, yields or amount is not positive, or the shooter or target was not a living worm when this
+	 * 		simulator was made
+	 */
+	public List<Shot> search(Worm shooter, Worm target, int angles, int yields, int amount) throws IllegalArgumentException
+	{
+		if (angles <= 0 || yields <= 0 || amount <= 0)
+			throw new IllegalArgumentException("The amount of angles, yields and shots must be positive");
+		int targetIndex = indexOf(target);
+		indexOf(shooter);
+
+		List<Shot> best = new ArrayList<Shot>();
+		for (String weapon : shooter.weapons)
+		{
+			// A rifle ignores the propulsion yield, so one yield is enough
+			int weaponYields = "Rifle".equals(weapon) ? 1 : yields;
+			int candidates = angles * weaponYields;
+			int chunk = Math.max(1, (candidates + 4 * THREADS - 1) / (4 * THREADS));
+			List<Callable<List<Shot>>> tasks = new ArrayList<Callable<List<Shot>>>();
+			for (int start = 0; start < candidates; start += chunk)
+				tasks.add(new SearchTask(shooter, target, weapon, angles, weaponYields, start, Math.min(candidates, start + chunk), amount));
+			try
+			{
+				for (Future<List<Shot>> result : EXECUTOR.invokeAll(tasks))
+					best.addAll(result.get());
+			}
+			catch (InterruptedException exc)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException exc)
+			{
+				if (exc.getCause() instanceof RuntimeException)
+					throw (RuntimeException) exc.getCause();
+				throw new IllegalStateException(exc.getCause());
+			}
+		}
+		return keepBest(best, new ShotComparator(shooter, target, wormsX[targetIndex], wormsY[targetIndex]), amount);
+	}
+
+
+	/**
+	 * This method returns the place of a worm in the copies of this simulator
+	 *
+	 * @param worm
+	 * 		The worm to look for
+	 *
+	 * @return
+	 * 		The index of the worm in worms
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the worm was not a living worm when this simulator was made
+	 */
+	private int indexOf(Worm worm) throws IllegalArgumentException
+	{
+		for (int i = 0; i < worms.length; i++)
+		{
+			if (worms[i] == worm)
+				return i;
+		}
+		throw new IllegalArgumentException("The worm was not a living worm when the simulator was made");
+	}
+
+
+	/**
+	 * This method sorts shots and keeps the best ones
+	 *
+	 * @param shots
+	 * 		The shots to sort
+	 *
+	 * @param comparator
+	 * 		The comparator that puts the best shot first
+	 *
+	 * @param amount
+	 * 		The maximum amount of shots to keep
+	 *
+	 * @return
+	 * 		At most amount shots, the best shot first
+	 */
+	private static List<Shot> keepBest(List<Shot> shots, Comparator<Shot> comparator, int amount)
+	{
+		Collections.sort(shots, comparator);
+		if (shots.size() > amount)
+			return new ArrayList<Shot>(shots.subList(0, amount));
+		return shots;
+	}
+
+
+	/**
+	 * A task simulating a range of the candidate shots of one weapon
+	 */
+	private class SearchTask implements Callable<List<Shot>>
+	{
+		private final Worm shooter;
+
+		private final Worm target;
+
+		private final String weapon;
+
+		private final int angles;
+
+		private final int yields;
+
+		private final int start;
+
+		private final int end;
+
+		private final int amount;
+
+		private final double targetX;
+
+		private final double targetY;
+
+		SearchTask(Worm shooter, Worm target, String weapon, int angles, int yields, int start, int end, int amount)
+		{
+			this.shooter = shooter;
+			this.target = target;
+			this.weapon = weapon;
+			this.angles = angles;
+			this.yields = yields;
+			this.start = start;
+			this.end = end;
+			this.amount = amount;
+			int targetIndex = indexOf(target);
+			this.targetX = wormsX[targetIndex];
+			this.targetY = wormsY[targetIndex];
+		}
+
+		@Override
+		public List<Shot> call()
+		{
+			List<Shot> shots = new ArrayList<Shot>(end - start);
+			for (int candidate = start; candidate < end; candidate++)
+			{
+				double angle = -Math.PI + 2 * Math.PI * (candidate / yields) / angles;
+				int propulsionYield = (yields > 1) ? (int) Math.round(100.0 * (candidate % yields) / (yields - 1)) : 0;
+				shots.add(simulate(shooter, weapon, angle, propulsionYield));
+			}
+			return keepBest(shots, new ShotComparator(shooter, target, targetX, targetY), amount);
+		}
+	}
+
+
+	/**
+	 * A comparator that puts the best shot at a target first, measuring the distance to where the target was
+	 * when the simulator was made
+	 */
+	private static class ShotComparator implements Comparator<Shot>
+	{
+		private final Worm shooter;
+
+		private final Worm target;
+
+		private final double targetX;
+
+		private final double targetY;
+
+		ShotComparator(Worm shooter, Worm target, double targetX, double targetY)
+		{
+			this.shooter = shooter;
+			this.target = target;
+			this.targetX = targetX;
+			this.targetY = targetY;
+		}
+
+		@Override
+		public int compare(Shot first, Shot second)
+		{
+			int result = Boolean.valueOf(second.hits(target)).compareTo(first.hits(target));
+			if (result == 0)
+				result = first.getFriendlyHits(shooter) - second.getFriendlyHits(shooter);
+			if (result == 0)
+				result = Double.compare(first.getDistanceTo(targetX, targetY), second.getDistanceTo(targetX, targetY));
+			return result;
+		}
+	}
+
+
+	/**
+	 * A class of simulated shots, holding how a shot was fired and where it landed
+	 */
+	public static class Shot
+	{
+
+		/**
+		 * The name of the weapon the shot was fired with
+		 */
+		private final String weapon;
+
+
+		/**
+		 * The angle the shot was fired at
+		 */
+		private final double angle;
+
+
+		/**
+		 * The propulsion yield the shot was fired with
+		 */
+		private final int propulsionYield;
+
+
+		/**
+		 * The posX where the projectile lands
+		 */
+		private final double impactX;
+
+
+		/**
+		 * The posY where the projectile lands
+		 */
+		private final double impactY;
+
+
+		/**
+		 * The time the projectile flies
+		 */
+		private final double flightTime;
+
+
+		/**
+		 * The worms the projectile hits
+		 */
+		private final List<Worm> hits;
+
+
+		/**
+		 * The damage the projectile does to every worm it hits
+		 */
+		private final int damage;
+
+
+		/**
+		 * Creates a simulated shot
+		 */
+		Shot(String weapon, double angle, int propulsionYield, double impactX, double impactY, double flightTime, List<Worm> hits, int damage)
+		{
+			this.weapon = weapon;
+			this.angle = angle;
+			this.propulsionYield = propulsionYield;
+			this.impactX = impactX;
+			this.impactY = impactY;
+			this.flightTime = flightTime;
+			this.hits = Collections.unmodifiableList(hits);
+			this.damage = damage;
+		}
+
+
+		/**
+		 * This method returns the name of the weapon the shot was fired with
+		 *
+		 * @return weapon
+		 */
+		@Basic
+		public String getWeapon()
+		{
+			return weapon;
+		}
+
+
+		/**
+		 * This method returns the angle the shot was fired at
+		 *
+		 * @return angle
+		 */
+		@Basic
+		public double getAngle()
+		{
+			return angle;
+		}
+
+
+		/**
+		 * This method returns the propulsion yield the shot was fired with
+		 *
+		 * @return propulsionYield
+		 */
+		@Basic
+		public int getPropulsionYield()
+		{
+			return propulsionYield;
+		}
+
+
+		/**
+		 * This method returns the posX where the projectile lands
+		 *
+		 * @return impactX
+		 */
+		@Basic
+		public double getImpactX()
+		{
+			return impactX;
+		}
+
+
+		/**
+		 * This method returns the posY where the projectile lands
+		 *
+		 * @return impactY
+		 */
+		@Basic
+		public double getImpactY()
+		{
+			return impactY;
+		}
+
+
+		/**
+		 * This method returns the time the projectile flies
+		 *
+		 * @return flightTime
+		 */
+		@Basic
+		public double getFlightTime()
+		{
+			return flightTime;
+		}
+
+
+		/**
+		 * This method returns the worms the projectile hits
+		 *
+		 * @return hits
+		 */
+		@Basic
+		public List<Worm> getHits()
+		{
+			return hits;
+		}
+
+
+		/**
+		 * This method returns the damage the projectile does to every worm it hits
+		 *
+		 * @return damage
+		 */
+		@Basic
+		public int getDamage()
+		{
+			return damage;
+		}
+
+
+		/**
+		 * This method checks whether the projectile hits a worm
+		 *
+		 * @param worm
+		 * 		The worm we want to check
+		 *
+		 * @return
+		 * 		| getHits().contains(worm)
+		 */
+		public boolean hits(Worm worm)
+		{
+			return hits.contains(worm);
+		}
+
+
+		/**
+		 * This method returns the amount of worms of the team of the shooter the projectile hits
+		 *
+		 * @param shooter
+		 * 		The worm that fired the shot
+		 *
+		 * @return
+		 * 		0 if the shooter has no team, otherwise the amount of hit worms in its team
+		 */
+		public int getFriendlyHits(Worm shooter)
+		{
+			if (shooter.getTeam() == null)
+				return 0;
+			int friendly = 0;
+			for (Worm worm : hits)
+			{
+				if (worm.getTeam() == shooter.getTeam())
+					friendly++;
+			}
+			return friendly;
+		}
+
+
+		/**
+		 * This method returns the distance between where the projectile lands and the current center of a worm
+		 *
+		 * @param worm
+		 * 		The worm we want the distance to
+		 *
+		 * @return
+		 * 		| Math.hypot(getImpactX() - worm.getPosX(), getImpactY() - worm.getPosY())
+		 */
+		public double getDistanceTo(Worm worm)
+		{
+			return getDistanceTo(worm.getPosX(), worm.getPosY());
+		}
+
+
+		/**
+		 * This method returns the distance between where the projectile lands and a position
+		 *
+		 * @param x
+		 * 		The posX of the position
+		 *
+		 * @param y
+		 * 		The posY of the position
+		 *
+		 * @return
+		 * 		| Math.hypot(getImpactX() - x, getImpactY() - y)
+		 */
+		public double getDistanceTo(double x, double y)
+		{
+			return Math.hypot(impactX - x, impactY - y);
+		}
+	}
+}
@@ -2,10 +2,15 @@ package worms.model;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import be.kuleuven.cs.som.annotate.*;
+import worms.model.programs.execution.ExecutionResult;
+import worms.model.programs.execution.PrintSink;
 import static org.junit.Assert.*;
 
 /**
@@ -65,6 +70,68 @@ public class World
 	public List<Team> teams = new ArrayList<Team>();
 
 
+	/**
+	 * A snapshot of the worms and food used by programs, null if an entity changed since it was made
+	 */
+	private EntityIndex entityIndex;
+
+
+	/**
+	 * The sink the print statements of programs write to, null if they print through their action handler
+	 */
+	private PrintSink printSink;
+
+
+	/**
+	 * The width of the radius buckets navigation graphs are made for
+	 */
+	public static final double NAVIGATION_RADIUS_STEP = 0.05;
+
+
+	/**
+	 * The amount of turns this world remembers the state hash of, a replay checks every turn as it is played
+	 * so only the last turns are needed to find where two runs went apart
+	 */
+	public static final int MAX_TURN_HASHES = 1024;
+
+
+	/**
+	 * The navigation graphs made for this world, by radius bucket
+	 */
+	private final Map<Integer, NavigationGraph> navigationGraphs = new HashMap<Integer, NavigationGraph>();
+
+
+	/**
+	 * The hashes of the states of all worms, food and projectiles in this world, combined with exclusive or
+	 */
+	private long entityHash = 0;
+
+
+	/**
+	 * The amount of worms, food and projectiles that were created for this world
+	 */
+	private long entityKeys = 0;
+
+
+	/**
+	 * The state hash of this world at the start of the last MAX_TURN_HASHES turns, the hash of turn t is at
+	 * t % MAX_TURN_HASHES
+	 */
+	private final long[] turnHashes = new long[MAX_TURN_HASHES];
+
+
+	/**
+	 * The amount of turns that were started in this world
+	 */
+	private long turns = 0;
+
+
+	/**
+	 * The listeners that are told about the entities that appear in, change in and disappear from this world
+	 */
+	private final List<WorldListener> listeners = new CopyOnWriteArrayList<WorldListener>();
+
+
 	/**
 	 * An index to do loops through the earlier lists
 	 */
@@ -160,6 +227,93 @@ public class World
 	}
 
 
+	/**
+	 * This method starts the game with the first worm, computer-controlled worms immediately play their turns
+	 * 
+	 * @post
+	 * 		The first worm is selected
+	 * 			| new.getIndex() == 0
+	 * 
+	 * @effect
+	 * 		The programs of the selected worms are executed until a player-controlled worm is selected
+	 * 			| executePrograms()
+	 */
+	public void startGame()
+	{
+		this.setIndex(0);
+		this.addTurnHash();
+		this.executePrograms();
+	}
+
+
+	/**
+	 * This method ends the turn of the current worm and starts the turn of the next one
+	 * 
+	 * @effect
+	 * 		The next worm gets its turn
+	 * 			| startTurnOfNextWorm()
+	 * 
+	 * @effect
+	 * 		The programs of the selected worms are executed until a player-controlled worm is selected
+	 * 			| executePrograms()
+	 */
+	public void startNextTurn()
+	{
+		this.startTurnOfNextWorm();
+		this.executePrograms();
+	}
+
+
+	/**
+	 * This method selects the next worm and gives it back all of its action points and 10 hit points
+	 * 
+	 * @post
+	 * 		The next worm is selected
+	 * 			| new.getIndex() == getIndex() + 1
+	 * 
+	 * @post
+	 * 		The selected worm has its maximum amount of action points and 10 extra hit points
+	 * 			| new.worms.get(new.getIndex()).getCurrentAP() == worms.get(new.getIndex()).getMaxAP()
+	 * 			| new.worms.get(new.getIndex()).getHP() == worms.get(new.getIndex()).getHP() + 10
+	 */
+	private void startTurnOfNextWorm()
+	{
+		this.nextWorm();
+		if (worms.size() == 0)
+			return;
+		Worm worm = worms.get(this.getIndex());
+		worm.setCurrentAP(worm.getMaxAP());
+		worm.setHP(worm.getHP() + 10);
+		this.addTurnHash();
+	}
+
+
+	/**
+	 * This method lets computer-controlled worms play their turns
+	 * 
+	 * Each program runs until an action fails or it executed its maximum amount of statements for this turn,
+	 * after which the next worm gets its turn. We stop at the first player-controlled worm, when the game is
+	 * finished, or when every worm in a row had a program that already ended.
+	 */
+	private void executePrograms()
+	{
+		int idleTurns = 0;
+		while (!isFinished() && worms.size() > 0 && idleTurns < worms.size())
+		{
+			Worm worm = worms.get(this.getIndex());
+			if (!worm.hasProgram())
+				return;
+			if (worm.executeProgram() == ExecutionResult.TERMINATED)
+				idleTurns++;
+			else
+				idleTurns = 0;
+			if (isFinished())
+				return;
+			this.startTurnOfNextWorm();
+		}
+	}
+
+
 	/**
 	 * This method increases the index by 1 to get to the next worm
 	 * 
@@ -230,6 +384,251 @@ public class World
 	}
 
 
+	/**
+	 * This method returns a snapshot of the worms and food in this world, it is only made again after an entity changed
+	 * 
+	 * @return
+	 * 		An index of the current worms and food
+	 * 			| result.getWorms() equals worms && result.getFodder() equals fodder
+	 */
+	public EntityIndex getEntityIndex()
+	{
+		if (entityIndex == null)
+			entityIndex = new EntityIndex(worms, fodder, this.getWorldWidth(), this.getWorldHeight());
+		return entityIndex;
+	}
+
+
+	/**
+	 * This method discards the snapshot of the worms and food, it has to be called whenever a worm or food is added,
+	 * removed, moved or resized
+	 * 
+	 * @post
+	 * 		The next snapshot reflects the current worms and food
+	 * 			| new.getEntityIndex() != getEntityIndex()
+	 */
+	void entitiesChanged()
+	{
+		entityIndex = null;
+	}
+
+
+	/**
+	 * This method returns a hash of the state of this world: the position, radius, angle, HP, AP and weapon of every
+	 * worm, the position of all food and projectiles and the selected worm
+	 * 
+	 * The hash is kept up to date whenever an entity changes, so asking for it takes constant time. Two worlds that
+	 * went through the same actions have the same hash, a different hash means the worlds went out of sync.
+	 * 
+	 * @return
+	 * 		A 64-bit hash of the state of this world
+	 */
+	public long getStateHash()
+	{
+		return mix(entityHash, this.getIndex());
+	}
+
+
+	/**
+	 * This method adds a listener that is told about every worm, food and projectile that appears in, changes in
+	 * or disappears from this world
+	 * 
+	 * @param listener
+	 * 		The listener to add
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the listener is null
+	 */
+	public void addListener(WorldListener listener) throws IllegalArgumentException
+	{
+		if (listener == null)
+			throw new IllegalArgumentException("A listener can not be null");
+		listeners.add(listener);
+	}
+
+
+	/**
+	 * This method removes a listener that was added to this world
+	 * 
+	 * @param listener
+	 * 		The listener to remove
+	 */
+	public void removeListener(WorldListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+
+	/**
+	 * This method tells the listeners of this world that an entity was added
+	 */
+	void fireEntitySpawned(Object entity)
+	{
+		for (WorldListener listener : listeners)
+			listener.entitySpawned(entity);
+	}
+
+
+	/**
+	 * This method tells the listeners of this world that an entity in it changed
+	 */
+	void fireEntityChanged(Object entity, EntityChange change)
+	{
+		for (WorldListener listener : listeners)
+			listener.entityChanged(entity, change);
+	}
+
+
+	/**
+	 * This method tells the listeners of this world that an entity was removed
+	 */
+	void fireEntityRemoved(Object entity)
+	{
+		for (WorldListener listener : listeners)
+			listener.entityRemoved(entity);
+	}
+
+
+	/**
+	 * This method remembers the state hash of this world at the start of a turn, forgetting the oldest one if
+	 * MAX_TURN_HASHES turns are remembered
+	 */
+	private void addTurnHash()
+	{
+		turnHashes[(int) (turns % MAX_TURN_HASHES)] = this.getStateHash();
+		turns++;
+	}
+
+
+	/**
+	 * This method returns the amount of turns that were started in this world
+	 * 
+	 * @return turns
+	 */
+	@Basic
+	public long getAmountOfTurns()
+	{
+		return turns;
+	}
+
+
+	/**
+	 * This method returns the state hash of this world at the start of the last turns
+	 * 
+	 * @return
+	 * 		The hashes of the last MAX_TURN_HASHES turns at most, in the order of the turns, the last one is the hash
+	 * 		at the start of the current turn
+	 */
+	public List<Long> getTurnHashes()
+	{
+		int amount = (int) Math.min(turns, MAX_TURN_HASHES);
+		List<Long> hashes = new ArrayList<Long>(amount);
+		for (long turn = turns - amount; turn < turns; turn++)
+			hashes.add(turnHashes[(int) (turn % MAX_TURN_HASHES)]);
+		return hashes;
+	}
+
+
+	/**
+	 * This method returns a key for a new entity of this world, that sets it apart from entities with the same state
+	 * 
+	 * Entities get their keys in the order they are created, so worlds that went through the same actions give
+	 * the same keys to the same entities.
+	 */
+	long nextEntityKey()
+	{
+		return ++entityKeys;
+	}
+
+
+	/**
+	 * This method adds or removes the hash of an entity to the state hash of this world
+	 * 
+	 * @param hash
+	 * 		The hash of the entity, or the exclusive or of its old and new hash if its state changed
+	 */
+	void toggleEntityHash(long hash)
+	{
+		entityHash ^= hash;
+	}
+
+
+	/**
+	 * This method mixes a value into a hash
+	 * 
+	 * @return
+	 * 		A hash in which every bit depends on every bit of the hash and the value
+	 */
+	static long mix(long hash, long value)
+	{
+		long mixed = (hash ^ value) + 0x9E3779B97F4A7C15L;
+		mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+		mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+		return mixed ^ (mixed >>> 31);
+	}
+
+
+	/**
+	 * This method mixes a number into a hash
+	 */
+	static long mix(long hash, double value)
+	{
+		return mix(hash, Double.doubleToLongBits(value));
+	}
+
+
+	/**
+	 * This method returns the navigation graph for worms with a given radius, it is made the first time it is needed
+	 * 
+	 * The radius is rounded up to a multiple of NAVIGATION_RADIUS_STEP, so worms of about the same size share a graph.
+	 * 
+	 * @param radius
+	 * 		The radius of the worms
+	 * 
+	 * @return
+	 * 		A graph for worms with the rounded radius
+	 * 			| result.getRadius() >= radius
+	 */
+	public NavigationGraph getNavigationGraph(double radius)
+	{
+		int bucket = (int) Math.ceil(radius / NAVIGATION_RADIUS_STEP - 1e-9);
+		NavigationGraph graph = navigationGraphs.get(bucket);
+		if (graph == null)
+		{
+			graph = new NavigationGraph(this, bucket * NAVIGATION_RADIUS_STEP);
+			navigationGraphs.put(bucket, graph);
+		}
+		return graph;
+	}
+
+
+	/**
+	 * This method returns the sink the print statements of programs write to
+	 * 
+	 * @return printSink
+	 */
+	@Basic @Raw
+	public PrintSink getPrintSink()
+	{
+		return printSink;
+	}
+
+
+	/**
+	 * This method sets the sink the print statements of programs write to
+	 * 
+	 * @param printSink
+	 * 		The sink, or null to print through the action handler of every program
+	 * 
+	 * @post
+	 * 		| new.getPrintSink() == printSink
+	 */
+	public void setPrintSink(PrintSink printSink)
+	{
+		this.printSink = printSink;
+	}
+
+
 	/**
 	 * This method returns all the projectiles in this world (never more than 1)
 	 * 
@@ -407,8 +806,11 @@ public class World
 	 * @post
 	 * 		The worm gets added to the currentTeam
 	 * 			| new.getCurrentTeam().size() == getCurrentTeam().size() + 1
+	 * 
+	 * @param program
+	 * 		The program the worm will follow, or null if the worm is controlled by the player
 	 */
-	public void addWorm() 
+	public void addWorm(Program program) 
 	{
 		double randomPositionX = RandomGenerator.nextDouble() * (this.getWorldWidth() + 1);
 		double randomPositionY = RandomGenerator.nextDouble() * (this.getWorldHeight() + 1);
@@ -416,7 +818,7 @@ public class World
 		double randomRadius = RandomGenerator.nextDouble() * 0.75 + 0.25;
 
 
-		Worm worm = new Worm(this, randomPositionX, randomPositionY, randomRadius, randomAngle, "Press N to rename", null);
+		Worm worm = new Worm(this, randomPositionX, randomPositionY, randomRadius, randomAngle, "Press N to rename", program);
 		worm.setPosX(this.findAdjacentX(worm, randomPositionX));
 		worm.setPosY(this.findAdjacentY(worm, randomPositionY));
 
@@ -443,10 +845,13 @@ public class World
 				}
 			}
 			worms.add(worm);
+			worm.setInStateHash(true);
+			this.entitiesChanged();
 			worm.addToTeam(this.getCurrentTeam());
+			this.fireEntitySpawned(worm);
 		}
 		else 
-			addWorm();
+			addWorm(program);
 	}
 
 	/**
@@ -499,12 +904,12 @@ public class World
 		{
 			if (currentX < center) 
 			{
-				currentX += 1 * (this.getWorldWidth() / passableMap[0].length);
+				currentX += Math.min(this.getWorldWidth() / passableMap[0].length, center - currentX);
 			}
 
-			if (currentX > center) 
+			else if (currentX > center) 
 			{
-				currentX -= 1 * (this.getWorldWidth() / passableMap[0].length);
+				currentX -= Math.min(this.getWorldWidth() / passableMap[0].length, currentX - center);
 			}
 			worm.setPosX(currentX);
 		}
@@ -538,12 +943,12 @@ public class World
 		{	
 			if (currentY < center) 
 			{
-				currentY += 1 * (this.getWorldHeight() / passableMap.length);
+				currentY += Math.min(this.getWorldHeight() / passableMap.length, center - currentY);
 			}
 
-			if (currentY > center) 
+			else if (currentY > center) 
 			{
-				currentY -= 1 * (this.getWorldHeight() / passableMap.length);
+				currentY -= Math.min(this.getWorldHeight() / passableMap.length, currentY - center);
 			}
 			worm.setPosY(currentY);
 		}
@@ -577,17 +982,14 @@ public class World
 		{
 			if (currentX < center) 
 			{
-				currentX += 1 * (this.getWorldWidth() / passableMap[0].length);
-
+				currentX += Math.min(this.getWorldWidth() / passableMap[0].length, center - currentX);
 			}
 
-			if (currentX > center) 
+			else if (currentX > center) 
 			{
-				currentX -= 1 * (this.getWorldWidth() / passableMap[0].length);
-
+				currentX -= Math.min(this.getWorldWidth() / passableMap[0].length, currentX - center);
 			}
 			food.setPosX(currentX);
-
 		}
 		if (Math.abs(center - currentX) > food.getRadius())
 			return currentX;
@@ -619,12 +1021,12 @@ public class World
 		{	
 			if (currentY < center) 
 			{
-				currentY += 1 * (this.getWorldHeight() / passableMap.length);
+				currentY += Math.min(this.getWorldHeight() / passableMap.length, center - currentY);
 			}
 
-			if (currentY > center) 
+			else if (currentY > center) 
 			{
-				currentY -= 1 * (this.getWorldHeight() / passableMap.length);
+				currentY -= Math.min(this.getWorldHeight() / passableMap.length, currentY - center);
 			}
 			food.setPosY(currentY);
 		}
@@ -656,7 +1058,12 @@ public class World
 	{
 		assert (wormExists(worm)) && (worm.getWorld() == this);
 		assert (wormInWorld(worm));
-		worms.remove(worm);
+		if (worms.remove(worm))
+		{
+			worm.setInStateHash(false);
+			this.fireEntityRemoved(worm);
+		}
+		this.entitiesChanged();
 	}
 
 
@@ -746,6 +1153,9 @@ public class World
 				}
 			}
 			fodder.add(food);
+			food.setInStateHash(true);
+			this.entitiesChanged();
+			this.fireEntitySpawned(food);
 		}
 		else 
 			addFood();
@@ -774,7 +1184,12 @@ public class World
 	{
 		assert (foodExists(food)) && (food.getWorld() == this);
 		assert (foodInWorld(food));
-		fodder.remove(food);
+		if (fodder.remove(food))
+		{
+			food.setInStateHash(false);
+			this.fireEntityRemoved(food);
+		}
+		this.entitiesChanged();
 	}
 
 
@@ -833,6 +1248,8 @@ public class World
 		assertEquals(true, projectile.getWorld() == this);
 		assertEquals (false, projectileInWorld(projectile));
 		projectiles.add(projectile);
+		projectile.setInStateHash(true);
+		this.fireEntitySpawned(projectile);
 	}
 
 
@@ -859,7 +1276,11 @@ public class World
 		assertEquals (true, projectileExists(projectile));
 		assertEquals (true, projectile.getWorld() == this);
 		assertEquals (true, projectileInWorld(projectile));
-		projectiles.remove(projectile);
+		if (projectiles.remove(projectile))
+		{
+			projectile.setInStateHash(false);
+			this.fireEntityRemoved(projectile);
+		}
 	}
 
 	/**
@@ -0,0 +1,45 @@
+package worms.model;
+
+/**
+ * An interface for listeners that are told about the worms, food and projectiles that appear in, change in and
+ * disappear from a world
+ *
+ * The methods are called by the thread that changes the world, while it changes it, so they should only remember
+ * what changed and return at once.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public interface WorldListener
+{
+
+	/**
+	 * This method is called after a worm, food or projectile was added to the world
+	 *
+	 * @param entity
+	 * 		The worm, food or projectile
+	 */
+	void entitySpawned(Object entity);
+
+
+	/**
+	 * This method is called after a worm, food or projectile in the world changed
+	 *
+	 * @param entity
+	 * 		The worm, food or projectile
+	 *
+	 * @param change
+	 * 		The kind of change
+	 */
+	void entityChanged(Object entity, EntityChange change);
+
+
+	/**
+	 * This method is called after a worm, food or projectile was removed from the world
+	 *
+	 * @param entity
+	 * 		The worm, food or projectile
+	 */
+	void entityRemoved(Object entity);
+}
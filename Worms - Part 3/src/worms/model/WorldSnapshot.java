@@ -0,0 +1,471 @@
+package worms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class of snapshots of the worms and food of a world, that can be changed and forked without touching the world
+ *
+ * Only the worms and food are held by a snapshot, it asks its world about the terrain. Their state is kept in
+ * persistent arrays: a fork shares them with the snapshot it was forked from, and changing an entity only copies
+ * the few small blocks on the way to it. Forking is therefore constant time, and a change costs the same whether
+ * a snapshot was forked or not, so an AI can explore many branches of a turn.
+ *
+ * A snapshot is not safe for use by several threads at once, but forks of the same snapshot are independent.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class WorldSnapshot
+{
+
+	/**
+	 * The world whose terrain this snapshot shares
+	 */
+	private final World world;
+
+
+	/**
+	 * The state of every worm, in the order of the worms of the world when the first snapshot was made
+	 */
+	private Store<WormState> worms;
+
+
+	/**
+	 * Every food of the world when the first snapshot was made, or null once it is eaten
+	 */
+	private Store<Food> fodder;
+
+
+	/**
+	 * Creates a snapshot with the given state
+	 */
+	private WorldSnapshot(World world, Store<WormState> worms, Store<Food> fodder)
+	{
+		this.world = world;
+		this.worms = worms;
+		this.fodder = fodder;
+	}
+
+
+	/**
+	 * This method makes a snapshot of the current worms and food of a world
+	 *
+	 * @param world
+	 * 		The world to make a snapshot of
+	 *
+	 * @return
+	 * 		A snapshot with the position, radius, angle, HP and AP of every worm and every food of the world
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the world is null
+	 */
+	public static WorldSnapshot of(World world) throws IllegalArgumentException
+	{
+		if (world == null)
+			throw new IllegalArgumentException("A snapshot needs a world");
+		List<WormState> worms = new ArrayList<WormState>(world.getWorms().size());
+		for (Worm worm : world.getWorms())
+			worms.add(new WormState(worm, worm.getPosX(), worm.getPosY(), worm.getRadius(), worm.getAngle(), worm.getHP(), worm.getCurrentAP()));
+		return new WorldSnapshot(world, Store.of(worms), Store.of(new ArrayList<Food>(world.getFodder())));
+	}
+
+
+	/**
+	 * This method returns a copy of this snapshot, later changes to either one are not seen by the other
+	 *
+	 * @return
+	 * 		A snapshot sharing all state with this one
+	 */
+	public WorldSnapshot fork()
+	{
+		return new WorldSnapshot(world, worms, fodder);
+	}
+
+
+	/**
+	 * This method returns the world whose terrain this snapshot shares, its entities are not those of the snapshot
+	 *
+	 * @return world
+	 */
+	public World getWorld()
+	{
+		return world;
+	}
+
+
+	/**
+	 * This method returns the amount of worms in this snapshot, dead worms included
+	 *
+	 * @return
+	 * 		The amount of worms of the world when the first snapshot was made
+	 */
+	public int getAmountOfWorms()
+	{
+		return worms.size();
+	}
+
+
+	/**
+	 * This method returns the worm a state in this snapshot belongs to
+	 *
+	 * @param index
+	 * 		The index of the worm
+	 *
+	 * @return
+	 * 		The worm of the world, its own state may differ from the one in this snapshot
+	 */
+	public Worm getWorm(int index)
+	{
+		return worms.get(index).worm;
+	}
+
+
+	/**
+	 * This method returns the index of a worm in this snapshot
+	 *
+	 * @param worm
+	 * 		The worm of the world
+	 *
+	 * @return
+	 * 		The index of the worm, or -1 if it was not in the world when the first snapshot was made
+	 */
+	public int indexOf(Worm worm)
+	{
+		for (int index = 0; index < worms.size(); index++)
+		{
+			if (worms.get(index).worm == worm)
+				return index;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * This method returns the posX of a worm in this snapshot
+	 */
+	public double getX(int index)
+	{
+		return worms.get(index).x;
+	}
+
+
+	/**
+	 * This method returns the posY of a worm in this snapshot
+	 */
+	public double getY(int index)
+	{
+		return worms.get(index).y;
+	}
+
+
+	/**
+	 * This method returns the radius of a worm in this snapshot
+	 */
+	public double getRadius(int index)
+	{
+		return worms.get(index).radius;
+	}
+
+
+	/**
+	 * This method returns the angle of a worm in this snapshot
+	 */
+	public double getAngle(int index)
+	{
+		return worms.get(index).angle;
+	}
+
+
+	/**
+	 * This method returns the HP of a worm in this snapshot
+	 */
+	public int getHP(int index)
+	{
+		return worms.get(index).hp;
+	}
+
+
+	/**
+	 * This method returns the AP of a worm in this snapshot
+	 */
+	public int getAP(int index)
+	{
+		return worms.get(index).ap;
+	}
+
+
+	/**
+	 * This method checks whether a worm is alive in this snapshot
+	 *
+	 * @return
+	 * 		| getHP(index) > 0
+	 */
+	public boolean isAlive(int index)
+	{
+		return getHP(index) > 0;
+	}
+
+
+	/**
+	 * This method moves a worm in this snapshot
+	 *
+	 * @param index
+	 * 		The index of the worm
+	 *
+	 * @param x
+	 * 		The new posX of the worm
+	 *
+	 * @param y
+	 * 		The new posY of the worm
+	 *
+	 * @post
+	 * 		| new.getX(index) == x && new.getY(index) == y
+	 */
+	public void setPosition(int index, double x, double y)
+	{
+		WormState state = worms.get(index);
+		worms = worms.set(index, new WormState(state.worm, x, y, state.radius, state.angle, state.hp, state.ap));
+	}
+
+
+	/**
+	 * This method sets the radius of a worm in this snapshot
+	 *
+	 * @post
+	 * 		| new.getRadius(index) == radius
+	 */
+	public void setRadius(int index, double radius)
+	{
+		WormState state = worms.get(index);
+		worms = worms.set(index, new WormState(state.worm, state.x, state.y, radius, state.angle, state.hp, state.ap));
+	}
+
+
+	/**
+	 * This method turns a worm in this snapshot
+	 *
+	 * @post
+	 * 		| new.getAngle(index) == angle
+	 */
+	public void setAngle(int index, double angle)
+	{
+		WormState state = worms.get(index);
+		worms = worms.set(index, new WormState(state.worm, state.x, state.y, state.radius, angle, state.hp, state.ap));
+	}
+
+
+	/**
+	 * This method sets the HP of a worm in this snapshot
+	 *
+	 * @post
+	 * 		| new.getHP(index) == hp
+	 */
+	public void setHP(int index, int hp)
+	{
+		WormState state = worms.get(index);
+		worms = worms.set(index, new WormState(state.worm, state.x, state.y, state.radius, state.angle, hp, state.ap));
+	}
+
+
+	/**
+	 * This method sets the AP of a worm in this snapshot
+	 *
+	 * @post
+	 * 		| new.getAP(index) == ap
+	 */
+	public void setAP(int index, int ap)
+	{
+		WormState state = worms.get(index);
+		worms = worms.set(index, new WormState(state.worm, state.x, state.y, state.radius, state.angle, state.hp, ap));
+	}
+
+
+	/**
+	 * This method lowers the HP of a worm in this snapshot, but never below 0
+	 *
+	 * @post
+	 * 		| new.getHP(index) == Math.max(0, getHP(index) - damage)
+	 */
+	public void damage(int index, int damage)
+	{
+		setHP(index, Math.max(0, getHP(index) - damage));
+	}
+
+
+	/**
+	 * This method applies the damage of a simulated shot to the worms it hits
+	 *
+	 * @param shot
+	 * 		The shot, simulated by a simulator made from this snapshot or from its world
+	 *
+	 * @post
+	 * 		Every hit worm that is in this snapshot loses the damage of the shot
+	 */
+	public void apply(ShotSimulator.Shot shot)
+	{
+		for (Worm worm : shot.getHits())
+		{
+			int index = indexOf(worm);
+			if (index >= 0)
+				damage(index, shot.getDamage());
+		}
+	}
+
+
+	/**
+	 * This method returns the amount of food in this snapshot, eaten food included
+	 */
+	public int getAmountOfFood()
+	{
+		return fodder.size();
+	}
+
+
+	/**
+	 * This method returns a food of this snapshot
+	 *
+	 * @return
+	 * 		The food, or null if it was eaten in this snapshot
+	 */
+	public Food getFood(int index)
+	{
+		return fodder.get(index);
+	}
+
+
+	/**
+	 * This method removes a food from this snapshot, eaten by a worm that grows with 10% as in Worm.consume
+	 *
+	 * @param index
+	 * 		The index of the food
+	 *
+	 * @param wormIndex
+	 * 		The index of the worm that eats it
+	 *
+	 * @post
+	 * 		A food that is not eaten yet is removed and the worm grows
+	 * 			| new.getFood(index) == null
+	 * 			| new.getRadius(wormIndex) == getRadius(wormIndex) * 1.1
+	 */
+	public void removeFood(int index, int wormIndex)
+	{
+		if (fodder.get(index) == null)
+			return;
+		fodder = fodder.set(index, null);
+		setRadius(wormIndex, getRadius(wormIndex) * 1.1);
+	}
+
+
+	/**
+	 * The state of a worm in a snapshot, it is never changed
+	 */
+	private static class WormState
+	{
+		final Worm worm;
+
+		final double x;
+
+		final double y;
+
+		final double radius;
+
+		final double angle;
+
+		final int hp;
+
+		final int ap;
+
+		WormState(Worm worm, double x, double y, double radius, double angle, int hp, int ap)
+		{
+			this.worm = worm;
+			this.x = x;
+			this.y = y;
+			this.radius = radius;
+			this.angle = angle;
+			this.hp = hp;
+			this.ap = ap;
+		}
+	}
+
+
+	/**
+	 * A persistent array: a tree of blocks of 32 elements that is never changed, setting an element copies
+	 * the blocks from the root to that element and shares all others
+	 */
+	private static class Store<T>
+	{
+		private static final int BITS = 5;
+
+		private static final int WIDTH = 1 << BITS;
+
+		private static final int MASK = WIDTH - 1;
+
+		private final int size;
+
+		/**
+		 * The amount of bits the index is shifted at the root, 0 if the root holds the elements
+		 */
+		private final int shift;
+
+		private final Object[] root;
+
+		private Store(int size, int shift, Object[] root)
+		{
+			this.size = size;
+			this.shift = shift;
+			this.root = root;
+		}
+
+		static <T> Store<T> of(List<T> elements)
+		{
+			List<Object[]> level = new ArrayList<Object[]>();
+			for (int start = 0; start < elements.size(); start += WIDTH)
+				level.add(elements.subList(start, Math.min(elements.size(), start + WIDTH)).toArray(new Object[WIDTH]));
+			int shift = 0;
+			while (level.size() > 1)
+			{
+				List<Object[]> parents = new ArrayList<Object[]>();
+				for (int start = 0; start < level.size(); start += WIDTH)
+					parents.add(level.subList(start, Math.min(level.size(), start + WIDTH)).toArray(new Object[WIDTH]));
+				level = parents;
+				shift += BITS;
+			}
+			return new Store<T>(elements.size(), shift, level.isEmpty() ? new Object[WIDTH] : level.get(0));
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		T get(int index)
+		{
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+			Object[] node = root;
+			for (int level = shift; level > 0; level -= BITS)
+				node = (Object[]) node[(index >>> level) & MASK];
+			return (T) node[index & MASK];
+		}
+
+		Store<T> set(int index, T element)
+		{
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+			return new Store<T>(size, shift, set(root, shift, index, element));
+		}
+
+		private static Object[] set(Object[] node, int level, int index, Object element)
+		{
+			Object[] copy = node.clone();
+			if (level == 0)
+				copy[index & MASK] = element;
+			else
+				copy[(index >>> level) & MASK] = set((Object[]) node[(index >>> level) & MASK], level - BITS, index, element);
+			return copy;
+		}
+	}
+}
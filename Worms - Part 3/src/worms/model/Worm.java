@@ -59,6 +59,9 @@ import java.util.List;
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
+import worms.model.programs.execution.ExecutionResult;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.execution.ProgramProfile;
 
 public class Worm 
 {                    
@@ -128,7 +131,13 @@ public class Worm
 	/**
 	 *   The earth acceleration (9.80665)
 	 */
-	public final double g = 9.80665;
+	public final double g = GRAVITY;
+
+
+	/**
+	 *   The gravitational acceleration every worm is subject to in m/s
+	 */
+	public static final double GRAVITY = 9.80665;
 
 
 	/**
@@ -161,6 +170,29 @@ public class Worm
 	private Program program;
 
 
+	/**
+	 * 	The frame in which this worm executes its program, it remembers where the program was suspended
+	 */
+	private Frame programFrame;
+
+	/**
+	 * The key that sets this worm apart from worms with the same state in the state hash of its world
+	 */
+	private final long hashKey;
+
+
+	/**
+	 * The hash of the state of this worm, kept up to date by every setter
+	 */
+	private long stateHash;
+
+
+	/**
+	 * Whether the hash of this worm is part of the state hash of its world
+	 */
+	private boolean inStateHash = false;
+
+
 	/**
 	 * Creates the worm with some initialization parameters.
 	 * 
@@ -220,6 +252,7 @@ public class Worm
 	 */ 
 	public Worm(World world, double x, double y, double radius, double angle, String name, Program program)
 	{
+		this.hashKey = world == null ? 0 : world.nextEntityKey();
 		this.setPosX(x);
 		this.setPosY(y);
 		this.setRadius(radius);
@@ -429,6 +462,7 @@ public class Worm
 		{
 			this.angle = this.getAngle() + newangle;
 			this.currentAP = this.getCurrentAP() - calculateApCostTurn(Math.abs(newangle - this.angle));    
+			this.stateChanged(EntityChange.ALTERED);
 		}
 		else
 			throw new IllegalArgumentException("Not enough AP");
@@ -494,6 +528,7 @@ public class Worm
 		if (angle < -Math.PI)
 			angle = -Math.PI;
 		this.angle = angle;
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
 
@@ -527,6 +562,9 @@ public class Worm
 		if (!isValidRadius(radius))
 			throw new IllegalArgumentException("Radius is not valid");
 		this.radius = radius;
+		this.stateChanged(EntityChange.ALTERED);
+		if (this.getWorld() != null)
+			this.getWorld().entitiesChanged();
 	}
 
 
@@ -537,7 +575,22 @@ public class Worm
 	@Basic @Raw
 	public double getMass() 
 	{
-		return density*(4/3)*Math.PI*Math.pow(getRadius(), 3);
+		return getMassOf(getRadius());
+	}
+
+
+
+	/**
+	 * This method returns the mass of a worm with a given radius
+	 * 
+	 * @param radius
+	 * 		The radius of the worm
+	 * 
+	 * @return density*(4/3)*Math.PI*Math.pow(radius, 3)
+	 */
+	public static double getMassOf(double radius)
+	{
+		return density*(4/3)*Math.PI*Math.pow(radius, 3);
 	}
 
 
@@ -571,6 +624,9 @@ public class Worm
 		if (!isValidPosition(x,this.getPosY()))
 			throw new IllegalArgumentException("Position is not valid");
 		this.posX = x;
+		this.stateChanged(EntityChange.MOVED);
+		if (this.getWorld() != null)
+			this.getWorld().entitiesChanged();
 	}
 
 
@@ -604,6 +660,9 @@ public class Worm
 		if (!isValidPosition(this.getPosX(),y))
 			throw new IllegalArgumentException("Position is not valid");
 		this.posY = y;
+		this.stateChanged(EntityChange.MOVED);
+		if (this.getWorld() != null)
+			this.getWorld().entitiesChanged();
 	}
 
 
@@ -636,6 +695,7 @@ public class Worm
 		if (!isValidAP(currentAP))
 			throw new IllegalArgumentException("Current AP is not valid");
 		this.currentAP = currentAP;
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
 
@@ -670,6 +730,7 @@ public class Worm
 		if (isValidName(name) == false)
 			throw new IllegalArgumentException("Your name has some invalid characters included");
 		this.name = name;
+		this.stateChanged(EntityChange.ALTERED);
 	}                      
 
 
@@ -836,6 +897,7 @@ public class Worm
 	public void setSelectedWeapon()
 	{
 		this.selectedWeapon = weapons.get(index);
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
 
@@ -914,6 +976,7 @@ public class Worm
 
 		if (HP > this.getMaxHP())
 			this.currentHP = this.getMaxHP();
+		this.stateChanged(EntityChange.DAMAGED);
 	}
 
 
@@ -987,8 +1050,48 @@ public class Worm
 			index = 0;
 		else
 			weapons.get(index ++);		
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
+
+	/**
+	 * This method adds the hash of this worm to the state hash of its world, or removes it
+	 * 
+	 * @param inStateHash
+	 * 		True when this worm is added to the worms of its world, false when it is removed
+	 */
+	void setInStateHash(boolean inStateHash)
+	{
+		if (inStateHash != this.inStateHash && this.getWorld() != null)
+			this.getWorld().toggleEntityHash(stateHash);
+		this.inStateHash = inStateHash;
+	}
+
+
+	/**
+	 * This method computes the hash of the state of this worm again, updates the state hash of its world and
+	 * tells the listeners of its world about the change
+	 *
+	 * @param change
+	 * 		The kind of change
+	 */
+	private void stateChanged(EntityChange change)
+	{
+		long hash = World.mix(hashKey, posX);
+		hash = World.mix(hash, posY);
+		hash = World.mix(hash, radius);
+		hash = World.mix(hash, angle);
+		hash = World.mix(hash, ((long) currentHP << 32) | (currentAP & 0xFFFFFFFFL));
+		hash = World.mix(hash, ((long) index << 32) | (selectedWeapon == null ? 0 : selectedWeapon.hashCode()));
+		if (inStateHash && this.getWorld() != null)
+		{
+			this.getWorld().toggleEntityHash(stateHash ^ hash);
+			this.getWorld().fireEntityChanged(this, change);
+		}
+		stateHash = hash;
+	}
+
+
 	/**
 	 * This method shoots a projectile with a certain propulsion yield
 	 * 
@@ -1025,14 +1128,14 @@ public class Worm
 
 		if (this.canShoot())
 		{
-			if (this.getSelectedWeapon() == "Bazooka")
+			if ("Bazooka".equals(this.getSelectedWeapon()))
 			{
 				Projectile projectile = new Projectile(this);
 				projectile.shootBazooka(propulsionYield, projectile);
 				this.setCurrentAP(this.getCurrentAP() - 50);
 			}
 
-			if (this.getSelectedWeapon() == "Rifle")
+			if ("Rifle".equals(this.getSelectedWeapon()))
 			{
 				Projectile projectile = new Projectile(this);
 				projectile.shootRifle(projectile);
@@ -1072,21 +1175,21 @@ public class Worm
 	 *		We then make a difference between the selected weapons
 	 *			- Bazooka:
 	 *				true when the selected weapon is a bazooka and the worm has more than 50 AP left, while in a passable location
-	 *					| this.getSelectedWeapon() == "Bazooka"
+	 *					| "Bazooka".equals(this.getSelectedWeapon())
 	 *					| this.getCurrentAP() >= 50
 	 *					| this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius())
 	 *
 	 *			- Rifle:
 	 *				true when the selected weapon is a rifle and the worm has more than 10 AP left, while in a passable location
-	 *					| this.getSelectedWeapon() == "Rifle"
+	 *					| "Rifle".equals(this.getSelectedWeapon())
 	 *					| this.getCurrentAP() >= 10
 	 *					| this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius())
 	 */
 	public boolean canShoot()
 	{
-		if (this.getSelectedWeapon() == "Bazooka" && this.getCurrentAP() >= 50 && this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius()))
+		if ("Bazooka".equals(this.getSelectedWeapon()) && this.getCurrentAP() >= 50 && this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius()))
 			return true;
-		else if (this.getSelectedWeapon() == "Rifle" && this.getCurrentAP() >= 10 && this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius()))
+		else if ("Rifle".equals(this.getSelectedWeapon()) && this.getCurrentAP() >= 10 && this.getWorld().isPassable(this.getPosX(), this.getPosY(), this.getRadius()))
 			return true;
 		else
 			return false;
@@ -1172,6 +1275,7 @@ public class Worm
 	{
 		if (team != null)
 			team.addWorm(this);
+		this.stateChanged(EntityChange.ALTERED);
 	}
 
 
@@ -1210,9 +1314,11 @@ public class Worm
 	public void fall() 
 	{
 		double begin = this.getPosY();
-		while (this.canFall())
+		if (this.isAlive())
 		{
-			this.setPosY(this.getPosY() - 0.01*this.getRadius());
+			double y = getFallPosYOf(this.getWorld(), this.getPosX(), this.getPosY(), this.getRadius());
+			if (y != begin)
+				this.setPosY(y);
 		}
 		double distanceFallen = begin - this.getPosY();
 		this.setHP((int) Math.floor(this.getHP() - 3*(distanceFallen)));
@@ -1220,6 +1326,36 @@ public class Worm
 	}
 
 
+	/**
+	 * Method to retrieve the posY a worm in the given position falls to, without changing any worm
+	 * 
+	 * @param world
+	 * 		The world the worm falls in
+	 * 
+	 * @param x
+	 * 		The posX of the worm
+	 * 
+	 * @param y
+	 * 		The posY the worm falls from
+	 * 
+	 * @param radius
+	 * 		The radius of the worm
+	 * 
+	 * @return
+	 * 		The posY after falling 1% of the radius at a time while the position is passable but not adjacent
+	 * 			| while (world.isPassable(x, result, radius) && !world.isAdjacent(x, result, radius))
+	 * 			| 	result = result - 0.01*radius
+	 */
+	public static double getFallPosYOf(World world, double x, double y, double radius)
+	{
+		while (world.isPassable(x, y, radius) && !world.isAdjacent(x, y, radius))
+		{
+			y -= 0.01*radius;
+		}
+		return y;
+	}
+
+
 	/**
 	 * Method to move the worm
 	 * 
@@ -1241,7 +1377,7 @@ public class Worm
 		if (this.getCurrentAP() > 0)
 		{
 			double[] distance = this.getMoveDistance();
-			this.setCurrentAP(this.getCurrentAP() - this.calculateAPCostMove(distance));
+			this.setCurrentAP(this.getCurrentAP() - calculateAPCostMove(distance));
 			this.setPosX(getPosX() + distance[0]);
 			this.setPosY(getPosY() + distance[1]);
 			lookForFood();
@@ -1262,11 +1398,40 @@ public class Worm
 	 * 		
 	 */
 	protected double[] getMoveDistance() 
+	{
+		return getMoveDistanceOf(getWorld(), getPosX(), getPosY(), getRadius(), getAngle());
+	}
+
+
+	/**
+	 * Method to retrieve the distance a worm in the given state moves, without changing any worm
+	 * 
+	 * It can be used to plan moves ahead, e.g. by a navigation graph.
+	 * 
+	 * @param world
+	 * 		The world the worm moves in
+	 * 
+	 * @param x
+	 * 		The posX the worm moves from
+	 * 
+	 * @param y
+	 * 		The posY the worm moves from
+	 * 
+	 * @param radius
+	 * 		The radius of the worm
+	 * 
+	 * @param angle
+	 * 		The angle the worm faces
+	 * 
+	 * @return
+	 * 		The same distance as getMoveDistance of a worm in that state
+	 */
+	public static double[] getMoveDistanceOf(World world, double x, double y, double radius, double angle) 
 	{
 		//Test different values for X, Y and D
-		double X = this.getPosX();
-		double Y = this.getPosY();
-		double D = Math.abs(getAngle() - Math.atan2(Y - getPosY(), X - getPosX()));
+		double X = x;
+		double Y = y;
+		double D = Math.abs(angle - Math.atan2(Y - y, X - x));
 
 		//initialize the best values for radius, X, Y, D and change them later in the method
 		double bestRadius = 0;
@@ -1275,25 +1440,25 @@ public class Worm
 		double bestD = D;
 
 		//initialize the interval of the radius that we want to test (= minimum of the resolution values in world)
-		double testRadiusInterval = Math.min(getWorld().getResolutionX(), getWorld().getResolutionY());
+		double testRadiusInterval = Math.min(world.getResolutionX(), world.getResolutionY());
 		double scaleD = 1;
 		double scaleRadius = 1;
 
 		//we search for the farthest adjacent location that we can reach
 		boolean adjacent = false;
-		for (double testRadius = this.getRadius(); testRadius >= 0.1; testRadius -= testRadiusInterval) 
+		for (double testRadius = radius; testRadius >= 0.1; testRadius -= testRadiusInterval) 
 		{ 
 			for (double testAngle =- 0.7875; testAngle <= 0.7875; testAngle += 0.0175) 
 			{
-				X = this.getPosX() + testRadius*Math.cos(this.getAngle()+testAngle);
-				Y = this.getPosY() + testRadius*Math.sin(this.getAngle()+testAngle);
-				D = Math.abs(this.getAngle() - Math.atan2(Y - this.getPosY(), X - this.getPosX()));
+				X = x + testRadius*Math.cos(angle+testAngle);
+				Y = y + testRadius*Math.sin(angle+testAngle);
+				D = Math.abs(angle - Math.atan2(Y - y, X - x));
 
 				//we see if this location is indeed the farthest we can reach and reset our values of bestRadius, bestX, bestY and bestD
 				if (scaleD * (D - bestD) + scaleRadius * (bestRadius - testRadius) < 0 ) 
 				{ 
 					//this can only happen when this location is also adjacent, else we will fall down again
-					if ( this.getWorld().isAdjacent(X,Y,getRadius()) ) 
+					if ( world.isAdjacent(X,Y,radius) ) 
 					{
 						adjacent = true;
 						bestRadius = testRadius;
@@ -1308,12 +1473,12 @@ public class Worm
 		if (!adjacent) 
 			//if we have not found any adjacent locations nearby, we use the values for bestX and bestY given in the beginning of this method
 		{
-			for (double testRadius = getRadius(); testRadius >= 0.1; testRadius -= testRadiusInterval) 
+			for (double testRadius = radius; testRadius >= 0.1; testRadius -= testRadiusInterval) 
 			{ 
-				X = this.getPosX() + testRadius * Math.cos(this.getAngle());
-				Y = this.getPosY() + testRadius * Math.sin(this.getAngle());
+				X = x + testRadius * Math.cos(angle);
+				Y = y + testRadius * Math.sin(angle);
 				//this can only when this location is also adjacent, else we will fall down again
-				if (this.getWorld().isPassable(X, Y, this.getRadius())) 
+				if (world.isPassable(X, Y, radius)) 
 				{
 					bestX = X;
 					bestY = Y;
@@ -1324,8 +1489,8 @@ public class Worm
 
 		//the output is a matrix of 2 coordinates that will be the farthest location available that is also adjacent
 		double[] output = new double[2];
-		output[0] = bestX - this.getPosX();
-		output[1] = bestY - this.getPosY();
+		output[0] = bestX - x;
+		output[1] = bestY - y;
 		return output;
 	}
 
@@ -1341,7 +1506,7 @@ public class Worm
 	 * 		The 1 AP per step on the X-axis, 4 AP per step on the Y-axis
 	 * 			| (int) Math.ceil( Math.abs(Math.cos(slope)) + Math.abs(4*Math.sin(slope)))
 	 */
-	protected int calculateAPCostMove(double[] distance) 
+	protected static int calculateAPCostMove(double[] distance) 
 	{
 		double slope = Math.atan2(distance[1], distance[0]);
 		return (int) Math.ceil( Math.abs(Math.cos(slope)) + Math.abs(4*Math.sin(slope)));
@@ -1354,12 +1519,12 @@ public class Worm
 	 * 
 	 * @return
 	 * 		true if the worm has enough AP left to do this move
-	 * 			| isValidAP(this.getCurrentAP() - this.calculateAPCostMove(this.getMoveDistance()))
+	 * 			| isValidAP(this.getCurrentAP() - calculateAPCostMove(this.getMoveDistance()))
 	 */
 	public boolean canMove() 
 	{
 		double[] distance = this.getMoveDistance();
-		return (isValidAP(this.getCurrentAP() - this.calculateAPCostMove(distance)) && this.isAlive());
+		return (isValidAP(this.getCurrentAP() - calculateAPCostMove(distance)) && this.isAlive());
 	}
 
 
@@ -1448,17 +1613,9 @@ public class Worm
 	 */
 	public double JumpTime(double delta)
 	{
-		double X = this.getPosX();
-		double Y = this.getPosY();
-		double[] jumpStepResult = new double[2];
-		double jumpTime = 0;
-		while (getWorld().isPassable(X, Y, this.getRadius()))
-		{
-			jumpStepResult = this.JumpStep(jumpTime);
-			X = jumpStepResult[0];
-			Y = jumpStepResult[1];
-			jumpTime += delta;
-		}
+		double jumpTime = getJumpTimeOf(getWorld(), getPosX(), getPosY(), getRadius(), getAngle(), getCurrentAP(), delta);
+		if (jumpTime > 0)
+			this.JumpStep(0);
 		return jumpTime;
 	}
 
@@ -1475,15 +1632,88 @@ public class Worm
 	{       
 		this.setForce(5*this.getCurrentAP() + this.getMass() * g);
 		this.setVelocity(this.getForce() * 0.5 / this.getMass());
-		double velocityX = this.getVelocity() * Math.cos(this.getAngle());
-		double velocityY = this.getVelocity() * Math.sin(this.getAngle());
-		double x = this.getPosX() + (velocityX * DeltaT);
-		double y = this.getPosY() + (velocityY * DeltaT - 0.5*g*Math.pow(DeltaT, 2));
+		return getJumpStepOf(getPosX(), getPosY(), getRadius(), getAngle(), getCurrentAP(), DeltaT);
+	}
 
-		double[] jumpstep = new double[] {x,y};
 
-		return jumpstep;
+	/**
+	 * This method calculates the in-air time of a worm in the given state, without changing any worm
+	 * 
+	 * It can be used by other threads while the game goes on, e.g. to draw where a worm would land.
+	 * 
+	 * @param world
+	 * 		The world the worm jumps in
+	 * 
+	 * @param x
+	 * 		The posX the worm jumps from
+	 * 
+	 * @param y
+	 * 		The posY the worm jumps from
+	 * 
+	 * @param radius
+	 * 		The radius of the worm
+	 * 
+	 * @param angle
+	 * 		The angle the worm faces
+	 * 
+	 * @param actionPoints
+	 * 		The action points the worm has left
+	 * 
+	 * @param delta
+	 * 		The steps in time to calculate the position
+	 * 
+	 * @return
+	 * 		The same time as JumpTime of a worm in that state
+	 * 			| getJumpStepOf(x, y, radius, angle, actionPoints, result - delta) is the first impassable step
+	 */
+	public static double getJumpTimeOf(World world, double x, double y, double radius, double angle, int actionPoints, double delta)
+	{
+		double X = x;
+		double Y = y;
+		double[] jumpStepResult = new double[2];
+		double jumpTime = 0;
+		while (world.isPassable(X, Y, radius))
+		{
+			jumpStepResult = getJumpStepOf(x, y, radius, angle, actionPoints, jumpTime);
+			X = jumpStepResult[0];
+			Y = jumpStepResult[1];
+			jumpTime += delta;
+		}
+		return jumpTime;
+	}
 
+
+	/**
+	 * This method calculates the position in air of a worm in the given state, without changing any worm
+	 * 
+	 * @param x
+	 * 		The posX the worm jumps from
+	 * 
+	 * @param y
+	 * 		The posY the worm jumps from
+	 * 
+	 * @param radius
+	 * 		The radius of the worm
+	 * 
+	 * @param angle
+	 * 		The angle the worm faces
+	 * 
+	 * @param actionPoints
+	 * 		The action points the worm has left
+	 * 
+	 * @param DeltaT
+	 * 		The time since the start of the jump
+	 * 
+	 * @return
+	 * 		The same position as JumpStep of a worm in that state
+	 */
+	public static double[] getJumpStepOf(double x, double y, double radius, double angle, int actionPoints, double DeltaT)
+	{
+		double mass = getMassOf(radius);
+		double velocity = (5*actionPoints + mass * GRAVITY) * 0.5 / mass;
+		double velocityX = velocity * Math.cos(angle);
+		double velocityY = velocity * Math.sin(angle);
+		return new double[] {x + (velocityX * DeltaT), y + (velocityY * DeltaT - 0.5*GRAVITY*Math.pow(DeltaT, 2))};
 	}
 
 	/*********************************************************************************************
@@ -1514,19 +1744,19 @@ public class Worm
 	 * 		The program we want this worm to have
 	 * 
 	 * @post
-	 * 		We set the program of this worm to the chosen one if the worm has a program
+	 * 		We set the program of this worm to the chosen one
 	 * 			| new.getProgram() == program
-	 * 		We set the program of this worm to null if the worm does not have a program
-	 * 			| new.getProgram() == null
+	 * 		The worm gets a fresh frame to execute the program in if the program is not null
+	 * 			| new.programFrame == program.createFrame(this)
 	 */
 	@Raw @Model
 	private void setProgram(Program program) 
 	{
-		if (this.hasProgram())
-			this.program = program;
-		else 
-			this.program = null;
-		
+		this.program = program;
+		if (program != null)
+			this.programFrame = program.createFrame(this);
+		else
+			this.programFrame = null;
 	}
 	
 	/**
@@ -1540,4 +1770,57 @@ public class Worm
 		return program;
 	}
 
+
+	/**
+	 * Executes the program of this worm for one turn, continuing where it stopped in the previous turn
+	 * 
+	 * @return
+	 * 		The reason why the program stopped executing this turn
+	 * 			| getProgram().execute(programFrame, Program.MAX_STATEMENTS_PER_TURN)
+	 * 		TERMINATED if this worm has no program
+	 */
+	public ExecutionResult executeProgram()
+	{
+		if (!this.hasProgram())
+			return ExecutionResult.TERMINATED;
+		return this.getProgram().execute(programFrame, Program.MAX_STATEMENTS_PER_TURN);
+	}
+
+
+	/**
+	 * Enables or disables profiling of the program of this worm, profiling costs nothing while it is disabled
+	 * 
+	 * @param enabled
+	 * 		Whether the statements of the program should be profiled
+	 * 
+	 * @post
+	 * 		If enabled and this worm has a program, a new empty profile records its execution
+	 * 			| if (enabled && hasProgram()) then new.getProfile() != null
+	 * 		Otherwise nothing is recorded anymore
+	 * 			| else new.getProfile() == null
+	 */
+	public void setProfiling(boolean enabled)
+	{
+		if (!this.hasProgram())
+			return;
+		if (enabled)
+			programFrame.setProfile(this.getProgram().createProfile());
+		else
+			programFrame.setProfile(null);
+	}
+
+
+	/**
+	 * Returns the profile of the program of this worm
+	 * 
+	 * @return
+	 * 		The profile of the program, null if this worm has no program or profiling is disabled
+	 */
+	public ProgramProfile getProfile()
+	{
+		if (!this.hasProgram())
+			return null;
+		return programFrame.getProfile();
+	}
+
 }
@@ -0,0 +1,278 @@
+package worms.model.programs;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A bounded cache of parse outcomes, keyed by the SHA-256 hash of the program text
+ *
+ * The least recently used outcome is removed when the cache is full. The cache can be shared by threads
+ * that parse programs at the same time: getOrParse parses a text only once, however many threads ask for it.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ProgramCache
+{
+
+	/**
+	 * The maximum amount of outcomes in this cache
+	 */
+	private final int capacity;
+
+
+	/**
+	 * The cached outcomes, from least to most recently used
+	 */
+	private final Map<String, ParseOutcome<?>> outcomes;
+
+
+	/**
+	 * The parses that are running, by the key of their text
+	 */
+	private final Map<String, FutureTask<ParseOutcome<?>>> parsing = new HashMap<String, FutureTask<ParseOutcome<?>>>();
+
+
+	/**
+	 * An interface for the parser that is used when a text is not in the cache
+	 */
+	public interface Parser
+	{
+
+		/**
+		 * This method parses the given text
+		 *
+		 * @param programText
+		 * 		The text of the program
+		 *
+		 * @return
+		 * 		The outcome of parsing the text
+		 */
+		ParseOutcome<?> parse(String programText);
+	}
+
+
+	/**
+	 * Creates an empty cache
+	 *
+	 * @param capacity
+	 * 		The maximum amount of outcomes in the cache
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the capacity is not positive
+	 * 			| capacity <= 0
+	 */
+	public ProgramCache(int capacity) throws IllegalArgumentException
+	{
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity of a program cache must be positive");
+		this.capacity = capacity;
+		this.outcomes = new LinkedHashMap<String, ParseOutcome<?>>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ParseOutcome<?>> eldest)
+			{
+				return size() > ProgramCache.this.capacity;
+			}
+		};
+	}
+
+
+	/**
+	 * This method returns the maximum amount of outcomes in this cache
+	 *
+	 * @return capacity
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+
+	/**
+	 * This method returns the amount of outcomes in this cache
+	 *
+	 * @return the amount of outcomes
+	 */
+	public synchronized int size()
+	{
+		return outcomes.size();
+	}
+
+
+	/**
+	 * This method returns the cached outcome of parsing the given text
+	 *
+	 * @param programText
+	 * 		The text of the program
+	 *
+	 * @return
+	 * 		The outcome, or null if the text was not parsed before or was removed from the cache
+	 */
+	public synchronized ParseOutcome<?> get(String programText)
+	{
+		return outcomes.get(getKey(programText));
+	}
+
+
+	/**
+	 * This method stores the outcome of parsing the given text
+	 *
+	 * @param programText
+	 * 		The text of the program
+	 *
+	 * @param outcome
+	 * 		The outcome of parsing the text
+	 *
+	 * @post
+	 * 		The outcome is cached
+	 * 			| new.get(programText) == outcome
+	 */
+	public synchronized void put(String programText, ParseOutcome<?> outcome)
+	{
+		outcomes.put(getKey(programText), outcome);
+	}
+
+
+	/**
+	 * This method returns the cached outcome of parsing the given text, and parses it with the given parser
+	 * if it is not cached
+	 *
+	 * A text that is being parsed by another thread is not parsed again: this method waits for that parse
+	 * and returns its outcome.
+	 *
+	 * @param programText
+	 * 		The text of the program
+	 *
+	 * @param parser
+	 * 		The parser that is used if the text is not cached
+	 *
+	 * @return
+	 * 		The outcome of parsing the text
+	 *
+	 * @post
+	 * 		The outcome is cached
+	 * 			| new.get(programText) == result
+	 *
+	 * @throws IllegalStateException
+	 * 		If the thread is interrupted while it waits for another thread to parse the text
+	 */
+	public ParseOutcome<?> getOrParse(final String programText, final Parser parser) throws IllegalStateException
+	{
+		String key = getKey(programText);
+		FutureTask<ParseOutcome<?>> task;
+		boolean parsingHere = false;
+		synchronized (this)
+		{
+			ParseOutcome<?> outcome = outcomes.get(key);
+			if (outcome != null)
+				return outcome;
+			task = parsing.get(key);
+			if (task == null)
+			{
+				task = new FutureTask<ParseOutcome<?>>(new Callable<ParseOutcome<?>>()
+				{
+					@Override
+					public ParseOutcome<?> call()
+					{
+						return parser.parse(programText);
+					}
+				});
+				parsing.put(key, task);
+				parsingHere = true;
+			}
+		}
+		if (parsingHere)
+		{
+			task.run();
+			synchronized (this)
+			{
+				parsing.remove(key);
+				if (task.isDone() && !task.isCancelled())
+				{
+					try
+					{
+						outcomes.put(key, task.get());
+					}
+					catch (Exception exc)
+					{
+						// the parser failed, the next call tries again
+					}
+				}
+			}
+		}
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException exc)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a program to be parsed", exc);
+		}
+		catch (ExecutionException exc)
+		{
+			if (exc.getCause() instanceof RuntimeException)
+				throw (RuntimeException) exc.getCause();
+			if (exc.getCause() instanceof Error)
+				throw (Error) exc.getCause();
+			throw new IllegalStateException(exc.getCause());
+		}
+	}
+
+
+	/**
+	 * This method removes every outcome from this cache
+	 *
+	 * @post
+	 * 		The cache is empty
+	 * 			| new.size() == 0
+	 */
+	public synchronized void clear()
+	{
+		outcomes.clear();
+	}
+
+
+	/**
+	 * This method returns the SHA-256 hash of the given text in hexadecimal notation
+	 *
+	 * @param programText
+	 * 		The text to hash
+	 *
+	 * @return
+	 * 		The hash of the UTF-8 encoding of the text
+	 */
+	public static String getKey(String programText)
+	{
+		try
+		{
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(programText.getBytes("UTF-8"));
+			StringBuilder key = new StringBuilder(2 * hash.length);
+			for (byte b : hash)
+			{
+				key.append(Character.forDigit((b >> 4) & 0xF, 16));
+				key.append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException exc)
+		{
+			throw new IllegalStateException(exc);
+		}
+		catch (UnsupportedEncodingException exc)
+		{
+			throw new IllegalStateException(exc);
+		}
+	}
+}
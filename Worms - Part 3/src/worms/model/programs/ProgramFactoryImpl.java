@@ -0,0 +1,327 @@
+package worms.model.programs;
+
+import java.util.List;
+
+import worms.model.programs.expressions.ArithmeticExpression;
+import worms.model.programs.expressions.BooleanLiteralExpression;
+import worms.model.programs.expressions.ComparisonExpression;
+import worms.model.programs.expressions.DoubleLiteralExpression;
+import worms.model.programs.expressions.EntityPropertyExpression;
+import worms.model.programs.expressions.EntityPropertyExpression.Property;
+import worms.model.programs.expressions.EntityTestExpression;
+import worms.model.programs.expressions.Expression;
+import worms.model.programs.expressions.LogicalExpression;
+import worms.model.programs.expressions.MathExpression;
+import worms.model.programs.expressions.NotExpression;
+import worms.model.programs.expressions.NullExpression;
+import worms.model.programs.expressions.SearchObjectExpression;
+import worms.model.programs.expressions.SelfExpression;
+import worms.model.programs.expressions.VariableExpression;
+import worms.model.programs.statements.ActionStatement;
+import worms.model.programs.statements.ActionStatement.Action;
+import worms.model.programs.statements.AssignmentStatement;
+import worms.model.programs.statements.ForeachStatement;
+import worms.model.programs.statements.IfStatement;
+import worms.model.programs.statements.PrintStatement;
+import worms.model.programs.statements.SequenceStatement;
+import worms.model.programs.statements.Statement;
+import worms.model.programs.statements.WhileStatement;
+
+/**
+ * The factory the parser uses to build the expressions, statements and types of a program
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ProgramFactoryImpl implements ProgramFactory<Expression, Statement, Type>
+{
+
+	@Override
+	public Expression createDoubleLiteral(int line, int column, double d)
+	{
+		return new DoubleLiteralExpression(line, column, d);
+	}
+
+	@Override
+	public Expression createBooleanLiteral(int line, int column, boolean b)
+	{
+		return new BooleanLiteralExpression(line, column, b);
+	}
+
+	@Override
+	public Expression createAnd(int line, int column, Expression e1, Expression e2)
+	{
+		return new LogicalExpression(line, column, LogicalExpression.Operator.AND, e1, e2);
+	}
+
+	@Override
+	public Expression createOr(int line, int column, Expression e1, Expression e2)
+	{
+		return new LogicalExpression(line, column, LogicalExpression.Operator.OR, e1, e2);
+	}
+
+	@Override
+	public Expression createNot(int line, int column, Expression e)
+	{
+		return new NotExpression(line, column, e);
+	}
+
+	@Override
+	public Expression createNull(int line, int column)
+	{
+		return new NullExpression(line, column);
+	}
+
+	@Override
+	public Expression createSelf(int line, int column)
+	{
+		return new SelfExpression(line, column);
+	}
+
+	@Override
+	public Expression createGetX(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.X, e);
+	}
+
+	@Override
+	public Expression createGetY(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.Y, e);
+	}
+
+	@Override
+	public Expression createGetRadius(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.RADIUS, e);
+	}
+
+	@Override
+	public Expression createGetDir(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.DIRECTION, e);
+	}
+
+	@Override
+	public Expression createGetAP(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.ACTION_POINTS, e);
+	}
+
+	@Override
+	public Expression createGetMaxAP(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.MAX_ACTION_POINTS, e);
+	}
+
+	@Override
+	public Expression createGetHP(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.HIT_POINTS, e);
+	}
+
+	@Override
+	public Expression createGetMaxHP(int line, int column, Expression e)
+	{
+		return new EntityPropertyExpression(line, column, Property.MAX_HIT_POINTS, e);
+	}
+
+	@Override
+	public Expression createSameTeam(int line, int column, Expression e)
+	{
+		return new EntityTestExpression(line, column, EntityTestExpression.Test.SAME_TEAM, e);
+	}
+
+	@Override
+	public Expression createSearchObj(int line, int column, Expression e)
+	{
+		return new SearchObjectExpression(line, column, e);
+	}
+
+	@Override
+	public Expression createIsWorm(int line, int column, Expression e)
+	{
+		return new EntityTestExpression(line, column, EntityTestExpression.Test.IS_WORM, e);
+	}
+
+	@Override
+	public Expression createIsFood(int line, int column, Expression e)
+	{
+		return new EntityTestExpression(line, column, EntityTestExpression.Test.IS_FOOD, e);
+	}
+
+	@Override
+	public Expression createVariableAccess(int line, int column, String name)
+	{
+		return new VariableExpression(line, column, name);
+	}
+
+	@Override
+	public Expression createLessThan(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.LESS_THAN, e1, e2);
+	}
+
+	@Override
+	public Expression createGreaterThan(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.GREATER_THAN, e1, e2);
+	}
+
+	@Override
+	public Expression createLessThanOrEqualTo(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.LESS_THAN_OR_EQUAL, e1, e2);
+	}
+
+	@Override
+	public Expression createGreaterThanOrEqualTo(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL, e1, e2);
+	}
+
+	@Override
+	public Expression createEquality(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.EQUAL, e1, e2);
+	}
+
+	@Override
+	public Expression createInequality(int line, int column, Expression e1, Expression e2)
+	{
+		return new ComparisonExpression(line, column, ComparisonExpression.Operator.NOT_EQUAL, e1, e2);
+	}
+
+	@Override
+	public Expression createAdd(int line, int column, Expression e1, Expression e2)
+	{
+		return new ArithmeticExpression(line, column, ArithmeticExpression.Operator.ADD, e1, e2);
+	}
+
+	@Override
+	public Expression createSubtraction(int line, int column, Expression e1, Expression e2)
+	{
+		return new ArithmeticExpression(line, column, ArithmeticExpression.Operator.SUBTRACT, e1, e2);
+	}
+
+	@Override
+	public Expression createMul(int line, int column, Expression e1, Expression e2)
+	{
+		return new ArithmeticExpression(line, column, ArithmeticExpression.Operator.MULTIPLY, e1, e2);
+	}
+
+	@Override
+	public Expression createDivision(int line, int column, Expression e1, Expression e2)
+	{
+		return new ArithmeticExpression(line, column, ArithmeticExpression.Operator.DIVIDE, e1, e2);
+	}
+
+	@Override
+	public Expression createSqrt(int line, int column, Expression e)
+	{
+		return new MathExpression(line, column, MathExpression.Function.SQRT, e);
+	}
+
+	@Override
+	public Expression createSin(int line, int column, Expression e)
+	{
+		return new MathExpression(line, column, MathExpression.Function.SIN, e);
+	}
+
+	@Override
+	public Expression createCos(int line, int column, Expression e)
+	{
+		return new MathExpression(line, column, MathExpression.Function.COS, e);
+	}
+
+	@Override
+	public Statement createTurn(int line, int column, Expression angle)
+	{
+		return new ActionStatement(line, column, Action.TURN, angle);
+	}
+
+	@Override
+	public Statement createMove(int line, int column)
+	{
+		return new ActionStatement(line, column, Action.MOVE, null);
+	}
+
+	@Override
+	public Statement createJump(int line, int column)
+	{
+		return new ActionStatement(line, column, Action.JUMP, null);
+	}
+
+	@Override
+	public Statement createToggleWeap(int line, int column)
+	{
+		return new ActionStatement(line, column, Action.TOGGLE_WEAPON, null);
+	}
+
+	@Override
+	public Statement createFire(int line, int column, Expression yield)
+	{
+		return new ActionStatement(line, column, Action.FIRE, yield);
+	}
+
+	@Override
+	public Statement createSkip(int line, int column)
+	{
+		return new ActionStatement(line, column, Action.SKIP, null);
+	}
+
+	@Override
+	public Statement createAssignment(int line, int column, String variableName, Expression rhs)
+	{
+		return new AssignmentStatement(line, column, variableName, rhs);
+	}
+
+	@Override
+	public Statement createIf(int line, int column, Expression condition, Statement then, Statement otherwise)
+	{
+		return new IfStatement(line, column, condition, then, otherwise);
+	}
+
+	@Override
+	public Statement createWhile(int line, int column, Expression condition, Statement body)
+	{
+		return new WhileStatement(line, column, condition, body);
+	}
+
+	@Override
+	public Statement createForeach(int line, int column, ForeachType type, String variableName, Statement body)
+	{
+		return new ForeachStatement(line, column, type, variableName, body);
+	}
+
+	@Override
+	public Statement createSequence(int line, int column, List<Statement> statements)
+	{
+		return new SequenceStatement(line, column, statements);
+	}
+
+	@Override
+	public Statement createPrint(int line, int column, Expression e)
+	{
+		return new PrintStatement(line, column, e);
+	}
+
+	@Override
+	public Type createDoubleType()
+	{
+		return Type.DOUBLE;
+	}
+
+	@Override
+	public Type createBooleanType()
+	{
+		return Type.BOOLEAN;
+	}
+
+	@Override
+	public Type createEntityType()
+	{
+		return Type.ENTITY;
+	}
+}
@@ -6,15 +6,21 @@ import java.util.List;
 import java.util.Map;
 
 import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import worms.model.programs.parser.WormsParserLexer;
@@ -81,6 +87,48 @@ public class ProgramParser<E, S, T> {
 		CommonTokenStream tokens = new CommonTokenStream(lexer);
 		WormsParserParser parser = new WormsParserParser(tokens);
 		parser.setBuildParseTree(true);
+
+		// First try the faster SLL prediction, which bails out at the first
+		// error. Only inputs that SLL cannot handle, and inputs with syntax
+		// errors, are parsed again in full LL mode to get accurate errors.
+		// The DFA cache of WormsParserParser is static, so all parsers and
+		// threads share it.
+		ParserRuleContext tree;
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		parser.removeErrorListeners();
+		parser.setErrorHandler(createSLLErrorStrategy());
+		try {
+			tree = parser.eval();
+		} catch (ParseCancellationException e) {
+			tree = parseLL(parser, tokens);
+		}
+		if (!errors.isEmpty())
+			return;
+		WormsParserMyListener<E, S, T> listener = new WormsParserMyListener<E, S, T>(
+				factory);
+
+		ParseTreeWalker.DEFAULT.walk(listener, tree);
+		errors = listener.getErrors();
+		globals = listener.getGlobals();
+		statement = listener.getStatement();
+	}
+
+	/**
+	 * The error strategy of the SLL stage. It must throw a
+	 * ParseCancellationException instead of recovering, so that the input is
+	 * parsed again in LL mode.
+	 */
+	protected ANTLRErrorStrategy createSLLErrorStrategy() {
+		return new BailErrorStrategy();
+	}
+
+	private ParserRuleContext parseLL(WormsParserParser parser,
+			CommonTokenStream tokens) {
+		tokens.reset();
+		parser.reset();
+		parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+		parser.setErrorHandler(new DefaultErrorStrategy());
+		parser.addErrorListener(ConsoleErrorListener.INSTANCE);
 		parser.addErrorListener(new ANTLRErrorListener() {
 
 			@Override
@@ -110,16 +158,7 @@ public class ProgramParser<E, S, T> {
 
 			}
 		});
-		ParserRuleContext tree = parser.eval();
-		if (!errors.isEmpty())
-			return;
-		WormsParserMyListener<E, S, T> listener = new WormsParserMyListener<E, S, T>(
-				factory);
-
-		ParseTreeWalker.DEFAULT.walk(listener, tree);
-		errors = listener.getErrors();
-		globals = listener.getGlobals();
-		statement = listener.getStatement();
+		return parser.eval();
 	}
 
 	public List<String> getErrors() {
@@ -0,0 +1,15 @@
+package worms.model.programs;
+
+/**
+ * An enumeration of the types of expressions and of the global variables of a program
+ *
+ * A variable starts as 0.0, false or null, depending on its type.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public enum Type
+{
+	DOUBLE, BOOLEAN, ENTITY
+}
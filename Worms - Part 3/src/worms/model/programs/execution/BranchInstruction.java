@@ -0,0 +1,67 @@
+package worms.model.programs.execution;
+
+import worms.model.programs.expressions.Expression;
+
+/**
+ * An instruction that evaluates a condition and continues at another instruction when it is false
+ *
+ * Both if and while statements are compiled to a branch
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class BranchInstruction extends Instruction
+{
+
+	/**
+	 * The condition of the branch
+	 */
+	private final Expression condition;
+
+
+	/**
+	 * The index of the instruction to continue at when the condition is false
+	 */
+	private int falseTarget;
+
+
+	/**
+	 * Creates a branch, the target can be set once it is known
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param condition
+	 * 		The condition of the branch
+	 */
+	public BranchInstruction(int line, int column, Expression condition)
+	{
+		super(line, column);
+		this.condition = condition;
+	}
+
+
+	/**
+	 * This method sets the index of the instruction to continue at when the condition is false
+	 *
+	 * @param falseTarget
+	 * 		The index of the instruction
+	 */
+	public void setFalseTarget(int falseTarget)
+	{
+		this.falseTarget = falseTarget;
+	}
+
+
+	@Override
+	public int execute(Frame frame, int programCounter)
+	{
+		if (condition.evalBoolean(frame))
+			return programCounter + 1;
+		return falseTarget;
+	}
+}
@@ -0,0 +1,233 @@
+package worms.model.programs.execution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import worms.model.programs.Type;
+import worms.model.programs.statements.Statement;
+
+/**
+ * A class to compile the statements of a program into a flat list of instructions
+ *
+ * Every global variable gets a slot in the frame, foreach loops can claim extra hidden slots to keep their position
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class CodeBuilder
+{
+
+	/**
+	 * The instructions emitted so far
+	 */
+	private final List<Instruction> instructions = new ArrayList<Instruction>();
+
+
+	/**
+	 * The path of statements every emitted instruction was compiled from, separated by semicolons
+	 */
+	private final List<String> paths = new ArrayList<String>();
+
+
+	/**
+	 * The statements that are being compiled, from the outermost to the innermost one
+	 */
+	private final LinkedList<String> enclosing = new LinkedList<String>();
+
+
+	/**
+	 * The slot of every global variable
+	 */
+	private final Map<String, Integer> slots = new HashMap<String, Integer>();
+
+
+	/**
+	 * The declared type of every global variable
+	 */
+	private final Map<String, Type> types;
+
+
+	/**
+	 * The amount of slots a frame needs
+	 */
+	private int amountOfSlots = 0;
+
+
+	/**
+	 * Creates a builder for a program with the given global variables
+	 *
+	 * @param globals
+	 * 		The declared global variables and their types
+	 *
+	 * @post
+	 * 		Every global variable gets its own slot
+	 * 			| new.getAmountOfSlots() == globals.size()
+	 */
+	public CodeBuilder(Map<String, Type> globals)
+	{
+		this.types = new HashMap<String, Type>(globals);
+		for (String name : globals.keySet())
+			slots.put(name, amountOfSlots++);
+	}
+
+
+	/**
+	 * This method adds an instruction at the end of the code
+	 *
+	 * @param instruction
+	 * 		The instruction we want to add
+	 *
+	 * @return
+	 * 		The index of the added instruction
+	 */
+	public int emit(Instruction instruction)
+	{
+		instructions.add(instruction);
+		paths.add(getPath());
+		return instructions.size() - 1;
+	}
+
+
+	/**
+	 * This method marks the start of the instructions of a statement, until the matching call of leave
+	 *
+	 * @param statement
+	 * 		The statement that is being compiled
+	 */
+	public void enter(Statement statement)
+	{
+		enclosing.addLast(statement.getName() + "@" + statement.getLine() + ":" + statement.getColumn());
+	}
+
+
+	/**
+	 * This method marks the end of the instructions of the statement that was entered last
+	 */
+	public void leave()
+	{
+		enclosing.removeLast();
+	}
+
+
+	/**
+	 * This method returns the path of the statements that are being compiled
+	 *
+	 * @return
+	 * 		The names and positions of the enclosing statements, separated by semicolons
+	 */
+	private String getPath()
+	{
+		StringBuilder path = new StringBuilder();
+		for (String statement : enclosing)
+		{
+			if (path.length() > 0)
+				path.append(';');
+			path.append(statement);
+		}
+		return path.toString();
+	}
+
+
+	/**
+	 * This method returns the index the next emitted instruction will get
+	 *
+	 * @return instructions.size()
+	 */
+	public int getNextIndex()
+	{
+		return instructions.size();
+	}
+
+
+	/**
+	 * This method returns the slot of a global variable
+	 *
+	 * @param name
+	 * 		The name of the variable
+	 *
+	 * @return slots.get(name)
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the variable was never declared
+	 * 			| !slots.containsKey(name)
+	 */
+	public int getSlot(String name) throws IllegalArgumentException
+	{
+		Integer slot = slots.get(name);
+		if (slot == null)
+			throw new IllegalArgumentException("Undeclared variable: " + name);
+		return slot;
+	}
+
+
+	/**
+	 * This method returns the declared type of a global variable
+	 *
+	 * @param name
+	 * 		The name of the variable
+	 *
+	 * @return types.get(name)
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the variable was never declared
+	 * 			| !types.containsKey(name)
+	 */
+	public Type getType(String name) throws IllegalArgumentException
+	{
+		Type type = types.get(name);
+		if (type == null)
+			throw new IllegalArgumentException("Undeclared variable: " + name);
+		return type;
+	}
+
+
+	/**
+	 * This method claims a hidden slot that no variable can access
+	 *
+	 * @return
+	 * 		The index of the new slot
+	 */
+	public int allocateSlot()
+	{
+		return amountOfSlots++;
+	}
+
+
+	/**
+	 * This method returns the amount of slots a frame of this program needs
+	 *
+	 * @return amountOfSlots
+	 */
+	public int getAmountOfSlots()
+	{
+		return amountOfSlots;
+	}
+
+
+	/**
+	 * This method returns the compiled code
+	 *
+	 * @return
+	 * 		All emitted instructions in order
+	 */
+	public Instruction[] getCode()
+	{
+		return instructions.toArray(new Instruction[instructions.size()]);
+	}
+
+
+	/**
+	 * This method returns the path of statements every instruction was compiled from
+	 *
+	 * @return
+	 * 		The path of each emitted instruction in order
+	 */
+	public String[] getPaths()
+	{
+		return paths.toArray(new String[paths.size()]);
+	}
+}
@@ -0,0 +1,26 @@
+package worms.model.programs.execution;
+
+/**
+ * An enumeration of the reasons why a program stops executing during a turn
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public enum ExecutionResult
+{
+	/**
+	 * An action could not be performed, the program retries it next turn
+	 */
+	ACTION_FAILED,
+
+	/**
+	 * The program executed its maximum amount of statements for this turn
+	 */
+	BUDGET_EXHAUSTED,
+
+	/**
+	 * The program has finished, or was stopped because of an error
+	 */
+	TERMINATED
+}
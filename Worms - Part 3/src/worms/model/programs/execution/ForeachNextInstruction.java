@@ -0,0 +1,111 @@
+package worms.model.programs.execution;
+
+import worms.model.Food;
+import worms.model.Worm;
+
+/**
+ * An instruction that assigns the next entity of a foreach loop to its variable, or leaves the loop
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ForeachNextInstruction extends Instruction
+{
+
+	/**
+	 * The slot of the loop variable
+	 */
+	private final int variableSlot;
+
+
+	/**
+	 * The hidden slot that keeps the position of the loop
+	 */
+	private final int positionSlot;
+
+
+	/**
+	 * The index of the first instruction after the loop
+	 */
+	private int exitTarget;
+
+
+	/**
+	 * Creates the step of a foreach loop, the exit can be set once it is known
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param variableSlot
+	 * 		The slot of the loop variable
+	 *
+	 * @param positionSlot
+	 * 		The hidden slot that keeps the position of the loop
+	 */
+	public ForeachNextInstruction(int line, int column, int variableSlot, int positionSlot)
+	{
+		super(line, column);
+		this.variableSlot = variableSlot;
+		this.positionSlot = positionSlot;
+	}
+
+
+	/**
+	 * This method sets the index of the first instruction after the loop
+	 *
+	 * @param exitTarget
+	 * 		The index of the instruction
+	 */
+	public void setExitTarget(int exitTarget)
+	{
+		this.exitTarget = exitTarget;
+	}
+
+
+	@Override
+	public boolean isStatement()
+	{
+		return false;
+	}
+
+
+	/**
+	 * Entities that left the world since the loop started are skipped
+	 */
+	@Override
+	public int execute(Frame frame, int programCounter)
+	{
+		ForeachPosition position = (ForeachPosition) frame.getSlot(positionSlot);
+		while (position.index < position.entities.length)
+		{
+			Object entity = position.entities[position.index++];
+			if (isInWorld(entity))
+			{
+				frame.setSlot(variableSlot, entity);
+				return programCounter + 1;
+			}
+		}
+		return exitTarget;
+	}
+
+
+	/**
+	 * This method checks whether an entity is still part of a world
+	 *
+	 * @param entity
+	 * 		The worm or food we want to check
+	 *
+	 * @return
+	 * 		True if the entity still has a world
+	 */
+	private static boolean isInWorld(Object entity)
+	{
+		if (entity instanceof Worm)
+			return ((Worm) entity).getWorld() != null;
+		return ((Food) entity).getWorld() != null;
+	}
+}
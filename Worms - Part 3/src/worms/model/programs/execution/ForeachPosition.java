@@ -0,0 +1,48 @@
+package worms.model.programs.execution;
+
+/**
+ * The position of a running foreach loop, kept in a hidden slot of the frame
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+class ForeachPosition
+{
+
+	/**
+	 * The entities the loop iterates over, taken when the loop started
+	 */
+	Object[] entities;
+
+
+	/**
+	 * The index of the next entity
+	 */
+	int index = 0;
+
+
+	/**
+	 * Creates the position at the start of a loop over the given entities
+	 *
+	 * @param entities
+	 * 		The entities to iterate over
+	 */
+	ForeachPosition(Object[] entities)
+	{
+		this.entities = entities;
+	}
+
+
+	/**
+	 * This method moves the position to the start of a loop over the given entities
+	 *
+	 * @param entities
+	 * 		The entities to iterate over
+	 */
+	void reset(Object[] entities)
+	{
+		this.entities = entities;
+		this.index = 0;
+	}
+}
@@ -0,0 +1,73 @@
+package worms.model.programs.execution;
+
+import worms.model.EntityIndex;
+import worms.model.programs.ProgramFactory.ForeachType;
+
+/**
+ * An instruction that collects the entities a foreach loop iterates over
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ForeachStartInstruction extends Instruction
+{
+
+	/**
+	 * The kind of entities to iterate over
+	 */
+	private final ForeachType type;
+
+
+	/**
+	 * The hidden slot that keeps the position of the loop
+	 */
+	private final int positionSlot;
+
+
+	/**
+	 * Creates the start of a foreach loop
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param type
+	 * 		The kind of entities to iterate over
+	 *
+	 * @param positionSlot
+	 * 		The hidden slot that keeps the position of the loop
+	 */
+	public ForeachStartInstruction(int line, int column, ForeachType type, int positionSlot)
+	{
+		super(line, column);
+		this.type = type;
+		this.positionSlot = positionSlot;
+	}
+
+
+	/**
+	 * The loop iterates over the immutable snapshot of the world, so changes to the world during the loop do not
+	 * disturb the iteration and nothing is copied. The position of a previous run of the loop is reused.
+	 */
+	@Override
+	public int execute(Frame frame, int programCounter)
+	{
+		EntityIndex index = frame.getWorld().getEntityIndex();
+		Object[] entities;
+		if (type == ForeachType.WORM)
+			entities = index.getWorms();
+		else if (type == ForeachType.FOOD)
+			entities = index.getFodder();
+		else
+			entities = index.getEntities();
+		ForeachPosition position = (ForeachPosition) frame.getSlot(positionSlot);
+		if (position == null)
+			frame.setSlot(positionSlot, new ForeachPosition(entities));
+		else
+			position.reset(entities);
+		return programCounter + 1;
+	}
+}
@@ -0,0 +1,366 @@
+package worms.model.programs.execution;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Raw;
+import worms.gui.game.IActionHandler;
+import worms.model.World;
+import worms.model.Worm;
+
+/**
+ * A class of frames holding everything a program needs to resume its execution for one worm:
+ * the program counter and the values of all variables
+ *
+ * A frame is never shared between worms, so a program can be executed for many worms at the same time
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class Frame
+{
+
+	/**
+	 * The worm that is executing the program
+	 */
+	private final Worm worm;
+
+
+	/**
+	 * The handler through which the actions of the program are performed
+	 */
+	private final IActionHandler handler;
+
+
+	/**
+	 * The values of the global variables of type double
+	 */
+	private final double[] doubles;
+
+
+	/**
+	 * The values of the global variables of type boolean
+	 */
+	private final boolean[] booleans;
+
+
+	/**
+	 * The values of the global variables of type entity, followed by the hidden slots of the foreach loops
+	 */
+	private final Object[] slots;
+
+
+	/**
+	 * The index of the next instruction to execute
+	 */
+	private int programCounter = 0;
+
+
+	/**
+	 * Whether the program has finished for this worm
+	 */
+	private boolean terminated = false;
+
+
+	/**
+	 * The profile the execution is recorded in, null if profiling is disabled
+	 */
+	private ProgramProfile profile;
+
+
+	/**
+	 * The nanoseconds spent waiting for the action handler since the program last took them
+	 */
+	private long actionWait = 0;
+
+
+	/**
+	 * The amount of messages the worm may still print through a print sink, it starts at the full burst
+	 */
+	double printAllowance = Double.POSITIVE_INFINITY;
+
+
+	/**
+	 * The time (System.nanoTime) of the previous message printed through a print sink
+	 */
+	long lastPrint = 0;
+
+
+	/**
+	 * Creates a new frame at the start of a program
+	 *
+	 * @param worm
+	 * 		The worm that executes the program
+	 *
+	 * @param handler
+	 * 		The handler to perform the actions with
+	 *
+	 * @param amountOfSlots
+	 * 		The amount of slots the program needs, every variable starts as 0.0, false or null
+	 *
+	 * @post
+	 * 		The program counter points to the first instruction
+	 * 			| new.getProgramCounter() == 0
+	 */
+	public Frame(Worm worm, IActionHandler handler, int amountOfSlots)
+	{
+		this.worm = worm;
+		this.handler = handler;
+		this.doubles = new double[amountOfSlots];
+		this.booleans = new boolean[amountOfSlots];
+		this.slots = new Object[amountOfSlots];
+	}
+
+
+	/**
+	 * This method returns the worm executing the program
+	 *
+	 * @return worm
+	 */
+	@Basic @Raw
+	public Worm getWorm()
+	{
+		return worm;
+	}
+
+
+	/**
+	 * This method returns the world of the worm executing the program
+	 *
+	 * @return getWorm().getWorld()
+	 */
+	public World getWorld()
+	{
+		return worm.getWorld();
+	}
+
+
+	/**
+	 * This method returns the handler through which the actions are performed
+	 *
+	 * @return handler
+	 */
+	@Basic @Raw
+	public IActionHandler getHandler()
+	{
+		return handler;
+	}
+
+
+	/**
+	 * This method prints a message through the print sink of the world, or through the handler if the world has none
+	 *
+	 * @param message
+	 * 		The message to print
+	 */
+	public void print(String message)
+	{
+		World world = getWorld();
+		PrintSink sink = (world != null) ? world.getPrintSink() : null;
+		if (sink != null)
+			sink.print(this, message);
+		else if (handler != null)
+			handler.print(message);
+	}
+
+
+	/**
+	 * This method returns the value stored in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @return slots[slot]
+	 */
+	public Object getSlot(int slot)
+	{
+		return slots[slot];
+	}
+
+
+	/**
+	 * This method stores a value in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @param value
+	 * 		The value we want to store
+	 *
+	 * @post
+	 * 		| new.getSlot(slot) == value
+	 */
+	public void setSlot(int slot, Object value)
+	{
+		slots[slot] = value;
+	}
+
+
+	/**
+	 * This method returns the value of the double variable in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @return doubles[slot]
+	 */
+	public double getDouble(int slot)
+	{
+		return doubles[slot];
+	}
+
+
+	/**
+	 * This method stores the value of a double variable in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @param value
+	 * 		The value we want to store
+	 *
+	 * @post
+	 * 		| new.getDouble(slot) == value
+	 */
+	public void setDouble(int slot, double value)
+	{
+		doubles[slot] = value;
+	}
+
+
+	/**
+	 * This method returns the value of the boolean variable in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @return booleans[slot]
+	 */
+	public boolean getBoolean(int slot)
+	{
+		return booleans[slot];
+	}
+
+
+	/**
+	 * This method stores the value of a boolean variable in the given slot
+	 *
+	 * @param slot
+	 * 		The index of the slot
+	 *
+	 * @param value
+	 * 		The value we want to store
+	 *
+	 * @post
+	 * 		| new.getBoolean(slot) == value
+	 */
+	public void setBoolean(int slot, boolean value)
+	{
+		booleans[slot] = value;
+	}
+
+
+	/**
+	 * This method returns the index of the next instruction to execute
+	 *
+	 * @return programCounter
+	 */
+	@Basic @Raw
+	public int getProgramCounter()
+	{
+		return programCounter;
+	}
+
+
+	/**
+	 * This method sets the index of the next instruction to execute
+	 *
+	 * @param programCounter
+	 * 		The index we want to resume at
+	 *
+	 * @post
+	 * 		| new.getProgramCounter() == programCounter
+	 */
+	public void setProgramCounter(int programCounter)
+	{
+		this.programCounter = programCounter;
+	}
+
+
+	/**
+	 * This method checks whether the program has finished for this worm
+	 *
+	 * @return terminated
+	 */
+	@Basic @Raw
+	public boolean isTerminated()
+	{
+		return terminated;
+	}
+
+
+	/**
+	 * This method returns the profile the execution is recorded in
+	 *
+	 * @return profile
+	 */
+	@Basic @Raw
+	public ProgramProfile getProfile()
+	{
+		return profile;
+	}
+
+
+	/**
+	 * This method sets the profile the execution is recorded in
+	 *
+	 * @param profile
+	 * 		The profile, or null to disable profiling
+	 *
+	 * @post
+	 * 		| new.getProfile() == profile
+	 */
+	public void setProfile(ProgramProfile profile)
+	{
+		this.profile = profile;
+	}
+
+
+	/**
+	 * This method adds time spent waiting for the action handler
+	 *
+	 * @param nanos
+	 * 		The nanoseconds the handler blocked
+	 */
+	public void addActionWait(long nanos)
+	{
+		this.actionWait += nanos;
+	}
+
+
+	/**
+	 * This method returns the time spent waiting for the action handler and resets it
+	 *
+	 * @return
+	 * 		The nanoseconds added since the previous call
+	 * 			| result == actionWait
+	 * 			| new.takeActionWait() == 0
+	 */
+	public long takeActionWait()
+	{
+		long waited = actionWait;
+		actionWait = 0;
+		return waited;
+	}
+
+
+	/**
+	 * This method stops the program for this worm, it will never be resumed again
+	 *
+	 * @post
+	 * 		| new.isTerminated() == true
+	 */
+	public void terminate()
+	{
+		this.terminated = true;
+	}
+}
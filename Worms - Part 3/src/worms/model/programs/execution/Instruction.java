@@ -0,0 +1,102 @@
+package worms.model.programs.execution;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class of instructions, the flat form a program is compiled to
+ *
+ * Control flow is expressed with the index of the next instruction, so the whole state of a running program
+ * is the program counter and the slots of its frame
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class Instruction
+{
+
+	/**
+	 * The value returned by execute when the program has to be suspended at this instruction
+	 */
+	public static final int SUSPEND = -1;
+
+
+	/**
+	 * The line of the statement this instruction was compiled from
+	 */
+	private final int line;
+
+
+	/**
+	 * The column of the statement this instruction was compiled from
+	 */
+	private final int column;
+
+
+	/**
+	 * Creates an instruction for the statement at the given position
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 */
+	protected Instruction(int line, int column)
+	{
+		this.line = line;
+		this.column = column;
+	}
+
+
+	/**
+	 * This method returns the line of the statement this instruction was compiled from
+	 *
+	 * @return line
+	 */
+	@Basic @Raw
+	public int getLine()
+	{
+		return line;
+	}
+
+
+	/**
+	 * This method returns the column of the statement this instruction was compiled from
+	 *
+	 * @return column
+	 */
+	@Basic @Raw
+	public int getColumn()
+	{
+		return column;
+	}
+
+
+	/**
+	 * This method checks whether executing this instruction counts as executing a statement
+	 *
+	 * @return
+	 * 		True for every instruction except the jumps that close loops and branches
+	 */
+	public boolean isStatement()
+	{
+		return true;
+	}
+
+
+	/**
+	 * This method executes this instruction
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @param programCounter
+	 * 		The index of this instruction
+	 *
+	 * @return
+	 * 		The index of the next instruction, or SUSPEND if the program has to wait for the next turn
+	 */
+	public abstract int execute(Frame frame, int programCounter);
+}
@@ -0,0 +1,62 @@
+package worms.model.programs.execution;
+
+/**
+ * An instruction that continues the program at another instruction
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class JumpInstruction extends Instruction
+{
+
+	/**
+	 * The index of the instruction to continue at
+	 */
+	private int target;
+
+
+	/**
+	 * Creates a jump, the target can still be set once it is known
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param target
+	 * 		The index of the instruction to continue at
+	 */
+	public JumpInstruction(int line, int column, int target)
+	{
+		super(line, column);
+		this.target = target;
+	}
+
+
+	/**
+	 * This method sets the index of the instruction to continue at
+	 *
+	 * @param target
+	 * 		The index of the instruction
+	 */
+	public void setTarget(int target)
+	{
+		this.target = target;
+	}
+
+
+	@Override
+	public boolean isStatement()
+	{
+		return false;
+	}
+
+
+	@Override
+	public int execute(Frame frame, int programCounter)
+	{
+		return target;
+	}
+}
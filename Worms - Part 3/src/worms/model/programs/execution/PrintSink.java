@@ -0,0 +1,358 @@
+package worms.model.programs.execution;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import worms.util.DaemonThreadFactory;
+
+/**
+ * A class of sinks that write the output of print statements to a writer without blocking the worms that print
+ *
+ * Messages are put in a bounded ring buffer without taking a lock. A background thread takes them out in batches,
+ * writes them and flushes the writer once per batch. When the buffer is full, or a worm prints faster than its
+ * allowed rate, the message is dropped and counted instead of making the worm wait.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class PrintSink
+{
+
+	/**
+	 * The maximum amount of messages written before the writer is flushed
+	 */
+	public static final int BATCH_SIZE = 256;
+
+
+	/**
+	 * The time the background thread waits when there is nothing to write
+	 */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+
+	/**
+	 * The writer the messages are written to
+	 */
+	private final Writer out;
+
+
+	/**
+	 * The capacity of the ring buffer minus one, the capacity is a power of two
+	 */
+	private final int mask;
+
+
+	/**
+	 * The messages in the ring buffer
+	 */
+	private final AtomicReferenceArray<String> messages;
+
+
+	/**
+	 * For every place in the ring buffer, the position it can be written at, plus one once it is written
+	 */
+	private final AtomicLongArray sequences;
+
+
+	/**
+	 * The position the next message is put at
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+
+	/**
+	 * The position of the next message to write, only used by the background thread
+	 */
+	private long head = 0;
+
+
+	/**
+	 * The amount of messages that were dropped
+	 */
+	private final AtomicLong dropped = new AtomicLong();
+
+
+	/**
+	 * The amount of messages one worm may print per second
+	 */
+	private final double messagesPerSecond;
+
+
+	/**
+	 * The amount of messages one worm may print at once after it was quiet
+	 */
+	private final int burst;
+
+
+	/**
+	 * The background thread writing the messages
+	 */
+	private final Thread writer;
+
+
+	/**
+	 * Whether this sink was closed
+	 */
+	private volatile boolean closed = false;
+
+
+	/**
+	 * Whether the background thread is parked or about to park, only then it has to be woken up
+	 */
+	private volatile boolean parked = false;
+
+
+	/**
+	 * Creates a sink and starts its background thread
+	 *
+	 * @param out
+	 * 		The writer to write the messages to, it is flushed but never closed by this sink
+	 *
+	 * @param capacity
+	 * 		The minimum amount of messages the buffer can hold, rounded up to a power of two
+	 *
+	 * @param messagesPerSecond
+	 * 		The amount of messages one worm may print per second
+	 *
+	 * @param burst
+	 * 		The amount of messages one worm may print at once after it was quiet
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the writer is null, or the capacity, rate or burst is not positive
+	 */
+	public PrintSink(Writer out, int capacity, double messagesPerSecond, int burst) throws IllegalArgumentException
+	{
+		if (out == null)
+			throw new IllegalArgumentException("A print sink needs a writer");
+		if (capacity <= 0 || capacity > (1 << 30))
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		if (!(messagesPerSecond > 0) || burst <= 0)
+			throw new IllegalArgumentException("The rate and burst of a print sink must be positive");
+		this.out = out;
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		this.mask = size - 1;
+		this.messages = new AtomicReferenceArray<String>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+		this.messagesPerSecond = messagesPerSecond;
+		this.burst = burst;
+		this.writer = new DaemonThreadFactory("Print sink").newThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writeUntilClosed();
+			}
+		});
+		this.writer.start();
+	}
+
+
+	/**
+	 * This method prints a message for the worm of the given frame, if that worm did not exceed its rate
+	 *
+	 * The message is prefixed with the name of the worm. This method never blocks.
+	 *
+	 * @param frame
+	 * 		The frame of the worm that prints
+	 *
+	 * @param message
+	 * 		The message to print
+	 *
+	 * @return
+	 * 		True if the message was buffered, false if it was dropped
+	 */
+	public boolean print(Frame frame, String message)
+	{
+		long now = System.nanoTime();
+		double allowance = Math.min(burst, frame.printAllowance + (now - frame.lastPrint) * messagesPerSecond / 1e9);
+		frame.lastPrint = now;
+		if (allowance < 1)
+		{
+			frame.printAllowance = allowance;
+			dropped.incrementAndGet();
+			return false;
+		}
+		frame.printAllowance = allowance - 1;
+		return offer(frame.getWorm().getName() + ": " + message);
+	}
+
+
+	/**
+	 * This method puts a message in the ring buffer
+	 *
+	 * @param message
+	 * 		The message to buffer
+	 *
+	 * @return
+	 * 		True if the message was buffered, false if the buffer was full or this sink is closed
+	 */
+	public boolean offer(String message)
+	{
+		if (closed)
+		{
+			dropped.incrementAndGet();
+			return false;
+		}
+		long position = tail.get();
+		while (true)
+		{
+			int index = (int) position & mask;
+			long sequence = sequences.get(index);
+			if (sequence == position)
+			{
+				if (tail.compareAndSet(position, position + 1))
+				{
+					messages.set(index, message);
+					sequences.set(index, position + 1);
+					if (parked)
+						LockSupport.unpark(writer);
+					return true;
+				}
+				position = tail.get();
+			}
+			else if (sequence < position)
+			{
+				dropped.incrementAndGet();
+				return false;
+			}
+			else
+				position = tail.get();
+		}
+	}
+
+
+	/**
+	 * This method returns the amount of messages that were dropped because the buffer was full,
+	 * a worm printed too fast, the sink was closed or the writer failed
+	 *
+	 * @return dropped
+	 */
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+
+
+	/**
+	 * This method writes every buffered message, stops the background thread and flushes the writer
+	 *
+	 * @post
+	 * 		Every message that was buffered before is written, later messages are dropped
+	 */
+	public void close()
+	{
+		closed = true;
+		LockSupport.unpark(writer);
+		boolean interrupted = false;
+		while (writer.isAlive())
+		{
+			try
+			{
+				writer.join();
+			}
+			catch (InterruptedException exc)
+			{
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+
+	/**
+	 * This method writes batches of messages until the sink is closed and the buffer is empty
+	 */
+	private void writeUntilClosed()
+	{
+		while (true)
+		{
+			boolean wasClosed = closed;
+			if (writeBatch() == 0)
+			{
+				if (wasClosed)
+					return;
+				parked = true;
+				// a message buffered before the flag was seen did not wake this thread
+				if (isEmpty() && !closed)
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				parked = false;
+			}
+		}
+	}
+
+
+	/**
+	 * This method writes at most BATCH_SIZE messages and flushes the writer
+	 *
+	 * When the writer fails, only the message it failed on is counted as dropped, the messages it took before
+	 * were written as far as this sink can tell.
+	 *
+	 * @return
+	 * 		The amount of messages taken from the buffer
+	 */
+	private int writeBatch()
+	{
+		int amount = 0;
+		int written = 0;
+		try
+		{
+			String message;
+			while (amount < BATCH_SIZE && (message = poll()) != null)
+			{
+				amount++;
+				out.write(message);
+				out.write('\n');
+				written++;
+			}
+			if (amount > 0)
+				out.flush();
+		}
+		catch (IOException exc)
+		{
+			dropped.addAndGet(amount - written);
+		}
+		return amount;
+	}
+
+
+	/**
+	 * This method checks whether the ring buffer holds no message to write
+	 *
+	 * @return
+	 * 		True if the oldest place of the buffer was not written yet
+	 */
+	private boolean isEmpty()
+	{
+		return sequences.get((int) head & mask) != head + 1;
+	}
+
+
+	/**
+	 * This method takes the oldest message out of the ring buffer
+	 *
+	 * @return
+	 * 		The oldest message, or null if the buffer is empty
+	 */
+	private String poll()
+	{
+		if (isEmpty())
+			return null;
+		int index = (int) head & mask;
+		String message = messages.get(index);
+		messages.set(index, null);
+		sequences.set(index, head + mask + 1);
+		head++;
+		return message;
+	}
+}
@@ -0,0 +1,174 @@
+package worms.model.programs.execution;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class of profiles counting how often and how long every statement of a program ran for one worm
+ *
+ * The time an action statement waits for the action handler, which blocks until the action has been shown,
+ * is kept apart from the time spent in the program itself.
+ *
+ * Statements are identified by the path of statements they were compiled from, every statement in the path
+ * is named with its kind, line and column, for example "while@3:1;assignment@4:2".
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ProgramProfile
+{
+
+	/**
+	 * The path of statements every instruction was compiled from
+	 */
+	private final String[] paths;
+
+
+	/**
+	 * The amount of times every instruction that counts as a statement was executed
+	 */
+	private final long[] counts;
+
+
+	/**
+	 * The nanoseconds spent in every instruction
+	 */
+	private final long[] nanos;
+
+
+	/**
+	 * The nanoseconds every instruction waited for the action handler
+	 */
+	private final long[] waits;
+
+
+	/**
+	 * Creates an empty profile for a program compiled into instructions with the given paths
+	 *
+	 * @param paths
+	 * 		The path of statements every instruction was compiled from
+	 */
+	public ProgramProfile(String[] paths)
+	{
+		this.paths = paths;
+		this.counts = new long[paths.length];
+		this.nanos = new long[paths.length];
+		this.waits = new long[paths.length];
+	}
+
+
+	/**
+	 * This method registers one execution of an instruction
+	 *
+	 * @param index
+	 * 		The index of the instruction
+	 *
+	 * @param instruction
+	 * 		The instruction that was executed
+	 *
+	 * @param elapsed
+	 * 		The nanoseconds the execution took, without the time it waited for the action handler
+	 *
+	 * @param waited
+	 * 		The nanoseconds the execution waited for the action handler
+	 */
+	public void record(int index, Instruction instruction, long elapsed, long waited)
+	{
+		if (instruction.isStatement())
+			counts[index]++;
+		nanos[index] += elapsed;
+		waits[index] += waited;
+	}
+
+
+	/**
+	 * This method returns the amount of executions and the nanoseconds of every statement path
+	 *
+	 * @return
+	 * 		For every path, an array with the amount of executions, the total nanoseconds in the program
+	 * 		and the total nanoseconds waited for the action handler
+	 */
+	public Map<String, long[]> getTotals()
+	{
+		Map<String, long[]> totals = new LinkedHashMap<String, long[]>();
+		for (int i = 0; i < paths.length; i++)
+		{
+			long[] total = totals.get(paths[i]);
+			if (total == null)
+			{
+				total = new long[3];
+				totals.put(paths[i], total);
+			}
+			total[0] += counts[i];
+			total[1] += nanos[i];
+			total[2] += waits[i];
+		}
+		return totals;
+	}
+
+
+	/**
+	 * This method writes the profile as collapsed stacks, the input format of flame graph tools
+	 *
+	 * @param root
+	 * 		The name of the bottom frame of every stack, for example the name of the worm
+	 *
+	 * @param out
+	 * 		The writer to write to
+	 *
+	 * @throws IOException
+	 * 		If the writer fails
+	 */
+	public void writeCollapsedStacks(String root, Writer out) throws IOException
+	{
+		for (Map.Entry<String, long[]> entry : getTotals().entrySet())
+		{
+			if (entry.getValue()[1] > 0)
+				out.write(root + ";" + entry.getKey() + " " + entry.getValue()[1] + "\n");
+		}
+		out.flush();
+	}
+
+
+	/**
+	 * This method writes a report of all statements, the slowest statement first
+	 *
+	 * @param title
+	 * 		The first line of the report, for example the name of the worm
+	 *
+	 * @param out
+	 * 		The writer to write to
+	 *
+	 * @throws IOException
+	 * 		If the writer fails
+	 */
+	public void writeReport(String title, Writer out) throws IOException
+	{
+		List<Map.Entry<String, long[]>> entries = new ArrayList<Map.Entry<String, long[]>>(getTotals().entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>()
+		{
+			@Override
+			public int compare(Map.Entry<String, long[]> first, Map.Entry<String, long[]> second)
+			{
+				return Long.valueOf(second.getValue()[1]).compareTo(first.getValue()[1]);
+			}
+		});
+		out.write(title + "\n");
+		out.write(String.format("%12s %14s %12s %14s  %s%n", "count", "total (ns)", "avg (ns)", "wait (ns)", "statement"));
+		for (Map.Entry<String, long[]> entry : entries)
+		{
+			long count = entry.getValue()[0];
+			long total = entry.getValue()[1];
+			long average = (count > 0) ? total / count : total;
+			out.write(String.format("%12d %14d %12d %14d  %s%n", count, total, average, entry.getValue()[2], entry.getKey()));
+		}
+		out.flush();
+	}
+}
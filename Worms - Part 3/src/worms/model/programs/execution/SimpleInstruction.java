@@ -0,0 +1,44 @@
+package worms.model.programs.execution;
+
+import worms.model.programs.statements.SimpleStatement;
+
+/**
+ * An instruction that executes a statement without any control flow of its own
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class SimpleInstruction extends Instruction
+{
+
+	/**
+	 * The statement to execute
+	 */
+	private final SimpleStatement statement;
+
+
+	/**
+	 * Creates an instruction for the given statement
+	 *
+	 * @param statement
+	 * 		The statement to execute
+	 */
+	public SimpleInstruction(SimpleStatement statement)
+	{
+		super(statement.getLine(), statement.getColumn());
+		this.statement = statement;
+	}
+
+
+	/**
+	 * The program is suspended at this instruction if the statement could not be performed
+	 */
+	@Override
+	public int execute(Frame frame, int programCounter)
+	{
+		if (statement.execute(frame))
+			return programCounter + 1;
+		return SUSPEND;
+	}
+}
@@ -0,0 +1,124 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that add, subtract, multiply or divide two doubles
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ArithmeticExpression extends DoubleExpression
+{
+
+	/**
+	 * The left operand of this expression
+	 */
+	private final Expression left;
+
+
+	/**
+	 * The right operand of this expression
+	 */
+	private final Expression right;
+
+
+	/**
+	 * The arithmetic operators
+	 */
+	public enum Operator
+	{
+		ADD, SUBTRACT, MULTIPLY, DIVIDE
+	}
+
+
+	/**
+	 * The operator of this expression
+	 */
+	private final Operator operator;
+
+
+	/**
+	 * Creates an arithmetic expression
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param operator
+	 * 		The operator to apply
+	 *
+	 * @param left
+	 * 		The left operand
+	 *
+	 * @param right
+	 * 		The right operand
+	 */
+	public ArithmeticExpression(int line, int column, Operator operator, Expression left, Expression right)
+	{
+		super(line, column);
+		this.left = left;
+		this.right = right;
+		this.operator = operator;
+	}
+
+
+	/**
+	 * This method returns the left operand of this expression
+	 *
+	 * @return left
+	 */
+	public Expression getLeft()
+	{
+		return left;
+	}
+
+
+	/**
+	 * This method returns the right operand of this expression
+	 *
+	 * @return right
+	 */
+	public Expression getRight()
+	{
+		return right;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If an operand is not a double
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		left.resolve(code);
+		right.resolve(code);
+		checkType(left, Type.DOUBLE);
+		checkType(right, Type.DOUBLE);
+	}
+
+
+	@Override
+	public double evalDouble(Frame frame)
+	{
+		double left = this.left.evalDouble(frame);
+		double right = this.right.evalDouble(frame);
+		switch (operator)
+		{
+			case ADD:
+				return left + right;
+			case SUBTRACT:
+				return left - right;
+			case MULTIPLY:
+				return left * right;
+			default:
+				return left / right;
+		}
+	}
+}
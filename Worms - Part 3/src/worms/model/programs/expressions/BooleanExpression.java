@@ -0,0 +1,43 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions whose values are booleans, evaluated without boxing
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class BooleanExpression extends Expression
+{
+
+	/**
+	 * Creates an expression at the given position
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 */
+	protected BooleanExpression(int line, int column)
+	{
+		super(line, column);
+	}
+
+
+	/**
+	 * @return Type.BOOLEAN
+	 */
+	@Override
+	public Type getType()
+	{
+		return Type.BOOLEAN;
+	}
+
+
+	@Override
+	public abstract boolean evalBoolean(Frame frame);
+}
@@ -0,0 +1,45 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of literal booleans
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class BooleanLiteralExpression extends BooleanExpression
+{
+
+	/**
+	 * The value of this literal
+	 */
+	private final boolean value;
+
+
+	/**
+	 * Creates a literal with the given value
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param value
+	 * 		The value of the literal
+	 */
+	public BooleanLiteralExpression(int line, int column, boolean value)
+	{
+		super(line, column);
+		this.value = value;
+	}
+
+
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		return value;
+	}
+}
@@ -0,0 +1,161 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that compare two values
+ *
+ * Equality and inequality work on values of any type, the other comparisons only on doubles
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ComparisonExpression extends BooleanExpression
+{
+
+	/**
+	 * The left operand of this expression
+	 */
+	private final Expression left;
+
+
+	/**
+	 * The right operand of this expression
+	 */
+	private final Expression right;
+
+
+	/**
+	 * The comparison operators
+	 */
+	public enum Operator
+	{
+		LESS_THAN, GREATER_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN_OR_EQUAL, EQUAL, NOT_EQUAL
+	}
+
+
+	/**
+	 * The operator of this expression
+	 */
+	private final Operator operator;
+
+
+	/**
+	 * Creates a comparison
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param operator
+	 * 		The comparison to make
+	 *
+	 * @param left
+	 * 		The left operand
+	 *
+	 * @param right
+	 * 		The right operand
+	 */
+	public ComparisonExpression(int line, int column, Operator operator, Expression left, Expression right)
+	{
+		super(line, column);
+		this.left = left;
+		this.right = right;
+		this.operator = operator;
+	}
+
+
+	/**
+	 * This method returns the left operand of this expression
+	 *
+	 * @return left
+	 */
+	public Expression getLeft()
+	{
+		return left;
+	}
+
+
+	/**
+	 * This method returns the right operand of this expression
+	 *
+	 * @return right
+	 */
+	public Expression getRight()
+	{
+		return right;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operands of an ordering are not doubles, or the operands of an equality have different types
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		left.resolve(code);
+		right.resolve(code);
+		if (operator == Operator.EQUAL || operator == Operator.NOT_EQUAL)
+		{
+			checkType(right, left.getType());
+		}
+		else
+		{
+			checkType(left, Type.DOUBLE);
+			checkType(right, Type.DOUBLE);
+		}
+	}
+
+
+	/**
+	 * Doubles and booleans are compared by value, entities by identity
+	 */
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		switch (operator)
+		{
+			case EQUAL:
+				return isEqual(frame);
+			case NOT_EQUAL:
+				return !isEqual(frame);
+			case LESS_THAN:
+				return left.evalDouble(frame) < right.evalDouble(frame);
+			case GREATER_THAN:
+				return left.evalDouble(frame) > right.evalDouble(frame);
+			case LESS_THAN_OR_EQUAL:
+				return left.evalDouble(frame) <= right.evalDouble(frame);
+			default:
+				return left.evalDouble(frame) >= right.evalDouble(frame);
+		}
+	}
+
+
+	/**
+	 * This method checks whether both operands have the same value
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		True if both operands evaluate to the same double, the same boolean or the same entity
+	 */
+	private boolean isEqual(Frame frame)
+	{
+		switch (left.getType())
+		{
+			case DOUBLE:
+				return left.evalDouble(frame) == right.evalDouble(frame);
+			case BOOLEAN:
+				return left.evalBoolean(frame) == right.evalBoolean(frame);
+			default:
+				return left.evalEntity(frame) == right.evalEntity(frame);
+		}
+	}
+}
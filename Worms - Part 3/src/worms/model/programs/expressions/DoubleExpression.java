@@ -0,0 +1,43 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions whose values are doubles, evaluated without boxing
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class DoubleExpression extends Expression
+{
+
+	/**
+	 * Creates an expression at the given position
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 */
+	protected DoubleExpression(int line, int column)
+	{
+		super(line, column);
+	}
+
+
+	/**
+	 * @return Type.DOUBLE
+	 */
+	@Override
+	public Type getType()
+	{
+		return Type.DOUBLE;
+	}
+
+
+	@Override
+	public abstract double evalDouble(Frame frame);
+}
@@ -0,0 +1,45 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of literal doubles
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class DoubleLiteralExpression extends DoubleExpression
+{
+
+	/**
+	 * The value of this literal
+	 */
+	private final double value;
+
+
+	/**
+	 * Creates a literal with the given value
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param value
+	 * 		The value of the literal
+	 */
+	public DoubleLiteralExpression(int line, int column, double value)
+	{
+		super(line, column);
+		this.value = value;
+	}
+
+
+	@Override
+	public double evalDouble(Frame frame)
+	{
+		return value;
+	}
+}
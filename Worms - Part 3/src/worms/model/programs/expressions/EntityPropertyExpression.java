@@ -0,0 +1,161 @@
+package worms.model.programs.expressions;
+
+import worms.model.Food;
+import worms.model.Worm;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that read a property of a worm or a food ration
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class EntityPropertyExpression extends DoubleExpression
+{
+
+	/**
+	 * The operand of this expression
+	 */
+	private final Expression operand;
+
+
+	/**
+	 * The properties that can be read, food only has a position and a radius
+	 */
+	public enum Property
+	{
+		X, Y, RADIUS, DIRECTION, ACTION_POINTS, MAX_ACTION_POINTS, HIT_POINTS, MAX_HIT_POINTS
+	}
+
+
+	/**
+	 * The property this expression reads
+	 */
+	private final Property property;
+
+
+	/**
+	 * Creates an expression that reads a property of an entity
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param property
+	 * 		The property to read
+	 *
+	 * @param entity
+	 * 		The expression giving the entity
+	 */
+	public EntityPropertyExpression(int line, int column, Property property, Expression entity)
+	{
+		super(line, column);
+		this.operand = entity;
+		this.property = property;
+	}
+
+
+	/**
+	 * This method returns the operand of this expression
+	 *
+	 * @return operand
+	 */
+	public Expression getOperand()
+	{
+		return operand;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operand is not an entity
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		operand.resolve(code);
+		checkType(operand, Type.ENTITY);
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operand is null, or is food and the property only exists for worms
+	 */
+	@Override
+	public double evalDouble(Frame frame) throws IllegalArgumentException
+	{
+		Object entity = operand.evalEntity(frame);
+		if (entity instanceof Worm)
+			return getProperty((Worm) entity);
+		if (entity instanceof Food)
+			return getProperty((Food) entity);
+		throw new IllegalArgumentException("Not an entity: " + entity);
+	}
+
+
+	/**
+	 * This method reads the property of a worm
+	 *
+	 * @param worm
+	 * 		The worm to read from
+	 *
+	 * @return
+	 * 		The value of the property
+	 */
+	private double getProperty(Worm worm)
+	{
+		switch (property)
+		{
+			case X:
+				return worm.getPosX();
+			case Y:
+				return worm.getPosY();
+			case RADIUS:
+				return worm.getRadius();
+			case DIRECTION:
+				return worm.getAngle();
+			case ACTION_POINTS:
+				return worm.getCurrentAP();
+			case MAX_ACTION_POINTS:
+				return worm.getMaxAP();
+			case HIT_POINTS:
+				return worm.getHP();
+			default:
+				return worm.getMaxHP();
+		}
+	}
+
+
+	/**
+	 * This method reads the property of a food ration
+	 *
+	 * @param food
+	 * 		The food to read from
+	 *
+	 * @return
+	 * 		The value of the property
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If food does not have the property
+	 */
+	private double getProperty(Food food) throws IllegalArgumentException
+	{
+		switch (property)
+		{
+			case X:
+				return food.getPosX();
+			case Y:
+				return food.getPosY();
+			case RADIUS:
+				return food.getRadius();
+			default:
+				throw new IllegalArgumentException("Food has no " + property);
+		}
+	}
+}
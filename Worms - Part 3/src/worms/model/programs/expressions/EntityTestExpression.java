@@ -0,0 +1,101 @@
+package worms.model.programs.expressions;
+
+import worms.model.Food;
+import worms.model.Worm;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that check what kind of entity a value is
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class EntityTestExpression extends BooleanExpression
+{
+
+	/**
+	 * The operand of this expression
+	 */
+	private final Expression operand;
+
+
+	/**
+	 * The tests that can be performed
+	 */
+	public enum Test
+	{
+		IS_WORM, IS_FOOD, SAME_TEAM
+	}
+
+
+	/**
+	 * The test this expression performs
+	 */
+	private final Test test;
+
+
+	/**
+	 * Creates a test on an entity
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param test
+	 * 		The test to perform
+	 *
+	 * @param entity
+	 * 		The expression giving the entity
+	 */
+	public EntityTestExpression(int line, int column, Test test, Expression entity)
+	{
+		super(line, column);
+		this.operand = entity;
+		this.test = test;
+	}
+
+
+	/**
+	 * This method returns the operand of this expression
+	 *
+	 * @return operand
+	 */
+	public Expression getOperand()
+	{
+		return operand;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operand is not an entity
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		operand.resolve(code);
+		checkType(operand, Type.ENTITY);
+	}
+
+
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		Object entity = operand.evalEntity(frame);
+		switch (test)
+		{
+			case IS_WORM:
+				return (entity instanceof Worm);
+			case IS_FOOD:
+				return (entity instanceof Food);
+			default:
+				return (entity instanceof Worm && frame.getWorm().getTeam() != null
+						&& ((Worm) entity).getTeam() == frame.getWorm().getTeam());
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package worms.model.programs.expressions;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Raw;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that can be evaluated while a worm executes its program
+ *
+ * Every expression has a type that is known once it is resolved. Expressions of type double, boolean and entity
+ * are evaluated with evalDouble, evalBoolean and evalEntity, so doubles and booleans are never boxed.
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class Expression
+{
+
+	/**
+	 * The line of this expression in the program text
+	 */
+	private final int line;
+
+
+	/**
+	 * The column of this expression in the program text
+	 */
+	private final int column;
+
+
+	/**
+	 * Creates an expression at the given position
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 */
+	protected Expression(int line, int column)
+	{
+		this.line = line;
+		this.column = column;
+	}
+
+
+	/**
+	 * This method returns the line of this expression
+	 *
+	 * @return line
+	 */
+	@Basic @Raw
+	public int getLine()
+	{
+		return line;
+	}
+
+
+	/**
+	 * This method returns the column of this expression
+	 *
+	 * @return column
+	 */
+	@Basic @Raw
+	public int getColumn()
+	{
+		return column;
+	}
+
+
+	/**
+	 * This method looks up the slots of the variables used in this expression and checks the types of its operands
+	 *
+	 * @param code
+	 * 		The builder that knows the slots of the program
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If a variable is used that was never declared, or an operand has the wrong type
+	 */
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+	}
+
+
+	/**
+	 * This method returns the type of the values of this expression, the expression has to be resolved
+	 *
+	 * @return
+	 * 		DOUBLE, BOOLEAN or ENTITY
+	 */
+	public abstract Type getType();
+
+
+	/**
+	 * This method evaluates this expression to a double
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		The value of this expression
+	 *
+	 * @throws IllegalStateException
+	 * 		If this is not an expression of type double
+	 * 			| getType() != Type.DOUBLE
+	 */
+	public double evalDouble(Frame frame) throws IllegalStateException
+	{
+		throw new IllegalStateException("Not a double expression");
+	}
+
+
+	/**
+	 * This method evaluates this expression to a boolean
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		The value of this expression
+	 *
+	 * @throws IllegalStateException
+	 * 		If this is not an expression of type boolean
+	 * 			| getType() != Type.BOOLEAN
+	 */
+	public boolean evalBoolean(Frame frame) throws IllegalStateException
+	{
+		throw new IllegalStateException("Not a boolean expression");
+	}
+
+
+	/**
+	 * This method evaluates this expression to an entity
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		A Worm, a Food or null
+	 *
+	 * @throws IllegalStateException
+	 * 		If this is not an expression of type entity
+	 * 			| getType() != Type.ENTITY
+	 */
+	public Object evalEntity(Frame frame) throws IllegalStateException
+	{
+		throw new IllegalStateException("Not an entity expression");
+	}
+
+
+	/**
+	 * This method evaluates this expression to an object, doubles and booleans are boxed
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		A Double, a Boolean, a Worm, a Food or null
+	 */
+	public Object evaluate(Frame frame)
+	{
+		switch (getType())
+		{
+			case DOUBLE:
+				return evalDouble(frame);
+			case BOOLEAN:
+				return evalBoolean(frame);
+			default:
+				return evalEntity(frame);
+		}
+	}
+
+
+	/**
+	 * This method checks the type of an operand
+	 *
+	 * @param operand
+	 * 		The resolved operand we want to check
+	 *
+	 * @param type
+	 * 		The type the operand should have
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the operand has another type
+	 * 			| operand.getType() != type
+	 */
+	public static void checkType(Expression operand, Type type) throws IllegalArgumentException
+	{
+		if (operand.getType() != type)
+			throw new IllegalArgumentException(operand.getLine() + ":" + operand.getColumn() + " expected " + type.toString().toLowerCase()
+					+ " but found " + operand.getType().toString().toLowerCase());
+	}
+}
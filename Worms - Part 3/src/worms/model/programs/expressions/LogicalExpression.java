@@ -0,0 +1,120 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that combine two booleans, the right operand is only evaluated when needed
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class LogicalExpression extends BooleanExpression
+{
+
+	/**
+	 * The left operand of this expression
+	 */
+	private final Expression left;
+
+
+	/**
+	 * The right operand of this expression
+	 */
+	private final Expression right;
+
+
+	/**
+	 * The logical operators
+	 */
+	public enum Operator
+	{
+		AND, OR
+	}
+
+
+	/**
+	 * The operator of this expression
+	 */
+	private final Operator operator;
+
+
+	/**
+	 * Creates a logical expression
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param operator
+	 * 		The operator to apply
+	 *
+	 * @param left
+	 * 		The left operand
+	 *
+	 * @param right
+	 * 		The right operand
+	 */
+	public LogicalExpression(int line, int column, Operator operator, Expression left, Expression right)
+	{
+		super(line, column);
+		this.left = left;
+		this.right = right;
+		this.operator = operator;
+	}
+
+
+	/**
+	 * This method returns the left operand of this expression
+	 *
+	 * @return left
+	 */
+	public Expression getLeft()
+	{
+		return left;
+	}
+
+
+	/**
+	 * This method returns the right operand of this expression
+	 *
+	 * @return right
+	 */
+	public Expression getRight()
+	{
+		return right;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If an operand is not a boolean
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		left.resolve(code);
+		right.resolve(code);
+		checkType(left, Type.BOOLEAN);
+		checkType(right, Type.BOOLEAN);
+	}
+
+
+	/**
+	 * The right operand is only evaluated if the left one does not decide the result
+	 */
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		boolean left = this.left.evalBoolean(frame);
+		if (operator == Operator.AND && !left)
+			return false;
+		if (operator == Operator.OR && left)
+			return true;
+		return right.evalBoolean(frame);
+	}
+}
@@ -0,0 +1,98 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that apply a mathematical function to a double
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class MathExpression extends DoubleExpression
+{
+
+	/**
+	 * The operand of this expression
+	 */
+	private final Expression operand;
+
+
+	/**
+	 * The supported functions
+	 */
+	public enum Function
+	{
+		SQRT, SIN, COS
+	}
+
+
+	/**
+	 * The function of this expression
+	 */
+	private final Function function;
+
+
+	/**
+	 * Creates the application of a function
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param function
+	 * 		The function to apply
+	 *
+	 * @param operand
+	 * 		The argument of the function
+	 */
+	public MathExpression(int line, int column, Function function, Expression operand)
+	{
+		super(line, column);
+		this.operand = operand;
+		this.function = function;
+	}
+
+
+	/**
+	 * This method returns the operand of this expression
+	 *
+	 * @return operand
+	 */
+	public Expression getOperand()
+	{
+		return operand;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operand is not a double
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		operand.resolve(code);
+		checkType(operand, Type.DOUBLE);
+	}
+
+
+	@Override
+	public double evalDouble(Frame frame)
+	{
+		double value = operand.evalDouble(frame);
+		switch (function)
+		{
+			case SQRT:
+				return Math.sqrt(value);
+			case SIN:
+				return Math.sin(value);
+			default:
+				return Math.cos(value);
+		}
+	}
+}
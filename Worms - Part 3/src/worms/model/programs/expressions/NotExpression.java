@@ -0,0 +1,70 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that negate a boolean
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class NotExpression extends BooleanExpression
+{
+
+	/**
+	 * The operand of this expression
+	 */
+	private final Expression operand;
+
+
+	/**
+	 * Creates the negation of an expression
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param operand
+	 * 		The expression to negate
+	 */
+	public NotExpression(int line, int column, Expression operand)
+	{
+		super(line, column);
+		this.operand = operand;
+	}
+
+
+	/**
+	 * This method returns the operand of this expression
+	 *
+	 * @return operand
+	 */
+	public Expression getOperand()
+	{
+		return operand;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the operand is not a boolean
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		operand.resolve(code);
+		checkType(operand, Type.BOOLEAN);
+	}
+
+
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		return !operand.evalBoolean(frame);
+	}
+}
@@ -0,0 +1,35 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions for the entity null
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class NullExpression extends EntityExpression
+{
+
+	/**
+	 * Creates the literal null
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 */
+	public NullExpression(int line, int column)
+	{
+		super(line, column);
+	}
+
+
+	@Override
+	public Object evalEntity(Frame frame)
+	{
+		return null;
+	}
+}
@@ -0,0 +1,80 @@
+package worms.model.programs.expressions;
+
+import worms.model.Worm;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that search the closest entity in a direction relative to the executing worm
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class SearchObjectExpression extends EntityExpression
+{
+
+	/**
+	 * The expression giving the angle relative to the direction of the worm
+	 */
+	private final Expression angle;
+
+
+	/**
+	 * Creates a search in the direction of the worm turned by the given angle
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param angle
+	 * 		The expression giving the angle relative to the direction of the worm
+	 */
+	public SearchObjectExpression(int line, int column, Expression angle)
+	{
+		super(line, column);
+		this.angle = angle;
+	}
+
+
+	/**
+	 * This method returns the expression giving the angle relative to the direction of the worm
+	 *
+	 * @return angle
+	 */
+	public Expression getAngle()
+	{
+		return angle;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the angle is not a double
+	 */
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		angle.resolve(code);
+		checkType(angle, Type.DOUBLE);
+	}
+
+
+	/**
+	 * An entity is found if the ray from the center of the worm passes through its circle
+	 *
+	 * @return
+	 * 		The entity whose center lies closest along the ray, null if the ray hits nothing
+	 * 			| frame.getWorld().getEntityIndex().searchAlongRay(frame.getWorm(), frame.getWorm().getAngle() + angle)
+	 */
+	@Override
+	public Object evalEntity(Frame frame)
+	{
+		Worm self = frame.getWorm();
+		double direction = self.getAngle() + angle.evalDouble(frame);
+		return frame.getWorld().getEntityIndex().searchAlongRay(self, direction);
+	}
+}
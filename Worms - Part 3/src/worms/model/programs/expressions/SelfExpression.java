@@ -0,0 +1,35 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that evaluate to the worm executing the program
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class SelfExpression extends EntityExpression
+{
+
+	/**
+	 * Creates a reference to the executing worm
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 */
+	public SelfExpression(int line, int column)
+	{
+		super(line, column);
+	}
+
+
+	@Override
+	public Object evalEntity(Frame frame)
+	{
+		return frame.getWorm();
+	}
+}
@@ -0,0 +1,103 @@
+package worms.model.programs.expressions;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+
+/**
+ * A class of expressions that evaluate to the value of a global variable
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class VariableExpression extends Expression
+{
+
+	/**
+	 * The name of the variable
+	 */
+	private final String name;
+
+
+	/**
+	 * The slot of the variable in the frame
+	 */
+	private int slot = -1;
+
+
+	/**
+	 * The declared type of the variable
+	 */
+	private Type type;
+
+
+	/**
+	 * Creates an access to the variable with the given name
+	 *
+	 * @param line
+	 * 		The line of the expression
+	 *
+	 * @param column
+	 * 		The column of the expression
+	 *
+	 * @param name
+	 * 		The name of the variable
+	 */
+	public VariableExpression(int line, int column, String name)
+	{
+		super(line, column);
+		this.name = name;
+	}
+
+
+	/**
+	 * This method returns the name of the variable
+	 *
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+
+	@Override
+	public void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		this.slot = code.getSlot(name);
+		this.type = code.getType(name);
+	}
+
+
+	/**
+	 * @return
+	 * 		The declared type of the variable
+	 */
+	@Override
+	public Type getType()
+	{
+		return type;
+	}
+
+
+	@Override
+	public double evalDouble(Frame frame)
+	{
+		return frame.getDouble(slot);
+	}
+
+
+	@Override
+	public boolean evalBoolean(Frame frame)
+	{
+		return frame.getBoolean(slot);
+	}
+
+
+	@Override
+	public Object evalEntity(Frame frame)
+	{
+		return frame.getSlot(slot);
+	}
+}
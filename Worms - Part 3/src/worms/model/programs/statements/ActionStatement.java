@@ -0,0 +1,158 @@
+package worms.model.programs.statements;
+
+import worms.gui.game.IActionHandler;
+import worms.model.Worm;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.expressions.Expression;
+
+/**
+ * A class of statements that let the executing worm perform an action
+ *
+ * The action is performed through the action handler, which blocks until the action has been entirely performed
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ActionStatement extends SimpleStatement
+{
+
+	/**
+	 * The actions a worm can perform
+	 */
+	public enum Action
+	{
+		TURN, MOVE, JUMP, TOGGLE_WEAPON, FIRE, SKIP
+	}
+
+
+	/**
+	 * The action of this statement
+	 */
+	private final Action action;
+
+
+	/**
+	 * The angle to turn or the propulsion yield to fire with, null for other actions
+	 */
+	private final Expression argument;
+
+
+	/**
+	 * Creates an action statement
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param action
+	 * 		The action to perform
+	 *
+	 * @param argument
+	 * 		The angle for a turn, the propulsion yield for fire, null otherwise
+	 */
+	public ActionStatement(int line, int column, Action action, Expression argument)
+	{
+		super(line, column);
+		this.action = action;
+		this.argument = argument;
+	}
+
+
+	/**
+	 * This method returns the action of this statement
+	 *
+	 * @return action
+	 */
+	public Action getAction()
+	{
+		return action;
+	}
+
+
+	/**
+	 * @return
+	 * 		The name of the action in lower case
+	 */
+	@Override
+	public String getName()
+	{
+		return action.name().toLowerCase();
+	}
+
+
+	@Override
+	public boolean containsAction()
+	{
+		return true;
+	}
+
+
+	@Override
+	protected void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		if (argument != null)
+		{
+			argument.resolve(code);
+			Expression.checkType(argument, Type.DOUBLE);
+		}
+	}
+
+
+	@Override
+	public boolean execute(Frame frame) throws IllegalArgumentException
+	{
+		double value = (argument == null) ? 0 : argument.evalDouble(frame);
+		if (frame.getProfile() == null)
+			return perform(frame.getHandler(), frame.getWorm(), value);
+		// the handler blocks until the action is shown, which is not time spent in the program
+		long start = System.nanoTime();
+		try
+		{
+			return perform(frame.getHandler(), frame.getWorm(), value);
+		}
+		finally
+		{
+			frame.addActionWait(System.nanoTime() - start);
+		}
+	}
+
+
+	/**
+	 * This method performs the action of this statement through the given handler
+	 *
+	 * @param handler
+	 * 		The handler to perform the action with
+	 *
+	 * @param worm
+	 * 		The worm that performs the action
+	 *
+	 * @param value
+	 * 		The value of the argument, ignored by actions without argument
+	 *
+	 * @return
+	 * 		Whether the handler performed the action
+	 */
+	private boolean perform(IActionHandler handler, Worm worm, double value)
+	{
+		switch (action)
+		{
+			case TURN:
+				return handler.turn(worm, value);
+			case MOVE:
+				return handler.move(worm);
+			case JUMP:
+				return handler.jump(worm);
+			case TOGGLE_WEAPON:
+				return handler.toggleWeapon(worm);
+			case FIRE:
+				return handler.fire(worm, (int) value);
+			default:
+				return true;
+		}
+	}
+}
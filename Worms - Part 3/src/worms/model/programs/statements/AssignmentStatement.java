@@ -0,0 +1,101 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.expressions.Expression;
+
+/**
+ * A class of statements that assign the value of an expression to a global variable
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class AssignmentStatement extends SimpleStatement
+{
+
+	/**
+	 * The name of the assigned variable
+	 */
+	private final String variableName;
+
+
+	/**
+	 * The expression giving the new value
+	 */
+	private final Expression value;
+
+
+	/**
+	 * The slot of the assigned variable
+	 */
+	private int slot;
+
+
+	/**
+	 * The declared type of the assigned variable
+	 */
+	private Type type;
+
+
+	/**
+	 * Creates an assignment
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param variableName
+	 * 		The name of the variable
+	 *
+	 * @param value
+	 * 		The expression giving the new value
+	 */
+	public AssignmentStatement(int line, int column, String variableName, Expression value)
+	{
+		super(line, column);
+		this.variableName = variableName;
+		this.value = value;
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 		If the variable was never declared, or the value does not have the declared type of the variable
+	 * 			| value.getType() != code.getType(variableName)
+	 */
+	@Override
+	protected void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		this.slot = code.getSlot(variableName);
+		this.type = code.getType(variableName);
+		value.resolve(code);
+		if (value.getType() != type)
+			throw new IllegalArgumentException(getLine() + ":" + getColumn() + " cannot assign " + value.getType().toString().toLowerCase()
+					+ " to " + variableName);
+	}
+
+
+	/**
+	 * The value is stored in the slot of the declared type, so doubles and booleans are not boxed
+	 */
+	@Override
+	public boolean execute(Frame frame) throws IllegalArgumentException
+	{
+		switch (type)
+		{
+			case DOUBLE:
+				frame.setDouble(slot, value.evalDouble(frame));
+				break;
+			case BOOLEAN:
+				frame.setBoolean(slot, value.evalBoolean(frame));
+				break;
+			default:
+				frame.setSlot(slot, value.evalEntity(frame));
+		}
+		return true;
+	}
+}
@@ -0,0 +1,106 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.ProgramFactory.ForeachType;
+import worms.model.programs.Type;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.ForeachNextInstruction;
+import worms.model.programs.execution.ForeachStartInstruction;
+import worms.model.programs.execution.JumpInstruction;
+
+/**
+ * A class of statements that execute a body once for every worm, food ration or entity in the world
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class ForeachStatement extends Statement
+{
+
+	/**
+	 * The kind of entities to iterate over
+	 */
+	private final ForeachType type;
+
+
+	/**
+	 * The name of the loop variable
+	 */
+	private final String variableName;
+
+
+	/**
+	 * The body of the loop
+	 */
+	private final Statement body;
+
+
+	/**
+	 * Creates a foreach loop
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param type
+	 * 		The kind of entities to iterate over
+	 *
+	 * @param variableName
+	 * 		The name of the loop variable
+	 *
+	 * @param body
+	 * 		The body of the loop
+	 */
+	public ForeachStatement(int line, int column, ForeachType type, String variableName, Statement body)
+	{
+		super(line, column);
+		this.type = type;
+		this.variableName = variableName;
+		this.body = body;
+	}
+
+
+	@Override
+	public boolean containsAction()
+	{
+		return body.containsAction();
+	}
+
+
+	/**
+	 * @return
+	 * 		True if the body contains no actions and is well-formed itself
+	 * 			| !body.containsAction() && body.isWellFormed()
+	 */
+	@Override
+	public boolean isWellFormed()
+	{
+		return !body.containsAction() && body.isWellFormed();
+	}
+
+
+	/**
+	 * The position of the loop is kept in a hidden slot, so the loop survives a suspension of the program
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the loop variable is not declared as an entity
+	 * 			| code.getType(variableName) != Type.ENTITY
+	 */
+	@Override
+	public void compile(CodeBuilder code) throws IllegalArgumentException
+	{
+		if (code.getType(variableName) != Type.ENTITY)
+			throw new IllegalArgumentException("Loop variable is not an entity: " + variableName);
+		int positionSlot = code.allocateSlot();
+		code.enter(this);
+		code.emit(new ForeachStartInstruction(getLine(), getColumn(), type, positionSlot));
+		ForeachNextInstruction next = new ForeachNextInstruction(getLine(), getColumn(), code.getSlot(variableName), positionSlot);
+		int start = code.emit(next);
+		body.compile(code);
+		code.emit(new JumpInstruction(getLine(), getColumn(), start));
+		next.setExitTarget(code.getNextIndex());
+		code.leave();
+	}
+}
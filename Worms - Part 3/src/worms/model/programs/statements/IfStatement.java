@@ -0,0 +1,97 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.BranchInstruction;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.JumpInstruction;
+import worms.model.programs.expressions.Expression;
+
+/**
+ * A class of statements that execute one of two statements depending on a condition
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class IfStatement extends Statement
+{
+
+	/**
+	 * The condition
+	 */
+	private final Expression condition;
+
+
+	/**
+	 * The statement executed when the condition is true
+	 */
+	private final Statement then;
+
+
+	/**
+	 * The statement executed when the condition is false
+	 */
+	private final Statement otherwise;
+
+
+	/**
+	 * Creates a conditional statement
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param condition
+	 * 		The condition
+	 *
+	 * @param then
+	 * 		The statement executed when the condition is true
+	 *
+	 * @param otherwise
+	 * 		The statement executed when the condition is false
+	 */
+	public IfStatement(int line, int column, Expression condition, Statement then, Statement otherwise)
+	{
+		super(line, column);
+		this.condition = condition;
+		this.then = then;
+		this.otherwise = otherwise;
+	}
+
+
+	@Override
+	public boolean containsAction()
+	{
+		return then.containsAction() || otherwise.containsAction();
+	}
+
+
+	@Override
+	public boolean isWellFormed()
+	{
+		return then.isWellFormed() && otherwise.isWellFormed();
+	}
+
+
+	/**
+	 * The branch skips to the otherwise part, the then part ends with a jump over it
+	 */
+	@Override
+	public void compile(CodeBuilder code) throws IllegalArgumentException
+	{
+		condition.resolve(code);
+		Expression.checkType(condition, Type.BOOLEAN);
+		code.enter(this);
+		BranchInstruction branch = new BranchInstruction(getLine(), getColumn(), condition);
+		code.emit(branch);
+		then.compile(code);
+		JumpInstruction jump = new JumpInstruction(getLine(), getColumn(), 0);
+		code.emit(jump);
+		branch.setFalseTarget(code.getNextIndex());
+		otherwise.compile(code);
+		jump.setTarget(code.getNextIndex());
+		code.leave();
+	}
+}
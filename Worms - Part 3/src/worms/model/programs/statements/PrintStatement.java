@@ -0,0 +1,65 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.expressions.Expression;
+
+/**
+ * A class of statements that print the value of an expression
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class PrintStatement extends SimpleStatement
+{
+
+	/**
+	 * The expression to print
+	 */
+	private final Expression value;
+
+
+	/**
+	 * Creates a print statement
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param value
+	 * 		The expression to print
+	 */
+	public PrintStatement(int line, int column, Expression value)
+	{
+		super(line, column);
+		this.value = value;
+	}
+
+
+	@Override
+	protected void resolve(CodeBuilder code) throws IllegalArgumentException
+	{
+		value.resolve(code);
+	}
+
+
+	@Override
+	public boolean execute(Frame frame) throws IllegalArgumentException
+	{
+		switch (value.getType())
+		{
+			case DOUBLE:
+				frame.print(String.valueOf(value.evalDouble(frame)));
+				break;
+			case BOOLEAN:
+				frame.print(String.valueOf(value.evalBoolean(frame)));
+				break;
+			default:
+				frame.print(String.valueOf(value.evalEntity(frame)));
+		}
+		return true;
+	}
+}
@@ -0,0 +1,73 @@
+package worms.model.programs.statements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import worms.model.programs.execution.CodeBuilder;
+
+/**
+ * A class of statements that execute other statements one after the other
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class SequenceStatement extends Statement
+{
+
+	/**
+	 * The statements of this sequence
+	 */
+	private final List<Statement> statements;
+
+
+	/**
+	 * Creates a sequence
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param statements
+	 * 		The statements in order of execution
+	 */
+	public SequenceStatement(int line, int column, List<Statement> statements)
+	{
+		super(line, column);
+		this.statements = new ArrayList<Statement>(statements);
+	}
+
+
+	@Override
+	public boolean containsAction()
+	{
+		for (Statement statement : statements)
+		{
+			if (statement.containsAction())
+				return true;
+		}
+		return false;
+	}
+
+
+	@Override
+	public boolean isWellFormed()
+	{
+		for (Statement statement : statements)
+		{
+			if (!statement.isWellFormed())
+				return false;
+		}
+		return true;
+	}
+
+
+	@Override
+	public void compile(CodeBuilder code) throws IllegalArgumentException
+	{
+		for (Statement statement : statements)
+			statement.compile(code);
+	}
+}
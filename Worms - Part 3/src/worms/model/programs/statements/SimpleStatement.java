@@ -0,0 +1,67 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.Frame;
+import worms.model.programs.execution.SimpleInstruction;
+
+/**
+ * A class of statements without control flow, each of them compiles to a single instruction
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class SimpleStatement extends Statement
+{
+
+	/**
+	 * Creates a simple statement at the given position
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 */
+	protected SimpleStatement(int line, int column)
+	{
+		super(line, column);
+	}
+
+
+	@Override
+	public void compile(CodeBuilder code) throws IllegalArgumentException
+	{
+		resolve(code);
+		code.enter(this);
+		code.emit(new SimpleInstruction(this));
+		code.leave();
+	}
+
+
+	/**
+	 * This method looks up the slots of the variables this statement uses
+	 *
+	 * @param code
+	 * 		The builder that knows the slots of the program
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If a variable is used that was never declared
+	 */
+	protected abstract void resolve(CodeBuilder code) throws IllegalArgumentException;
+
+
+	/**
+	 * This method executes this statement
+	 *
+	 * @param frame
+	 * 		The frame of the worm executing the program
+	 *
+	 * @return
+	 * 		False if the statement could not be performed and has to be retried next turn
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If an expression has the wrong type
+	 */
+	public abstract boolean execute(Frame frame) throws IllegalArgumentException;
+}
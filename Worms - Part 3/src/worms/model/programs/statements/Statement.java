@@ -0,0 +1,121 @@
+package worms.model.programs.statements;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Raw;
+import worms.model.programs.execution.CodeBuilder;
+
+/**
+ * A class of statements of a program
+ *
+ * Statements are not executed directly, they are compiled into instructions so a program can be
+ * suspended and resumed at any statement
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public abstract class Statement
+{
+
+	/**
+	 * The line of this statement in the program text
+	 */
+	private final int line;
+
+
+	/**
+	 * The column of this statement in the program text
+	 */
+	private final int column;
+
+
+	/**
+	 * Creates a statement at the given position
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 */
+	protected Statement(int line, int column)
+	{
+		this.line = line;
+		this.column = column;
+	}
+
+
+	/**
+	 * This method returns the line of this statement
+	 *
+	 * @return line
+	 */
+	@Basic @Raw
+	public int getLine()
+	{
+		return line;
+	}
+
+
+	/**
+	 * This method returns the column of this statement
+	 *
+	 * @return column
+	 */
+	@Basic @Raw
+	public int getColumn()
+	{
+		return column;
+	}
+
+
+	/**
+	 * This method returns a short name for this kind of statement, used to label it in profiles
+	 *
+	 * @return
+	 * 		The name of the class without "Statement", in lower case
+	 */
+	public String getName()
+	{
+		String name = getClass().getSimpleName();
+		if (name.endsWith("Statement"))
+			name = name.substring(0, name.length() - "Statement".length());
+		return name.toLowerCase();
+	}
+
+
+	/**
+	 * This method checks whether this statement is or contains an action
+	 *
+	 * @return
+	 * 		False unless the statement performs an action
+	 */
+	public boolean containsAction()
+	{
+		return false;
+	}
+
+
+	/**
+	 * This method checks whether no foreach statement inside this statement contains an action
+	 *
+	 * @return
+	 * 		True if the statement is well-formed
+	 */
+	public boolean isWellFormed()
+	{
+		return true;
+	}
+
+
+	/**
+	 * This method appends the instructions of this statement to the code
+	 *
+	 * @param code
+	 * 		The builder of the code
+	 *
+	 * @throws IllegalArgumentException
+	 * 		If the statement uses a variable that was never declared, or assigns a value of the wrong type
+	 */
+	public abstract void compile(CodeBuilder code) throws IllegalArgumentException;
+}
@@ -0,0 +1,84 @@
+package worms.model.programs.statements;
+
+import worms.model.programs.Type;
+import worms.model.programs.execution.BranchInstruction;
+import worms.model.programs.execution.CodeBuilder;
+import worms.model.programs.execution.JumpInstruction;
+import worms.model.programs.expressions.Expression;
+
+/**
+ * A class of statements that execute a body as long as a condition is true
+ *
+ * @version 3.0
+ *
+ * @Author Ruben Schroyen & Ralph Vancampenhoudt
+ */
+public class WhileStatement extends Statement
+{
+
+	/**
+	 * The condition of the loop
+	 */
+	private final Expression condition;
+
+
+	/**
+	 * The body of the loop
+	 */
+	private final Statement body;
+
+
+	/**
+	 * Creates a while loop
+	 *
+	 * @param line
+	 * 		The line of the statement
+	 *
+	 * @param column
+	 * 		The column of the statement
+	 *
+	 * @param condition
+	 * 		The condition of the loop
+	 *
+	 * @param body
+	 * 		The body of the loop
+	 */
+	public WhileStatement(int line, int column, Expression condition, Statement body)
+	{
+		super(line, column);
+		this.condition = condition;
+		this.body = body;
+	}
+
+
+	@Override
+	public boolean containsAction()
+	{
+		return body.containsAction();
+	}
+
+
+	@Override
+	public boolean isWellFormed()
+	{
+		return body.isWellFormed();
+	}
+
+
+	/**
+	 * The body ends with a jump back to the branch that checks the condition
+	 */
+	@Override
+	public void compile(CodeBuilder code) throws IllegalArgumentException
+	{
+		condition.resolve(code);
+		Expression.checkType(condition, Type.BOOLEAN);
+		code.enter(this);
+		BranchInstruction branch = new BranchInstruction(getLine(), getColumn(), condition);
+		int start = code.emit(branch);
+		body.compile(code);
+		code.emit(new JumpInstruction(getLine(), getColumn(), start));
+		branch.setFalseTarget(code.getNextIndex());
+		code.leave();
+	}
+}
@@ -0,0 +1,150 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import worms.model.AimingSolver.Aim;
+
+public class AimingSolverTest {
+
+	private static final int TARGETS = 2000;
+
+	// open sky above 2 impassable rows
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[60][100];
+		for (int row = 0; row < 58; row++) {
+			for (int column = 0; column < 100; column++) {
+				passableMap[row][column] = true;
+			}
+		}
+		return passableMap;
+	}
+
+	@Test
+	public void testSolvesReachableTargets() {
+		IFacade facade = new Facade();
+		World world = facade.createWorld(100.0, 60.0, createPassableMap(),
+				new Random(36));
+		while (facade.getWorms(world).isEmpty()) {
+			facade.addNewWorm(world, null);
+		}
+		Worm shooter = world.getWorms().get(0);
+		AimingSolver solver = new AimingSolver(world);
+		Random random = new Random(36);
+
+		int targets = 0;
+		int solved = 0;
+		while (targets < TARGETS) {
+			// a point on the path of a random shot that the terrain does not
+			// block
+			String weapon = random.nextBoolean() ? "Bazooka" : "Rifle";
+			int propulsionYield = "Rifle".equals(weapon) ? 0 : random
+					.nextInt(101);
+			Aim shot = new Aim(-Math.PI + 2 * Math.PI * random.nextDouble(),
+					propulsionYield, 0.05 + 3 * random.nextDouble());
+			double[] target = getPosition(shooter, weapon, shot,
+					shot.getFlightTime());
+			if (!world.isPassable(target[0], target[1], 0)
+					|| !solver.isClear(shooter, weapon, shot)) {
+				continue;
+			}
+			targets++;
+
+			Aim aim = solver.solve(shooter, weapon, target[0], target[1]);
+			if (aim == null) {
+				continue;
+			}
+			solved++;
+			assertTrue(solver.isClear(shooter, weapon, aim));
+			double[] reached = getPosition(shooter, weapon, aim,
+					aim.getFlightTime());
+			assertTrue(Math.hypot(reached[0] - target[0], reached[1]
+					- target[1]) < 1e-6);
+		}
+		// near-vertical shots are where the closed form is singular
+		assertTrue(solved + " of " + TARGETS, solved >= 0.98 * TARGETS);
+	}
+
+	@Test
+	public void testTooFarForTheRifle() {
+		IFacade facade = new Facade();
+		World world = facade.createWorld(100.0, 60.0, createPassableMap(),
+				new Random(36));
+		while (facade.getWorms(world).isEmpty()) {
+			facade.addNewWorm(world, null);
+		}
+		Worm shooter = world.getWorms().get(0);
+		double farX = shooter.getPosX() < 50 ? 99 : 1;
+		assertNull(new AimingSolver(world).solve(shooter, "Rifle", farX, 59));
+	}
+
+	@Test
+	public void testTargetBehindAWall() {
+		// a ledge of 4 meters between the worm and a point below it
+		boolean[][] withLedge = createPassableMap();
+		for (int column = 52; column < 56; column++) {
+			withLedge[52][column] = false;
+		}
+		Worm shooter = createShooter(createPassableMap());
+		AimingSolver open = new AimingSolver(shooter.getWorld());
+		Aim aim = open.solve(shooter, "Bazooka", 53.5, 5);
+		assertNotNull(aim);
+		assertTrue(open.isClear(shooter, "Bazooka", aim));
+
+		// every path down to the point passes the ledge, at every yield
+		Worm blocked = createShooter(withLedge);
+		assertNull(new AimingSolver(blocked.getWorld()).solve(blocked,
+				"Bazooka", 53.5, 5));
+		// the path of the open world does not get past the ledge
+		assertFalse(new AimingSolver(blocked.getWorld()).isClear(blocked,
+				"Bazooka", aim));
+	}
+
+	@Test
+	public void testUsesTheWormAsItWasWhenMade() {
+		Worm shooter = createShooter(createPassableMap());
+		AimingSolver solver = new AimingSolver(shooter.getWorld());
+		Aim before = solver.solve(shooter, "Bazooka", 53.5, 5);
+		shooter.setPosX(shooter.getPosX() - 2);
+		Aim after = solver.solve(shooter, "Bazooka", 53.5, 5);
+		assertEquals(before.getAngle(), after.getAngle(), 0);
+		assertEquals(before.getPropulsionYield(), after.getPropulsionYield());
+	}
+
+	/**
+	 * A worm of radius 1 in the air at (53, 10), right above the point
+	 * (53.5, 5)
+	 */
+	private static Worm createShooter(boolean[][] passableMap) {
+		IFacade facade = new Facade();
+		World world = facade.createWorld(100.0, 60.0, passableMap,
+				new Random(36));
+		while (facade.getWorms(world).isEmpty()) {
+			facade.addNewWorm(world, null);
+		}
+		Worm shooter = world.getWorms().get(0);
+		shooter.setRadius(1.0);
+		shooter.setPosX(53);
+		shooter.setPosY(10);
+		return shooter;
+	}
+
+	private static double[] getPosition(Worm shooter, String weapon, Aim aim,
+			double time) {
+		double speed = Projectile.getForceOf(weapon, aim.getPropulsionYield())
+				* 0.5 / Projectile.getMassOf(weapon);
+		double[] launch = Projectile.getLaunchPosition(shooter.getPosX(),
+				shooter.getPosY(), shooter.getRadius(), aim.getAngle());
+		return new double[] {
+				launch[0] + speed * Math.cos(aim.getAngle()) * time,
+				launch[1] + speed * Math.sin(aim.getAngle()) * time - 0.5
+						* Projectile.GRAVITY * time * time };
+	}
+}
@@ -0,0 +1,82 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EntityIndexTest {
+
+	// every fourth row is impassable, so worms and food land on many floors
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[40][60];
+		for (int row = 0; row < 40; row++) {
+			for (int column = 0; column < 60; column++) {
+				passableMap[row][column] = row % 4 != 3;
+			}
+		}
+		return passableMap;
+	}
+
+	@Test
+	public void testSearchAlongRayMatchesBruteForce() {
+		IFacade facade = new Facade();
+		Random random = new Random(30);
+		World world = facade.createWorld(60.0, 40.0, createPassableMap(),
+				new Random(30));
+		for (int i = 0; i < 400; i++) {
+			facade.addNewWorm(world, null);
+			facade.addNewFood(world);
+		}
+		EntityIndex index = world.getEntityIndex();
+		Object[] entities = index.getEntities();
+		List<Worm> worms = world.getWorms();
+
+		for (int ray = 0; ray < 120000; ray++) {
+			Worm self = worms.get(random.nextInt(worms.size()));
+			double direction = -Math.PI + 2 * Math.PI * random.nextDouble();
+			double expected = closestAlongRay(entities, self, direction);
+			Object found = index.searchAlongRay(self, direction);
+			if (Double.isInfinite(expected)) {
+				assertNull(found);
+			} else {
+				// entities at the same distance may be returned in any order
+				assertEquals(expected, distanceAlongRay(self, direction, found),
+						0);
+			}
+		}
+	}
+
+	private static double closestAlongRay(Object[] entities, Worm self,
+			double direction) {
+		double closest = Double.POSITIVE_INFINITY;
+		for (Object entity : entities) {
+			if (entity != self) {
+				closest = Math.min(closest,
+						distanceAlongRay(self, direction, entity));
+			}
+		}
+		return closest;
+	}
+
+	private static double distanceAlongRay(Worm self, double direction,
+			Object entity) {
+		double x, y, radius;
+		if (entity instanceof Worm) {
+			Worm worm = (Worm) entity;
+			x = worm.getPosX();
+			y = worm.getPosY();
+			radius = worm.getRadius();
+		} else {
+			Food food = (Food) entity;
+			x = food.getPosX();
+			y = food.getPosY();
+			radius = food.getRadius();
+		}
+		return EntityIndex.distanceAlongRay(self.getPosX(), self.getPosY(),
+				Math.cos(direction), Math.sin(direction), x, y, radius);
+	}
+}
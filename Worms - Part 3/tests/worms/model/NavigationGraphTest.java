@@ -0,0 +1,145 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import worms.model.NavigationGraph.Action;
+import worms.model.NavigationGraph.Step;
+
+public class NavigationGraphTest {
+
+	private static final double RADIUS = 0.5;
+
+	/**
+	 * A world of 20 by 10 meters with a floor of 2 meters and a wall in the
+	 * middle of the given height
+	 */
+	private static World createWorld(double wallHeight) {
+		boolean[][] passableMap = new boolean[20][40];
+		for (int row = 0; row < 20; row++) {
+			double y = 10 - 0.5 * (row + 1);
+			for (int column = 0; column < 40; column++) {
+				boolean wall = column >= 19 && column <= 20
+						&& y < 2 + wallHeight;
+				passableMap[row][column] = y >= 2 && !wall;
+			}
+		}
+		return new Facade().createWorld(20.0, 10.0, passableMap, new Random(
+				37));
+	}
+
+	@Test
+	public void testPathOverWall() {
+		World world = createWorld(1.5);
+		NavigationGraph graph = world.getNavigationGraph(RADIUS);
+		assertTrue(graph.getAmountOfNodes() > 0);
+		// with all AP the worm climbs the wall, with a few it jumps over it
+		List<Step> path = graph.findPath(2, 2.5, 20, 18, 2.5);
+		assertNotNull(path);
+		assertTrue(path.size() > 0);
+
+		boolean jumped = false;
+		for (Step step : path) {
+			assertTrue(step.getCost() > 0);
+			jumped |= step.getAction() == Action.JUMP;
+		}
+		assertTrue(jumped);
+		Step last = path.get(path.size() - 1);
+		assertTrue(Math.hypot(last.getX() - 18, last.getY() - 2.5) <= RADIUS);
+	}
+
+	@Test
+	public void testStepsEndWhereAWormEnds() {
+		World world = createWorld(1.5);
+		NavigationGraph graph = world.getNavigationGraph(RADIUS);
+		IFacade facade = new Facade();
+		while (facade.getWorms(world).isEmpty()) {
+			facade.addNewWorm(world, null);
+		}
+		Worm worm = world.getWorms().get(0);
+		worm.setRadius(graph.getRadius());
+		worm.setPosX(2);
+		worm.setPosY(2.5);
+		worm.fall();
+		worm.setCurrentAP(20);
+
+		List<Step> path = graph.findPath(worm.getPosX(), worm.getPosY(),
+				worm.getCurrentAP(), 18, 2.5);
+		assertNotNull(path);
+		boolean jumped = false;
+		boolean waited = false;
+		for (Step step : path) {
+			if (step.isNextTurn()) {
+				worm.setCurrentAP(worm.getMaxAP());
+				waited = true;
+			}
+			int actionPoints = worm.getCurrentAP();
+			worm.setAngle(step.getAngle());
+			if (step.getAction() == Action.MOVE) {
+				facade.move(worm);
+			} else {
+				assertEquals(actionPoints, step.getCost());
+				facade.jump(worm, NavigationGraph.JUMP_TIME_STEP);
+				jumped = true;
+			}
+			if (facade.canFall(worm)) {
+				facade.fall(worm);
+			}
+			assertEquals(step.getX(), worm.getPosX(), 1e-9);
+			assertEquals(step.getY(), worm.getPosY(), 1e-9);
+			assertEquals(actionPoints - step.getCost(), worm.getCurrentAP());
+		}
+		assertTrue(jumped);
+		assertTrue(waited);
+		assertTrue(Math.hypot(worm.getPosX() - 18, worm.getPosY() - 2.5) <= RADIUS);
+	}
+
+	@Test
+	public void testJumpsWithTheAPLeft() {
+		World world = createWorld(1.5);
+		NavigationGraph graph = world.getNavigationGraph(RADIUS);
+		int actionPoints = 20;
+		for (Step step : graph.findPath(2, 2.5, actionPoints, 18, 2.5)) {
+			if (step.isNextTurn()) {
+				actionPoints = (int) Math.ceil(Worm.getMassOf(RADIUS));
+			}
+			if (step.getAction() == Action.JUMP) {
+				assertEquals(actionPoints, step.getCost());
+			}
+			actionPoints -= step.getCost();
+			assertFalse(actionPoints < 0);
+		}
+	}
+
+	@Test
+	public void testNoPathThroughWallToTheSky() {
+		World world = createWorld(8);
+		assertNull(world.getNavigationGraph(RADIUS).findPath(2, 2.5, 18, 2.5));
+	}
+
+	@Test
+	public void testSameNode() {
+		World world = createWorld(1.5);
+		List<Step> path = world.getNavigationGraph(RADIUS).findPath(2, 2.5, 2,
+				2.5);
+		assertNotNull(path);
+		assertEquals(0, path.size());
+	}
+
+	@Test
+	public void testGraphsAreSharedPerRadiusBucket() {
+		World world = createWorld(1.5);
+		NavigationGraph graph = world.getNavigationGraph(RADIUS);
+		assertSame(graph, world.getNavigationGraph(RADIUS - 0.01));
+		assertTrue(graph.getRadius() >= RADIUS);
+	}
+}
@@ -0,0 +1,106 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import worms.model.programs.execution.PrintSink;
+
+public class PrintSinkTest {
+
+	private static final int THREADS = 4;
+
+	private static final int MESSAGES = 200000;
+
+	@Test
+	public void testEveryMessageIsWrittenInOrderOrDropped()
+			throws InterruptedException {
+		RecordingWriter out = new RecordingWriter();
+		final PrintSink sink = new PrintSink(out, 1024, 1, 1);
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < MESSAGES; i++) {
+						sink.offer(thread + " " + i);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		sink.close();
+
+		String[] lines = out.getText().split("\n");
+		int[] last = new int[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			last[t] = -1;
+		}
+		for (String line : lines) {
+			String[] parts = line.split(" ");
+			int thread = Integer.parseInt(parts[0]);
+			int message = Integer.parseInt(parts[1]);
+			assertTrue(line, message > last[thread]);
+			last[thread] = message;
+		}
+		assertEquals(THREADS * MESSAGES, lines.length + sink.getDropped());
+		assertFalse(sink.offer("after close"));
+	}
+
+	@Test
+	public void testFailedWriteDropsOnlyThatMessage() {
+		RecordingWriter out = new RecordingWriter();
+		out.failOn = "bad";
+		PrintSink sink = new PrintSink(out, 16, 1, 1);
+		sink.offer("first");
+		sink.offer("bad");
+		sink.offer("last");
+		sink.close();
+		assertEquals("first\nlast\n", out.getText());
+		assertEquals(1, sink.getDropped());
+	}
+
+	/**
+	 * Remembers what was written and can fail on one message
+	 */
+	private static class RecordingWriter extends Writer {
+
+		private final StringBuilder text = new StringBuilder();
+
+		volatile String failOn;
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			if (str.equals(failOn)) {
+				throw new IOException("Cannot write " + str);
+			}
+			super.write(str, off, len);
+		}
+
+		@Override
+		public synchronized void write(char[] buffer, int off, int len) {
+			text.append(buffer, off, len);
+		}
+
+		synchronized String getText() {
+			return text.toString();
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
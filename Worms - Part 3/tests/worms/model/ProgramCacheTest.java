@@ -0,0 +1,153 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import worms.model.programs.ParseOutcome;
+import worms.model.programs.ProgramCache;
+
+public class ProgramCacheTest {
+
+	/**
+	 * A parser that counts how often it is called, and fails every program
+	 * with the text as its error
+	 */
+	private static class CountingParser implements ProgramCache.Parser {
+		final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public ParseOutcome<?> parse(String programText) {
+			calls.incrementAndGet();
+			return ParseOutcome.failure(Collections.singletonList(programText));
+		}
+	}
+
+	@Test
+	public void testHit() {
+		ProgramCache cache = new ProgramCache(64);
+		CountingParser parser = new CountingParser();
+		ParseOutcome<?> first = cache.getOrParse("skip;", parser);
+		ParseOutcome<?> second = cache.getOrParse("skip;", parser);
+		assertSame(first, second);
+		assertSame(first, cache.get("skip;"));
+		assertEquals(1, parser.calls.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testMiss() {
+		ProgramCache cache = new ProgramCache(64);
+		CountingParser parser = new CountingParser();
+		assertNull(cache.get("skip;"));
+		cache.getOrParse("skip;", parser);
+		cache.getOrParse("skip; skip;", parser);
+		assertEquals(2, parser.calls.get());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testKeyIsSha256() {
+		assertEquals(
+				"ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+				ProgramCache.getKey("abc"));
+		assertEquals(
+				"e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+				ProgramCache.getKey(""));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		ProgramCache cache = new ProgramCache(64);
+		CountingParser parser = new CountingParser();
+		for (int i = 0; i < 64; i++) {
+			cache.getOrParse("print " + i + ";", parser);
+		}
+		assertEquals(64, cache.size());
+
+		// using the first program keeps it, the second is the eldest now
+		cache.getOrParse("print 0;", parser);
+		cache.getOrParse("print 64;", parser);
+		assertEquals(64, cache.size());
+		assertNotNull(cache.get("print 0;"));
+		assertNull(cache.get("print 1;"));
+		assertNotNull(cache.get("print 64;"));
+		assertEquals(65, parser.calls.get());
+	}
+
+	@Test
+	public void testParsesOnceForConcurrentCalls() throws Exception {
+		final ProgramCache cache = new ProgramCache(64);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger calls = new AtomicInteger();
+		final ProgramCache.Parser slowParser = new ProgramCache.Parser() {
+			@Override
+			public ParseOutcome<?> parse(String programText) {
+				calls.incrementAndGet();
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException exc) {
+					Thread.currentThread().interrupt();
+				}
+				return ParseOutcome.failure(Collections
+						.singletonList(programText));
+			}
+		};
+		final List<ParseOutcome<?>> outcomes = Collections
+				.synchronizedList(new ArrayList<ParseOutcome<?>>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 16; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException exc) {
+						return;
+					}
+					outcomes.add(cache.getOrParse("skip;", slowParser));
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, calls.get());
+		assertEquals(16, outcomes.size());
+		for (ParseOutcome<?> outcome : outcomes) {
+			assertSame(outcomes.get(0), outcome);
+		}
+	}
+
+	@Test
+	public void testFailedParseIsNotCached() {
+		ProgramCache cache = new ProgramCache(64);
+		ProgramCache.Parser failing = new ProgramCache.Parser() {
+			@Override
+			public ParseOutcome<?> parse(String programText) {
+				throw new IllegalArgumentException(programText);
+			}
+		};
+		try {
+			cache.getOrParse("skip;", failing);
+		} catch (IllegalArgumentException exc) {
+			assertEquals("skip;", exc.getMessage());
+		}
+		assertEquals(0, cache.size());
+		CountingParser parser = new CountingParser();
+		cache.getOrParse("skip;", parser);
+		assertEquals(1, parser.calls.get());
+	}
+}
@@ -0,0 +1,156 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.Test;
+
+import worms.model.programs.ProgramFactory;
+import worms.model.programs.ProgramParser;
+import worms.model.programs.parser.PrintingProgramFactoryImpl;
+import worms.model.programs.parser.WormsParserLexer;
+import worms.model.programs.parser.WormsParserMyListener;
+import worms.model.programs.parser.WormsParserParser;
+
+public class ProgramParserTest {
+
+	private static final String PROGRAM = "double a;\n"
+			+ "entity w := null;\n"
+			+ "a := 1.0 - sin(getx self) * 2;\n"
+			+ "foreach (worm, w) do {\n"
+			+ "  if (sameteam w) { skip; } else { fire 50; }\n" + "}\n"
+			+ "while (a < 10) { a := a + 1; turn 0.5; }\n" + "print a;\n";
+
+	private static final String BROKEN = "double a;\n" + "a := 1.0 +;\n"
+			+ "move\n" + "jump;\n";
+
+	/**
+	 * The statement and globals of a program, or its errors, as the printing
+	 * factory writes them
+	 */
+	private static String describe(ProgramParser<?, ?, ?> parser) {
+		if (!parser.getErrors().isEmpty()) {
+			return parser.getErrors().toString();
+		}
+		return parser.getGlobals() + "\n" + parser.getStatement();
+	}
+
+	/**
+	 * Parse the given program in LL mode only, as the parser did before it
+	 * tried SLL first
+	 */
+	private static <E, S, T> String parseLL(String text,
+			ProgramFactory<E, S, T> factory) {
+		WormsParserParser parser = new WormsParserParser(new CommonTokenStream(
+				new WormsParserLexer(new ANTLRInputStream(text))));
+		parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+		parser.removeErrorListeners();
+		final List<String> errors = new ArrayList<String>();
+		parser.addErrorListener(new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer,
+					Object offendingSymbol, int line, int column, String msg,
+					RecognitionException e) {
+				errors.add(line + ":" + column + " syntax error: " + msg);
+			}
+		});
+		WormsParserParser.EvalContext tree = parser.eval();
+		if (!errors.isEmpty()) {
+			return errors.toString();
+		}
+		WormsParserMyListener<E, S, T> listener = new WormsParserMyListener<E, S, T>(
+				factory);
+		ParseTreeWalker.DEFAULT.walk(listener, tree);
+		if (!listener.getErrors().isEmpty()) {
+			return listener.getErrors().toString();
+		}
+		return listener.getGlobals() + "\n" + listener.getStatement();
+	}
+
+	/**
+	 * A parser whose SLL stage gives up once it reaches the token with the
+	 * given index, as it does for input that SLL can not predict
+	 */
+	private static <E, S, T> ProgramParser<E, S, T> bailingAt(
+			ProgramFactory<E, S, T> factory, final int tokenIndex) {
+		return new ProgramParser<E, S, T>(factory) {
+			@Override
+			protected ANTLRErrorStrategy createSLLErrorStrategy() {
+				return new BailErrorStrategy() {
+					@Override
+					public void sync(Parser recognizer) {
+						if (recognizer.getCurrentToken().getTokenIndex() >= tokenIndex) {
+							throw new ParseCancellationException();
+						}
+					}
+				};
+			}
+		};
+	}
+
+	private static int countTokens(String text) {
+		CommonTokenStream tokens = new CommonTokenStream(new WormsParserLexer(
+				new ANTLRInputStream(text)));
+		tokens.fill();
+		return tokens.size();
+	}
+
+	@Test
+	public void testSLLParseEqualsLLParse() {
+		ProgramParser<?, ?, ?> parser = create(new PrintingProgramFactoryImpl());
+		parser.parse(PROGRAM);
+		assertTrue(parser.getErrors().isEmpty());
+		assertEquals(parseLL(PROGRAM, new PrintingProgramFactoryImpl()),
+				describe(parser));
+	}
+
+	@Test
+	public void testFallbackEqualsLLParse() {
+		String expected = parseLL(PROGRAM, new PrintingProgramFactoryImpl());
+		int tokens = countTokens(PROGRAM);
+		for (int index = 0; index < tokens; index++) {
+			ProgramParser<?, ?, ?> parser = bailingAt(
+					new PrintingProgramFactoryImpl(), index);
+			parser.parse(PROGRAM);
+			assertEquals("bailed at token " + index, expected, describe(parser));
+		}
+	}
+
+	@Test
+	public void testSyntaxErrorsHaveLocations() {
+		String expected = parseLL(BROKEN, new PrintingProgramFactoryImpl());
+		ProgramParser<?, ?, ?> parser = create(new PrintingProgramFactoryImpl());
+		parser.parse(BROKEN);
+		assertFalse(parser.getErrors().isEmpty());
+		assertEquals(expected, describe(parser));
+		assertTrue(parser.getErrors().get(0).startsWith("2:10 syntax error"));
+
+		// the same errors, wherever the SLL stage gave up
+		int tokens = countTokens(BROKEN);
+		for (int index = 0; index < tokens; index++) {
+			parser = bailingAt(new PrintingProgramFactoryImpl(), index);
+			parser.parse(BROKEN);
+			assertEquals("bailed at token " + index, expected, describe(parser));
+		}
+	}
+
+	private static <E, S, T> ProgramParser<E, S, T> create(
+			ProgramFactory<E, S, T> factory) {
+		return new ProgramParser<E, S, T>(factory);
+	}
+}
@@ -0,0 +1,290 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.programs.ParseOutcome;
+import worms.model.programs.execution.ExecutionResult;
+import worms.model.programs.execution.Frame;
+
+public class ProgramTest {
+
+	private IFacade facade;
+
+	private World world;
+
+	private RecordingActionHandler handler;
+
+	// 8 passable rows above 2 impassable ones
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[10][20];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 20; column++) {
+				passableMap[row][column] = true;
+			}
+		}
+		return passableMap;
+	}
+
+	@Before
+	public void setup() {
+		facade = new Facade();
+		world = facade.createWorld(20.0, 10.0, createPassableMap(),
+				new Random(7357));
+		handler = new RecordingActionHandler(facade);
+	}
+
+	@Test
+	public void testBudgetSuspendsAndResumesAcrossTurns() {
+		Program program = parse("double x; while (x < 3000) { x := x + 1; print x; }");
+		addWorm(program);
+		addWorm(null);
+
+		facade.startGame(world);
+		int firstTurn = handler.printed.size();
+		assertTrue(firstTurn > 0);
+		assertTrue(firstTurn < Program.MAX_STATEMENTS_PER_TURN);
+		assertCounting(handler.printed);
+
+		facade.startNextTurn(world);
+		// the loop continues where it stopped, it does not start over
+		assertEquals(2 * firstTurn, handler.printed.size());
+		assertCounting(handler.printed);
+
+		for (int turn = 0; turn < 3000 / firstTurn; turn++) {
+			facade.startNextTurn(world);
+		}
+		assertEquals(3000, handler.printed.size());
+		assertCounting(handler.printed);
+	}
+
+	@Test
+	public void testExecuteStopsAtBudget() {
+		Program program = parse("print 1; print 2; print 3; print 4; print 5;");
+		Worm worm = addWorm(null);
+		Frame frame = program.createFrame(worm);
+
+		assertEquals(ExecutionResult.BUDGET_EXHAUSTED, program.execute(frame, 2));
+		assertEquals(2, handler.printed.size());
+		assertEquals(ExecutionResult.BUDGET_EXHAUSTED, program.execute(frame, 2));
+		assertEquals(4, handler.printed.size());
+		assertEquals(ExecutionResult.TERMINATED, program.execute(frame, 2));
+		assertCounting(handler.printed);
+		assertEquals(5, handler.printed.size());
+		assertTrue(frame.isTerminated());
+	}
+
+	@Test
+	public void testWhile() {
+		Program program = parse("double x; while (x < 1.45) do { x := x + 0.1; } print x;");
+		Worm worm = addWorm(null);
+		program.execute(program.createFrame(worm),
+				Program.MAX_STATEMENTS_PER_TURN);
+		assertEquals(1, handler.printed.size());
+		assertEquals(1.5, Double.parseDouble(handler.printed.get(0)), 1e-9);
+	}
+
+	@Test
+	public void testForeachWorm() {
+		Program program = parse("entity w; foreach (worm, w) do { print getx w; }");
+		Worm worm = addWorm(null);
+		addWorm(null);
+		addFood();
+		program.execute(program.createFrame(worm),
+				Program.MAX_STATEMENTS_PER_TURN);
+
+		Set<Double> expected = new HashSet<Double>();
+		for (Worm each : facade.getWorms(world)) {
+			expected.add(each.getPosX());
+		}
+		assertEquals(facade.getWorms(world).size(), handler.printed.size());
+		assertEquals(expected, parseAll(handler.printed));
+	}
+
+	@Test
+	public void testForeachFood() {
+		Program program = parse("entity f; foreach (food, f) do { print getx f; }");
+		addFood();
+		addFood();
+		Worm worm = addWorm(null);
+		program.execute(program.createFrame(worm),
+				Program.MAX_STATEMENTS_PER_TURN);
+
+		Set<Double> expected = new HashSet<Double>();
+		for (Food food : facade.getFood(world)) {
+			expected.add(food.getPosX());
+		}
+		assertEquals(facade.getFood(world).size(), handler.printed.size());
+		assertEquals(expected, parseAll(handler.printed));
+	}
+
+	@Test
+	public void testTypeErrorRejectedAtParseTime() throws IOException {
+		ParseOutcome<?> outcome = facade.parseProgram(
+				readProgram("programs/syntax_test.txt"), handler);
+		assertFalse(outcome.isSuccess());
+		assertTrue(outcome.getResult().toString(), outcome.getResult()
+				.toString().contains("22:6 expected boolean"));
+	}
+
+	@Test
+	public void testFailedActionIsRetriedNextTurn() {
+		handler.failingJumps = 1;
+		Program program = parse("print 1; jump; print 2;");
+		Worm worm = addWorm(program);
+		addWorm(null);
+
+		facade.startGame(world);
+		// the program stopped at the jump and the turn ended
+		assertEquals(1, handler.jumps);
+		assertEquals(1, handler.printed.size());
+		assertNotSame(worm, world.getWorms().get(world.getIndex()));
+
+		facade.startNextTurn(world);
+		assertEquals(2, handler.jumps);
+		assertEquals(2, handler.printed.size());
+		assertCounting(handler.printed);
+	}
+
+	@Test
+	public void testProfileCountsStatements() throws Exception {
+		handler.turnDelay = 20;
+		Program program = parse("double x;\n"
+				+ "while (x < 3) {\n"
+				+ "  x := x + 1;\n"
+				+ "}\n"
+				+ "turn 0.1;\n"
+				+ "print x;\n");
+		Worm worm = addWorm(null);
+		Frame frame = program.createFrame(worm);
+		frame.setProfile(program.createProfile());
+		program.execute(frame, Program.MAX_STATEMENTS_PER_TURN);
+
+		Map<String, long[]> totals = frame.getProfile().getTotals();
+		assertEquals(4, totals.get("while@2:0")[0]);
+		assertEquals(3, totals.get("while@2:0;assignment@3:2")[0]);
+		assertEquals(1, totals.get("turn@5:0")[0]);
+		assertEquals(1, totals.get("print@6:0")[0]);
+
+		// the delay of the handler is waiting, not time in the program
+		long[] turn = totals.get("turn@5:0");
+		assertTrue(turn[2] >= 20000000L);
+		assertTrue(turn[1] < 20000000L);
+		assertEquals(0, totals.get("print@6:0")[2]);
+	}
+
+	private Program parse(String text) {
+		ParseOutcome<?> outcome = facade.parseProgram(text, handler);
+		assertTrue(String.valueOf(outcome.getResult()), outcome.isSuccess());
+		return (Program) outcome.getResult();
+	}
+
+	/**
+	 * Adds a worm at a random location; the world drops worms that overlap
+	 * others, so this tries until one was added
+	 */
+	private Worm addWorm(Program program) {
+		int worms = facade.getWorms(world).size();
+		while (facade.getWorms(world).size() == worms) {
+			facade.addNewWorm(world, program);
+		}
+		List<Worm> all = world.getWorms();
+		return all.get(all.size() - 1);
+	}
+
+	private void addFood() {
+		int food = facade.getFood(world).size();
+		while (facade.getFood(world).size() == food) {
+			facade.addNewFood(world);
+		}
+	}
+
+	/**
+	 * Checks that the printed values are 1, 2, 3, ...
+	 */
+	private static void assertCounting(List<String> printed) {
+		for (int i = 0; i < printed.size(); i++) {
+			assertEquals(i + 1, Double.parseDouble(printed.get(i)), 0);
+		}
+	}
+
+	private static Set<Double> parseAll(List<String> printed) {
+		Set<Double> values = new HashSet<Double>();
+		for (String value : printed) {
+			values.add(Double.parseDouble(value));
+		}
+		return values;
+	}
+
+	private static String readProgram(String path) throws IOException {
+		InputStream in = new FileInputStream(path);
+		try {
+			StringBuilder text = new StringBuilder();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				text.append(new String(buffer, 0, read, "UTF-8"));
+			}
+			return text.toString();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Performs the actions on the facade, remembers what was printed and can
+	 * fail the first jumps
+	 */
+	private static class RecordingActionHandler extends SimpleActionHandler {
+
+		final List<String> printed = new ArrayList<String>();
+		int failingJumps = 0;
+		int jumps = 0;
+		long turnDelay = 0;
+
+		RecordingActionHandler(IFacade facade) {
+			super(facade);
+		}
+
+		@Override
+		public void print(String message) {
+			printed.add(message);
+		}
+
+		@Override
+		public boolean turn(Worm worm, double angle) {
+			// like the GUI, which blocks until the turn has been shown
+			try {
+				Thread.sleep(turnDelay);
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+			return super.turn(worm, angle);
+		}
+
+		@Override
+		public boolean jump(Worm worm) {
+			jumps++;
+			if (failingJumps > 0) {
+				failingJumps--;
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProjectileTest {
+
+	private IFacade facade;
+	private World world;
+	private Worm worm;
+
+	// open sky above a floor of 2 meters
+	@Before
+	public void setUp() {
+		boolean[][] passableMap = new boolean[40][40];
+		for (int row = 0; row < 36; row++) {
+			for (int column = 0; column < 40; column++) {
+				passableMap[row][column] = true;
+			}
+		}
+		facade = new Facade();
+		world = facade.createWorld(20.0, 20.0, passableMap, new Random(35));
+		while (facade.getWorms(world).isEmpty()) {
+			facade.addNewWorm(world, null);
+		}
+		worm = world.getWorms().get(0);
+		worm.setAngle(0);
+	}
+
+	@Test
+	public void testRadiusOfRealShots() {
+		facade.shoot(worm, 100);
+		Projectile bazooka = world.getProjectiles().get(0);
+		assertEquals(getRadius(Projectile.getMassOf("Bazooka")),
+				facade.getRadius(bazooka), 1e-12);
+		assertTrue(facade.getRadius(bazooka) < 1);
+	}
+
+	@Test
+	public void testRadiusOfRiflePellets() {
+		selectRifle();
+		facade.shoot(worm, 0);
+		Projectile rifle = world.getProjectiles().get(0);
+		assertEquals(getRadius(Projectile.getMassOf("Rifle")),
+				facade.getRadius(rifle), 1e-12);
+	}
+
+	@Test
+	public void testLaunchedFromTheEdgeOfTheWorm() {
+		for (double angle = -Math.PI; angle < Math.PI; angle += Math.PI / 8) {
+			worm.setAngle(angle);
+			Projectile projectile = new Projectile(worm);
+			assertEquals(worm.getPosX() + worm.getRadius() * Math.cos(angle),
+					projectile.getPosX(), 1e-12);
+			assertEquals(worm.getPosY() + worm.getRadius() * Math.sin(angle),
+					projectile.getPosY(), 1e-12);
+		}
+	}
+
+	@Test
+	public void testRealShotFallsFromItsLaunchPosition() {
+		// the pellet is so slow that it drops almost straight down from
+		// where it was launched
+		selectRifle();
+		double x = worm.getPosX();
+		double y = worm.getPosY();
+		facade.shoot(worm, 0);
+		Projectile rifle = world.getProjectiles().get(0);
+		assertEquals(x + worm.getRadius(), facade.getX(rifle), 0.05);
+		assertTrue(facade.getY(rifle) <= y);
+	}
+
+	private void selectRifle() {
+		worm.selectNextWeapon();
+		worm.setSelectedWeapon();
+		assertEquals("Rifle", facade.getSelectedWeapon(worm));
+	}
+
+	private static double getRadius(double mass) {
+		return Math.cbrt(mass / (Projectile.DENSITY * 4 / 3 * Math.PI));
+	}
+}
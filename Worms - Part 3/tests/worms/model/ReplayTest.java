@@ -0,0 +1,123 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import worms.model.programs.ParseOutcome;
+
+public class ReplayTest {
+
+	// 8 passable rows above 2 impassable ones
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[10][20];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 20; column++) {
+				passableMap[row][column] = true;
+			}
+		}
+		return passableMap;
+	}
+
+	@Test
+	public void testReplayEndsInTheRecordedState() throws IOException {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		ReplayRecorder recorder = new ReplayRecorder(log);
+		Facade facade = new Facade();
+		facade.setRecorder(recorder);
+		World world = facade.createWorld(20.0, 10.0, createPassableMap(),
+				new Random(39));
+
+		ParseOutcome<?> outcome = facade.parseProgram(
+				"turn(0.3); move; toggleweap;", new SimpleActionHandler(
+						facade));
+		assertTrue(outcome.isSuccess());
+		facade.addEmptyTeam(world, "Alpha");
+		addWorm(facade, world, (Program) outcome.getResult());
+		addWorm(facade, world, null);
+		facade.addEmptyTeam(world, "Beta");
+		addWorm(facade, world, null);
+		while (facade.getFood(world).isEmpty()) {
+			facade.addNewFood(world);
+		}
+
+		facade.startGame(world);
+		int turns = 0;
+		for (; turns < 8 && !facade.isGameFinished(world); turns++) {
+			Worm worm = facade.getCurrentWorm(world);
+			if (!worm.hasProgram()) {
+				play(facade, worm, turns);
+			}
+			facade.startNextTurn(world);
+		}
+		assertEquals(8, turns);
+		long hash = world.getStateHash();
+		recorder.close();
+		assertNull(recorder.getError());
+
+		ReplayPlayer player = new ReplayPlayer(new Facade());
+		World replayed = player.play(new ByteArrayInputStream(log
+				.toByteArray()));
+		assertNotSame(world, replayed);
+		assertEquals(hash, replayed.getStateHash());
+		assertEquals(world.getWorms().size(), replayed.getWorms().size());
+		for (int i = 0; i < world.getWorms().size(); i++) {
+			Worm worm = world.getWorms().get(i);
+			Worm other = replayed.getWorms().get(i);
+			assertEquals(worm.getPosX(), other.getPosX(), 0);
+			assertEquals(worm.getPosY(), other.getPosY(), 0);
+			assertEquals(worm.getRadius(), other.getRadius(), 0);
+			assertEquals(worm.getHP(), other.getHP());
+			assertEquals(worm.getCurrentAP(), other.getCurrentAP());
+		}
+	}
+
+	/**
+	 * Lets a worm of a player turn, move, jump, grow and shoot through the
+	 * facade, as the game does
+	 */
+	private static void play(IFacade facade, Worm worm, int turn) {
+		try {
+			facade.turn(worm, turn % 2 == 0 ? 0.4 : -0.4);
+			if (facade.canMove(worm)) {
+				facade.move(worm);
+			}
+			facade.setRadius(worm, worm.getRadius() * 1.05);
+			facade.rename(worm, "Replay " + turn);
+			facade.selectNextWeapon(worm);
+			facade.shoot(worm, 30 + 10 * turn);
+			Projectile projectile = facade.getActiveProjectile(worm.getWorld());
+			if (projectile != null) {
+				facade.jump(projectile, ReplayPlayer.JUMP_TIME_STEP);
+			}
+			facade.jump(worm, ReplayPlayer.JUMP_TIME_STEP);
+			if (facade.canFall(worm)) {
+				facade.fall(worm);
+			}
+		} catch (ModelException exc) {
+			// a failed action is recorded and fails again in the replay
+		}
+	}
+
+	/**
+	 * Adds a worm at a random location; the world drops worms that overlap
+	 * others, so this tries until one was added
+	 */
+	private static Worm addWorm(IFacade facade, World world, Program program) {
+		int worms = facade.getWorms(world).size();
+		while (facade.getWorms(world).size() == worms) {
+			facade.addNewWorm(world, program);
+		}
+		List<Worm> all = world.getWorms();
+		return all.get(all.size() - 1);
+	}
+}
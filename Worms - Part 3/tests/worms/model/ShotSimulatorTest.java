@@ -0,0 +1,165 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import worms.model.ShotSimulator.Shot;
+
+public class ShotSimulatorTest {
+
+	private static final double EPS = 1e-9;
+
+	private final IFacade facade = new Facade();
+
+	// 8 passable rows above 2 impassable ones, with a wall in the middle
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[10][20];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 20; column++) {
+				passableMap[row][column] = column != 10 || row < 3;
+			}
+		}
+		return passableMap;
+	}
+
+	private World createWorld() {
+		World world = facade.createWorld(20.0, 10.0, createPassableMap(),
+				new Random(4242));
+		for (int i = 0; i < 3; i++) {
+			int worms = facade.getWorms(world).size();
+			while (facade.getWorms(world).size() == worms) {
+				facade.addNewWorm(world, null);
+			}
+		}
+		return world;
+	}
+
+	@Test
+	public void testSimulatedShotsLandWhereRealShotsLand() {
+		int fired = 0;
+		for (String weapon : new String[] { "Bazooka", "Rifle" }) {
+			for (int i = 0; i < 8; i++) {
+				World world = createWorld();
+				Worm shooter = world.getWorms().get(0);
+				while (!weapon.equals(shooter.getSelectedWeapon())) {
+					shooter.selectNextWeapon();
+					shooter.setSelectedWeapon();
+				}
+				double angle = -Math.PI + 2 * Math.PI * (i + 0.5) / 8;
+				shooter.setAngle(angle);
+				Shot shot = new ShotSimulator(world).simulate(shooter, weapon,
+						angle, 50);
+				try {
+					facade.shoot(shooter, 50);
+				} catch (ModelException exc) {
+					// launched outside the world, nothing to compare
+					continue;
+				}
+				Projectile projectile = facade.getActiveProjectile(world);
+				facade.jump(projectile, ShotSimulator.TIME_STEP);
+				assertEquals(projectile.getPosX(), shot.getImpactX(), EPS);
+				assertEquals(projectile.getPosY(), shot.getImpactY(), EPS);
+				fired++;
+			}
+		}
+		assertTrue(fired > 8);
+	}
+
+	@Test
+	public void testUsesTheWormsAsTheyWereWhenMade() {
+		World world = createWorld();
+		Worm shooter = world.getWorms().get(0);
+		Worm target = world.getWorms().get(1);
+		ShotSimulator simulator = new ShotSimulator(world);
+		Shot before = simulator.simulate(shooter, "Bazooka", 1.0, 70);
+		List<Shot> bestBefore = simulator.search(shooter, target, 16, 4, 5);
+
+		shooter.setPosX(shooter.getPosX() + 1);
+		target.setPosX(target.getPosX() - 1);
+		Shot after = simulator.simulate(shooter, "Bazooka", 1.0, 70);
+		List<Shot> bestAfter = simulator.search(shooter, target, 16, 4, 5);
+
+		assertEquals(before.getImpactX(), after.getImpactX(), 0);
+		assertEquals(before.getImpactY(), after.getImpactY(), 0);
+		assertEquals(bestBefore.size(), bestAfter.size());
+		for (int i = 0; i < bestBefore.size(); i++) {
+			assertEquals(bestBefore.get(i).getAngle(), bestAfter.get(i)
+					.getAngle(), 0);
+			assertEquals(bestBefore.get(i).getPropulsionYield(), bestAfter
+					.get(i).getPropulsionYield());
+		}
+	}
+
+	@Test
+	public void testSearchPutsHitsFirst() {
+		World world = createWorld();
+		Worm shooter = world.getWorms().get(0);
+		Worm target = world.getWorms().get(1);
+		List<Shot> best = new ShotSimulator(world).search(shooter, target, 90,
+				11, 10);
+		assertFalse(best.isEmpty());
+		boolean missed = false;
+		for (Shot shot : best) {
+			assertFalse(shot.hits(shooter));
+			if (!shot.hits(target)) {
+				missed = true;
+			} else {
+				assertFalse("a hit is ranked after a miss", missed);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsWormsAddedLater() {
+		World world = createWorld();
+		ShotSimulator simulator = new ShotSimulator(world);
+		int worms = facade.getWorms(world).size();
+		while (facade.getWorms(world).size() == worms) {
+			facade.addNewWorm(world, null);
+		}
+		List<Worm> all = world.getWorms();
+		simulator.simulate(all.get(all.size() - 1), "Rifle", 0, 0);
+	}
+
+	@Test
+	public void testChainsShotsThroughSnapshots() {
+		World world = createWorld();
+		Worm shooter = world.getWorms().get(0);
+		WorldSnapshot snapshot = WorldSnapshot.of(world);
+
+		// the snapshot decides where the worms are, not the world
+		Shot missed = new ShotSimulator(snapshot).simulate(shooter, "Bazooka",
+				1.0, 60);
+		Worm target = null;
+		for (Worm worm : world.getWorms()) {
+			if (worm != shooter && !missed.hits(worm)) {
+				target = worm;
+			}
+		}
+		int targetIndex = snapshot.indexOf(target);
+		WorldSnapshot moved = snapshot.fork();
+		moved.setPosition(targetIndex, missed.getImpactX(),
+				missed.getImpactY());
+		Shot shot = new ShotSimulator(moved).simulate(shooter, "Bazooka", 1.0,
+				60);
+		assertTrue(shot.hits(target));
+		assertFalse(new ShotSimulator(world).simulate(shooter, "Bazooka", 1.0,
+				60).hits(target));
+
+		int hp = moved.getHP(targetIndex);
+		moved.apply(shot);
+		assertEquals(hp - shot.getDamage(), moved.getHP(targetIndex));
+		assertEquals(hp, snapshot.getHP(targetIndex));
+
+		// a worm that died in the snapshot can no longer be hit
+		moved.setHP(targetIndex, 0);
+		assertFalse(new ShotSimulator(moved).simulate(shooter, "Bazooka",
+				1.0, 60).hits(target));
+	}
+}
@@ -0,0 +1,140 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WorldSnapshotTest {
+
+	private static World world;
+
+	// every third row is impassable, so many worms find a place
+	private static boolean[][] createPassableMap() {
+		boolean[][] passableMap = new boolean[90][120];
+		for (int row = 0; row < 90; row++) {
+			for (int column = 0; column < 120; column++) {
+				passableMap[row][column] = row % 3 != 2;
+			}
+		}
+		return passableMap;
+	}
+
+	@BeforeClass
+	public static void createWorld() {
+		IFacade facade = new Facade();
+		world = facade.createWorld(120.0, 90.0, createPassableMap(),
+				new Random(38));
+		// more than 32 * 32 worms, so the stores are three levels deep
+		while (facade.getWorms(world).size() < 1100) {
+			facade.addNewWorm(world, null);
+		}
+	}
+
+	@Test
+	public void testForksMatchCopiedArrays() {
+		Random random = new Random(38);
+		List<WorldSnapshot> snapshots = new ArrayList<WorldSnapshot>();
+		List<int[]> models = new ArrayList<int[]>();
+		WorldSnapshot first = WorldSnapshot.of(world);
+		int[] firstModel = new int[first.getAmountOfWorms()];
+		for (int i = 0; i < firstModel.length; i++) {
+			firstModel[i] = first.getHP(i);
+		}
+		int[] original = firstModel.clone();
+		snapshots.add(first);
+		models.add(firstModel);
+
+		for (int operation = 0; operation < 20000; operation++) {
+			int which = random.nextInt(snapshots.size());
+			if (random.nextInt(4) == 0) {
+				snapshots.add(snapshots.get(which).fork());
+				models.add(models.get(which).clone());
+			} else {
+				int index = random.nextInt(firstModel.length);
+				int hp = random.nextInt(1000);
+				snapshots.get(which).setHP(index, hp);
+				models.get(which)[index] = hp;
+			}
+		}
+
+		for (int s = 0; s < snapshots.size(); s++) {
+			WorldSnapshot snapshot = snapshots.get(s);
+			int[] model = models.get(s);
+			for (int i = 0; i < model.length; i++) {
+				assertEquals(model[i], snapshot.getHP(i));
+			}
+		}
+		// the world itself is never changed
+		for (int i = 0; i < original.length; i++) {
+			assertEquals(original[i], world.getWorms().get(i).getHP());
+		}
+	}
+
+	@Test
+	public void testChangesDoNotLeakBetweenForks() {
+		WorldSnapshot snapshot = WorldSnapshot.of(world);
+		Worm worm = world.getWorms().get(700);
+		int index = snapshot.indexOf(worm);
+		assertSame(worm, snapshot.getWorm(index));
+
+		WorldSnapshot fork = snapshot.fork();
+		fork.setPosition(index, 1, 2);
+		fork.setAngle(index, 0.5);
+		fork.setAP(index, 3);
+		fork.damage(index, fork.getHP(index) + 10);
+
+		assertEquals(1, fork.getX(index), 0);
+		assertEquals(2, fork.getY(index), 0);
+		assertEquals(0.5, fork.getAngle(index), 0);
+		assertEquals(3, fork.getAP(index));
+		assertEquals(0, fork.getHP(index));
+		assertTrue(!fork.isAlive(index));
+
+		assertEquals(worm.getPosX(), snapshot.getX(index), 0);
+		assertEquals(worm.getPosY(), snapshot.getY(index), 0);
+		assertEquals(worm.getAngle(), snapshot.getAngle(index), 0);
+		assertEquals(worm.getCurrentAP(), snapshot.getAP(index));
+		assertEquals(worm.getHP(), snapshot.getHP(index));
+		assertTrue(snapshot.isAlive(index));
+	}
+
+	@Test
+	public void testEatingGrowsTheWormInTheSnapshotOnly() {
+		IFacade facade = new Facade();
+		World small = facade.createWorld(120.0, 90.0, createPassableMap(),
+				new Random(380));
+		while (facade.getWorms(small).isEmpty()) {
+			facade.addNewWorm(small, null);
+		}
+		while (facade.getFood(small).isEmpty()) {
+			facade.addNewFood(small);
+		}
+		Worm worm = small.getWorms().get(0);
+		double radius = worm.getRadius();
+		WorldSnapshot snapshot = WorldSnapshot.of(small);
+		assertEquals(radius, snapshot.getRadius(0), 0);
+
+		WorldSnapshot fork = snapshot.fork();
+		fork.removeFood(0, 0);
+		assertNull(fork.getFood(0));
+		assertEquals(radius * 1.1, fork.getRadius(0), 1e-12);
+		fork.removeFood(0, 0);
+		assertEquals(radius * 1.1, fork.getRadius(0), 1e-12);
+		assertNotNull(snapshot.getFood(0));
+		assertEquals(radius, snapshot.getRadius(0), 0);
+
+		// the snapshot keeps the radius it was made with
+		worm.setRadius(radius * 2);
+		assertEquals(radius, snapshot.getRadius(0), 0);
+		assertEquals(radius * 1.1, fork.getRadius(0), 1e-12);
+	}
+}
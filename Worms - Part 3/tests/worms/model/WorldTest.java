@@ -0,0 +1,60 @@
+package worms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WorldTest {
+
+	// . X .
+	// . . .
+	// . . .
+	// X X X
+	private static final boolean[][] SMALL_MAP = new boolean[][] {
+			{ true, false, true }, { true, true, true }, { true, true, true },
+			{ false, false, false } };
+
+	@Test(timeout = 10000)
+	public void testAddFoodTerminates() {
+		IFacade facade = new Facade();
+		for (int seed = 0; seed < 300; seed++) {
+			World world = facade.createWorld(3.0, 4.0, SMALL_MAP, new Random(
+					seed));
+			for (int i = 0; i < 5; i++) {
+				facade.addNewFood(world);
+			}
+			for (Food food : facade.getFood(world)) {
+				assertTrue(world.foodInBounds(food));
+			}
+		}
+	}
+
+	@Test
+	public void testTurnHashesAreBounded() {
+		boolean[][] passableMap = new boolean[10][20];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 20; column++) {
+				passableMap[row][column] = true;
+			}
+		}
+		IFacade facade = new Facade();
+		World world = facade.createWorld(20.0, 10.0, passableMap, new Random(
+				11));
+		while (facade.getWorms(world).size() < 2) {
+			facade.addNewWorm(world, null);
+		}
+		facade.startGame(world);
+		int turns = World.MAX_TURN_HASHES + 100;
+		for (int turn = 1; turn < turns; turn++) {
+			facade.startNextTurn(world);
+		}
+		assertEquals(turns, world.getAmountOfTurns());
+		List<Long> hashes = world.getTurnHashes();
+		assertEquals(World.MAX_TURN_HASHES, hashes.size());
+		assertEquals(world.getStateHash(), (long) hashes.get(hashes.size() - 1));
+	}
+}